@@ -1,8 +1,12 @@
 package hex.deeplearning;
 
+import hex.ModelExportOption;
 import hex.ModelMojoWriter;
+import hex.genmodel.algos.deeplearning.QuantizedWeights;
+import water.util.Log;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import static water.H2O.technote;
 
@@ -27,7 +31,17 @@ public class DeepLearningMojoWriter extends ModelMojoWriter<DeepLearningModel,
 
   @Override
   public String mojoVersion() {
-    return "1.10";
+    return weightsPrecision() != null ? "1.20" : "1.10";
+  }
+
+  /**
+   * @return precision of the weights requested by the export options, null for full precision
+   */
+  private QuantizedWeights.Precision weightsPrecision() {
+    ModelExportOption quantization = quantization();
+    if (quantization == null)
+      return null;
+    return quantization == ModelExportOption.MOJO_QUANTIZE_INT8 ? QuantizedWeights.Precision.INT8 : QuantizedWeights.Precision.FP16;
   }
 
   @Override
@@ -52,6 +66,10 @@ public class DeepLearningMojoWriter extends ModelMojoWriter<DeepLearningModel,
     // keep track of neuron network sizes, weights and biases. Layer 0 is the output layer.  Last layer is output layer
     int numberOfWeights = 1+_parms._hidden.length;
     double[] all_drop_out_ratios = new double[numberOfWeights];
+    QuantizedWeights.Precision precision = weightsPrecision();
+    double[] quantizationErrors = new double[numberOfWeights];
+    if (precision != null)
+      writekv("weights_precision", precision);
 
     for (int index = 0; index < numberOfWeights; index++) {
       if (index==_parms._hidden.length) { // input layer
@@ -65,10 +83,23 @@ public class DeepLearningMojoWriter extends ModelMojoWriter<DeepLearningModel,
       }
 
       //generate hash key to store weights/bias of all layers
-      writekv("weight_layer"+index, _model_info.get_weights(index).raw());
+      float[] weights = _model_info.get_weights(index).raw();
+      if (precision != null) {
+        byte[] blob = QuantizedWeights.encode(weights, _model_info.units[index + 1], precision);
+        quantizationErrors[index] = relativeError(weights, QuantizedWeights.decode(blob, precision));
+        writeblob("weights/layer" + index + ".bin", blob);
+      } else {
+        writekv("weight_layer"+index, weights);
+      }
       writekv("bias_layer"+index, _model_info.get_biases(index).raw());
     }
     writekv("hidden_dropout_ratios", all_drop_out_ratios);
+    if (precision != null) {
+      // relative RMS error of the weights of each layer
+      writekv("weights_quantization_error", quantizationErrors);
+      Log.info("MOJO of model " + model._key + ": weights stored as " + precision + ", relative error of the weights " +
+              "by layer: " + Arrays.toString(quantizationErrors));
+    }
     writekv("_genmodel_encoding", model.getGenModelEncoding());
     String[] origNames = model._output._origNames;
     if (origNames != null) {
@@ -89,4 +120,14 @@ public class DeepLearningMojoWriter extends ModelMojoWriter<DeepLearningModel,
     }
     writekv("_orig_projection_array", model._output._orig_projection_array);
   }
+
+  private static double relativeError(float[] expected, float[] actual) {
+    double err = 0, norm = 0;
+    for (int i = 0; i < expected.length; i++) {
+      double d = expected[i] - actual[i];
+      err += d * d;
+      norm += (double) expected[i] * expected[i];
+    }
+    return norm == 0 ? 0 : Math.sqrt(err / norm);
+  }
 }
@@ -51,6 +51,20 @@ public class CompressedTree extends Keyed<CompressedTree> {
     return SharedTreeMojoModel.scoreTree(_bits, row, false, domains);
   }
 
+  /**
+   * @return {min, max} of the predictions of the leaves, bounds of what {@link #score} can return
+   */
+  public double[] leafRange() {
+    final double[] range = {Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+    new TreeVisitor<RuntimeException>(this) {
+      @Override protected void leaf(float pred) {
+        range[0] = Math.min(range[0], pred);
+        range[1] = Math.max(range[1], pred);
+      }
+    }.visit();
+    return range;
+  }
+
   @Deprecated
   public String getDecisionPath(final double row[], final String[][] domains) {
     double d = SharedTreeMojoModel.scoreTree(_bits, row, true, domains);
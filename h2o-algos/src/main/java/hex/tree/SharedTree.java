@@ -1,6 +1,7 @@
 package hex.tree;
 
 import hex.*;
+import hex.faulttolerance.AsyncCheckpointWriter;
 import hex.genmodel.GenModel;
 import hex.genmodel.utils.DistributionFamily;
 import hex.tree.gbm.GBMModel;
@@ -336,7 +337,7 @@ public abstract class SharedTree<
           final Timer quantileT = new Timer();
           final double[][] quantileSplitPoints = GlobalQuantilesCalc.splitPoints(_train, _parms._weights_column, 
                   exactSplitPoints, _parms._nbins, _parms._nbins_top_level);
-          Futures fs = new Futures();
+          List<DHistogram.HistoSplitPoints> splitPoints = new ArrayList<>();
           int qCnt = 0, eCnt = 0;
           for (int i = 0; i < quantileSplitPoints.length; i++) {
             assert exactSplitPoints[i] == null || quantileSplitPoints[i] == null;
@@ -347,10 +348,11 @@ public abstract class SharedTree<
             double[] sp = useQuantiles ? quantileSplitPoints[i] : exactSplitPoints[i];
             if (sp != null) {
               if (useQuantiles) { qCnt++; } else { eCnt++; }
-              DKV.put(new DHistogram.HistoSplitPoints(key, sp, useQuantiles), fs);
+              splitPoints.add(new DHistogram.HistoSplitPoints(key, sp, useQuantiles));
             }
           }
-          fs.blockForPending();
+          // read by every histogram on every node, keep a copy on each node
+          DKV.broadcast(splitPoints.toArray(new DHistogram.HistoSplitPoints[0]));
           LOG.info("Split-points are defined using " + eCnt + " exact sets of points and " + qCnt + " sets of quantile values.");
           LOG.info("Calculating top-level histogram split-points took " + quantileT);
         }
@@ -408,8 +410,15 @@ public abstract class SharedTree<
         if (_eventPublisher != null) {
           _eventPublisher.onAllIterationsComplete();
         }
+        if (_checkpointWriter != null) {
+          _checkpointWriter.await(); // the last checkpoints are on the storage once the job is done
+          if (_checkpointWriter.failed() > 0)
+            LOG.warn(_checkpointWriter.failed() + " in-training checkpoints could not be written, see the log for details.");
+        }
         if( _model!=null ) _model.unlock(_job);
-        for (Key<?> k : getGlobalSplitPointsKeys()) Keyed.remove(k);
+        Futures fs = new Futures();
+        for (Key<?> k : getGlobalSplitPointsKeys()) Keyed.remove(k, fs, true);
+        fs.blockForPending();
         if (_validWorkspace != null) {
           _validWorkspace.remove();
           _validWorkspace = null;
@@ -440,6 +449,15 @@ public abstract class SharedTree<
       throw new UnsupportedOperationException("In training checkpoints are not supported for this algorithm");
     }
 
+    private AsyncCheckpointWriter _checkpointWriter;
+
+    /** Writes in-training checkpoints in the background, see {@link #doInTrainingCheckpoint()} */
+    protected AsyncCheckpointWriter checkpointWriter() {
+      if (_checkpointWriter == null)
+        _checkpointWriter = new AsyncCheckpointWriter();
+      return _checkpointWriter;
+    }
+
     // Common methods for all tree builders
 
     protected Frame makeValidWorkspace() { return null; }
@@ -715,6 +733,15 @@ public abstract class SharedTree<
     }
   }
 
+  // The training frame gets nclass forest and nclass work doubles, nclass NID
+  // ints and the OUT_BAG_TREES column per row, see the layout below
+  @Override protected double memoryFactor() {
+    final long bytes = _train.byteSize();
+    if (bytes == 0) return 1;
+    final int k = Math.max(1, nclasses());
+    return 1 + (double) _train.numRows() * (k * (2 * 8 + 4) + 4) / bytes;
+  }
+
   // --------------------------------------------------------------------------
   // Convenience accessor for a complex chunk layout.
   // Wish I could name the array elements nicer...
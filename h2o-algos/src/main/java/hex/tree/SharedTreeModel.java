@@ -193,6 +193,10 @@ public abstract class SharedTreeModel<
     public Key<CompressedTree>[/*_ntrees*/][/*_nclass*/] _treeKeys;
     public Key<CompressedTree>[/*_ntrees*/][/*_nclass*/] _treeKeysAux;
 
+    /** Smallest and largest leaf of each tree - bounds of what a tree can contribute to a prediction, 0 for no tree. */
+    public double[/*_ntrees*/][/*_nclass*/] _treeLeafMin;
+    public double[/*_ntrees*/][/*_nclass*/] _treeLeafMax;
+
     public ScoreKeeper[/*ntrees+1*/] _scored_train;
     public ScoreKeeper[/*ntrees+1*/] _scored_valid;
     public ScoreKeeper[] scoreKeepers() {
@@ -223,6 +227,8 @@ public abstract class SharedTreeModel<
       _ntrees = 0;              // No trees yet
       _treeKeys = new Key[_ntrees][]; // No tree keys yet
       _treeKeysAux = new Key[_ntrees][]; // No tree keys yet
+      _treeLeafMin = new double[_ntrees][];
+      _treeLeafMax = new double[_ntrees][];
       _treeStats = new TreeStats();
       _scored_train = new ScoreKeeper[]{new ScoreKeeper(Double.NaN)};
       _scored_valid = new ScoreKeeper[]{new ScoreKeeper(Double.NaN)};
@@ -254,10 +260,17 @@ public abstract class SharedTreeModel<
       _treeKeysAux = Arrays.copyOf(_treeKeysAux ,_ntrees+1);
       Key[] keys = _treeKeys[_ntrees] = new Key[trees.length];
       Key[] keysAux = _treeKeysAux[_ntrees] = new Key[trees.length];
+      _treeLeafMin = Arrays.copyOf(_treeLeafMin, _ntrees+1);
+      _treeLeafMax = Arrays.copyOf(_treeLeafMax, _ntrees+1);
+      double[] leafMin = _treeLeafMin[_ntrees] = new double[trees.length];
+      double[] leafMax = _treeLeafMax[_ntrees] = new double[trees.length];
       Futures fs = new Futures();
       for( int i=0; i<nclasses(); i++ ) if( trees[i] != null ) {
         CompressedTree ct = trees[i].compress(_ntrees,i,_domains);
         DKV.put(keys[i]=ct._key,ct,fs);
+        double[] range = ct.leafRange();
+        leafMin[i] = range[0];
+        leafMax[i] = range[1];
         _treeStats.updateBy(trees[i]); // Update tree shape stats
 
         CompressedTree ctAux = new CompressedTree(trees[i]._abAux.buf(),-1,-1,-1);
@@ -285,6 +298,10 @@ public abstract class SharedTreeModel<
       _ntrees = ntrees;
       _treeKeys = Arrays.copyOf(_treeKeys ,_ntrees);
       _treeKeysAux = Arrays.copyOf(_treeKeysAux ,_ntrees);
+      if (_treeLeafMin != null) {
+        _treeLeafMin = Arrays.copyOf(_treeLeafMin, _ntrees);
+        _treeLeafMax = Arrays.copyOf(_treeLeafMax, _ntrees);
+      }
       // 1-based for errors; _scored_train[0] is for zero trees, not 1 tree
       _scored_train = Arrays.copyOf(_scored_train, _ntrees + 1);
       _scored_valid = _scored_valid != null ? Arrays.copyOf(_scored_valid, _ntrees + 1) : null;
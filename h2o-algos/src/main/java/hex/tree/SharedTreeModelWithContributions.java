@@ -98,11 +98,13 @@ public abstract class SharedTreeModelWithContributions<
   protected abstract ScoreContributionsTask getScoreContributionsSoringTask(SharedTreeModel model, ContributionsOptions options);
 
   public class ScoreContributionsTask extends MRTask<ScoreContributionsTask> {
+    protected static final int BATCH_SIZE = 256; // rows passed through all the trees together
+
     protected final Key<SharedTreeModel> _modelKey;
 
     protected transient SharedTreeModel _model;
     protected transient SharedTreeOutput _output;
-    protected transient TreeSHAPPredictor<double[]> _treeSHAP;
+    protected transient TreeSHAPEnsemble<double[]> _treeSHAP;
 
     public ScoreContributionsTask(SharedTreeModel model) {
       _modelKey = model._key;
@@ -140,18 +142,28 @@ public abstract class SharedTreeModelWithContributions<
     @Override
     public void map(Chunk chks[], NewChunk[] nc) {
       assert chks.length == nc.length - 1; // calculate contribution for each feature + the model bias
-      double[] input = MemoryManager.malloc8d(chks.length);
-      float[] contribs = MemoryManager.malloc4f(nc.length);
+      final int len = chks[0]._len;
+      double[][] input = new double[Math.min(len, BATCH_SIZE)][];
+      float[][] contribs = new float[input.length][];
+      for (int i = 0; i < input.length; i++) {
+        input[i] = MemoryManager.malloc8d(chks.length);
+        contribs[i] = MemoryManager.malloc4f(nc.length);
+      }
 
       TreeSHAPPredictor.Workspace workspace = _treeSHAP.makeWorkspace();
 
-      for (int row = 0; row < chks[0]._len; row++) {
-        fillInput(chks, row, input, contribs);
+      for (int from = 0; from < len; from += BATCH_SIZE) {
+        final int n = Math.min(BATCH_SIZE, len - from);
+        for (int i = 0; i < n; i++) {
+          fillInput(chks, from + i, input[i], contribs[i]);
+        }
         // calculate Shapley values
-        _treeSHAP.calculateContributions(input, contribs, 0, -1, workspace);
-        doModelSpecificComputation(contribs);
-        // Add contribs to new chunk
-        addContribToNewChunk(contribs, nc);
+        _treeSHAP.calculateContributions(input, n, contribs, workspace);
+        for (int i = 0; i < n; i++) {
+          doModelSpecificComputation(contribs[i]);
+          // Add contribs to new chunk
+          addContribToNewChunk(contribs[i], nc);
+        }
       }
     }
 
@@ -177,34 +189,39 @@ public abstract class SharedTreeModelWithContributions<
       _compareAbs = options._compareAbs;
     }
 
-    protected void fillInput(Chunk[] chks, int row, double[] input, float[] contribs, int[] contribNameIds) {
-      super.fillInput(chks, row, input, contribs);
-      for (int i = 0; i < contribNameIds.length; i++) {
-        contribNameIds[i] = i;
-      }
-    }
-
     @Override
     public void map(Chunk chks[], NewChunk[] nc) {
-      double[] input = MemoryManager.malloc8d(chks.length);
-      float[] contribs = MemoryManager.malloc4f(chks.length+1);
+      final int len = chks[0]._len;
+      double[][] input = new double[Math.min(len, BATCH_SIZE)][];
+      float[][] contribs = new float[input.length][];
+      for (int i = 0; i < input.length; i++) {
+        input[i] = MemoryManager.malloc8d(chks.length);
+        contribs[i] = MemoryManager.malloc4f(chks.length+1);
+      }
       int[] contribNameIds = MemoryManager.malloc4(chks.length+1);
+      ContributionComposer contributionComposer = new ContributionComposer();
 
       TreeSHAPPredictor.Workspace workspace = _treeSHAP.makeWorkspace();
 
-      for (int row = 0; row < chks[0]._len; row++) {
-        fillInput(chks, row, input, contribs, contribNameIds);
+      for (int from = 0; from < len; from += BATCH_SIZE) {
+        final int n = Math.min(BATCH_SIZE, len - from);
+        for (int i = 0; i < n; i++) {
+          fillInput(chks, from + i, input[i], contribs[i]);
+        }
 
         // calculate Shapley values
-        _treeSHAP.calculateContributions(input, contribs, 0, -1, workspace);
-        doModelSpecificComputation(contribs);
-        ContributionComposer contributionComposer = new ContributionComposer();
-
-        int[] contribNameIdsSorted = contributionComposer.composeContributions(
-                contribNameIds, contribs, _topN, _bottomN, _compareAbs);
+        _treeSHAP.calculateContributions(input, n, contribs, workspace);
+        for (int i = 0; i < n; i++) {
+          doModelSpecificComputation(contribs[i]);
+          for (int j = 0; j < contribNameIds.length; j++) {
+            contribNameIds[j] = j;
+          }
+          int[] contribNameIdsSorted = contributionComposer.composeContributions(
+                  contribNameIds, contribs[i], _topN, _bottomN, _compareAbs);
 
-        // Add contribs to new chunk
-        addContribToNewChunk(contribs, contribNameIdsSorted, nc);
+          // Add contribs to new chunk
+          addContribToNewChunk(contribs[i], contribNameIdsSorted, nc);
+        }
       }
     }
 
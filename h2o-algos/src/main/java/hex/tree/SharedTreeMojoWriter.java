@@ -2,13 +2,16 @@ package hex.tree;
 
 import hex.Model;
 import hex.ModelMojoWriter;
+import hex.genmodel.algos.tree.BinnedSplitThresholds;
 import hex.glm.GLMModel;
 import hex.isotonic.IsotonicRegressionModel;
 import water.DKV;
 import water.Key;
 import water.Value;
+import water.util.Log;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * Shared Mojo definition file for DRF and GBM models.
@@ -19,6 +22,9 @@ public abstract class SharedTreeMojoWriter<
       O extends SharedTreeModel.SharedTreeOutput
     > extends ModelMojoWriter<M, P, O> {
 
+  /** MOJO version of trees with binned split thresholds, see {@link BinnedSplitThresholds} */
+  public static final String BINNED_THRESHOLDS_MOJO_VERSION = "1.50";
+
   public SharedTreeMojoWriter() {}
 
   public SharedTreeMojoWriter(M model) {
@@ -70,6 +76,8 @@ public abstract class SharedTreeMojoWriter<
     }
     writekv("_orig_projection_array", model._output._orig_projection_array);
 
+    final byte[][] trees = new byte[model._output._ntrees * ntreesPerClass][];
+    final byte[][] auxTrees = new byte[trees.length][];
     for (int i = 0; i < model._output._ntrees; i++) {
       for (int j = 0; j < ntreesPerClass; j++) {
         Key<CompressedTree> key = model._output._treeKeys[i][j];
@@ -78,17 +86,58 @@ public abstract class SharedTreeMojoWriter<
           continue; //throw new H2OKeyNotFoundArgumentException("CompressedTree " + key + " not found");
         CompressedTree ct = ctVal.get();
         // assume ct._seed is useless and need not be persisted
-        writeblob(String.format("trees/t%02d_%03d.bin", j, i), ct._bits);
+        trees[i * ntreesPerClass + j] = ct._bits;
 
         if (model._output._treeKeysAux!=null) {
           key = model._output._treeKeysAux[i][j];
           ctVal = key != null ? DKV.get(key) : null;
           if (ctVal != null) {
             ct = ctVal.get();
-            writeblob(String.format("trees/t%02d_%03d_aux.bin", j, i), ct._bits);
+            auxTrees[i * ntreesPerClass + j] = ct._bits;
           }
         }
       }
     }
+
+    BinnedSplitThresholds thresholds = null;
+    if (binSplitThresholds()) {
+      thresholds = BinnedSplitThresholds.collect(trees);
+      writeblob(BinnedSplitThresholds.BLOB_NAME, thresholds.toByteArray());
+    }
+    long size = 0, binnedSize = 0;
+    for (int i = 0; i < model._output._ntrees; i++) {
+      for (int j = 0; j < ntreesPerClass; j++) {
+        byte[] tree = trees[i * ntreesPerClass + j];
+        if (tree == null)
+          continue;
+        if (thresholds != null) {
+          byte[] binned = thresholds.encode(tree);
+          // the tables keep the exact values, make sure the tree reads back the same
+          if (!Arrays.equals(tree, thresholds.decode(binned)))
+            throw new IllegalStateException("Tree " + i + " of class " + j + " doesn't survive binning of the split thresholds");
+          size += tree.length;
+          binnedSize += binned.length;
+          tree = binned;
+        }
+        writeblob(String.format("trees/t%02d_%03d.bin", j, i), tree);
+        if (auxTrees[i * ntreesPerClass + j] != null)
+          writeblob(String.format("trees/t%02d_%03d_aux.bin", j, i), auxTrees[i * ntreesPerClass + j]);
+      }
+    }
+    if (thresholds != null)
+      Log.info("MOJO of model " + model._key + ": split thresholds of " + thresholds.binnedColumns() + " columns binned " +
+              "without loss of precision, trees take " + binnedSize + " bytes instead of " + size + " bytes");
+  }
+
+  /**
+   * @return true if the split thresholds of the trees are written as indices to per-column tables, this needs a
+   * reader of MOJO version {@link #BINNED_THRESHOLDS_MOJO_VERSION}
+   */
+  protected boolean binSplitThresholds() {
+    return quantization() != null;
+  }
+
+  protected String mojoVersion(String version) {
+    return binSplitThresholds() ? BINNED_THRESHOLDS_MOJO_VERSION : version;
   }
 }
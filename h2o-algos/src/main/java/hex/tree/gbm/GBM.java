@@ -16,7 +16,6 @@ import water.exceptions.H2OModelBuilderIllegalArgumentException;
 import water.fvec.*;
 import water.util.*;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -920,17 +919,14 @@ public class GBM extends SharedTree<GBMModel,GBMModel.GBMParameters,GBMModel.GBM
 
     @Override
     protected void doInTrainingCheckpoint() {
-      try {
-        String modelFile = _parms._in_training_checkpoints_dir + "/" + _model._key.toString() + ".ntrees_" + _model._output._ntrees;
-        GBMModel modelClone = _model.clone();
-        modelClone.setInputParms(_parms);
-        modelClone._key = Key.make(_model._key + "." +  _model._output._ntrees);
-        modelClone._output = (GBMModel.GBMOutput) _model._output.clone();
-        modelClone._output.changeModelMetricsKey(modelClone._key);
-        modelClone.exportBinaryModel(modelFile, true);
-      } catch (IOException e) {
-        throw new RuntimeException("Failed to write GBM checkpoint" + _model._key.toString(), e);
-      }
+      String modelFile = _parms._in_training_checkpoints_dir + "/" + _model._key.toString() + ".ntrees_" + _model._output._ntrees;
+      GBMModel modelClone = _model.clone();
+      modelClone.setInputParms(_parms);
+      modelClone._key = Key.make(_model._key + "." +  _model._output._ntrees);
+      modelClone._output = (GBMModel.GBMOutput) _model._output.clone();
+      modelClone._output.changeModelMetricsKey(modelClone._key);
+      // snapshot now, the storage is written in the background while the next trees are built
+      checkpointWriter().submit(modelClone, modelFile);
     }
   }
 
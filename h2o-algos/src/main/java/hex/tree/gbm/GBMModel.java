@@ -215,6 +215,230 @@ public class GBMModel extends SharedTreeModelWithContributions<GBMModel, GBMMode
     }
   }
 
+  /**
+   * Predicts the labels of a binomial model, evaluating only as many trees as needed for each row.
+   *
+   * The leaves of each tree bound what the tree can add to the margin ({@link SharedTreeOutput#_treeLeafMin},
+   * {@link SharedTreeOutput#_treeLeafMax}). Once the margin accumulated so far together with the bounds of the
+   * remaining trees cannot cross the decision threshold, the label is known and the rest of the trees is skipped.
+   * Rows that stay close to the threshold are scored by all the trees. The labels are the same as the "predict"
+   * column of {@link #score(Frame)}.
+   *
+   * @param frame frame to score
+   * @param destination_key key of the output frame
+   * @param threshold threshold on the probability of the positive class
+   * @return frame with a single column "predict"
+   */
+  public Frame scoreDecisions(Frame frame, Key<Frame> destination_key, double threshold) {
+    if (_output.nclasses() != 2 || !(_parms._distribution == DistributionFamily.bernoulli
+            || _parms._distribution == DistributionFamily.quasibinomial
+            || _parms._distribution == DistributionFamily.modified_huber))
+      throw new UnsupportedOperationException(
+              "Early-exit scoring is only supported for binomial models with bernoulli, quasibinomial or modified_huber distribution.");
+    if (_parms._balance_classes)
+      throw new UnsupportedOperationException("Early-exit scoring is not supported for models trained with balance_classes.");
+
+    Frame adaptFrm = new Frame(frame);
+    adaptTestForTrain(adaptFrm, true, false);
+
+    DecisionsTask task = new DecisionsTask(this, threshold, _parms._offset_column != null ? adaptFrm.find(_parms._offset_column) : -1)
+            .doAll(Vec.T_CAT, adaptFrm);
+    Log.info("Early-exit scoring of " + task._rows + " rows evaluated " + task._evaluatedTrees + " trees out of " +
+            task._rows * _output._ntrees + ".");
+    return task.outputFrame(destination_key, new String[]{"predict"}, new String[][]{_output.classNames()});
+  }
+
+  public Frame scoreDecisions(Frame frame, Key<Frame> destination_key) {
+    return scoreDecisions(frame, destination_key, defaultThreshold());
+  }
+
+  static class DecisionsTask extends MRTask<DecisionsTask> {
+    private final Key<GBMModel> _modelKey;
+    private final double _threshold;
+    private final int _offsetIdx;
+    // the label is 1 for any margin >= _marginOne, 0 for any margin <= _marginZero
+    private final double _marginOne;
+    private final double _marginZero;
+    // bounds of the sum of the trees from the given tree to the last one
+    private final double[] _remainingMin;
+    private final double[] _remainingMax;
+    // bounds are compared with some tolerance, the trees are not summed in the same order as the bounds
+    private final double _slack;
+
+    // OUTPUT
+    long _rows;
+    long _evaluatedTrees;
+
+    private transient GBMModel _model;
+    private transient Distribution _dist;
+    private transient CompressedTree[] _trees;
+
+    DecisionsTask(GBMModel model, double threshold, int offsetIdx) {
+      _modelKey = model._key;
+      _threshold = threshold;
+      _offsetIdx = offsetIdx;
+      final int ntrees = model._output._treeKeys.length;
+      final double[][] leafMin = model._output._treeLeafMin;
+      final double[][] leafMax = model._output._treeLeafMax;
+      _remainingMin = new double[ntrees + 1];
+      _remainingMax = new double[ntrees + 1];
+      double total = Math.abs(model._output._init_f);
+      for (int tidx = ntrees - 1; tidx >= 0; tidx--) {
+        double[] range;
+        if (leafMin != null && tidx < leafMin.length && leafMin[tidx] != null)
+          range = new double[]{leafMin[tidx][0], leafMax[tidx][0]};
+        else { // model built before the bounds were recorded
+          Key<CompressedTree> key = model._output._treeKeys[tidx][0];
+          range = key != null ? DKV.get(key).<CompressedTree>get().leafRange() : new double[2];
+        }
+        _remainingMin[tidx] = _remainingMin[tidx + 1] + range[0];
+        _remainingMax[tidx] = _remainingMax[tidx + 1] + range[1];
+        total += Math.max(Math.abs(range[0]), Math.abs(range[1]));
+      }
+      _slack = 1e-9 * (1 + total);
+      double[] margins = marginThresholds(DistributionFactory.getDistribution(model._parms), threshold);
+      _marginZero = margins[0];
+      _marginOne = margins[1];
+    }
+
+    /**
+     * Finds the margins around the threshold: the largest margin giving a probability below the threshold and
+     * the smallest margin giving a probability at or above the threshold. Only relies on the link being monotone.
+     */
+    static double[] marginThresholds(Distribution dist, double threshold) {
+      double lo = -1, hi = 1;
+      while (dist.linkInv(lo) >= threshold && lo > -Double.MAX_VALUE / 2) lo *= 2;
+      if (dist.linkInv(lo) >= threshold) // every margin is a positive label
+        return new double[]{Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+      while (dist.linkInv(hi) < threshold && hi < Double.MAX_VALUE / 2) hi *= 2;
+      if (dist.linkInv(hi) < threshold) // no margin is a positive label
+        return new double[]{Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+      while (true) {
+        double mid = lo + (hi - lo) / 2;
+        if (mid <= lo || mid >= hi)
+          break;
+        if (dist.linkInv(mid) >= threshold) hi = mid;
+        else lo = mid;
+      }
+      return new double[]{lo, hi};
+    }
+
+    @Override
+    protected void setupLocal() {
+      _model = _modelKey.get();
+      assert _model != null;
+      _dist = DistributionFactory.getDistribution(_model._parms);
+      Key<CompressedTree>[][] keys = _model._output._treeKeys;
+      _trees = new CompressedTree[keys.length];
+      for (int tidx = 0; tidx < keys.length; tidx++) // single tree per iteration, it predicts the positive class
+        _trees[tidx] = keys[tidx][0] != null ? DKV.get(keys[tidx][0]).<CompressedTree>get() : null;
+    }
+
+    @Override
+    public void map(Chunk[] chks, NewChunk nc) {
+      final String[][] domains = _model._output._domains;
+      final double initF = _model._output._init_f;
+      final int ntrees = _trees.length;
+      final double[] input = new double[_model._output.nfeatures()];
+      for (int row = 0; row < chks[0]._len; row++) {
+        for (int i = 0; i < input.length; i++)
+          input[i] = chks[i].atd(row);
+        final double offset = _offsetIdx >= 0 ? chks[_offsetIdx].atd(row) : 0;
+        final double base = initF + offset;
+        final double slack = _slack + 1e-9 * Math.abs(offset);
+        double sum = 0;
+        int label = -1;
+        int tidx = 0;
+        for (; tidx < ntrees; tidx++) {
+          if (sum + _remainingMin[tidx] + base - slack >= _marginOne) { label = 1; break; }
+          if (sum + _remainingMax[tidx] + base + slack <= _marginZero) { label = 0; break; }
+          if (_trees[tidx] != null)
+            sum += _trees[tidx].score(input, domains);
+        }
+        if (label < 0) { // same as score0Probabilities + GenModel.getPredictionBinomial
+          double p = _dist.linkInv(sum + initF + offset);
+          label = p >= _threshold ? 1 : 0;
+        }
+        _evaluatedTrees += tidx;
+        nc.addNum(label);
+      }
+      _rows += chks[0]._len;
+    }
+
+    @Override
+    public void reduce(DecisionsTask mrt) {
+      _rows += mrt._rows;
+      _evaluatedTrees += mrt._evaluatedTrees;
+    }
+  }
+
+  /**
+   * Scores chunks tree by tree: a tree is applied to a whole block of rows before moving on to the next one,
+   * which keeps the tree in cache instead of walking all the trees for every row. The trees are summed in the same
+   * order as when scoring row by row, predictions are exactly the same.
+   */
+  @Override
+  protected BigScorePredict setupBigScorePredict(BigScore bs) {
+    if (!H2O.getSysBoolProperty("gbm.treeMajorScoring", true))
+      return super.setupBigScorePredict(bs);
+    final CompressedForest.LocalCompressedForest forest = new CompressedForest(_output._treeKeys, _output._domains).fetch();
+    return (fr, chks) -> new TreeMajorChunkPredict(forest, chks);
+  }
+
+  private class TreeMajorChunkPredict implements BigScoreChunkPredict {
+    private static final int BLOCK_ROWS = 256;
+
+    private final CompressedForest.LocalCompressedForest _forest;
+    private final double[][] _rows;
+    private double[][] _sums;
+    private int _blockStart;
+    private int _blockLen;
+
+    private TreeMajorChunkPredict(CompressedForest.LocalCompressedForest forest, Chunk[] chks) {
+      _forest = forest;
+      _rows = new double[Math.min(BLOCK_ROWS, chks[0]._len)][_output.nfeatures()];
+    }
+
+    @Override
+    public double[] score0(Chunk[] chks, double offset, int row_in_chunk, double[] tmp, double[] preds) {
+      if (_sums == null || row_in_chunk < _blockStart || row_in_chunk >= _blockStart + _blockLen)
+        scoreBlock(chks, row_in_chunk, preds.length);
+      final int r = row_in_chunk - _blockStart;
+      System.arraycopy(_rows[r], 0, tmp, 0, tmp.length);
+      System.arraycopy(_sums[r], 0, preds, 0, preds.length);
+      score0Probabilities(preds, offset);
+      if (needsPostProcess() && isSupervised())
+        score0PostProcessSupervised(preds, tmp);
+      return preds;
+    }
+
+    private void scoreBlock(Chunk[] chks, int start, int npreds) {
+      _blockStart = start;
+      _blockLen = Math.min(_rows.length, chks[0]._len - start);
+      if (_sums == null)
+        _sums = new double[_rows.length][npreds];
+      for (int i = 0; i < _rows[0].length; i++)
+        for (int r = 0; r < _blockLen; r++)
+          _rows[r][i] = chks[i].atd(start + r);
+      for (int r = 0; r < _blockLen; r++)
+        Arrays.fill(_sums[r], 0);
+      for (CompressedTree[] ts : _forest._trees) {
+        for (int c = 0; c < ts.length; c++) {
+          if (ts[c] == null)
+            continue;
+          final int idx = ts.length == 1 ? 0 : c + 1;
+          for (int r = 0; r < _blockLen; r++)
+            _sums[r][idx] += ts[c].score(_rows[r], _forest._domains);
+        }
+      }
+    }
+
+    @Override
+    public void close() {
+      // nothing to do
+    }
+  }
+
   @Override
   protected final double[] score0Incremental(Score.ScoreIncInfo sii, Chunk[] chks, double offset, int row_in_chunk, double[] tmp, double[] preds) {
     assert _output.nfeatures() == tmp.length;
@@ -19,7 +19,7 @@ public class IsolationForestMojoWriter extends SharedTreeMojoWriter<IsolationFor
   public IsolationForestMojoWriter(IsolationForestModel model) { super(model); }
 
   @Override public String mojoVersion() {
-    return "1.40";
+    return mojoVersion("1.40");
   }
 
   @Override
@@ -18,9 +18,13 @@ import water.runner.H2ORunner;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintStream;
+import java.nio.file.Files;
 import java.security.Permission;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.Assert.*;
 import static water.TestUtil.parseAndTrackTestFile;
@@ -145,6 +149,58 @@ public class PredictCsvTest {
   }
 
 
+  @Test
+  public void testScoreWithThreadsAndGzipOutput() throws IOException {
+    try {
+      Scope.enter();
+      Frame train = parseAndTrackTestFile("smalldata/junit/iris.csv");
+
+      GBMModel.GBMParameters p = new GBMModel.GBMParameters();
+      p._train = train._key;
+      p._seed = 0xC0DE;
+      p._response_column = "class";
+      p._ntrees = 5;
+
+      GBMModel model = new GBM(p).trainModel().get();
+      Scope.track_generic(model);
+      final File modelFile = folder.newFile();
+      model.exportMojo(modelFile.getAbsolutePath(), true);
+
+      final String input = TestUtil.makeNfsFileVec("smalldata/junit/iris.csv").getPath();
+      final File sequentialOutput = folder.newFile("sequential.csv");
+      final File parallelOutput = folder.newFile("parallel.csv.gz");
+      runPredictCsv(modelFile, input, sequentialOutput, 1);
+      runPredictCsv(modelFile, input, parallelOutput, 4);
+
+      final byte[] expected = Files.readAllBytes(sequentialOutput.toPath());
+      final byte[] actual;
+      try (InputStream is = new GZIPInputStream(new FileInputStream(parallelOutput))) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int len;
+        while ((len = is.read(buffer)) != -1)
+          bytes.write(buffer, 0, len);
+        actual = bytes.toByteArray();
+      }
+      assertEquals(train.numRows() + 1, new String(expected).split("\n").length);
+      assertArrayEquals(expected, actual);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  private static void runPredictCsv(File modelFile, String input, File output, int threads) {
+    try {
+      PredictCsv.main(new String[]{"--mojo", modelFile.getAbsolutePath(),
+              "--input", input,
+              "--output", output.getAbsolutePath(),
+              "--threads", String.valueOf(threads)});
+      fail("Expected PredictCSV to exit");
+    } catch (PreventedExitException e) {
+      assertEquals(0, e.status); // PredictCsv is expected to finish without errors
+    }
+  }
+
   protected static class PreventedExitException extends SecurityException {
     public final int status;
 
@@ -13,9 +13,11 @@ import water.DKV;
 import water.Scope;
 import water.TestUtil;
 import water.fvec.Frame;
+import water.fvec.TestFrameBuilder;
 import water.fvec.Vec;
 
 import java.io.IOException;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -90,6 +92,56 @@ public class CompressedTreeTest extends TestUtil  {
     }
   }
 
+  @Test
+  public void testCompiledScoringMatchesCompressedTrees() throws IOException {
+    try {
+      Scope.enter();
+      Random rnd = new Random(42);
+      int n = 1000;
+      double[] num = new double[n];
+      String[] cat = new String[n];
+      String[] resp = new String[n];
+      for (int i = 0; i < n; i++) {
+        num[i] = rnd.nextInt(10) == 0 ? Double.NaN : rnd.nextGaussian();
+        cat[i] = rnd.nextInt(10) == 0 ? null : "L" + rnd.nextInt(40);
+        resp[i] = num[i] > 0.5 || (cat[i] != null && cat[i].endsWith("7")) ? "a" : rnd.nextBoolean() ? "b" : "c";
+      }
+      Frame f = Scope.track(new TestFrameBuilder()
+              .withName("compiledTreesFr")
+              .withColNames("num", "cat", "resp")
+              .withVecTypes(Vec.T_NUM, Vec.T_CAT, Vec.T_CAT)
+              .withDataForCol(0, num)
+              .withDataForCol(1, cat)
+              .withDataForCol(2, resp)
+              .build());
+      GBMModel.GBMParameters gbmParams = new GBMModel.GBMParameters();
+      gbmParams._seed = 123;
+      gbmParams._train = f._key;
+      gbmParams._response_column = "resp";
+      gbmParams._ntrees = 10;
+      gbmParams._max_depth = 6;
+      GBMModel model = (GBMModel) Scope.track_generic(new GBM(gbmParams).trainModel().get());
+      GbmMojoModel mojo = (GbmMojoModel) model.toMojo();
+      assertFalse(mojo.isCompiledScoring());
+
+      double[][] rows = new double[n + 3][];
+      double[][] data = frameToMatrix(f);
+      System.arraycopy(data, 0, rows, 0, n);
+      rows[n] = new double[]{Double.NaN, Double.NaN, 0};
+      rows[n + 1] = new double[]{0.7, 45, 0}; // unseen level
+      rows[n + 2] = new double[]{-3, -1, 0};
+      for (double[] row : rows) {
+        double[] expected = mojo.score0(row, new double[4]);
+        mojo.setCompiledScoring(true);
+        double[] actual = mojo.score0(row, new double[4]);
+        mojo.setCompiledScoring(false);
+        assertArrayEquals(expected, actual, 0);
+      }
+    } finally {
+      Scope.exit();
+    }
+  }
+
   @Test
   public void testMakeTreeKey() {
     try {
@@ -759,6 +759,54 @@ public class GBMTest extends TestUtil {
     }
   }
 
+  @Test public void testTreeMajorScoringAndEarlyExitDecisions() {
+    Scope.enter();
+    try {
+      Frame train = Scope.track(parseTestFile("smalldata/gbm_test/ecology_model.csv"));
+      train.remove("Site").remove();     // Remove unique ID
+      int ci = train.find("Angaus");
+      Scope.track(train.replace(ci, train.vecs()[ci].toCategoricalVec()));   // Convert response 'Angaus' to categorical
+      DKV.put(train);                    // Update frame after hacking it
+
+      GBMModel.GBMParameters parms = makeGBMParameters();
+      parms._train = train._key;
+      parms._response_column = "Angaus";
+      parms._distribution = DistributionFamily.bernoulli;
+      parms._ntrees = 30;
+
+      GBMModel gbm = (GBMModel) Scope.track_generic(new GBM(parms).trainModel().get());
+
+      // recorded leaf bounds match the trees
+      for (int t = 0; t < gbm._output._ntrees; t++) {
+        double[] range = DKV.get(gbm._output._treeKeys[t][0]).<CompressedTree>get().leafRange();
+        assertEquals(range[0], gbm._output._treeLeafMin[t][0], 0);
+        assertEquals(range[1], gbm._output._treeLeafMax[t][0], 0);
+        assertTrue(range[0] <= range[1]);
+      }
+
+      Frame predictions = Scope.track(gbm.score(train));
+      Frame decisions = Scope.track(gbm.scoreDecisions(train, Key.<Frame>make()));
+      Frame decisions03 = Scope.track(gbm.scoreDecisions(train, Key.<Frame>make(), 0.3));
+      assertArrayEquals(predictions.vec(0).domain(), decisions.vec(0).domain());
+
+      Frame adapted = new Frame(train);
+      gbm.adaptTestForTrain(adapted, true, false);
+      double[] row = new double[gbm._output.nfeatures()];
+      double[] preds = new double[3];
+      for (long r = 0; r < train.numRows(); r++) {
+        for (int c = 0; c < row.length; c++)
+          row[c] = adapted.vec(c).at(r);
+        gbm.score0(row, preds, 0, gbm._output._treeKeys.length);
+        // tree-major scoring of BigScore gives exactly the same probabilities as scoring row by row
+        assertEquals(preds[2], predictions.vec(2).at(r), 0);
+        assertEquals(predictions.vec(0).at8(r), decisions.vec(0).at8(r));
+        assertEquals(preds[2] >= 0.3 ? 1 : 0, decisions03.vec(0).at8(r));
+      }
+    } finally {
+      Scope.exit();
+    }
+  }
+
   /**
    * Staged predictions test (prediction probabilities of trees per iteration) - multinomial data.
    */
@@ -4346,6 +4394,46 @@ public class GBMTest extends TestUtil {
     }
   }
 
+  @Test
+  public void testExportMojoWithBinnedSplitThresholds() throws Exception {
+    try {
+      Scope.enter();
+      Frame frame = Scope.track(parseTestFile("./smalldata/junit/cars.csv"));
+
+      GBMModel.GBMParameters parms = new GBMModel.GBMParameters();
+      parms._train = frame._key;
+      parms._response_column = "economy (mpg)";
+      parms._ignored_columns = new String[]{"name"};
+      parms._ntrees = 20;
+      parms._seed = 42;
+
+      GBMModel gbm = new GBM(parms).trainModel().get();
+      Scope.track_generic(gbm);
+
+      File mojoFile = temporaryFolder.newFile("gbm_mojo.zip");
+      gbm.exportMojo(mojoFile.getAbsolutePath(), true);
+      File binnedMojoFile = temporaryFolder.newFile("gbm_mojo_binned.zip");
+      gbm.exportMojo(binnedMojoFile.getAbsolutePath(), true, ModelExportOption.MOJO_QUANTIZE_FP16);
+
+      MojoModel mojo = MojoModel.load(mojoFile.getAbsolutePath());
+      MojoModel binnedMojo = MojoModel.load(binnedMojoFile.getAbsolutePath());
+      assertEquals(1.40, mojo._mojo_version, 0);
+      assertEquals(1.50, binnedMojo._mojo_version, 0);
+
+      // thresholds are binned without loss of precision
+      double[] row = new double[mojo.nfeatures()];
+      double[] preds = new double[mojo.getPredsSize()];
+      double[] binnedPreds = new double[mojo.getPredsSize()];
+      for (long r = 0; r < frame.numRows(); r++) {
+        for (int c = 0; c < row.length; c++)
+          row[c] = frame.vec(mojo.getNames()[c]).at(r);
+        assertArrayEquals(mojo.score0(row, preds), binnedMojo.score0(row, binnedPreds), 0);
+      }
+    } finally {
+      Scope.exit();
+    }
+  }
+
   @Test
   public void testPrintMojoWithFloatToDouble() throws Exception {
     try {
@@ -0,0 +1,122 @@
+package water;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Freezing and thawing of Iced objects dominated by primitive arrays (the shape of model weights, histograms and
+ * compressed trees), as in AutoSerialTest. The {@code view*} benchmarks copy the same arrays through typed views of
+ * a heap ByteBuffer, element by element, as a baseline for the bulk copies of {@link AutoBuffer}.
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class AutoBufferBench {
+
+  @Param({"100", "10000", "1000000"})
+  private int n;
+
+  private Payload payload;
+  private byte[] frozen;
+
+  public static class Payload extends Iced<Payload> {
+    int _id;
+    float[] _weights;
+    double[] _biases;
+    double[][] _hist;
+    long[] _counts;
+    int[] _nids;
+    byte[] _bits;
+
+    public Payload() {}
+
+    Payload(int n, long seed) {
+      Random r = new Random(seed);
+      _id = r.nextInt();
+      _weights = new float[n];
+      _biases = new double[n];
+      _counts = new long[n];
+      _nids = new int[n];
+      _bits = new byte[n];
+      for (int i = 0; i < n; i++) {
+        _weights[i] = r.nextFloat();
+        _biases[i] = r.nextDouble();
+        _counts[i] = r.nextLong();
+        _nids[i] = r.nextInt();
+      }
+      r.nextBytes(_bits);
+      _hist = new double[16][n / 16 + 1];
+      for (double[] h : _hist)
+        for (int i = 0; i < h.length; i++) h[i] = r.nextDouble();
+    }
+  }
+
+  @Setup
+  public void setup() {
+    payload = new Payload(n, 42);
+    frozen = new AutoBuffer().put(payload).buf();
+  }
+
+  @Benchmark
+  public byte[] freeze() {
+    return new AutoBuffer().put(payload).buf();
+  }
+
+  @Benchmark
+  public Payload thaw() {
+    return new AutoBuffer(frozen).get();
+  }
+
+  @Benchmark
+  public void putDoubles(Blackhole bh) {
+    bh.consume(new AutoBuffer().putA8d(payload._biases).buf());
+  }
+
+  @Benchmark
+  public void viewPutDoubles(Blackhole bh) {
+    ByteBuffer bb = ByteBuffer.wrap(new byte[4 + payload._biases.length * 8]).order(ByteOrder.nativeOrder());
+    bb.putInt(payload._biases.length);
+    DoubleBuffer db = bb.asDoubleBuffer();
+    db.put(payload._biases);
+    bb.position(bb.position() + db.position() * 8);
+    bh.consume(bb.array());
+  }
+
+  @Benchmark
+  public void putFloats(Blackhole bh) {
+    bh.consume(new AutoBuffer().putA4f(payload._weights).buf());
+  }
+
+  @Benchmark
+  public void viewPutFloats(Blackhole bh) {
+    ByteBuffer bb = ByteBuffer.wrap(new byte[4 + payload._weights.length * 4]).order(ByteOrder.nativeOrder());
+    bb.putInt(payload._weights.length);
+    FloatBuffer fb = bb.asFloatBuffer();
+    fb.put(payload._weights);
+    bb.position(bb.position() + fb.position() * 4);
+    bh.consume(bb.array());
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+            .include(AutoBufferBench.class.getSimpleName())
+            .build();
+
+    new Runner(opt).run();
+  }
+
+}
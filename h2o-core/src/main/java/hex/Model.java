@@ -3361,6 +3361,18 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
    * @throws IOException when writing fails
    */
   public URI exportMojo(String location, boolean force) throws IOException {
+    return exportMojo(location, force, new ModelExportOption[0]);
+  }
+
+  /**
+   * Exports a MOJO representation of a model to a given location.
+   * @param location target path, it can be on local filesystem, HDFS, S3...
+   * @param force If true, overwrite already existing file
+   * @param options options of the MOJO writer (eg. {@link ModelExportOption#MOJO_QUANTIZE_FP16})
+   * @return URI representation of the target location
+   * @throws IOException when writing fails
+   */
+  public URI exportMojo(String location, boolean force, ModelExportOption... options) throws IOException {
     if (! haveMojo())
       throw new IllegalStateException("Model doesn't support MOJOs.");
     OutputStream os = null;
@@ -3369,7 +3381,7 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
       Persist p = H2O.getPM().getPersistForURI(targetUri);
       os = p.create(targetUri.toString(), force);
       ModelMojoWriter mojo = getMojo();
-      mojo.writeTo(os);
+      mojo.writeTo(os, options);
       os.close();
       return targetUri;
     } finally {
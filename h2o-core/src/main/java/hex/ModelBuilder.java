@@ -380,6 +380,7 @@ abstract public class ModelBuilder<M extends Model<M,P,O>, P extends Model.Param
     if (error_count() > 0)
       throw H2OModelBuilderIllegalArgumentException.makeFromBuilder(this);
     startClock();
+    _job.setMemoryEstimate(estimateMemory());
     if (!nFoldCV()) {
       Driver driver = trainModelImpl();
       driver.setCallback(callback);
@@ -550,6 +551,26 @@ abstract public class ModelBuilder<M extends Model<M,P,O>, P extends Model.Param
         : _parms._max_runtime_secs;
   }
 
+  /**
+   * Memory needed to train the model(s), used by the cluster-wide admission of jobs (see
+   * {@link Job#setMemoryEstimate(long)}): the size of the training frame times {@link #memoryFactor()}, times the
+   * number of models trained in parallel during cross-validation.
+   * @return estimated memory in bytes, 0 if unknown
+   */
+  protected long estimateMemory() {
+    if (_train == null) return 0;
+    final int parallel = nFoldCV() ? Math.max(1, nModelsInParallel(nFoldWork())) : 1;
+    return (long) (_train.byteSize() * memoryFactor() * parallel);
+  }
+
+  /**
+   * Working memory of a model in training relative to the size of the training frame: adapted copies of the
+   * frame, temporary columns, model state.  Algorithms with a large workspace override it.
+   */
+  protected double memoryFactor() {
+    return 1;
+  }
+
   // Work for each requested fold
   protected int nFoldWork() {
     if( _parms._fold_column == null ) 
@@ -1824,6 +1845,9 @@ abstract public class ModelBuilder<M extends Model<M,P,O>, P extends Model.Param
     double rebalanceRatio = rebalanceRatio();
     int nonEmptyChunks = original_fr.anyVec().nonEmptyChunks();
     if (nonEmptyChunks >= chunks * rebalanceRatio) {
+      Frame rebalanced_fr = rebalanceSkewed(original_fr, dataset, name);
+      if (rebalanced_fr != null)
+        return rebalanced_fr;
       if (chunks>1)
         Log.info(dataset + " dataset already contains " + nonEmptyChunks + " (non-empty) " +
               " chunks. No need to rebalance. [desiredChunks=" + chunks, ", rebalanceRatio=" + rebalanceRatio + "]");
@@ -1839,6 +1863,30 @@ abstract public class ModelBuilder<M extends Model<M,P,O>, P extends Model.Param
     return rebalanced_fr;
   }
 
+  /**
+   * Rebalance a frame that has enough chunks, but a chunk layout poor for parallelism (many tiny chunks, or
+   * a few chunks much larger than the rest, see {@link ChunkSkew}). Enabled by the system property
+   * {@code rebalance.skew}.
+   * @return rebalanced frame, or null if the layout of the frame is fine
+   */
+  private Frame rebalanceSkewed(final Frame original_fr, final String dataset, final String name) {
+    if (!Boolean.parseBoolean(getSysProperty("rebalance.skew", "false")))
+      return null;
+    final int chunks = ChunkSkew.targetChunks(original_fr);
+    final ChunkSkew skew = ChunkSkew.of(original_fr);
+    if (!skew.isSkewed(chunks))
+      return null;
+    raiseReproducibilityWarning(dataset, chunks);
+    Log.info("Rebalancing " + dataset + " dataset into " + chunks + " chunks, current layout is skewed: " + skew);
+    Key newKey = Key.makeUserHidden(name + ".chunks" + chunks);
+    RebalanceDataSet rb = new RebalanceDataSet(original_fr, newKey, chunks)
+            .streaming(RebalanceDataSet.columnBatch(original_fr), false);
+    H2O.submitTask(rb).join();
+    Frame rebalanced_fr = DKV.get(newKey).get();
+    Scope.track(rebalanced_fr);
+    return rebalanced_fr;
+  }
+
   protected void raiseReproducibilityWarning(String datasetName, int chunks) {
     // for children
   }
@@ -1873,15 +1921,7 @@ abstract public class ModelBuilder<M extends Model<M,P,O>, P extends Model.Param
         return desiredChunkSingle(fr);
       }
     }
-    // estimate size of the Frame on disk as if it was represented in a binary _uncompressed_ format with no overhead
-    long itemCnt = 0;
-    for (Vec v : fr.vecs())
-      itemCnt += v.length() - v.naCnt();
-    final int itemSize = 4; // magic constant size of both Numbers and Categoricals
-    final long size = Math.max(itemCnt * itemSize, fr.byteSize());
-    final int desiredChunkSize = FileVec.calcOptimalChunkSize(size, fr.numCols(),
-            fr.numCols() * itemSize, H2O.NUMCPUS, H2O.getCloudSize(), false, true);
-    final int desiredChunks = (int) ((size / desiredChunkSize) + (size % desiredChunkSize > 0 ? 1 : 0));
+    final int desiredChunks = ChunkSkew.targetChunks(fr);
     Log.info("Calculated optimal number of chunks = " + desiredChunks);
     return desiredChunks;
   }
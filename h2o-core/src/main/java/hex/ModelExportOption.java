@@ -3,5 +3,9 @@ package hex;
 import water.api.StreamWriteOption;
 
 public enum ModelExportOption implements StreamWriteOption {
-    INCLUDE_CV_PREDICTIONS;
+    INCLUDE_CV_PREDICTIONS,
+    /** MOJO: split thresholds of trees as indices to per-column tables, weights of Deep Learning as 16-bit floats */
+    MOJO_QUANTIZE_FP16,
+    /** MOJO: split thresholds of trees as indices to per-column tables, weights of Deep Learning as 8-bit integers */
+    MOJO_QUANTIZE_INT8;
 }
@@ -5,6 +5,7 @@ import water.api.SchemaServer;
 import water.api.StreamWriteOption;
 import water.api.StreamWriter;
 import water.api.schemas3.ModelSchemaV3;
+import water.util.ArrayUtils;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -42,6 +43,7 @@ public abstract class ModelMojoWriter<M extends Model<M, P, O>, P extends Model.
 {
 
   protected M model;
+  private StreamWriteOption[] _options = new StreamWriteOption[0];
 
   //--------------------------------------------------------------------------------------------------------------------
   // Inheritance interface: ModelMojoWriter subclasses are expected to override these methods to provide custom behavior
@@ -72,6 +74,7 @@ public abstract class ModelMojoWriter<M extends Model<M, P, O>, P extends Model.
    * Each domain file is a plain text file with one line per category (not quoted).
    */
   @Override public void writeTo(OutputStream os, StreamWriteOption... option) {
+    _options = option != null ? option : new StreamWriteOption[0];
     ZipOutputStream zos = new ZipOutputStream(os);
     try {
       writeTo(zos);
@@ -83,6 +86,24 @@ public abstract class ModelMojoWriter<M extends Model<M, P, O>, P extends Model.
 
   protected abstract void writeModelData() throws IOException;
 
+  /**
+   * @return true if the MOJO is being written with the given option
+   */
+  protected boolean hasOption(StreamWriteOption option) {
+    return ArrayUtils.contains(_options, option);
+  }
+
+  /**
+   * @return precision requested for the weights/thresholds of the MOJO, null to keep the full precision
+   */
+  protected ModelExportOption quantization() {
+    if (hasOption(ModelExportOption.MOJO_QUANTIZE_INT8))
+      return ModelExportOption.MOJO_QUANTIZE_INT8;
+    if (hasOption(ModelExportOption.MOJO_QUANTIZE_FP16))
+      return ModelExportOption.MOJO_QUANTIZE_FP16;
+    return null;
+  }
+
   @Override
   protected void writeExtraInfo() throws IOException {
     super.writeExtraInfo();
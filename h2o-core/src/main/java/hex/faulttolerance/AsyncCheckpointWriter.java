@@ -0,0 +1,170 @@
+package hex.faulttolerance;
+
+import hex.Model;
+import org.apache.log4j.Logger;
+import water.H2O;
+import water.persist.PersistManager;
+import water.util.FileUtils;
+import water.util.PrettyPrint;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Writes checkpoints of a model in training to any {@link water.persist.Persist} backend without blocking the
+ * training.
+ *
+ * <p>{@link #submit(Model, String)} takes a snapshot of the model in memory - the same bytes as
+ * {@link Model#exportBinaryModel(String, boolean, hex.ModelExportOption...)} writes, so a checkpoint is loaded
+ * as any binary model and training resumes from it with the {@code checkpoint} parameter - and returns; the
+ * snapshot is written by a background thread. Every submitted snapshot is written, in order; if the storage is
+ * slower than the training and {@link #MAX_PENDING} snapshots already wait to be written, {@code submit} blocks
+ * until one of them is done, bounding the memory held by the snapshots. A snapshot is first written to a temporary file and renamed,
+ * on backends supporting it, so that a node lost in the middle of a write never leaves a truncated checkpoint
+ * behind. Failures to write are logged, the training goes on.</p>
+ */
+public class AsyncCheckpointWriter {
+
+    private static final Logger LOG = Logger.getLogger(AsyncCheckpointWriter.class);
+
+    // I/O bound, kept off the F/J pools doing the training
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "H2O-checkpoint-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Maximum number of snapshots waiting to be written. */
+    public static final int MAX_PENDING = 2;
+
+    private final ArrayDeque<Snapshot> _pending = new ArrayDeque<>(); // snapshots to write, oldest first
+    private boolean _writing;   // a write task is scheduled or running
+    private int _written;
+    private int _failed;
+
+    private static class Snapshot {
+        final String _location;
+        final byte[] _bytes;
+
+        Snapshot(String location, byte[] bytes) {
+            _location = location;
+            _bytes = bytes;
+        }
+    }
+
+    /**
+     * Takes a snapshot of the model and schedules writing it. Blocks only if {@link #MAX_PENDING} snapshots are
+     * already waiting to be written.
+     *
+     * @param model model to checkpoint, can be modified once this method returns
+     * @param location path of the checkpoint file
+     */
+    public void submit(Model<?, ?, ?> model, String location) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        model.writeTo(bos);
+        final Snapshot snapshot = new Snapshot(location, bos.toByteArray());
+        synchronized (this) {
+            boolean interrupted = false;
+            while (_pending.size() >= MAX_PENDING) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt();
+            _pending.addLast(snapshot);
+            if (_writing)
+                return;
+            _writing = true;
+        }
+        WRITER.submit(this::writePending);
+    }
+
+    /**
+     * Blocks until all submitted checkpoints are written (or failed).
+     */
+    public synchronized void await() {
+        boolean interrupted = false;
+        while (_writing) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    public synchronized int written() {
+        return _written;
+    }
+
+    public synchronized int failed() {
+        return _failed;
+    }
+
+    private void writePending() {
+        while (true) {
+            final Snapshot snapshot;
+            synchronized (this) {
+                snapshot = _pending.pollFirst();
+                notifyAll(); // room for a new snapshot
+                if (snapshot == null) {
+                    _writing = false;
+                    notifyAll();
+                    return;
+                }
+            }
+            final boolean ok = write(snapshot);
+            synchronized (this) {
+                if (ok) _written++;
+                else _failed++;
+            }
+        }
+    }
+
+    private boolean write(Snapshot snapshot) {
+        final long start = System.currentTimeMillis();
+        try {
+            final PersistManager pm = H2O.getPM();
+            final String target = FileUtils.getURI(snapshot._location).toString();
+            final String tmp = target + ".tmp";
+            writeFile(pm, tmp, snapshot._bytes);
+            if (!renameQuietly(pm, tmp, target)) {
+                writeFile(pm, target, snapshot._bytes);
+                pm.delete(tmp);
+            }
+            LOG.info("Checkpoint " + target + " (" + PrettyPrint.bytes(snapshot._bytes.length) + ") written in " +
+                    PrettyPrint.msecs(System.currentTimeMillis() - start, true) + ".");
+            return true;
+        } catch (Exception e) {
+            LOG.warn("Failed to write checkpoint " + snapshot._location + ", training continues.", e);
+            return false;
+        }
+    }
+
+    // Package-private to be overridden by tests
+    void writeFile(PersistManager pm, String path, byte[] bytes) throws IOException {
+        try (OutputStream os = pm.create(path, true)) {
+            os.write(bytes);
+        }
+    }
+
+    private static boolean renameQuietly(PersistManager pm, String from, String to) {
+        try {
+            if (pm.exists(to))
+                pm.delete(to);
+            return pm.rename(from, to);
+        } catch (RuntimeException e) { // not supported by the backend
+            return false;
+        }
+    }
+
+}
@@ -8,6 +8,7 @@ import java.nio.channels.*;
 import java.util.ArrayList;
 import java.util.Random;
 
+import water.nbhm.UtilUnsafe;
 import water.network.SocketChannelUtils;
 import water.util.Log;
 import water.util.StringUtils;
@@ -1111,11 +1112,15 @@ public final class AutoBuffer implements AutoCloseable {
     short[] buf = MemoryManager.malloc2(len);
     int sofar = 0;
     while( sofar < buf.length ) {
-      ShortBuffer as = _bb.asShortBuffer();
-      int more = Math.min(as.remaining(), len - sofar);
-      as.get(buf, sofar, more);
+      int more;
+      if( _bb.hasArray() ) more = getBulk(buf, SHORT_BASE, 2, sofar, len - sofar);
+      else {
+        ShortBuffer as = _bb.asShortBuffer();
+        more = Math.min(as.remaining(), len - sofar);
+        as.get(buf, sofar, more);
+        _bb.position(_bb.position() + as.position()*2);
+      }
       sofar += more;
-      _bb.position(_bb.position() + as.position()*2);
       if( sofar < len ) getSp(Math.min(_bb.capacity()-1, (len-sofar)*2));
     }
     return buf;
@@ -1127,11 +1132,15 @@ public final class AutoBuffer implements AutoCloseable {
     int[] buf = MemoryManager.malloc4(len);
     int sofar = 0;
     while( sofar < buf.length ) {
-      IntBuffer as = _bb.asIntBuffer();
-      int more = Math.min(as.remaining(), len - sofar);
-      as.get(buf, sofar, more);
+      int more;
+      if( _bb.hasArray() ) more = getBulk(buf, INT_BASE, 4, sofar, len - sofar);
+      else {
+        IntBuffer as = _bb.asIntBuffer();
+        more = Math.min(as.remaining(), len - sofar);
+        as.get(buf, sofar, more);
+        _bb.position(_bb.position() + as.position()*4);
+      }
       sofar += more;
-      _bb.position(_bb.position() + as.position()*4);
       if( sofar < len ) getSp(Math.min(_bb.capacity()-3, (len-sofar)*4));
     }
     return buf;
@@ -1142,11 +1151,15 @@ public final class AutoBuffer implements AutoCloseable {
     float[] buf = MemoryManager.malloc4f(len);
     int sofar = 0;
     while( sofar < buf.length ) {
-      FloatBuffer as = _bb.asFloatBuffer();
-      int more = Math.min(as.remaining(), len - sofar);
-      as.get(buf, sofar, more);
+      int more;
+      if( _bb.hasArray() ) more = getBulk(buf, FLOAT_BASE, 4, sofar, len - sofar);
+      else {
+        FloatBuffer as = _bb.asFloatBuffer();
+        more = Math.min(as.remaining(), len - sofar);
+        as.get(buf, sofar, more);
+        _bb.position(_bb.position() + as.position()*4);
+      }
       sofar += more;
-      _bb.position(_bb.position() + as.position()*4);
       if( sofar < len ) getSp(Math.min(_bb.capacity()-3, (len-sofar)*4));
     }
     return buf;
@@ -1169,11 +1182,15 @@ public final class AutoBuffer implements AutoCloseable {
 
     int sofar = x;
     while( sofar < x+y ) {
-      LongBuffer as = _bb.asLongBuffer();
-      int more = Math.min(as.remaining(), x+y - sofar);
-      as.get(buf, sofar, more);
+      int more;
+      if( _bb.hasArray() ) more = getBulk(buf, LONG_BASE, 8, sofar, x+y - sofar);
+      else {
+        LongBuffer as = _bb.asLongBuffer();
+        more = Math.min(as.remaining(), x+y - sofar);
+        as.get(buf, sofar, more);
+        _bb.position(_bb.position() + as.position()*8);
+      }
       sofar += more;
-      _bb.position(_bb.position() + as.position()*8);
       if( sofar < x+y ) getSp(Math.min(_bb.capacity()-7, (x+y-sofar)*8));
     }
     return buf;
@@ -1184,11 +1201,15 @@ public final class AutoBuffer implements AutoCloseable {
     double[] buf = MemoryManager.malloc8d(len);
     int sofar = 0;
     while( sofar < len ) {
-      DoubleBuffer as = _bb.asDoubleBuffer();
-      int more = Math.min(as.remaining(), len - sofar);
-      as.get(buf, sofar, more);
+      int more;
+      if( _bb.hasArray() ) more = getBulk(buf, DOUBLE_BASE, 8, sofar, len - sofar);
+      else {
+        DoubleBuffer as = _bb.asDoubleBuffer();
+        more = Math.min(as.remaining(), len - sofar);
+        as.get(buf, sofar, more);
+        _bb.position(_bb.position() + as.position()*8);
+      }
       sofar += more;
-      _bb.position(_bb.position() + as.position()*8);
       if( sofar < len ) getSp(Math.min(_bb.capacity()-7, (len-sofar)*8));
     }
     return buf;
@@ -1305,6 +1326,40 @@ public final class AutoBuffer implements AutoCloseable {
     return idx == -1 ? null : values[idx];
   }
 
+  // Primitive arrays are copied to and from heap buffers in bulk.  All the
+  // buffers are in the native byte order, the order of the elements of the
+  // arrays in memory, so a plain memory copy does what the typed views of a
+  // heap buffer do one element at a time.  Direct buffers keep the typed
+  // views, which copy in bulk in the native order already.
+  private static final sun.misc.Unsafe _unsafe = UtilUnsafe.getUnsafe();
+  private static final long BYTE_BASE   = _unsafe.arrayBaseOffset(byte  [].class);
+  private static final long SHORT_BASE  = _unsafe.arrayBaseOffset(short [].class);
+  private static final long INT_BASE    = _unsafe.arrayBaseOffset(int   [].class);
+  private static final long FLOAT_BASE  = _unsafe.arrayBaseOffset(float [].class);
+  private static final long LONG_BASE   = _unsafe.arrayBaseOffset(long  [].class);
+  private static final long DOUBLE_BASE = _unsafe.arrayBaseOffset(double[].class);
+
+  // Copy up to len elements of size scale, from element sofar of the array
+  // into the heap buffer; returns the number of elements copied
+  private int putBulk( Object ary, long base, int scale, int sofar, int len ) {
+    assert _bb.order() == ByteOrder.nativeOrder();
+    final int n = Math.min(len, _bb.remaining() / scale);
+    final int pos = _bb.position();
+    _unsafe.copyMemory(ary, base + (long)sofar*scale, _bb.array(), BYTE_BASE + _bb.arrayOffset() + pos, (long)n*scale);
+    _bb.position(pos + n*scale);
+    return n;
+  }
+  // Copy up to len elements of size scale from the heap buffer into the
+  // array, starting at element sofar; returns the number of elements copied
+  private int getBulk( Object ary, long base, int scale, int sofar, int len ) {
+    assert _bb.order() == ByteOrder.nativeOrder();
+    final int n = Math.min(len, _bb.remaining() / scale);
+    final int pos = _bb.position();
+    _unsafe.copyMemory(_bb.array(), BYTE_BASE + _bb.arrayOffset() + pos, ary, base + (long)sofar*scale, (long)n*scale);
+    _bb.position(pos + n*scale);
+    return n;
+  }
+
   public AutoBuffer putAZ( boolean[] ary ) {
     if( ary == null ) return putInt(-1);
     putInt(ary.length);
@@ -1336,11 +1391,15 @@ public final class AutoBuffer implements AutoCloseable {
     if (ary.length*2 > _bb.remaining()) expandByteBuffer(ary.length*2);
     int sofar = 0;
     while( sofar < ary.length ) {
-      ShortBuffer sb = _bb.asShortBuffer();
-      int len = Math.min(ary.length - sofar, sb.remaining());
-      sb.put(ary, sofar, len);
+      int len;
+      if( _bb.hasArray() ) len = putBulk(ary, SHORT_BASE, 2, sofar, ary.length - sofar);
+      else {
+        ShortBuffer sb = _bb.asShortBuffer();
+        len = Math.min(ary.length - sofar, sb.remaining());
+        sb.put(ary, sofar, len);
+        _bb.position(_bb.position() + sb.position()*2);
+      }
       sofar += len;
-      _bb.position(_bb.position() + sb.position()*2);
       if( sofar < ary.length ) sendPartial();
     }
     return this;
@@ -1355,11 +1414,15 @@ public final class AutoBuffer implements AutoCloseable {
     }
     int sofar = 0;
     while( sofar < ary.length ) {
-      IntBuffer ib = _bb.asIntBuffer();
-      int len = Math.min(ary.length - sofar, ib.remaining());
-      ib.put(ary, sofar, len);
+      int len;
+      if( _bb.hasArray() ) len = putBulk(ary, INT_BASE, 4, sofar, ary.length - sofar);
+      else {
+        IntBuffer ib = _bb.asIntBuffer();
+        len = Math.min(ary.length - sofar, ib.remaining());
+        ib.put(ary, sofar, len);
+        _bb.position(_bb.position() + ib.position()*4);
+      }
       sofar += len;
-      _bb.position(_bb.position() + ib.position()*4);
       if( sofar < ary.length ) sendPartial();
     }
     return this;
@@ -1397,11 +1460,15 @@ public final class AutoBuffer implements AutoCloseable {
     int sofar = x;
     if ((y-sofar)*8 > _bb.remaining()) expandByteBuffer(nzlen*8);
     while( sofar < y ) {
-      LongBuffer lb = _bb.asLongBuffer();
-      int len = Math.min(y - sofar, lb.remaining());
-      lb.put(ary, sofar, len);
+      int len;
+      if( _bb.hasArray() ) len = putBulk(ary, LONG_BASE, 8, sofar, y - sofar);
+      else {
+        LongBuffer lb = _bb.asLongBuffer();
+        len = Math.min(y - sofar, lb.remaining());
+        lb.put(ary, sofar, len);
+        _bb.position(_bb.position() + lb.position()*8);
+      }
       sofar += len;
-      _bb.position(_bb.position() + lb.position() * 8);
       if( sofar < y ) sendPartial();
     }
     return this;
@@ -1413,11 +1480,15 @@ public final class AutoBuffer implements AutoCloseable {
     if (ary.length*4 > _bb.remaining()) expandByteBuffer(ary.length*4);
     int sofar = 0;
     while( sofar < ary.length ) {
-      FloatBuffer fb = _bb.asFloatBuffer();
-      int len = Math.min(ary.length - sofar, fb.remaining());
-      fb.put(ary, sofar, len);
+      int len;
+      if( _bb.hasArray() ) len = putBulk(ary, FLOAT_BASE, 4, sofar, ary.length - sofar);
+      else {
+        FloatBuffer fb = _bb.asFloatBuffer();
+        len = Math.min(ary.length - sofar, fb.remaining());
+        fb.put(ary, sofar, len);
+        _bb.position(_bb.position() + fb.position()*4);
+      }
       sofar += len;
-      _bb.position(_bb.position() + fb.position()*4);
       if( sofar < ary.length ) sendPartial();
     }
     return this;
@@ -1429,11 +1500,15 @@ public final class AutoBuffer implements AutoCloseable {
     if (ary.length*8 > _bb.remaining()) expandByteBuffer(ary.length*8);
     int sofar = 0;
     while( sofar < ary.length ) {
-      DoubleBuffer db = _bb.asDoubleBuffer();
-      int len = Math.min(ary.length - sofar, db.remaining());
-      db.put(ary, sofar, len);
+      int len;
+      if( _bb.hasArray() ) len = putBulk(ary, DOUBLE_BASE, 8, sofar, ary.length - sofar);
+      else {
+        DoubleBuffer db = _bb.asDoubleBuffer();
+        len = Math.min(ary.length - sofar, db.remaining());
+        db.put(ary, sofar, len);
+        _bb.position(_bb.position() + db.position()*8);
+      }
       sofar += len;
-      _bb.position(_bb.position() + db.position()*8);
       if( sofar < ary.length ) sendPartial();
     }
     return this;
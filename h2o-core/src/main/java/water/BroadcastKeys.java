@@ -0,0 +1,90 @@
+package water;
+
+import water.nbhm.NonBlockingHashSet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keys whose Value is replicated to every node, see {@link DKV#broadcast(Key, Iced)}.
+ *
+ * A regular Key is cached by a node on the first read (a {@link TaskGetKey} round-trip to the home node), and the home
+ * node tracks the readers so that it can invalidate them on the next put. A broadcast Key is instead pushed to all
+ * nodes right away and installed in their local stores, the home node does not know about these copies. Every update
+ * of a broadcast Key made through {@link DKV} (put or remove) is pushed the same way, replacing the copies of all the
+ * nodes; meant for values written once, or rarely and as a whole (a model, a DataInfo, split points...), and read
+ * from all nodes many times. Updates via {@link Atomic} are not supported.
+ */
+final class BroadcastKeys {
+
+  private static final NonBlockingHashSet<Key> KEYS = new NonBlockingHashSet<>();
+
+  private BroadcastKeys() {}
+
+  static boolean contains(Key key) {
+    return !KEYS.isEmpty() && KEYS.contains(key);
+  }
+
+  /** Puts the Values and replicates them on all nodes in a single pass over the cloud; blocking. */
+  static void broadcast(Key[] keys, Value[] vals) {
+    Futures fs = new Futures();
+    List<Key> newKeys = new ArrayList<>(keys.length);
+    List<Value> newVals = new ArrayList<>(keys.length);
+    for (int i = 0; i < keys.length; i++) {
+      DKV.put(keys[i], vals[i], fs); // an already broadcast Key pushes the new version itself
+      if (!contains(keys[i])) {
+        newKeys.add(keys[i]);
+        newVals.add(vals[i]);
+      }
+    }
+    fs.blockForPending();
+    if (!newKeys.isEmpty())
+      new Install(newKeys.toArray(new Key[0]), newVals.toArray(new Value[0])).doAllNodes();
+  }
+
+  /** Pushes a new version of a broadcast Key written by {@link DKV#DputIfMatch}, or drops the copies on removal. */
+  static void update(Key key, Value val, Futures fs) {
+    Install task = new Install(new Key[]{key}, new Value[]{val == null || val.type() == 0 ? null : val});
+    task.asyncExecOnAllNodes();
+    fs.add(task);
+  }
+
+  /** Installs a copy of a Value in the local store, or drops the local copy if the Value is null. */
+  static void install(Key key, Value val) {
+    Value old = H2O.STORE.get(key);
+    while (H2O.putIfMatch(key, val, old) != old)
+      old = H2O.STORE.get(key);
+  }
+
+  // Installs (or drops, if the Value is null) the copies of the Values on each
+  // node.  The home node holds the Value through the regular put.
+  private static class Install extends MRTask<Install> {
+    private Key[] _keys;
+    private Value[] _vals;
+
+    Install(Key[] keys, Value[] vals) {
+      _keys = keys;
+      _vals = vals;
+    }
+
+    @Override
+    protected void setupLocal() {
+      for (int i = 0; i < _keys.length; i++) {
+        final Key key = _keys[i];
+        final Value val = _vals[i];
+        if (val == null) {
+          KEYS.remove(key);
+          if (!key.home())
+            install(key, null);
+          continue;
+        }
+        KEYS.add(key);
+        if (key.home() || H2O.STORE.get(key) == val)
+          continue;             // home copy, or the copy of the node that wrote it
+        val._key = key;         // transient, not sent over the wire
+        install(key, val);
+      }
+    }
+  }
+
+}
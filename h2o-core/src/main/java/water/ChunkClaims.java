@@ -0,0 +1,143 @@
+package water;
+
+import water.fvec.Vec;
+import water.nbhm.NonBlockingHashMapLong;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Node-local bookkeeping of an {@link MRTask} running with work stealing (see {@link MRTask#withWorkStealing()}).
+ *
+ * Every chunk of the Frame is claimed exactly once, always at its home node: either by the local map call that
+ * reaches it, or on behalf of another node that asked for work via {@link Steal}. A node asks for chunks of the
+ * other nodes only once all of its own chunks are claimed.
+ */
+final class ChunkClaims {
+
+  private static final NonBlockingHashMapLong<ChunkClaims> CLAIMS = new NonBlockingHashMapLong<>();
+
+  /** Most chunks handed out to a single steal request. */
+  static final int MAX_BATCH = 8;
+
+  private final long _taskId;
+  private final BitSet _claimed;   // indexed by chunk id, only chunks homed here are ever set
+  private final int[] _local;      // ids of the chunks homed here, ascending
+  private int _unclaimed;          // number of local chunks not claimed yet
+  private int _cursor;             // all local chunks before this position are claimed
+  private final boolean[] _drained; // nodes that had nothing left to give
+  private final boolean[] _replicas; // nodes whose chunks have replicas here, see ChunkReplicas
+
+  // Per-node statistics, read by the MRTask profile
+  final AtomicInteger _stolen = new AtomicInteger(); // chunks homed elsewhere mapped here
+  final AtomicInteger _given = new AtomicInteger();  // chunks homed here mapped elsewhere
+
+  private ChunkClaims(long taskId, Vec v0) {
+    _taskId = taskId;
+    final int nChunks = v0.nChunks();
+    _claimed = new BitSet(nChunks);
+    int[] local = new int[nChunks];
+    int n = 0;
+    for (int cidx = 0; cidx < nChunks; cidx++)
+      if (v0.chunkKey(cidx).home())
+        local[n++] = cidx;
+    _local = Arrays.copyOf(local, n);
+    _unclaimed = n;
+    _drained = new boolean[H2O.CLOUD.size()];
+    _replicas = new boolean[_drained.length];
+    for (int i = 0; i < _replicas.length; i++)
+      _replicas[i] = ChunkReplicas.holdsReplicasOf(v0, i);
+  }
+
+  /** Identifies a task across the cloud. */
+  static long newTaskId() {
+    return UUID.randomUUID().getLeastSignificantBits();
+  }
+
+  static ChunkClaims register(long taskId, Vec v0) {
+    ChunkClaims claims = new ChunkClaims(taskId, v0);
+    CLAIMS.put(taskId, claims);
+    return claims;
+  }
+
+  void unregister() {
+    CLAIMS.remove(_taskId);
+  }
+
+  /**
+   * Claims a chunk homed on this node for the local map call.
+   * @return false if the chunk was already given to another node
+   */
+  synchronized boolean claim(int cidx) {
+    if (_claimed.get(cidx))
+      return false;
+    _claimed.set(cidx);
+    _unclaimed--;
+    return true;
+  }
+
+  synchronized int unclaimed() {
+    return _unclaimed;
+  }
+
+  // Claims a batch of local chunks on behalf of another node.  Takes a fraction
+  // of what is left so that the last chunks are not all given to one node.
+  private synchronized int[] give() {
+    final int n = Math.min(_unclaimed, Math.max(1, Math.min(MAX_BATCH, _unclaimed >> 3)));
+    final int[] chunks = new int[n];
+    for (int i = 0; i < n; i++) {
+      while (_claimed.get(_local[_cursor])) _cursor++;
+      final int cidx = _local[_cursor++];
+      _claimed.set(cidx);
+      chunks[i] = cidx;
+    }
+    _unclaimed -= n;
+    _given.addAndGet(n);
+    return chunks;
+  }
+
+  /**
+   * Asks the other nodes, one by one, for chunks to map.  Nodes whose chunks have replicas here are asked first, their
+   * chunks are read locally.  Nodes that answered with nothing are skipped by later calls.
+   * @param start node to start with, spreads the requests of the idle nodes over the cloud
+   * @return claimed chunk ids, or null if no node has anything left
+   */
+  int[] steal(int start) {
+    final H2ONode[] nodes = H2O.CLOUD._memary;
+    for (int i = 0; i < 2 * nodes.length; i++) {
+      final int n = (start + i) % nodes.length;
+      if (nodes[n] == H2O.SELF || _drained[n] || (i < nodes.length) != _replicas[n])
+        continue;
+      int[] chunks = new RPC<>(nodes[n], new Steal(_taskId)).call().get()._chunks;
+      if (chunks == null || chunks.length == 0) { // nothing left, or the task is already done there
+        _drained[n] = true;      // racy, at worst a few more requests go out
+        continue;
+      }
+      _stolen.addAndGet(chunks.length);
+      return chunks;
+    }
+    return null;
+  }
+
+  /** Claims chunks of a running task at their home node on behalf of the requesting node. */
+  static final class Steal extends DTask<Steal> {
+    long _taskId;
+    int[] _chunks;
+
+    Steal(long taskId) {
+      super(H2O.GET_KEY_PRIORITY);
+      _taskId = taskId;
+    }
+
+    @Override public void compute2() {
+      ChunkClaims claims = CLAIMS.get(_taskId);
+      _chunks = claims == null ? new int[0] : claims.give();
+      tryComplete();
+    }
+
+    @Override public boolean logVerbose() { return false; }
+  }
+
+}
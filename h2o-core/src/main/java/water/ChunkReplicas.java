@@ -0,0 +1,161 @@
+package water;
+
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.Vec;
+import water.nbhm.NonBlockingHashMap;
+
+/**
+ * Replicas of the chunks of selected Vecs on nodes other than their home.
+ *
+ * A chunk lives on its home node, any other node reading it fetches a copy from there first. With a replication
+ * factor {@code R} (see {@link #replicate(Frame, int)}) every chunk of the Frame is also installed in the local store
+ * of the {@code R-1} nodes following its home node (by node index), so those nodes read it locally. Replicas pay
+ * off with {@link MRTask#withWorkStealing()}: a node done with its own chunks steals from the nodes it holds replicas
+ * of first, and maps the stolen chunks without moving any data.
+ *
+ * Replicas stay coherent with the home copy: every write of a chunk of a replicated Vec made through {@link DKV}
+ * pushes the new chunk to the replica nodes, and removing the Vec drops them. Replicas are regular cached copies to
+ * the Cleaner: under memory pressure they can be dropped, the chunk is then fetched from its home node again as
+ * usual. Replicas do not let the cloud survive the loss of a node, see {@link water.fvec.persist.FramePersist} for
+ * saving a Frame that outlives the cloud.
+ */
+public final class ChunkReplicas {
+
+  // Replication factor by Vec key, known on every node
+  private static final NonBlockingHashMap<Key, Integer> FACTORS = new NonBlockingHashMap<>();
+
+  private ChunkReplicas() {}
+
+  /**
+   * Installs replicas of all the chunks of the Frame on {@code factor - 1} nodes other than the home node of each
+   * chunk, and keeps them updated from then on. A factor of 1 stops keeping the replicas updated. Blocking.
+   * @param fr Frame to replicate
+   * @param factor total number of copies of each chunk, including the home one; capped by the size of the cloud
+   */
+  public static void replicate(Frame fr, int factor) {
+    if (factor < 1)
+      throw new IllegalArgumentException("Replication factor has to be at least 1, got " + factor);
+    factor = Math.min(factor, H2O.CLOUD.size());
+    Key[] vecKeys = fr.keys();
+    new Register(vecKeys, factor).doAllNodes();
+    if (factor > 1)
+      new Push(factor).doAll(fr);
+  }
+
+  /** @return number of copies of each chunk of the Vec, 1 if the Vec is not replicated */
+  public static int factor(Vec vec) {
+    return factor(vec._key);
+  }
+
+  private static int factor(Key vecKey) {
+    Integer f = FACTORS.get(vecKey);
+    return f == null ? 1 : f;
+  }
+
+  /** Forgets the replication of a Vec on this node, called when the Vec is removed. */
+  public static void forget(Key vecKey) {
+    FACTORS.remove(vecKey);
+  }
+
+  /** @return true if the Key is the key of a chunk of a replicated Vec */
+  static boolean isReplicated(Key key) {
+    return !FACTORS.isEmpty() && key.isChunkKey() && FACTORS.containsKey(key.getVecKey());
+  }
+
+  /**
+   * @return true if this node holds the replicas of the chunks of the Vec homed on the given node
+   */
+  static boolean holdsReplicasOf(Vec vec, int homeIdx) {
+    final int factor = factor(vec._key);
+    final int dist = (H2O.SELF.index() - homeIdx + H2O.CLOUD.size()) % H2O.CLOUD.size();
+    return dist > 0 && dist < factor;
+  }
+
+  // Nodes holding the replicas of a chunk: the factor-1 nodes after its home
+  private static H2ONode[] replicaNodes(Key chunkKey, int factor) {
+    final H2O cloud = H2O.CLOUD;
+    final int home = chunkKey.home(cloud);
+    final H2ONode[] nodes = new H2ONode[factor - 1];
+    for (int r = 1; r < factor; r++)
+      nodes[r - 1] = cloud._memary[(home + r) % cloud.size()];
+    return nodes;
+  }
+
+  /** Pushes a new version of a replicated chunk written by {@link DKV#DputIfMatch}, or drops the replicas on removal. */
+  static void update(Key key, Value val, Futures fs) {
+    final int factor = factor(key.getVecKey());
+    if (factor <= 1)
+      return;
+    final Value v = val == null || val.type() == 0 ? null : val;
+    for (H2ONode node : replicaNodes(key, factor))
+      if (node != H2O.SELF)     // the writer's own copy is already the new one
+        fs.add(new RPC<>(node, new Install(new Key[]{key}, new Value[]{v})).call());
+  }
+
+  private static class Register extends MRTask<Register> {
+    private final Key[] _vecKeys;
+    private final int _factor;
+
+    Register(Key[] vecKeys, int factor) {
+      _vecKeys = vecKeys;
+      _factor = factor;
+    }
+
+    @Override
+    protected void setupLocal() {
+      for (Key k : _vecKeys) {
+        if (_factor > 1) FACTORS.put(k, _factor);
+        else FACTORS.remove(k);
+      }
+    }
+  }
+
+  // Sends the chunks of each row-chunk of the Frame, all columns at once, from
+  // their home node to the replica nodes
+  private static class Push extends MRTask<Push> {
+    private final int _factor;
+
+    Push(int factor) {
+      _factor = factor;
+    }
+
+    @Override
+    public void map(Chunk[] cs) {
+      final int cidx = cs[0].cidx();
+      final Key[] keys = new Key[cs.length];
+      final Value[] vals = new Value[cs.length];
+      for (int i = 0; i < cs.length; i++) {
+        keys[i] = cs[i].vec().chunkKey(cidx);
+        vals[i] = DKV.get(keys[i]);
+      }
+      for (H2ONode node : replicaNodes(keys[0], _factor))
+        _fs.add(new RPC<>(node, new Install(keys, vals)).call());
+    }
+  }
+
+  // Installs (or drops, if the Value is null) replicas in the local store
+  private static class Install extends DTask<Install> {
+    private final Key[] _keys;
+    private final Value[] _vals;
+
+    Install(Key[] keys, Value[] vals) {
+      super(H2O.GET_KEY_PRIORITY);
+      _keys = keys;
+      _vals = vals;
+    }
+
+    @Override
+    public void compute2() {
+      for (int i = 0; i < _keys.length; i++) {
+        if (_keys[i].home())
+          continue;             // cloud changed, the home copy is the real one
+        if (_vals[i] != null)
+          _vals[i]._key = _keys[i]; // transient, not sent over the wire
+        BroadcastKeys.install(_keys[i], _vals[i]);
+      }
+      tryComplete();
+    }
+  }
+
+}
@@ -87,6 +87,26 @@ public abstract class DKV {
     }
   }
 
+  /** Make the mapping <em>key -&gt; v</em> and install a copy of it on every
+   *  Node, so that reads never have to go to the home Node.  Later puts and
+   *  removes of the Key are pushed to all Nodes the same way, instead of
+   *  invalidating cached copies.  Meant for small objects written once (or
+   *  rarely, as a whole) and read from many map calls, e.g. a model or the
+   *  split points of histograms.  Blocking.  */
+  static public void broadcast( Key key, Iced v ) { BroadcastKeys.broadcast(new Key[]{key},new Value[]{new Value(key,v)}); }
+  /** Make the mappings <em>keyed._key -&gt; keyed</em> and install copies of
+   *  them on every Node in one pass over the Cloud, see {@link #broadcast(Key,Iced)}.
+   *  Blocking.  */
+  static public void broadcast( Keyed... keyeds ) {
+    Key[] keys = new Key[keyeds.length];
+    Value[] vals = new Value[keyeds.length];
+    for( int i=0; i<keyeds.length; i++ ) { keys[i] = keyeds[i]._key; vals[i] = new Value(keys[i],keyeds[i]); }
+    BroadcastKeys.broadcast(keys,vals);
+  }
+  /** @return true if the Key was made by {@link #broadcast(Key,Iced)} and
+   *  not removed since */
+  static public boolean isBroadcast( Key key ) { return BroadcastKeys.contains(key); }
+
   /** Remove any mapping for <em>key</em>.  Blocking.  */
   static public Value remove( Key key ) { return put(key,null); }
   /** Remove any mapping for <em>key</em>.  */
@@ -150,6 +170,10 @@ public abstract class DKV {
       // Start a write, but do not block for it
       TaskPutKey.put(key.home_node(),key,val,fs, dontCache);
     }
+    // Broadcast keys: push the new Value (or the removal) to all the copies
+    if( BroadcastKeys.contains(key) ) BroadcastKeys.update(key,val,fs);
+    // Replicated chunks: push the new chunk (or the removal) to the replica nodes
+    else if( ChunkReplicas.isReplicated(key) ) ChunkReplicas.update(key,val,fs);
     return old;
   }
 
@@ -192,8 +216,10 @@ public abstract class DKV {
     Value val = Value.STORE_get(key);
     // Hit in local cache?
     if( val != null ) {
-      if( val.rawMem() != null || val.rawPOJO() != null || val.isPersisted() )
+      if( val.rawMem() != null || val.rawPOJO() != null || val.isPersisted() ) {
+        if( DKVStats.ENABLED ) DKVStats.hit(val);
         return val;
+      }
       assert !key.home(); // Master must have *something*; we got nothing & need to fetch
     }
 
@@ -216,7 +242,11 @@ public abstract class DKV {
     if( tpk != null ) return tpk._xval == null || tpk._xval.isNull() ? null : tpk._xval;
 
     // Get data "the hard way"
+    long start = DKVStats.ENABLED ? System.nanoTime() : 0;
     RPC<TaskGetKey> tgk = TaskGetKey.start(home,key);
-    return blocking ? TaskGetKey.get(tgk) : null;
+    if( !blocking ) return null;
+    Value res = TaskGetKey.get(tgk);
+    if( DKVStats.ENABLED ) DKVStats.miss(res,System.nanoTime()-start);
+    return res;
   }
 }
@@ -0,0 +1,85 @@
+package water;
+
+import water.nbhm.NonBlockingHashMapLong;
+import water.util.PrettyPrint;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Node-local counters of the reads of {@link DKV#get(Key)}, by type of the Value: reads served from the local store
+ * (hits), reads that had to fetch the Value from its home node (misses) and the time spent fetching. Misses are the
+ * hidden cost of reading shared objects (models, DataInfo, histograms split points...) from inside map calls, see
+ * {@link DKV#broadcast(Key, Iced)} for avoiding them. Enabled by the system property {@code sys.ai.h2o.dkv.stats};
+ * off by default, nothing is counted.
+ */
+public final class DKVStats {
+
+  static boolean ENABLED = H2O.getSysBoolProperty("dkv.stats", false); // not final, switched by tests
+
+  private static final NonBlockingHashMapLong<Counts> COUNTS = new NonBlockingHashMapLong<>();
+  private static final int MISSING = -1; // misses of keys without a Value
+
+  private DKVStats() {}
+
+  private static final class Counts {
+    final LongAdder _hits = new LongAdder();
+    final LongAdder _misses = new LongAdder();
+    final LongAdder _missNanos = new LongAdder();
+  }
+
+  private static Counts counts(long type) {
+    Counts c = COUNTS.get(type);
+    if (c == null) {
+      Counts prev = COUNTS.putIfAbsent(type, c = new Counts());
+      if (prev != null) c = prev;
+    }
+    return c;
+  }
+
+  static void hit(Value val) {
+    counts(val.type())._hits.increment();
+  }
+
+  static void miss(Value val, long nanos) {
+    Counts c = counts(val == null ? MISSING : val.type());
+    c._misses.increment();
+    c._missNanos.add(nanos);
+  }
+
+  /** Forgets all the counts of this node. */
+  public static void reset() {
+    COUNTS.clear();
+  }
+
+  /**
+   * @return {hits, misses, nanoseconds spent in misses} of this node by Value type name, "(missing)" for reads of
+   * keys that had no Value
+   */
+  public static Map<String, long[]> snapshot() {
+    Map<String, long[]> res = new TreeMap<>();
+    for (long type : COUNTS.keySetLong()) {
+      Counts c = COUNTS.get(type);
+      String name = type == MISSING ? "(missing)" : TypeMap.className((int) type);
+      res.put(name, new long[]{c._hits.sum(), c._misses.sum(), c._missNanos.sum()});
+    }
+    return res;
+  }
+
+  /** Table of the counts of this node, types with the most time spent in misses first. */
+  public static String print() {
+    List<Map.Entry<String, long[]>> rows = new ArrayList<>(snapshot().entrySet());
+    rows.sort((a, b) -> Long.compare(b.getValue()[2], a.getValue()[2]));
+    StringBuilder sb = new StringBuilder("DKV reads on ").append(H2O.SELF).append(":\n");
+    for (Map.Entry<String, long[]> e : rows) {
+      long[] c = e.getValue();
+      sb.append("  ").append(e.getKey()).append(": ").append(c[0]).append(" hits, ").append(c[1]).append(" misses");
+      if (c[1] > 0)
+        sb.append(" (").append(PrettyPrint.usecs(c[2] / 1000)).append(" total, ")
+                .append(PrettyPrint.usecs(c[2] / 1000 / c[1])).append(" per miss)");
+      sb.append("\n");
+    }
+    return sb.toString();
+  }
+
+}
@@ -0,0 +1,179 @@
+package water;
+
+import water.H2O.H2OCountedCompleter;
+import water.nbhm.NonBlockingHashMap;
+import water.util.Log;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Weighted fair sharing of the low-priority F/J pools between running Jobs. Enabled by the system property
+ * {@code sys.ai.h2o.fairshare.enabled}; off by default.
+ *
+ * All the user work runs in the pools below {@link H2O#MIN_HI_PRIORITY}: a single large Job can keep every worker
+ * thread busy with its map calls and Rapids queries from other sessions wait for the threads in the same pools.
+ * With fair sharing each Job started on this node gets a share: the tasks started by the Job (its driver, the
+ * MRTasks it runs and their local splits) belong to the share of the Job, a nested Job (e.g. a cross-validation or
+ * a grid model) stays in the share of the outer one. The number of worker threads running tasks of a share at the
+ * same time is capped, per priority level, to the weight of the share (see {@link Job#setShareWeight(double)})
+ * relative to the weights of all running shares, out of the threads not kept by the
+ * {@link #RESERVE} for work outside of any Job (REST requests, Rapids queries, tasks of remote nodes). A task of a
+ * share over its quota is set aside when a thread picks it up and resubmitted when a task of the share at the same
+ * priority is done, the thread moves on to other work.
+ *
+ * The quotas are per priority level for the same reason the pools are: a thread blocking on a task always waits for
+ * a task at a higher priority, so the tasks holding the quota of a priority level never wait for a task set aside
+ * at that level. The shares are local to a node: the map calls an MRTask runs on the other nodes are not capped.
+ */
+public final class FairShare {
+
+  static boolean ENABLED = H2O.getSysBoolProperty("fairshare.enabled", false); // not final, switched by tests
+
+  /** Fraction of the worker threads of each low-priority pool not given to the shares of Jobs. */
+  static final double RESERVE = Double.parseDouble(H2O.getSysProperty("fairshare.reserve", "0.25"));
+
+  // Running shares by Job key
+  private static final NonBlockingHashMap<Key, Share> SHARES = new NonBlockingHashMap<>();
+
+  // Share of the task run by the current thread
+  private static final ThreadLocal<Share> CURRENT = new ThreadLocal<>();
+
+  private FairShare() {}
+
+  /** Tasks of a Job and of the Jobs nested in it. */
+  static final class Share {
+    final Key<Job> _job;
+    final double _weight;
+    private final AtomicIntegerArray _running = new AtomicIntegerArray(H2O.MIN_HI_PRIORITY);
+    private final ConcurrentLinkedQueue<H2OCountedCompleter>[] _deferred;
+
+    @SuppressWarnings("unchecked")
+    Share(Key<Job> job, double weight) {
+      _job = job;
+      _weight = weight;
+      _deferred = new ConcurrentLinkedQueue[H2O.MIN_HI_PRIORITY];
+      for (int p = 0; p < _deferred.length; p++)
+        _deferred[p] = new ConcurrentLinkedQueue<>();
+    }
+
+    /** Threads the share can keep busy at a priority level. */
+    int quota() {
+      double total = 0;
+      for (Share s : SHARES.values()) total += s._weight;
+      final int threads = H2O.ARGS.nthreads <= 0 ? H2O.NUMCPUS : H2O.ARGS.nthreads;
+      return Math.max(1, (int) (threads * (1 - RESERVE) * _weight / Math.max(total, _weight)));
+    }
+
+    int running(int priority) {
+      return _running.get(priority);
+    }
+
+    /**
+     * Takes a thread of the quota for the task, or sets the task aside.
+     * @return true if the task can run now
+     */
+    boolean enter(H2OCountedCompleter task, int priority) {
+      final int quota = quota();
+      for (int n; (n = _running.get(priority)) < quota; )
+        if (_running.compareAndSet(priority, n, n + 1))
+          return true;
+      _deferred[priority].add(task);
+      // The running tasks might all have been done before the task was set aside
+      if (_running.get(priority) == 0)
+        resubmit(priority);
+      return false;
+    }
+
+    /** Gives back the thread of a task done running, a task set aside takes its turn. */
+    void exit(int priority) {
+      _running.decrementAndGet(priority);
+      resubmit(priority);
+    }
+
+    private void resubmit(int priority) {
+      if (_running.get(priority) >= quota())
+        return;
+      final H2OCountedCompleter task = _deferred[priority].poll();
+      if (task != null)
+        H2O.submitTask(task);
+    }
+
+    // Resubmits everything set aside, the Job is done
+    private void drain() {
+      for (ConcurrentLinkedQueue<H2OCountedCompleter> q : _deferred)
+        for (H2OCountedCompleter task; (task = q.poll()) != null; )
+          H2O.submitTask(task);
+    }
+  }
+
+  /**
+   * Opens the share of a starting Job, unless the Job is started by a task of another share.
+   * @return share the task of the Job runs in, null if shares are disabled
+   */
+  static Share open(Key<Job> job, double weight) {
+    if (!ENABLED)
+      return null;
+    final Share outer = CURRENT.get();
+    if (outer != null)
+      return outer;
+    final Share share = new Share(job, weight);
+    SHARES.put(job, share);
+    Log.debug("Job " + job + " runs in a fair share of weight " + weight + ".");
+    return share;
+  }
+
+  /** Closes the share of a stopped Job. */
+  static void close(Key<Job> job) {
+    final Share share = SHARES.remove(job);
+    if (share != null)
+      share.drain();
+  }
+
+  /** @return share of the task run by the current thread, or null */
+  static Share current() {
+    return ENABLED ? CURRENT.get() : null;
+  }
+
+  /**
+   * Runs the task in its share, called by {@link H2OCountedCompleter#compute()} on a low-priority pool; a task over
+   * the quota of its share is set aside and resubmitted later.
+   */
+  static void run(H2OCountedCompleter task, Share share, int priority) {
+    if (!share.enter(task, priority))
+      return;
+    final Share prev = CURRENT.get();
+    CURRENT.set(share);
+    try {
+      task.computeTask();
+    } finally {
+      CURRENT.set(prev);
+      share.exit(priority);
+    }
+  }
+
+  /**
+   * Runs a task without capping it, called by {@link H2OCountedCompleter#compute()} for the tasks outside of any
+   * share and for the high-priority ones. The thread can be running a task of another share further down its stack
+   * (a thread blocked on a join helps with other tasks): the work the task starts belongs to the share of the task,
+   * not to the share of the thread.
+   */
+  static void runUncapped(H2OCountedCompleter task, Share share) {
+    if (!ENABLED && share == null) {
+      task.computeTask();
+      return;
+    }
+    final Share prev = CURRENT.get();
+    if (prev == share) {
+      task.computeTask();
+      return;
+    }
+    CURRENT.set(share);
+    try {
+      task.computeTask();
+    } finally {
+      CURRENT.set(prev);
+    }
+  }
+
+}
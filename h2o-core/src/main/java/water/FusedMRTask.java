@@ -0,0 +1,147 @@
+package water;
+
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.Vec;
+import water.util.ArrayUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs several {@link MRTask}s (stages) in a single pass over a Frame: every chunk is visited once and each stage maps
+ * it in turn, the results of each stage are reduced as if it ran on its own. Compared to running the tasks one after
+ * another this saves a fork/join over the cluster per stage and reads each chunk once while it is hot in the cache.
+ *
+ * <p>A stage maps a subset of the columns of the Frame, in the order given to {@link #add(MRTask, int[], int[])}, and
+ * declares the columns it writes. Stages run on a chunk in the order they were added, a stage sees the values
+ * written to the chunk by the stages before it. That is the only dependency that can be fused: a stage must not
+ * depend on the reduced result of another stage, nor read chunks other than the ones passed to its map call
+ * (they might not have been visited by the earlier stages yet). Stages producing new Vecs (output types) are not
+ * supported.</p>
+ *
+ * <p>Node-local hooks ({@link MRTask#setupLocal()}, {@link MRTask#closeLocal()}) and {@link MRTask#postGlobal()} of
+ * the stages are called as usual, the final results are copied into the stage instances passed to {@code add}:</p>
+ * <pre>
+ *   new FusedMRTask()
+ *     .add(histogramTask, new int[]{0, 1, 2, 5}, new int[]{5})
+ *     .add(devianceTask, new int[]{4, 5}, new int[0])
+ *     .doAll(fr);
+ * </pre>
+ */
+public class FusedMRTask extends MRTask<FusedMRTask> {
+
+  private MRTask[] _stages = new MRTask[0];
+  private int[][] _cols = new int[0][];   // columns of the Frame mapped by each stage
+  private int[][] _writes = new int[0][]; // columns written by each stage, subset of _cols
+
+  transient private MRTask[] _templates; // node-local stages, each mapped chunk works on a fresh clone
+  transient private MRTask[] _origins;   // the instances given by the user, receive the final results
+
+  /**
+   * Adds a stage that only reads the given columns.
+   */
+  public FusedMRTask add(MRTask<?> stage, int... cols) {
+    return add(stage, cols, new int[0]);
+  }
+
+  /**
+   * Adds a stage.
+   * @param stage task to run, not started yet
+   * @param cols columns of the Frame passed to the map call of the stage, in this order
+   * @param writes columns the stage modifies, later stages see the new values
+   */
+  public FusedMRTask add(MRTask<?> stage, int[] cols, int[] writes) {
+    for (int c : writes)
+      if (!ArrayUtils.contains(cols, c))
+        throw new IllegalArgumentException("Stage " + stage.getClass().getSimpleName() + " writes column " + c +
+                " which is not one of its input columns");
+    _stages = ArrayUtils.append(_stages, stage);
+    _cols = ArrayUtils.append(_cols, cols);
+    _writes = ArrayUtils.append(_writes, writes);
+    _origins = _stages.clone();
+    return this;
+  }
+
+  /**
+   * @return indices of the stages that read a column written by the given stage
+   */
+  public int[] dependents(int stage) {
+    List<Integer> deps = new ArrayList<>();
+    for (int s = stage + 1; s < _stages.length; s++)
+      for (int c : _cols[s])
+        if (ArrayUtils.contains(_writes[stage], c)) {
+          deps.add(s);
+          break;
+        }
+    int[] res = new int[deps.size()];
+    for (int i = 0; i < res.length; i++)
+      res[i] = deps.get(i);
+    return res;
+  }
+
+  @Override
+  protected void setupLocal() {
+    final Vec[] vecs = _fr.vecs();
+    final String[] names = _fr.names();
+    _templates = _stages.clone();
+    for (int s = 0; s < _templates.length; s++) {
+      MRTask stage = _templates[s];
+      Vec[] svecs = new Vec[_cols[s].length];
+      String[] snames = new String[_cols[s].length];
+      for (int i = 0; i < svecs.length; i++) {
+        if (_cols[s][i] < 0 || _cols[s][i] >= vecs.length)
+          throw new IllegalArgumentException("Stage " + stage.getClass().getSimpleName() + " maps column " +
+                  _cols[s][i] + ", the frame has " + vecs.length + " columns");
+        svecs[i] = vecs[_cols[s][i]];
+        snames[i] = names[_cols[s][i]];
+      }
+      stage._fr = new Frame(snames, svecs);
+      stage._fs = _fs;
+      stage.setupLocal();
+    }
+  }
+
+  @Override
+  public void map(Chunk[] cs) {
+    final MRTask[] stages = new MRTask[_templates.length];
+    for (int s = 0; s < stages.length; s++) {
+      stages[s] = (MRTask) _templates[s].clone();
+      stages[s]._fs = _fs;
+      Chunk[] scs = new Chunk[_cols[s].length];
+      for (int i = 0; i < scs.length; i++)
+        scs[i] = cs[_cols[s][i]];
+      stages[s].callMap(scs, null);
+    }
+    _stages = stages;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public void reduce(FusedMRTask mrt) {
+    for (int s = 0; s < _stages.length; s++)
+      _stages[s].reduce4(mrt._stages[s]);
+  }
+
+  @Override
+  protected void closeLocal() {
+    for (MRTask stage : _templates)
+      stage.closeLocal();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  protected void postGlobal() {
+    for (int s = 0; s < _stages.length; s++) {
+      if (_origins[s] != _stages[s])
+        _origins[s].copyOver(_stages[s]);
+      _origins[s].postGlobal();
+    }
+  }
+
+  /** The instances of the stages, as given to {@code add}. */
+  public MRTask[] stages() {
+    return _origins;
+  }
+
+}
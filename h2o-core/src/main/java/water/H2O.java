@@ -1548,6 +1548,8 @@ final public class H2O {
     assert MIN_PRIORITY <= priority && priority <= MAX_PRIORITY:"priority " + priority + " is out of range, expected range is < " + MIN_PRIORITY + "," + MAX_PRIORITY + ">";
     if( FJPS[priority]==null )
       synchronized( H2O.class ) { if( FJPS[priority] == null ) FJPS[priority] = new PrioritizedForkJoinPool(priority,-1); }
+    if( task._share == null && priority < MIN_HI_PRIORITY )
+      task._share = FairShare.current(); // Work started by a Job stays in its share
     FJPS[priority].submit(task);
     return task;
   }
@@ -1624,6 +1626,9 @@ final public class H2O {
     public T reloadFromBytes(byte [] ary){ return read(new AutoBuffer(ary));}
 
     private /*final*/ byte _priority;
+    // Fair share of the Job the task belongs to, local to this node; copied
+    // into the clones, so the splits of an MRTask stay in the share
+    transient FairShare.Share _share;
     // Without a completer, we expect this task will be blocked on - so the
     // blocking thread is not available in the current thread pool, so the
     // launched task needs to run at a higher priority.
@@ -1684,7 +1689,12 @@ final public class H2O {
         t._priority = pp;
         if( pp == MIN_PRIORITY && set_t_prior ) t.setPriority(Thread.NORM_PRIORITY-1);
       }
-      // Now run the task as planned
+      // Now run the task as planned, within the fair share of its Job if any
+      if( _share != null && pp < MIN_HI_PRIORITY ) FairShare.run(this, _share, pp);
+      else FairShare.runUncapped(this, _share);
+    }
+
+    final void computeTask() {
       if( this instanceof DTask ) icer().compute1(this);
       else compute2();
     }
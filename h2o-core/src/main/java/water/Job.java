@@ -151,6 +151,41 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
     return _end_time - _start_time; // Stopped
   }
 
+  /** Memory the job is estimated to need, in bytes; 0 if unknown.  Set
+   *  before the job starts, see {@link #setMemoryEstimate(long)}. */
+  private long _memory_estimate;
+  /** Memory reserved for the job by the cluster-wide admission of jobs, in
+   *  bytes; 0 if none or once the job stopped. */
+  private long _reserved_memory;
+  transient boolean _admitted;  // Holds a reservation, released when the job stops
+
+  public long memoryEstimate() { return _memory_estimate; }
+  public long reservedMemory() { update_from_remote(); return _reserved_memory; }
+  /** Sets the memory the job is estimated to need.  With the memory admission
+   *  of jobs enabled (system property {@code sys.ai.h2o.job.admission}), a
+   *  started job waits until its estimate fits the free memory of the cloud,
+   *  and a job which cannot fit at all is rejected by {@link #start}. */
+  public void setMemoryEstimate(long bytes) {
+    assert created() : "Memory estimate has to be set before the job starts";
+    _memory_estimate = bytes;
+  }
+  void setReservedMemory(final long bytes) {
+    new JAtomic() {
+      @Override boolean abort(Job job) { return false; }
+      @Override void update(Job job) { job._reserved_memory = bytes; job._msg = null; }
+    }.apply(this);
+  }
+
+  /** Weight of the fair share of the worker threads the job gets, relative
+   *  to the other running jobs; used with fair sharing enabled (system
+   *  property {@code sys.ai.h2o.fairshare.enabled}), see {@link FairShare}. */
+  private transient double _share_weight = 1;
+  public void setShareWeight(double weight) {
+    assert created() : "Share weight has to be set before the job starts";
+    if( !(weight > 0) ) throw new IllegalArgumentException("Share weight has to be positive, got " + weight);
+    _share_weight = weight;
+  }
+
   public boolean isRecoverable() { return _recoverable; };
   public boolean readyForView() { return _ready_for_view; }
   public void setReadyForView(boolean ready) { _ready_for_view = ready; }
@@ -297,6 +332,8 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
     assert created() && !running() && !stopped();
     assert fjtask != null : "Starting a job with null working task is not permitted!";
     assert fjtask.getCompleter() == null : "Cannot have a completer; this must be a top-level task";
+    final boolean admission = JobAdmission.ENABLED && _memory_estimate > 0;
+    if( admission ) JobAdmission.checkFits(this); // Reject before the job is visible
 
     // F/J rules: upon receiving an exception (the task's compute/compute2
     // throws an exception caugt by F/J), the task is marked as "completing
@@ -320,6 +357,7 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
     // of Barrier2 - all callers of Job.get().
     _barrier = new Barrier2(); 
     fjtask.setCompleter(new Barrier1(_barrier));
+    fjtask._share = FairShare.open(_key, _share_weight);
 
     // These next steps must happen in-order:
     // 4 - cannot submitTask without being on job-list, lest all cores get
@@ -349,8 +387,9 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
         return old;
       }
     }.invoke(LIST);
-    // 4 - Fire off the FJTASK
-    H2O.submitTask(fjtask);
+    // 4 - Fire off the FJTASK, once there is memory for it
+    if( admission ) JobAdmission.submit(this, fjtask);
+    else H2O.submitTask(fjtask);
     return this;
   }
   transient private Barrier2 _barrier; // Top-level task to block on
@@ -373,10 +412,14 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
     Barrier1(CountedCompleter cc) { super(cc,0); }
     @Override public void compute() { }
     @Override public void onCompletion(CountedCompleter caller) {
+      FairShare.close(_key);
+      if( _admitted ) JobAdmission.release(Job.this);
       new Barrier1OnCom().apply(Job.this);
       _barrier = null;          // Free for GC
     }
     @Override public boolean onExceptionalCompletion(Throwable ex, CountedCompleter caller) {
+      FairShare.close(_key);
+      if( _admitted ) JobAdmission.release(Job.this);
       if(Job.isCancelledException(ex)) {
         new Barrier1OnCom().apply(Job.this);
       } else {
@@ -466,6 +509,7 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
     if(_worked    != remote._worked    ) differ = true;
     if(_msg       != remote._msg       ) differ = true;
     if(_max_runtime_msecs != remote._max_runtime_msecs) differ = true;
+    if(_reserved_memory != remote._reserved_memory) differ = true;
     if(! Arrays.equals(_warns, remote._warns)) differ = true;
     if( differ )
       synchronized(this) { 
@@ -477,6 +521,7 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
         _worked    = remote._worked    ;
         _msg       = remote._msg       ;
         _max_runtime_msecs = remote._max_runtime_msecs;
+        _reserved_memory = remote._reserved_memory;
         _warns     = remote._warns;
       }
   }
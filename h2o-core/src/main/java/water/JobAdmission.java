@@ -0,0 +1,265 @@
+package water;
+
+import water.H2O.H2OCountedCompleter;
+import water.exceptions.H2OIllegalArgumentException;
+import water.util.Log;
+import water.util.PrettyPrint;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission of Jobs by the memory they need, across the whole cloud. Enabled by the system property
+ * {@code sys.ai.h2o.job.admission}; off by default.
+ *
+ * The {@link MemoryManager} of each node only sees its own heap, a node runs out of memory in the middle of a job
+ * no matter how many jobs were started before it across the cloud. A Job with a memory estimate (see
+ * {@link Job#setMemoryEstimate(long)}) reserves it in a cluster-wide ledger before its task is submitted. The
+ * reservations of all the running Jobs have to fit a budget: {@link #MEMORY_FRACTION} of the heap of all the nodes
+ * not held by the K/V store, as of their last heartbeat. A Job which does not fit waits in a queue on the node it
+ * was started on, in the order the Jobs were started, until a running Job finishes; a Job which would not fit even
+ * in an empty cloud is rejected when started. A Job cancelled while waiting never runs. The reservation of a Job is
+ * released when it stops.
+ *
+ * The estimates are coarse (see {@link hex.ModelBuilder#estimateMemory()}), the admission is meant to keep many
+ * concurrent jobs from overcommitting the cloud, not to account for every byte.
+ */
+final class JobAdmission {
+
+  static boolean ENABLED = H2O.getSysBoolProperty("job.admission", false); // not final, switched by tests
+
+  /** Fraction of the heap not held by the K/V store the reservations of the running Jobs can take. */
+  static final double MEMORY_FRACTION = Double.parseDouble(H2O.getSysProperty("job.admission.memory_fraction", "0.8"));
+
+  /** Queued Jobs are retried after a Job started on this node stops, and periodically for Jobs started elsewhere. */
+  static final long RETRY_MSECS = 1000;
+
+  private static final Key<Reservations> RESERVATIONS = Key.make(" JobMemoryReservations", Key.BUILT_IN_KEY);
+
+  private static final ScheduledExecutorService RETRY = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread t = new Thread(r, "H2O-job-admission");
+    t.setDaemon(true);
+    return t;
+  });
+
+  // Jobs started on this node waiting for memory, oldest first
+  private static final ArrayDeque<Queued> QUEUE = new ArrayDeque<>();
+  private static boolean _retryScheduled; // guarded by QUEUE
+  private static boolean _draining, _drainAgain; // guarded by QUEUE
+
+  private JobAdmission() {}
+
+  private static class Queued {
+    final Job _job;
+    final H2OCountedCompleter _fjtask;
+    boolean _waiting; // the Job was told it is waiting
+
+    Queued(Job job, H2OCountedCompleter fjtask) {
+      _job = job;
+      _fjtask = fjtask;
+    }
+  }
+
+  /** @return memory the reservations of all the running Jobs can take, in bytes */
+  static long budget() {
+    long avail = 0;
+    for (H2ONode node : H2O.CLOUD.members()) {
+      HeartBeat hb = node._heartbeat;
+      avail += hb.get_pojo_mem() + hb.get_free_mem();
+    }
+    return (long) (avail * MEMORY_FRACTION);
+  }
+
+  /** Rejects a Job which would not fit the budget even if no other Job was running. */
+  static void checkFits(Job job) {
+    final long budget = budget();
+    if (job.memoryEstimate() > budget)
+      throw new H2OIllegalArgumentException("Job '" + job._description + "' needs an estimated " +
+              PrettyPrint.bytes(job.memoryEstimate()) + " of memory, the cloud has " + PrettyPrint.bytes(budget) +
+              " available for jobs.",
+              "Job " + job._key + " rejected by the memory admission: estimate " + job.memoryEstimate() +
+              "B, budget " + budget + "B (job.admission.memory_fraction=" + MEMORY_FRACTION + ").");
+  }
+
+  /** Submits the task of the Job as soon as the memory estimated for the Job is reserved. */
+  static void submit(Job job, H2OCountedCompleter fjtask) {
+    synchronized (QUEUE) {
+      QUEUE.addLast(new Queued(job, fjtask));
+    }
+    drain();
+  }
+
+  /** Releases the reservation of a stopped Job and lets the queued Jobs try again. */
+  static void release(Job job) {
+    job.setReservedMemory(0);
+    new Release(job._key).invoke(RESERVATIONS);
+    RETRY.execute(JobAdmission::drain); // not on the F/J thread completing the Job
+  }
+
+  // Admits the queued Jobs in order, until one does not fit. The reservations and the Job updates are remote calls,
+  // they are made without holding the QUEUE lock; one drain runs at a time so the Jobs are still admitted in order.
+  private static void drain() {
+    synchronized (QUEUE) {
+      if (_draining) { // the running drain goes over the queue again when done
+        _drainAgain = true;
+        return;
+      }
+      _draining = true;
+    }
+    boolean done = false;
+    try {
+      while (!done) {
+        for (Queued q; (q = pollFirst()) != null; ) {
+          if (q._job.stop_requested()) {
+            q._fjtask.completeExceptionally(new Job.JobCancelledException());
+            continue;
+          }
+          boolean admitted = false;
+          try {
+            admitted = reserve(q._job);
+          } finally {
+            if (!admitted) {
+              synchronized (QUEUE) {
+                QUEUE.addFirst(q);
+              }
+            }
+          }
+          if (admitted)
+            H2O.submitTask(q._fjtask);
+          else {
+            if (!q._waiting) {
+              q._waiting = true;
+              q._job.update(0, "Waiting for " + PrettyPrint.bytes(q._job.memoryEstimate()) + " of memory.");
+            }
+            break;
+          }
+        }
+        synchronized (QUEUE) {
+          done = !_drainAgain;
+          _drainAgain = false;
+          if (done) {
+            _draining = false;
+            scheduleRetry();
+          }
+        }
+      }
+    } finally {
+      if (!done) {
+        synchronized (QUEUE) {
+          _draining = false;
+          _drainAgain = false;
+          scheduleRetry();
+        }
+      }
+    }
+  }
+
+  private static Queued pollFirst() {
+    synchronized (QUEUE) {
+      return QUEUE.pollFirst();
+    }
+  }
+
+  // Retries the queued Jobs later, for Jobs started elsewhere
+  private static void scheduleRetry() {
+    assert Thread.holdsLock(QUEUE);
+    if (!QUEUE.isEmpty() && !_retryScheduled) {
+      _retryScheduled = true;
+      RETRY.schedule(() -> {
+        synchronized (QUEUE) {
+          _retryScheduled = false;
+        }
+        drain();
+      }, RETRY_MSECS, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private static boolean reserve(Job job) {
+    final long bytes = job.memoryEstimate();
+    final Reserve r = (Reserve) new Reserve(job._key, bytes, budget()).invoke(RESERVATIONS);
+    if (!r._admitted)
+      return false;
+    Log.debug("Job " + job._description + " reserved " + PrettyPrint.bytes(bytes) + " of memory.");
+    job._admitted = true;
+    job.setReservedMemory(bytes);
+    return true;
+  }
+
+  /** Memory reserved by the running Jobs, homed on a single node. */
+  private static class Reservations extends Keyed<Reservations> {
+    Key<Job>[] _jobs;
+    long[] _bytes;
+
+    Reservations() {
+      super(RESERVATIONS);
+      _jobs = new Key[0];
+      _bytes = new long[0];
+    }
+
+    long total() {
+      long total = 0;
+      for (long b : _bytes) total += b;
+      return total;
+    }
+
+    int find(Key<Job> job) {
+      for (int i = 0; i < _jobs.length; i++)
+        if (_jobs[i].equals(job)) return i;
+      return -1;
+    }
+  }
+
+  private static class Reserve extends TAtomic<Reservations> {
+    final Key<Job> _job;
+    final long _bytes;
+    final long _budget;
+    boolean _admitted;
+
+    Reserve(Key<Job> job, long bytes, long budget) {
+      _job = job;
+      _bytes = bytes;
+      _budget = budget;
+    }
+
+    @Override
+    protected Reservations atomic(Reservations old) {
+      _admitted = false;
+      if (old == null) old = new Reservations();
+      // A Job always fits an empty ledger, the budget only moves with the heartbeats
+      if (old._jobs.length > 0 && old.total() + _bytes > _budget)
+        return null;
+      final int n = old._jobs.length;
+      old._jobs = Arrays.copyOf(old._jobs, n + 1);
+      old._bytes = Arrays.copyOf(old._bytes, n + 1);
+      old._jobs[n] = _job;
+      old._bytes[n] = _bytes;
+      _admitted = true;
+      return old;
+    }
+  }
+
+  private static class Release extends TAtomic<Reservations> {
+    final Key<Job> _job;
+
+    Release(Key<Job> job) {
+      _job = job;
+    }
+
+    @Override
+    protected Reservations atomic(Reservations old) {
+      final int i = old == null ? -1 : old.find(_job);
+      if (i < 0)
+        return null;
+      final int n = old._jobs.length - 1;
+      old._jobs[i] = old._jobs[n];
+      old._bytes[i] = old._bytes[n];
+      old._jobs = Arrays.copyOf(old._jobs, n);
+      old._bytes = Arrays.copyOf(old._bytes, n);
+      return old;
+    }
+  }
+
+}
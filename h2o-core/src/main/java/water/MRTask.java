@@ -3,6 +3,7 @@ package water;
 import jsr166y.CountedCompleter;
 import jsr166y.ForkJoinPool;
 import water.fvec.*;
+import water.util.ArrayUtils;
 import water.util.DistributedException;
 import water.util.FrameUtils;
 import water.util.PrettyPrint;
@@ -187,7 +188,28 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
     return this;
   }
 
+  /** If true, nodes that are done with their own chunks map chunks homed on
+   *  other nodes, see {@link #withWorkStealing()} */
+  protected boolean _steal;
+  private long _stealId;                    // Identifies the task on all nodes when stealing
+  transient private ChunkClaims _claims;    // Node-local claims of the chunks, when stealing
+  transient boolean _stolen;                // Mapping a chunk homed on another node
+
+  /** Lets nodes that finished mapping their own chunks take over chunks
+   *  still waiting on other nodes, so that a slow or overloaded node does not
+   *  hold up the whole task.  Every chunk is still mapped exactly once: the
+   *  home node of a chunk decides who gets it.  A stolen chunk is fetched over
+   *  the network, so this pays off for tasks whose map() is expensive compared
+   *  to moving the data.  Only applies to tasks over a Frame that are not
+   *  run locally; map() must not depend on running at the home of the chunk.
+   *  Call as: <code>new MRTask().withWorkStealing().doAll(fr);</code> */
+  public T withWorkStealing() { _steal = true; return self(); }
+
   public String profString() { return _profile != null ? _profile.toString() : "Profiling turned off"; }
+  // Chunks mapped by each node on behalf of other nodes, and chunks homed on
+  // each node mapped elsewhere; null unless profiled with work stealing
+  int[] profStolen() { return _profile != null ? _profile._nodeStolen : null; }
+  int[] profGiven () { return _profile != null ? _profile._nodeGiven  : null; }
   MRProfile _profile;
 
   /** Used to invoke profiling.  Call as: <code>new MRTask().profile().doAll();*/
@@ -335,6 +357,23 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
     long _time1st, _done1st;
     int _size_rez0, _size_rez1; // i/o size in bytes during reduce
     MRProfile _last;
+    // Chunks mapped in this subtree, of them homed on other nodes, and the
+    // time spent mapping them.  Moved into the per-node arrays at the top
+    // local task of each node, so that stragglers can be told apart.
+    int _chunks, _stolen;
+    long _mapMs;
+    int[] _nodeChunks, _nodeStolen, _nodeGiven;
+    long[] _nodeMapMs;
+    void mapped( long ms, boolean stolen ) { _chunks++; if( stolen ) _stolen++; _mapMs += ms; }
+    void recordNode( int idx, ChunkClaims claims ) {
+      if( _nodeChunks == null ) {
+        int sz = H2O.CLOUD.size();
+        _nodeChunks = new int[sz]; _nodeStolen = new int[sz]; _nodeGiven = new int[sz]; _nodeMapMs = new long[sz];
+      }
+      _nodeChunks[idx] += _chunks;  _nodeStolen[idx] += _stolen;  _nodeMapMs[idx] += _mapMs;
+      if( claims != null ) _nodeGiven[idx] += claims._given.get();
+      _chunks = _stolen = 0;  _mapMs = 0;
+    }
     long sumTime() { return _onCdone - (_localstart==0 ? _mapstart : _localstart); }
     void gather( MRProfile p, int size_rez ) {
       p._clz=null;
@@ -347,6 +386,15 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
       if( size_rez !=0 )        // Record i/o result size
         if( _size_rez0 == 0 ) _size_rez0=size_rez;
         else                  _size_rez1=size_rez;
+      _chunks += p._chunks;  _stolen += p._stolen;  _mapMs += p._mapMs;
+      if( p._nodeChunks != null ) { // Per-node totals of a remote subtree
+        if( _nodeChunks == null ) {
+          _nodeChunks = p._nodeChunks; _nodeStolen = p._nodeStolen; _nodeGiven = p._nodeGiven; _nodeMapMs = p._nodeMapMs;
+        } else {
+          ArrayUtils.add(_nodeChunks, p._nodeChunks);  ArrayUtils.add(_nodeStolen, p._nodeStolen);
+          ArrayUtils.add(_nodeGiven , p._nodeGiven );  ArrayUtils.add(_nodeMapMs , p._nodeMapMs );
+        }
+      }
       assert _userstart !=0 || _last != null;
       assert _last._onCdone >= _done1st;
     }
@@ -378,6 +426,15 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
         sb.append("ms, size "  ).append(PrettyPrint.bytes(_size_rez0)).append("+").append(PrettyPrint.bytes(_size_rez1));
       }
       sb.append(")\n");
+      if( d==0 && _nodeChunks != null ) {
+        int slowest = 0;
+        for( int i=1; i<_nodeMapMs.length; i++ ) if( _nodeMapMs[i] > _nodeMapMs[slowest] ) slowest = i;
+        for( int i=0; i<_nodeChunks.length; i++ ) {
+          sb.append("  node ").append(i).append(": ").append(_nodeChunks[i]).append(" chunks (");
+          sb.append(_nodeStolen[i]).append(" stolen, ").append(_nodeGiven[i]).append(" given away), map ");
+          sb.append(_nodeMapMs[i]).append("ms").append(i==slowest && _nodeChunks.length > 1 ? " <- slowest" : "").append("\n");
+        }
+      }
       return sb;
     }
   }
@@ -625,6 +682,7 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
     _nlo = selfidx(); _nhi = (short)H2O.CLOUD.size(); // Do Whole Cloud
     _run_local = runLocal;     // Run locally by copying data, or run globally?
     assert checkRunLocal() : "MRTask is expected to be running in a local-mode but _run_local = false";
+    if( _steal ) _stealId = ChunkClaims.newTaskId();
     setupLocal0();              // Local setup
     H2O.submitTask(this);       // Begin normal execution on a FJ thread
     return self();
@@ -726,6 +784,9 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
       _lo = 0;  _hi = _fr.numCols()==0 ? 0 : _fr.anyVec().nChunks(); // Do All Chunks
       // get the Vecs from the K/V store, to avoid racing fetches from the map calls
       _fr.vecs();
+      // Claims of the local chunks; a client maps nothing and has nothing to give
+      if( _steal && !_run_local && !H2O.ARGS.client && _hi > 0 && H2O.CLOUD.size() > 1 )
+        _claims = ChunkClaims.register(_stealId, _fr.anyVec());
     } else if( _keys != null ) {    // Else doing a set of Keys
       _lo = 0;  _hi = _keys.length; // Do All Keys
     }
@@ -792,57 +853,16 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
       Vec v0 = _fr.anyVec();
       if( _run_local || v0.chunkKey(_lo).home() ) { // And chunk is homed here?
         assert(_run_local || !H2O.ARGS.client) : "Client node should not process any keys in MRTask!";
-
-        // Make decompression chunk headers for these chunks
-        NewChunk[] appendableChunks = null;
-        Chunk[] bvs = FrameUtils.extractChunks(_fr, _lo, _run_local);
-
-        if(_output_types != null) {
-          final VectorGroup vg = v0.group();
-          _appendables = new AppendableVec[_output_types.length];
-          appendableChunks = new NewChunk[_output_types.length];
-          for(int i = 0; i < _appendables.length; ++i) {
-            _appendables[i] = new AppendableVec(vg.vecKey(_vid+i),_output_types[i]);
-            appendableChunks[i] = _appendables[i].chunkForChunkIdx(_lo);
-          }
-        }
-        // Call all the various map() calls that apply
-        if(_profile!=null)
-          _profile._userstart = System.currentTimeMillis();
-
-        int num_fr_vecs = _fr.vecs().length;
-        int num_outputs = _output_types == null? 0 : _output_types.length;
-        if (num_outputs == 0) {
-          if (num_fr_vecs == 1) map(bvs[0]);
-          else if (num_fr_vecs == 2) map(bvs[0], bvs[1]);
-          else if (num_fr_vecs == 3) map(bvs[0], bvs[1], bvs[2]);
-          map(bvs);
+        if( _claims != null ) stealTemplate(); // Before map() touches the fields
+        if( _claims == null || _claims.claim(_lo) ) { // Not given away to another node?
+          long start = System.currentTimeMillis();
+          mapChunk(v0);
+          if(_profile!=null) _profile.mapped(System.currentTimeMillis() - start, false);
         }
-        else if (num_outputs == 1) {  // convenience versions for cases with single output.
-          assert appendableChunks != null;
-          if (num_fr_vecs == 1) map(bvs[0], appendableChunks[0]);
-          else if (num_fr_vecs == 2) map(bvs[0], bvs[1], appendableChunks[0]);
-          // else if (fr_vecs_length == 3) map(bvs[0], bvs[1], bvs[2], appendableChunks[0]);
-          map(bvs, appendableChunks[0]);
-        }
-        else if (num_outputs == 2) {  // convenience versions for cases with 2 outputs (e.g split).
-          assert appendableChunks != null;
-          if (num_fr_vecs == 1) map(bvs[0], appendableChunks[0], appendableChunks[1]);
-          // else if (fr_vecs_length == 2) map(bvs[0], bvs[1], appendableChunks[0], appendableChunks[1]);
-          // else if (fr_vecs_length == 3) map(bvs[0], bvs[1], bvs[2], appendableChunks[0], appendableChunks[1]);
-          map(bvs, appendableChunks[0], appendableChunks[1]);
-        }
-        if (num_outputs >= 0)
-          map(bvs, appendableChunks);
-
-        _res = self();          // Save results since called map() at least once!
-        // Further D/K/V put any new vec results.
-        if(_profile!=null)
-          _profile._closestart = System.currentTimeMillis();
-        if (_postMap != null)
-          _postMap.call(bvs);
-        for( Chunk bv : bvs )  bv.close(_lo,_fs);
-        if( _output_types != null) for(NewChunk nch:appendableChunks)nch.close(_lo, _fs);
+      }
+      if( _claims != null && _claims.unclaimed() == 0 ) {
+        stealTemplate();
+        stealChunks();          // Done with the local chunks, help the other nodes
       }
     }
     if(_profile!=null)
@@ -850,6 +870,95 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
     tryComplete();
   }
 
+  // Map the single chunk _lo, homed here or claimed from its home node
+  void mapChunk( Vec v0 ) {
+    // Make decompression chunk headers for these chunks
+    NewChunk[] appendableChunks = null;
+    Chunk[] bvs = FrameUtils.extractChunks(_fr, _lo, _run_local || _stolen);
+
+    if(_output_types != null) {
+      final VectorGroup vg = v0.group();
+      _appendables = new AppendableVec[_output_types.length];
+      appendableChunks = new NewChunk[_output_types.length];
+      for(int i = 0; i < _appendables.length; ++i) {
+        _appendables[i] = new AppendableVec(vg.vecKey(_vid+i),_output_types[i]);
+        appendableChunks[i] = _appendables[i].chunkForChunkIdx(_lo);
+      }
+    }
+    // Call all the various map() calls that apply
+    if(_profile!=null)
+      _profile._userstart = System.currentTimeMillis();
+
+    callMap(bvs, appendableChunks);
+
+    _res = self();          // Save results since called map() at least once!
+    // Further D/K/V put any new vec results.
+    if(_profile!=null)
+      _profile._closestart = System.currentTimeMillis();
+    if (_postMap != null)
+      _postMap.call(bvs);
+    for( Chunk bv : bvs )  bv.close(_lo,_fs);
+    if( _output_types != null) for(NewChunk nch:appendableChunks)nch.close(_lo, _fs);
+  }
+
+  // Dispatch to the map() overloads matching the number of input and output chunks
+  void callMap( Chunk[] bvs, NewChunk[] appendableChunks ) {
+    int num_fr_vecs = bvs.length;
+    int num_outputs = _output_types == null? 0 : _output_types.length;
+    if (num_outputs == 0) {
+      if (num_fr_vecs == 1) map(bvs[0]);
+      else if (num_fr_vecs == 2) map(bvs[0], bvs[1]);
+      else if (num_fr_vecs == 3) map(bvs[0], bvs[1], bvs[2]);
+      map(bvs);
+    }
+    else if (num_outputs == 1) {  // convenience versions for cases with single output.
+      assert appendableChunks != null;
+      if (num_fr_vecs == 1) map(bvs[0], appendableChunks[0]);
+      else if (num_fr_vecs == 2) map(bvs[0], bvs[1], appendableChunks[0]);
+      // else if (fr_vecs_length == 3) map(bvs[0], bvs[1], bvs[2], appendableChunks[0]);
+      map(bvs, appendableChunks[0]);
+    }
+    else if (num_outputs == 2) {  // convenience versions for cases with 2 outputs (e.g split).
+      assert appendableChunks != null;
+      if (num_fr_vecs == 1) map(bvs[0], appendableChunks[0], appendableChunks[1]);
+      // else if (fr_vecs_length == 2) map(bvs[0], bvs[1], appendableChunks[0], appendableChunks[1]);
+      // else if (fr_vecs_length == 3) map(bvs[0], bvs[1], bvs[2], appendableChunks[0], appendableChunks[1]);
+      map(bvs, appendableChunks[0], appendableChunks[1]);
+    }
+    if (num_outputs >= 0)
+      map(bvs, appendableChunks);
+  }
+
+  // Copy of this leaf taken before its own map() ran, the stolen chunks are
+  // mapped in copies of it so that the results of this leaf are not counted
+  // again when the copies are reduced into them
+  transient private MRTask<T> _stealTemplate;
+  private void stealTemplate() {
+    if( _stealTemplate == null ) _stealTemplate = copyAndInit();
+  }
+
+  // Map chunks claimed from other nodes, each one in a fresh copy of this task
+  // reduced into the results of this leaf.  Stops when no node has any left.
+  private void stealChunks() {
+    int[] chunks;
+    while( (chunks = _claims.steal(_lo)) != null ) {
+      for( int cidx : chunks ) {
+        if( isCompletedAbnormally() ) return;
+        T x = _stealTemplate.copyAndInit();
+        x.setCompleter(this);
+        x._lo = cidx;  x._hi = cidx+1;
+        x._stolen = true;
+        x._profile = null;      // Timings are recorded by this leaf
+        long start = System.currentTimeMillis();
+        x.mapChunk(_fr.anyVec());
+        if(_profile!=null) _profile.mapped(System.currentTimeMillis() - start, true);
+        if( _res == null ) _res = x;
+        else _res.reduce4(x);
+      }
+    }
+    _stealTemplate = null;
+  }
+
   /** OnCompletion - reduce the left and right into self.  Called internal by
    *  F/J.  Not expected to be user-called. */
   @Override public final void onCompletion( CountedCompleter caller ) {
@@ -886,6 +995,12 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
   // Block for other queued pending tasks.
   // Copy any final results into 'this', such that a return of 'this' has the results.
   private void postLocal0() {
+    if( _claims != null ) {     // All local chunks are claimed, stop handing out work
+      _claims.unregister();
+      if(_profile!=null) _profile.recordNode(selfidx(), _claims);
+      _claims = null;
+    } else if(_profile!=null && _fr != null && !H2O.ARGS.client)
+      _profile.recordNode(selfidx(), null);
     closeLocal();               // User's node-local cleanup
     if(_profile!=null) _profile._closeLocalDone = System.currentTimeMillis();
     reduce3(_nleft);            // Reduce global results from neighbors.
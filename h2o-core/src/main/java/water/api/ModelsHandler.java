@@ -297,7 +297,7 @@ public class ModelsHandler<I extends ModelsHandler.Models, S extends SchemaV3<I,
   public ModelExportV3 exportMojo(int version, ModelExportV3 mexport) {
     Model model = getFromDKV("model_id", mexport.model_id.key());
     try {
-      URI targetUri = model.exportMojo(mexport.dir, mexport.force); // mexport.dir: Really file, not dir
+      URI targetUri = model.exportMojo(mexport.dir, mexport.force, mexport.getMojoExportOptions()); // mexport.dir: Really file, not dir
       // Send back
       mexport.dir = "file".equals(targetUri.getScheme()) ? new File(targetUri).getCanonicalPath() : targetUri.toString();
     } catch (IOException e) {
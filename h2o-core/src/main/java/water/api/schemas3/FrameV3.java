@@ -1,6 +1,7 @@
 package water.api.schemas3;
 
 import water.DKV;
+import water.H2O;
 import water.Futures;
 import water.Key;
 import water.MemoryManager;
@@ -89,6 +90,9 @@ public class FrameV3 extends FrameBaseV3<Frame, FrameV3> {
 
   public static class ColV3 extends SchemaV3<Vec, ColV3> {
 
+    // Opt-in: report the sketched distinct count along with the histograms
+    static final boolean APPROX_DISTINCT = H2O.getSysBoolProperty("summary.approx_distinct", false);
+
     public ColV3() {}
 
     @API(help="label", direction=API.Direction.OUTPUT)
@@ -148,6 +152,9 @@ public class FrameV3 extends FrameBaseV3<Frame, FrameV3> {
     @API(help="Percentile values, matching the default percentiles", direction=API.Direction.OUTPUT)
     public double[] percentiles;
 
+    @API(help="Approximate number of distinct non-missing values; -1 if not computed", direction=API.Direction.OUTPUT)
+    public long approx_distinct_count;
+
     transient Vec _vec;
 
     ColV3(String name, Vec vec, long off, int len, boolean is_full_column) {
@@ -167,6 +174,8 @@ public class FrameV3 extends FrameBaseV3<Frame, FrameV3> {
       histogram_base = histogram_bins == null ? 0 : vec.base();
       histogram_stride = histogram_bins == null ? 0 : vec.stride();
       percentiles = histogram_bins == null ? null : vec.pctiles();
+      // Computed once along with the histogram, then cached with the rollups
+      approx_distinct_count = APPROX_DISTINCT && histogram_bins != null ? vec.approxDistinct() : -1;
 
       type = vec.isUUID() ? "uuid" :
               vec.isString() ? "string" :
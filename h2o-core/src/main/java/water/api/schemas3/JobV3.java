@@ -54,6 +54,12 @@ public class JobV3 extends SchemaV3<Job, JobV3> {
   @API(help="ready for view", direction=API.Direction.OUTPUT)
   public boolean ready_for_view;
 
+  @API(help="Memory the job is estimated to need, in bytes; 0 if unknown", direction=API.Direction.OUTPUT)
+  public long memory_estimate;
+
+  @API(help="Memory reserved for the job by the cluster-wide admission of jobs, in bytes", direction=API.Direction.OUTPUT)
+  public long reserved_memory;
+
   //==========================
   // Custom adapters go here
 
@@ -97,6 +103,8 @@ public class JobV3 extends SchemaV3<Job, JobV3> {
     msec = job.msec();
     auto_recoverable = job.isRecoverable();
     ready_for_view = job.readyForView();
+    memory_estimate = job.memoryEstimate();
+    reserved_memory = job.reservedMemory();
 
     Keyed dest_type;
     Value value = null;
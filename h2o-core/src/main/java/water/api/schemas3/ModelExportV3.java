@@ -1,6 +1,8 @@
 package water.api.schemas3;
 
+import hex.ModelExportOption;
 import water.Iced;
+import water.exceptions.H2OIllegalArgumentException;
 import water.api.API;
 import water.api.ModelExportAware;
 
@@ -25,9 +27,25 @@ public class ModelExportV3 extends RequestSchemaV3<Iced, ModelExportV3> implemen
           level = API.Level.secondary)
   public boolean export_cross_validation_predictions;
 
+  @API(direction = API.Direction.INPUT, help = "MOJO only: store the split thresholds of trees as indices to per-column tables " +
+          "and the weights of Deep Learning models in lower precision (fp16 or int8).", values = {"none", "fp16", "int8"},
+          level = API.Level.expert)
+  public String mojo_quantization;
+
   @Override
   public boolean isExportCVPredictionsEnabled() {
     return export_cross_validation_predictions;
   }
 
+  public ModelExportOption[] getMojoExportOptions() {
+    if (mojo_quantization == null || "none".equalsIgnoreCase(mojo_quantization))
+      return new ModelExportOption[0];
+    switch (mojo_quantization.toLowerCase()) {
+      case "fp16": return new ModelExportOption[]{ModelExportOption.MOJO_QUANTIZE_FP16};
+      case "int8": return new ModelExportOption[]{ModelExportOption.MOJO_QUANTIZE_INT8};
+      default:
+        throw new H2OIllegalArgumentException("mojo_quantization", "exportMojo", mojo_quantization);
+    }
+  }
+
 }
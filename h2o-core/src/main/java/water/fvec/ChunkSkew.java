@@ -0,0 +1,88 @@
+package water.fvec;
+
+import water.H2O;
+
+/**
+ * Chunk layout of a Frame, as far as the parallelism of the map calls goes.
+ *
+ * The layout made by the parser fits the file, after filtering, rbind-ing or sub-setting the rows of a Frame it
+ * can end up with thousands of tiny chunks (the overhead of a map call dominates the work) or with a few chunks
+ * much larger than the rest (a single map call holds back the whole task).  Both are detected from the
+ * {@link Vec#espc()} of the Frame alone, no data is touched.
+ */
+public final class ChunkSkew {
+
+  /** Non-empty chunks per target chunk above which the Frame is fragmented. */
+  public static final int MAX_FRAGMENTATION = 4;
+  /** Rows of the largest chunk, in target chunks, above which the Frame is imbalanced. */
+  public static final int MAX_IMBALANCE = 4;
+  /** Fragmented chunks are only a problem if they are small. */
+  public static final int SMALL_CHUNK_ROWS = 1000;
+
+  public final long _rows;
+  public final int _chunks;
+  public final int _nonEmpty;
+  public final int _maxRows;
+
+  private ChunkSkew(Vec v) {
+    final long[] espc = v.espc();
+    int nonEmpty = 0;
+    int maxRows = 0;
+    for (int i = 0; i < espc.length - 1; i++) {
+      int len = (int) (espc[i + 1] - espc[i]);
+      if (len > 0) nonEmpty++;
+      maxRows = Math.max(maxRows, len);
+    }
+    _rows = espc[espc.length - 1];
+    _chunks = espc.length - 1;
+    _nonEmpty = nonEmpty;
+    _maxRows = maxRows;
+  }
+
+  public static ChunkSkew of(Frame fr) {
+    return new ChunkSkew(fr.anyVec());
+  }
+
+  /** Average number of rows of the non-empty chunks. */
+  public double meanRows() {
+    return _nonEmpty == 0 ? 0 : (double) _rows / _nonEmpty;
+  }
+
+  /** Many more (small) chunks than needed to keep all the cores busy. */
+  public boolean isFragmented(int targetChunks) {
+    return _nonEmpty > MAX_FRAGMENTATION * targetChunks && meanRows() < SMALL_CHUNK_ROWS;
+  }
+
+  /** The largest chunk holds the rows of several chunks of the target layout. */
+  public boolean isImbalanced(int targetChunks) {
+    return targetChunks > 1 && _maxRows > MAX_IMBALANCE * Math.ceil((double) _rows / targetChunks);
+  }
+
+  public boolean isSkewed(int targetChunks) {
+    return isFragmented(targetChunks) || isImbalanced(targetChunks);
+  }
+
+  /**
+   * Number of chunks of a Frame laid out from scratch: the chunk size is derived from the size of a row, the
+   * number of cores and the number of nodes in the same way the parser does it for a file of the same size.
+   */
+  public static int targetChunks(Frame fr) {
+    // estimate size of the Frame as if it was represented in a binary _uncompressed_ format with no overhead
+    long itemCnt = 0;
+    for (Vec v : fr.vecs())
+      itemCnt += v.length() - v.naCnt();
+    final int itemSize = 4; // magic constant size of both Numbers and Categoricals
+    final long size = Math.max(itemCnt * itemSize, fr.byteSize());
+    final int chunkSize = FileVec.calcOptimalChunkSize(size, fr.numCols(), fr.numCols() * itemSize,
+            H2O.NUMCPUS, H2O.getCloudSize(), false, false);
+    final long chunks = (size / chunkSize) + (size % chunkSize > 0 ? 1 : 0);
+    return (int) Math.max(1, Math.min(chunks, fr.numRows()));
+  }
+
+  @Override
+  public String toString() {
+    return _chunks + " chunks (" + _nonEmpty + " non-empty), " + _rows + " rows, largest chunk " + _maxRows +
+            " rows, mean " + (long) meanRows() + " rows";
+  }
+
+}
@@ -1,6 +1,7 @@
 package water.fvec;
 
 import jsr166y.CountedCompleter;
+import water.ChunkReplicas;
 import water.Futures;
 import water.H2O;
 import water.Key;
@@ -26,6 +27,8 @@ public class RebalanceDataSet extends H2O.H2OCountedCompleter {
   final Key _jobKey;
   final transient Vec.VectorGroup _vg;
   transient long[] _espc;
+  int _colBatch;          // columns rebalanced per pass, 0 - all at once
+  boolean _consumeSource; // remove the source Vecs once copied
 
   /**
    * Constructor for make-compatible task.
@@ -56,6 +59,36 @@ public class RebalanceDataSet extends H2O.H2OCountedCompleter {
 
   public Frame getResult(){join(); return _out;}
 
+  /**
+   * Rebalance the columns in batches rather than all at once.  Building a chunk
+   * pulls the overlapping source chunks to the node building it; the copies of
+   * the source chunks pulled in by a batch are dropped before the next batch
+   * starts, so the memory used on top of the source and the result is bounded
+   * by the size of a batch.  If the source is consumed, each batch of source
+   * Vecs is removed as soon as it is copied and the peak memory stays close to
+   * the size of the source alone.
+   * @param colBatch number of columns per batch, see {@link #columnBatch(Frame)};
+   *                 0 - all columns in a single batch
+   * @param consumeSource remove the Vecs of the source frame (the caller has to
+   *                      own them, the source frame cannot be used afterwards)
+   * @return this
+   */
+  public RebalanceDataSet streaming(int colBatch, boolean consumeSource) {
+    _colBatch = colBatch;
+    _consumeSource = consumeSource;
+    return this;
+  }
+
+  /**
+   * @return number of columns per batch for {@link #streaming(int, boolean)}
+   * keeping the chunks of a batch under 1/8 of the free memory of the cloud
+   */
+  public static int columnBatch(Frame fr) {
+    final long budget = H2O.CLOUD.free_mem() / 8;
+    final long perCol = Math.max(1, fr.byteSize() / Math.max(1, fr.numCols()));
+    return (int) Math.max(1, Math.min(fr.numCols(), budget / perCol));
+  }
+
   @Override public void compute2() {
     // Simply create a bogus new vector (don't even put it into KV) with
     // appropriate number of lines per chunk and then use it as a source to do
@@ -82,7 +115,42 @@ public class RebalanceDataSet extends H2O.H2OCountedCompleter {
     final Vec[] srcVecs = _in.vecs();
     _out = new Frame(_okey,_in.names(), new Vec(_vg.addVec(),rowLayout).makeCons(srcVecs.length,0L,_in.domains(),_in.types()));
     _out.delete_and_lock(_jobKey);
-    new RebalanceTask(this,srcVecs).dfork(_out);
+    if (!_consumeSource && (_colBatch <= 0 || _colBatch >= srcVecs.length)) {
+      new RebalanceTask(this,srcVecs).dfork(_out);
+      return;
+    }
+    // Streaming: constant output Vecs are cheap, fill them a batch of columns at a time
+    final Vec[] outVecs = _out.vecs();
+    final int batch = _colBatch <= 0 ? srcVecs.length : _colBatch;
+    for (int lo = 0; lo < srcVecs.length; lo += batch) {
+      final int hi = Math.min(srcVecs.length, lo + batch);
+      final Vec[] src = Arrays.copyOfRange(srcVecs, lo, hi);
+      new RebalanceTask(null, src).doAll(new Frame(Arrays.copyOfRange(outVecs, lo, hi)));
+      if (_consumeSource) {
+        Futures fs = new Futures();
+        for (Vec v : src) v.remove(fs);
+        fs.blockForPending();
+      } else {
+        new DropCachedChunks(src).doAllNodes();
+      }
+    }
+    tryComplete();
+  }
+
+  // Removes the copies of the chunks of the Vecs cached on nodes other than
+  // their home node, the next read fetches them from home again
+  private static class DropCachedChunks extends MRTask<DropCachedChunks> {
+    final Vec[] _vecs;
+    DropCachedChunks(Vec[] vecs) { _vecs = vecs; }
+    @Override protected void setupLocal() {
+      for (Vec v : _vecs) {
+        if (ChunkReplicas.factor(v) > 1) continue; // replicas are meant to stay
+        for (int i = 0; i < v.nChunks(); i++) {
+          Key k = v.chunkKey(i);
+          if (!k.home()) H2O.raw_remove(k);
+        }
+      }
+    }
   }
 
   @Override public void onCompletion(CountedCompleter caller) {
@@ -12,6 +12,8 @@ import water.nbhm.NonBlockingHashMap;
 import water.parser.Categorical;
 import water.parser.BufferedString;
 import water.util.ArrayUtils;
+import water.util.HyperLogLog;
+import water.util.KLLSketch;
 import water.util.Log;
 
 import java.util.Arrays;
@@ -59,6 +61,37 @@ final class RollupStats extends Iced {
 
   public boolean hasHisto(){return _bins != null;}
 
+  // Mergeable sketches of the distinct count and of the quantiles
+  // Computed on-demand, each on its first request, and dropped with the rest of the rollups
+  static final int DISTINCT = 1, QUANTILES = 2; // Bit flags of the requested sketches
+  HyperLogLog _hll;
+  KLLSketch _kll;
+
+  boolean hasSketches( int sketches ) {
+    return ((sketches & DISTINCT) == 0 || _hll != null) && ((sketches & QUANTILES) == 0 || _kll != null);
+  }
+
+  // Approximate number of distinct non-NA values; exact when the histogram has a bin per integer
+  static long approxDistinct( Vec vec ) {
+    if( vec.isString() || vec.isUUID() ) return -1;
+    RollupStats rs = get(vec, true);
+    if( rs._isInt && rs._bins.length > 0 && rs.h_stride() == 1 ) {
+      long cnt = 0;
+      for( long b : rs._bins ) if( b > 0 ) cnt++;
+      return cnt;
+    }
+    return get(vec, false, DISTINCT)._hll.estimate();
+  }
+
+  static double[] approxQuantiles( Vec vec, double[] probs ) {
+    if( vec.isString() || vec.isUUID() ) {
+      double[] res = new double[probs.length];
+      Arrays.fill(res, Double.NaN);
+      return res;
+    }
+    return get(vec, false, QUANTILES)._kll.quantiles(probs);
+  }
+
   // Check for: Vector is mutating and rollups cannot be asked for
   boolean isMutating() { return _naCnt==-2; }
   // Check for: Rollups currently being computed
@@ -336,7 +369,9 @@ final class RollupStats extends Iced {
 
   private static NonBlockingHashMap<Key,RPC> _pendingRollups = new NonBlockingHashMap<>();
 
-  static RollupStats get(Vec vec, boolean computeHisto) {
+  static RollupStats get(Vec vec, boolean computeHisto) { return get(vec, computeHisto, 0); }
+
+  static RollupStats get(Vec vec, boolean computeHisto, int sketches) {
     if( DKV.get(vec._key)== null ) {
       throw new H2OConcurrentModificationException("Rollups not possible, because Vec was deleted: " + vec._key);
     }
@@ -345,12 +380,12 @@ final class RollupStats extends Iced {
     }
     final Key rskey = vec.rollupStatsKey();
     RollupStats rs = DKV.getGet(rskey);
-    while(rs == null || (!rs.isReady() || (computeHisto && !rs.hasHisto()))){
+    while(rs == null || (!rs.isReady() || (computeHisto && !rs.hasHisto()) || !rs.hasSketches(sketches))){
       if(rs != null && rs.isMutating())
         throw new H2OConcurrentModificationException("Can not compute rollup stats while vec is being modified. (1)");
       // 1. compute only once
       try {
-        RPC rpcNew = new RPC(rskey.home_node(),new ComputeRollupsTask(vec, computeHisto));
+        RPC rpcNew = new RPC(rskey.home_node(),new ComputeRollupsTask(vec, computeHisto, sketches));
         RPC rpcOld = _pendingRollups.putIfAbsent(rskey, rpcNew);
         if(rpcOld == null) {  // no prior pending task, need to send this one
           rpcNew.call().get();
@@ -405,22 +440,58 @@ final class RollupStats extends Iced {
     @Override public boolean logVerbose() { return false; }
   }
 
+  // Compute the requested sketches
+  private static class Sketches extends MRTask<Sketches> {
+    final boolean _distinct, _quantiles; // Inputs
+    HyperLogLog _hll;                    // Outputs
+    KLLSketch _kll;
+    Sketches( boolean distinct, boolean quantiles ) { _distinct = distinct; _quantiles = quantiles; }
+    @Override public void map( Chunk c ) {
+      if( _distinct ) _hll = new HyperLogLog();
+      if( _quantiles ) _kll = new KLLSketch();
+      for( int i=c.nextNZ(-1); i< c._len; i=c.nextNZ(i) ) {
+        double d = c.atd(i);
+        if( Double.isNaN(d) ) continue;
+        if( _distinct ) _hll.add(d);
+        if( _quantiles ) _kll.add(d);
+      }
+      // Sparse?  We skipped all the zeros; do them now
+      if( c.isSparseZero() ) {
+        int zeros = c._len - c.sparseLenZero();
+        if( zeros > 0 && _distinct ) _hll.add(0);
+        if( _quantiles ) _kll.add(0, zeros);
+      }
+    }
+    @Override public void reduce( Sketches s ) {
+      if( _distinct ) _hll.merge(s._hll);
+      if( _quantiles ) _kll.merge(s._kll);
+    }
+    @Override public void postGlobal() { // No chunks at all
+      if( _distinct && _hll == null ) _hll = new HyperLogLog();
+      if( _quantiles && _kll == null ) _kll = new KLLSketch();
+    }
+  }
+
 
   // Task to compute rollups on its homenode if needed.
   // Only computes the rollups, does not fetch them, caller should fetch them via DKV store (to preserve caching).
-  // Only comutes the rollups if needed (i.e. are null or do not have histo and histo is required)
+  // Only comutes the rollups if needed (i.e. are null or do not have histo or the sketches that are required)
   // If rs computation is already in progress, it will wait for it to finish.
   // Throws IAE if the Vec is being modified (or removed) while this task is in progress.
   static final class ComputeRollupsTask extends DTask<ComputeRollupsTask>{
     final Key _vecKey;
     final Key _rsKey;
     final boolean _computeHisto;
+    final int _sketches;
+
+    public ComputeRollupsTask(Vec v, boolean computeHisto){ this(v, computeHisto, 0); }
 
-    public ComputeRollupsTask(Vec v, boolean computeHisto){
+    public ComputeRollupsTask(Vec v, boolean computeHisto, int sketches){
       super((byte)(Thread.currentThread() instanceof H2O.FJWThr ? currThrPriority()+1 : H2O.MIN_HI_PRIORITY-3));
       _vecKey = v._key;
       _rsKey = v.rollupStatsKey();
       _computeHisto = computeHisto;
+      _sketches = sketches;
     }
 
     private Value makeComputing(){
@@ -448,14 +519,14 @@ final class RollupStats extends Iced {
         RollupStats rs = (v == null) ? null : v.<RollupStats>get();
         // Fetched current rs from the DKV, rs can be:
         //   a) computed
-        //        a.1) has histo or histo not required => do nothing
-        //        a.2) no histo and histo is required  => only compute histo
+        //        a.1) has histo and sketches or they are not required => do nothing
+        //        a.2) no histo or sketches that are required          => only compute those
         //   b) computing => wait for the task computing it to finish and check again
         //   c) mutating  => throw IAE
         //   d) null      => compute new rollups
         if (rs != null) {
           if (rs.isReady()) {
-            if (_computeHisto && !rs.hasHisto()) { // a.2 => compute rollups
+            if ((_computeHisto && !rs.hasHisto()) || !rs.hasSketches(_sketches)) { // a.2 => compute histo and sketches
               CountedCompleter cc = getCompleter(); // should be null or RPCCall
               if(cc != null) assert cc.getCompleter() == null;
               // note: if cc == null then onExceptionalCompletion tasks waiting on this may be woken up before exception handling iff exception is thrown.
@@ -464,7 +535,13 @@ final class RollupStats extends Iced {
               Value oldv = DKV.DputIfMatch(_rsKey, nnn, v, fs);
               fs.blockForPending();
               if(oldv == v){ // got the lock
-                computeHisto(rs, vec, nnn);
+                try {
+                  complete(rs, vec, nnn);
+                } catch (Exception e) {
+                  Log.err(e);
+                  cleanupStats(nnn);
+                  throw e;
+                }
                 break;
               } // else someone else is modifying the rollups => try again
             } else
@@ -481,12 +558,9 @@ final class RollupStats extends Iced {
           if(oldv == v){ // got the lock, compute the rollups
             try {
               Roll r = new Roll(null, _rsKey).doAll(vec);
-              // computed the stats, now compute histo if needed and install the response and quit
+              // computed the stats, now compute histo and sketches if needed and install the response and quit
               r._rs._checksum ^= vec.length();
-              if (_computeHisto)
-                computeHisto(r._rs, vec, nnn);
-              else
-                installResponse(nnn, r._rs);
+              complete(r._rs, vec, nnn);
               break;
             } catch (Exception e) {
               Log.err(e);
@@ -507,11 +581,23 @@ final class RollupStats extends Iced {
       return success;
     }
 
-    final void computeHisto(final RollupStats rs, Vec vec, final Value nnn) {
+    // Add the missing histogram and sketches to the ready rollups and install them
+    private void complete(final RollupStats rs, Vec vec, final Value nnn) {
+      if (_computeHisto && !rs.hasHisto())
+        computeHisto(rs, vec);
+      if (!rs.hasSketches(_sketches)) {
+        Sketches s = new Sketches((_sketches & DISTINCT) != 0 && rs._hll == null,
+                                  (_sketches & QUANTILES) != 0 && rs._kll == null).doAll(vec);
+        if (s._distinct) rs._hll = s._hll;
+        if (s._quantiles) rs._kll = s._kll;
+      }
+      installResponse(nnn, rs);
+    }
+
+    final void computeHisto(final RollupStats rs, Vec vec) {
       // All NAs or non-math; histogram has zero bins
       if (rs._naCnt == vec.length() || vec.isUUID()) {
         rs._bins = new long[0];
-        installResponse(nnn, rs);
         return;
       }
       // Constant: use a single bin
@@ -520,7 +606,6 @@ final class RollupStats extends Iced {
       assert rows > 0 : "rows = " + rows + ", vec.len() = " + vec.length() + ", naCnt = " + rs._naCnt;
       if (span == 0) {
         rs._bins = new long[]{rows};
-        installResponse(nnn, rs);
         return;
       }
       // Number of bins: MAX_SIZE by default.  For integers, bins for each unique int
@@ -566,7 +651,6 @@ final class RollupStats extends Iced {
         } // otherwise either h==0 and we know which bin, or fraction is between two positions that fall in the same bin
         // this guarantees we are within one bin of the exact answer; i.e. within (max-min)/MAX_SIZE
       }
-      installResponse(nnn, rs);
     }
   }
 }
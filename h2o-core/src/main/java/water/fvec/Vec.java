@@ -928,6 +928,18 @@ public class Vec extends Keyed<Vec> {
    *  @return A set of percentiles */
   public double[] pctiles() { return RollupStats.get(this, true)._pctiles;   }
 
+  /** Approximate number of distinct non-NA values, from a HyperLogLog sketch
+   *  computed on the first call and cached with the rollups (exact for integer
+   *  columns with a histogram bin per value, no sketch needed).
+   *  @return Approximate distinct count, or -1 for String and UUID columns */
+  public long approxDistinct() { return RollupStats.approxDistinct(this); }
+
+  /** Approximate quantiles of the non-NA values, from a KLL sketch computed on
+   *  the first call and cached with the rollups; the rank error is about 1% of the rows.
+   *  @param probs probabilities between 0 and 1
+   *  @return Approximate quantiles, NaNs for String, UUID and all-NA columns */
+  public double[] approxQuantiles(double[] probs) { return RollupStats.approxQuantiles(this, probs); }
+
 
   /** Compute the roll-up stats as-needed */
   private RollupStats rollupStats() { return RollupStats.get(this); }
@@ -1399,6 +1411,7 @@ public class Vec extends Keyed<Vec> {
       H2O.raw_remove(kc);
     }
     H2O.raw_remove(vkey);
+    ChunkReplicas.forget(vkey);
   }
 
   /** Write out K/V pairs */
@@ -3,16 +3,15 @@ package water.fvec.task;
 import water.MRTask;
 import water.fvec.Chunk;
 import water.fvec.Vec;
-import water.util.IcedDouble;
-import water.util.IcedHashSet;
+import water.util.IcedLongLongHashMap;
 
 public class UniqTask extends MRTask<UniqTask> {
-  private IcedHashSet<IcedDouble> _uniq;
+  private IcedLongLongHashMap _uniq; // used as a set of the bits of the values, no boxing
   private boolean _na;
 
   @Override
   public void map(Chunk[] c) {
-    _uniq = new IcedHashSet<>();
+    _uniq = new IcedLongLongHashMap();
     double prev = Double.NaN;
     for (int i = 0; i < c[0]._len; ++i) {
       final double val = c[0].atd(i);
@@ -23,20 +22,20 @@ public class UniqTask extends MRTask<UniqTask> {
       if (val == prev) // helps with sparse data and continuous runs of single values
         continue;
       prev = val;
-      _uniq.addIfAbsent(new IcedDouble(val));
+      _uniq.putIfAbsent(Double.doubleToLongBits(val), 1, 0);
     }
   }
 
   @Override
   public void reduce(UniqTask t) {
-    IcedHashSet<IcedDouble> l = _uniq;
-    IcedHashSet<IcedDouble> r = t._uniq;
+    IcedLongLongHashMap l = _uniq;
+    IcedLongLongHashMap r = t._uniq;
     if (l.size() < r.size()) {
       l = r;
       r = _uniq;
     }  // larger on the left
-    for (IcedDouble rg : r)
-      l.addIfAbsent(rg);  // loop over smaller set
+    for (long bits : r.keys())
+      l.putIfAbsent(bits, 1, 0);  // loop over smaller set
     _uniq = l;
     _na = _na || t._na;
     t._uniq = null;
@@ -48,8 +47,8 @@ public class UniqTask extends MRTask<UniqTask> {
     int i = 0;
     if (_na)
       res[i++] = Double.NaN;
-    for (IcedDouble d : _uniq)
-      res[i++] = d._val;
+    for (long bits : _uniq.keys())
+      res[i++] = Double.longBitsToDouble(bits);
     assert i == res.length;
     return res;
   }
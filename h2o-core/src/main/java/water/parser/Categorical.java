@@ -3,7 +3,7 @@ package water.parser;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import water.Iced;
-import water.util.IcedHashMap;
+import water.util.IcedBufferedStringIntHashMap;
 import water.util.Log;
 import water.util.PrettyPrint;
 
@@ -26,22 +26,22 @@ public final class Categorical extends Iced {
   public static final int MAX_CATEGORICAL_COUNT = 10000000;
   transient AtomicInteger _id = new AtomicInteger();
   int _maxId = -1;
-  volatile IcedHashMap<BufferedString, Integer> _map;
+  volatile IcedBufferedStringIntHashMap _map;
   boolean maxDomainExceeded = false;
 
-  Categorical() { _map = new IcedHashMap<>(); }
+  Categorical() { _map = new IcedBufferedStringIntHashMap(); }
 
   /** Add key to this map (treated as hash set in this case). */
   int addKey(BufferedString str) {
     // _map is shared and be cast to null (if categorical is killed) -> grab local copy
-    IcedHashMap<BufferedString, Integer> m = _map;
+    IcedBufferedStringIntHashMap m = _map;
     if( m == null ) return Integer.MAX_VALUE;     // Nuked already
-    Integer res = m.get(str);
-    if( res != null ) return res; // Recorded already
+    int res = m.get(str, -1);
+    if( res != -1 ) return res; // Recorded already
     assert str.length() < 65535; // Length limit so 65535 can be used as a sentinel
     int newVal = _id.incrementAndGet();
-    res = m.putIfAbsent(new BufferedString(str), newVal);
-    if( res != null ) return res;
+    res = m.putIfAbsent(str, newVal, -1); // copies the key
+    if( res != -1 ) return res;
     if( m.size() > MAX_CATEGORICAL_COUNT) maxDomainExceeded = true;
     return newVal;
   }
@@ -50,14 +50,18 @@ public final class Categorical extends Iced {
     return "{"+_map+" }";
   }
 
-  int getTokenId( BufferedString str ) { return _map.get(str); }
+  int getTokenId( BufferedString str ) {
+    int id = _map.get(str, -1);
+    if( id == -1 ) throw new IllegalStateException("Unknown categorical level " + str);
+    return id;
+  }
   
   int maxId() { return _maxId == -1 ? _id.get() : _maxId; }
   int size() { return _map.size(); }
   boolean isMapFull() { return maxDomainExceeded; }
 
   BufferedString[] getColumnDomain() {
-    return  _map.keySet().toArray(new BufferedString[_map.size()]);
+    return _map.keys();
   }
 
   /**
@@ -67,7 +71,8 @@ public final class Categorical extends Iced {
    */
   void convertToUTF8(int col) {
     int hexConvLeft = 10;
-    BufferedString[] bStrs = _map.keySet().toArray(new BufferedString[_map.size()]);
+    BufferedString[] bStrs = _map.keys();
+    IcedBufferedStringIntHashMap converted = null; // the map does not support removal, rebuilt if anything changes
     StringBuilder hexSB = new StringBuilder();
     for (int i = 0; i < bStrs.length; i++) {
       String s = bStrs[i].toString(); // converts to String using UTF-8 encoding
@@ -78,10 +83,14 @@ public final class Categorical extends Iced {
         if (hexConvLeft-- > 0) hexSB.append(s).append(", ");
         if (hexConvLeft == 0) hexSB.append("...");
       }
-      int val = _map.get(bStrs[i]);
-      _map.remove(bStrs[i]);
-      bStrs[i] = new BufferedString(s);
-      _map.put(bStrs[i], val);
+      if (converted == null) converted = new IcedBufferedStringIntHashMap();
+      converted.putIfAbsent(new BufferedString(s), _map.get(bStrs[i], -1), -1);
+      bStrs[i] = null;
+    }
+    if (converted != null) {
+      for (BufferedString str : bStrs)
+        if (str != null) converted.putIfAbsent(str, _map.get(str, -1), -1);
+      _map = converted;
     }
     if (hexSB.length() > 0) Log.info("Found categoricals with non-UTF-8 characters or NULL character in the " +
         PrettyPrint.withOrdinalIndicator(col) + " column. Converting unrecognized characters into hex:  " + hexSB.toString());
@@ -0,0 +1,342 @@
+package water.rapids;
+
+import water.H2O;
+import water.Iced;
+import water.MRTask;
+import water.MemoryManager;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.fvec.Vec;
+import water.parser.BufferedString;
+import water.util.Log;
+
+import java.util.Arrays;
+
+/**
+ * Broadcast-hash join: an alternative to the radix-sort {@link Merge} for the
+ * common case of a big (fact) frame joined to a small (dimension) frame.
+ * <p/>
+ * The right frame is collected once into a compact, primitive-array hash
+ * table (no boxed row objects), which is shipped to every node together with
+ * the join task.  The left frame is then walked in a single pass, each chunk
+ * locally probing the table, so neither side is sorted or shuffled.  Unlike
+ * the radix merge, the result keeps the row order of the left frame.
+ * <p/>
+ * Semantics match {@link Merge#merge}: the join is done on the first
+ * {@code ncols} columns of both frames, right rows with an NA key never match,
+ * duplicated right keys replicate the left row, and when {@code allLeft} is
+ * set unmatched left rows are kept with NAs in the right columns.  The result
+ * has all the left columns followed by the non-key right columns.
+ */
+public class BroadcastJoin {
+
+  // Upper bound on the number of rows of the broadcast (right) frame.
+  static final long MAX_BROADCAST_ROWS = Long.parseLong(H2O.getSysProperty("rapids.merge.broadcast.maxRows", "10000000"));
+  // Fraction of the heap of a single node the broadcast table is allowed to take.
+  static final double MAX_BROADCAST_MEM_FRACTION = Double.parseDouble(H2O.getSysProperty("rapids.merge.broadcast.maxMemFraction", "0.1"));
+
+  private static final long NA_LONG = Long.MIN_VALUE;
+
+  /**
+   * Checks whether the right frame can be broadcast at all: the key columns need to be
+   * categorical or numeric on both sides, the right frame cannot contain UUIDs and the
+   * resulting table has to fit within the per-node memory budget.
+   */
+  public static boolean isApplicable(Frame left, Frame right, int ncols) {
+    if (right.numRows() > MAX_BROADCAST_ROWS || ncols == 0)
+      return false;
+    for (int i = 0; i < ncols; i++) {
+      Vec lv = left.vec(i), rv = right.vec(i);
+      if (lv.isCategorical() != rv.isCategorical())
+        return false;
+      if (lv.isString() || lv.isUUID() || rv.isString() || rv.isUUID())
+        return false;
+    }
+    for (int i = ncols; i < right.numCols(); i++)
+      if (right.vec(i).isUUID())
+        return false;
+    return estimateTableBytes(right, ncols) <= MemoryManager.MEM_MAX * MAX_BROADCAST_MEM_FRACTION;
+  }
+
+  static long estimateTableBytes(Frame right, int ncols) {
+    long nrows = right.numRows();
+    long bytes = nrows * (ncols * 8L + 4L) + 4L * tableSize(nrows);   // keys, chain links and buckets
+    for (int i = ncols; i < right.numCols(); i++) {
+      Vec v = right.vec(i);
+      bytes += v.isString() ? 2 * v.byteSize() + nrows * 16 : nrows * 8;
+    }
+    return bytes;
+  }
+
+  private static int tableSize(long nrows) {
+    long size = Long.highestOneBit(Math.max(nrows, 1)) << 1;
+    return (int) Math.min(size, 1 << 30);
+  }
+
+  /**
+   * Joins two frames by broadcasting the right frame.
+   *
+   * @param left    walked frame, the key columns are its first {@code ncols} columns.
+   * @param right   broadcast frame, the key columns are its first {@code ncols} columns.
+   * @param allLeft keep the left rows without a match.
+   * @param ncols   number of key columns.
+   * @param id_maps per key column mapping of the left categorical levels to the levels of the right
+   *                domain (as computed by {@link water.fvec.CategoricalWrappedVec#computeMap}), null for non-categoricals.
+   * @return new frame with the left columns followed by the non-key right columns.
+   */
+  public static Frame join(Frame left, Frame right, boolean allLeft, int ncols, int[][] id_maps) {
+    if (!isApplicable(left, right, ncols))
+      throw new IllegalArgumentException("Right frame cannot be broadcast, use a radix merge instead.");
+    long t0 = System.nanoTime();
+    boolean[] intKeys = new boolean[ncols];
+    int[] rightCardinality = new int[ncols];
+    for (int i = 0; i < ncols; i++) {
+      intKeys[i] = left.vec(i).isInt() && right.vec(i).isInt();
+      rightCardinality[i] = right.vec(i).isCategorical() ? right.vec(i).cardinality() : -1;
+    }
+    BroadcastTable table = BroadcastTable.make(right, ncols, intKeys);
+    Log.debug("Broadcast join table of " + table._nrows + " rows built in " + (System.nanoTime() - t0) / 1e9 + " seconds.");
+
+    int nLeft = left.numCols(), nPayload = right.numCols() - ncols;
+    byte[] types = Arrays.copyOf(left.types(), nLeft + nPayload);
+    String[] names = Arrays.copyOf(left.names(), nLeft + nPayload);
+    String[][] domains = Arrays.copyOf(left.domains(), nLeft + nPayload);
+    for (int i = 0; i < nPayload; i++) {
+      types[nLeft + i] = right.vec(ncols + i).get_type();
+      names[nLeft + i] = right.name(ncols + i);
+      domains[nLeft + i] = right.vec(ncols + i).domain();
+    }
+    t0 = System.nanoTime();
+    Frame res = new JoinTask(table, id_maps, intKeys, rightCardinality, allLeft)
+            .doAll(types, left).outputFrame(names, domains);
+    Log.debug("Broadcast join probe took " + (System.nanoTime() - t0) / 1e9 + " seconds.");
+    return res;
+  }
+
+  // Encodes a (non-NA) key value as a long; non-integer keys are compared on their bits.
+  private static long keyOf(Chunk c, int row, boolean intKey) {
+    if (intKey) return c.at8(row);
+    double d = c.atd(row);
+    return Double.doubleToLongBits(d == 0 ? 0.0 : d); // make -0.0 and 0.0 the same key
+  }
+
+  private static int hash(long[] keys) {
+    long h = 0;
+    for (long k : keys) h = h * 0x9E3779B97F4A7C15L + k;
+    return (int) (h ^ (h >>> 29) ^ (h >>> 47));
+  }
+
+  /**
+   * Right frame decomposed into primitive columns plus a chained hash index over the row numbers.
+   * Integer-like payload (categoricals, times, integers) is kept as longs to stay exact.
+   */
+  static class BroadcastTable extends Iced<BroadcastTable> {
+    int _nrows;
+    long[][] _keys;     // [key column][row]
+    long[][] _ints;     // [payload column][row], null if the column is not integer-like
+    double[][] _dbls;   // [payload column][row], null if the column is not real
+    String[][] _strs;   // [payload column][row], null if the column is not a string column
+    int[] _buckets;     // head of the chain of each bucket: row+1, 0 marks an empty bucket
+    int[] _next;        // next row (+1) in the chain
+
+    static BroadcastTable make(Frame right, int ncols, boolean[] intKeys) {
+      Vec[] vecs = right.vecs();
+      boolean[] intPayload = new boolean[vecs.length - ncols];
+      for (int i = 0; i < intPayload.length; i++) {
+        Vec v = vecs[ncols + i];
+        intPayload[i] = v.isCategorical() || v.isTime() || (v.isNumeric() && v.isInt());
+      }
+      RowBlock[] blocks = new CollectTask(ncols, intKeys, intPayload, right.anyVec().nChunks()).doAll(right)._blocks;
+      BroadcastTable t = new BroadcastTable();
+      for (RowBlock b : blocks) t._nrows += b._len;
+      int npayload = intPayload.length;
+      t._keys = new long[ncols][t._nrows];
+      t._ints = new long[npayload][];
+      t._dbls = new double[npayload][];
+      t._strs = new String[npayload][];
+      for (int i = 0; i < npayload; i++) {
+        if (vecs[ncols + i].isString()) t._strs[i] = new String[t._nrows];
+        else if (intPayload[i]) t._ints[i] = MemoryManager.malloc8(t._nrows);
+        else t._dbls[i] = MemoryManager.malloc8d(t._nrows);
+      }
+      int off = 0;
+      for (RowBlock b : blocks) {
+        for (int k = 0; k < ncols; k++) System.arraycopy(b._keys[k], 0, t._keys[k], off, b._len);
+        for (int i = 0; i < npayload; i++) {
+          if (t._strs[i] != null) System.arraycopy(b._strs[i], 0, t._strs[i], off, b._len);
+          else if (t._ints[i] != null) System.arraycopy(b._ints[i], 0, t._ints[i], off, b._len);
+          else System.arraycopy(b._dbls[i], 0, t._dbls[i], off, b._len);
+        }
+        off += b._len;
+      }
+      t.index();
+      return t;
+    }
+
+    private void index() {
+      _buckets = MemoryManager.malloc4(tableSize(_nrows));
+      _next = MemoryManager.malloc4(_nrows);
+      int mask = _buckets.length - 1;
+      long[] key = new long[_keys.length];
+      // insert backwards so that the chains list duplicated keys in the original row order
+      for (int r = _nrows - 1; r >= 0; r--) {
+        for (int k = 0; k < key.length; k++) key[k] = _keys[k][r];
+        int b = hash(key) & mask;
+        _next[r] = _buckets[b];
+        _buckets[b] = r + 1;
+      }
+    }
+
+    // First matching row + 1 (0 if there is none); continue with nextMatch
+    int firstMatch(long[] key) {
+      return match(_buckets[hash(key) & (_buckets.length - 1)], key);
+    }
+
+    int nextMatch(int prev, long[] key) {
+      return match(_next[prev - 1], key);
+    }
+
+    private int match(int r, long[] key) {
+      for (; r != 0; r = _next[r - 1])
+        if (sameKey(r - 1, key)) return r;
+      return 0;
+    }
+
+    private boolean sameKey(int row, long[] key) {
+      for (int k = 0; k < key.length; k++)
+        if (_keys[k][row] != key[k]) return false;
+      return true;
+    }
+  }
+
+  // Rows of a single chunk of the right frame, rows with an NA key are left out.
+  private static class RowBlock extends Iced<RowBlock> {
+    int _len;
+    long[][] _keys;
+    long[][] _ints;
+    double[][] _dbls;
+    String[][] _strs;
+  }
+
+  private static class CollectTask extends MRTask<CollectTask> {
+    final int _ncols;
+    final boolean[] _intKeys;
+    final boolean[] _intPayload;
+    RowBlock[] _blocks;   // one per chunk
+
+    CollectTask(int ncols, boolean[] intKeys, boolean[] intPayload, int nChunks) {
+      _ncols = ncols;
+      _intKeys = intKeys;
+      _intPayload = intPayload;
+      _blocks = new RowBlock[nChunks];
+    }
+
+    @Override
+    public void map(Chunk[] cs) {
+      int len = cs[0]._len;
+      RowBlock b = new RowBlock();
+      b._keys = new long[_ncols][len];
+      b._ints = new long[_intPayload.length][];
+      b._dbls = new double[_intPayload.length][];
+      b._strs = new String[_intPayload.length][];
+      for (int i = 0; i < _intPayload.length; i++) {
+        if (cs[_ncols + i].vec().isString()) b._strs[i] = new String[len];
+        else if (_intPayload[i]) b._ints[i] = new long[len];
+        else b._dbls[i] = new double[len];
+      }
+      BufferedString tmpStr = new BufferedString();
+      int n = 0;
+      rows:
+      for (int r = 0; r < len; r++) {
+        for (int k = 0; k < _ncols; k++) {
+          if (cs[k].isNA(r)) continue rows;
+          b._keys[k][n] = keyOf(cs[k], r, _intKeys[k]);
+        }
+        for (int i = 0; i < _intPayload.length; i++) {
+          Chunk c = cs[_ncols + i];
+          if (b._strs[i] != null) b._strs[i][n] = c.isNA(r) ? null : c.atStr(tmpStr, r).toString();
+          else if (b._ints[i] != null) b._ints[i][n] = c.isNA(r) ? NA_LONG : c.at8(r);
+          else b._dbls[i][n] = c.atd(r);
+        }
+        n++;
+      }
+      b._len = n;
+      _blocks[cs[0].cidx()] = b;
+    }
+
+    @Override
+    public void reduce(CollectTask mrt) {
+      if (_blocks == mrt._blocks) return; // shared on the local node
+      for (int i = 0; i < _blocks.length; i++)
+        if (_blocks[i] == null) _blocks[i] = mrt._blocks[i];
+    }
+  }
+
+  private static class JoinTask extends MRTask<JoinTask> {
+    final BroadcastTable _table;   // serialized with the task, ie. broadcast to every node
+    final int[][] _idMaps;
+    final boolean[] _intKeys;
+    final int[] _rightCardinality;
+    final boolean _allLeft;
+
+    JoinTask(BroadcastTable table, int[][] idMaps, boolean[] intKeys, int[] rightCardinality, boolean allLeft) {
+      _table = table;
+      _idMaps = idMaps;
+      _intKeys = intKeys;
+      _rightCardinality = rightCardinality;
+      _allLeft = allLeft;
+    }
+
+    @Override
+    public void map(Chunk[] cs, NewChunk[] ncs) {
+      final BroadcastTable t = _table;
+      final int ncols = _intKeys.length;
+      final int nLeft = cs.length;
+      final long[] key = new long[ncols];
+      final int len = cs[0]._len;
+      for (int r = 0; r < len; r++) {
+        int m = fillKey(cs, r, key) ? t.firstMatch(key) : 0;
+        if (m == 0) {
+          if (_allLeft) {
+            for (int c = 0; c < nLeft; c++) cs[c].extractRows(ncs[c], r);
+            for (int c = nLeft; c < ncs.length; c++) ncs[c].addNA();
+          }
+          continue;
+        }
+        for (; m != 0; m = t.nextMatch(m, key)) {
+          for (int c = 0; c < nLeft; c++) cs[c].extractRows(ncs[c], r);
+          addPayload(t, m - 1, ncs, nLeft);
+        }
+      }
+    }
+
+    // returns false if the key cannot have a match (NA or a level unknown to the right frame)
+    private boolean fillKey(Chunk[] cs, int r, long[] key) {
+      for (int k = 0; k < key.length; k++) {
+        if (cs[k].isNA(r)) return false;
+        if (_idMaps != null && _idMaps[k] != null) {
+          int level = (int) cs[k].at8(r);
+          int mapped = level < _idMaps[k].length ? _idMaps[k][level] : -1;
+          if (mapped < 0 || mapped >= _rightCardinality[k]) return false;
+          key[k] = mapped;
+        } else
+          key[k] = keyOf(cs[k], r, _intKeys[k]);
+      }
+      return true;
+    }
+
+    private static void addPayload(BroadcastTable t, int row, NewChunk[] ncs, int nLeft) {
+      for (int i = 0; i < ncs.length - nLeft; i++) {
+        NewChunk nc = ncs[nLeft + i];
+        if (t._strs[i] != null) nc.addStr(t._strs[i][row]);
+        else if (t._ints[i] != null) {
+          long v = t._ints[i][row];
+          if (v == NA_LONG) nc.addNA();
+          else nc.addNum(v, 0);
+        } else nc.addNum(t._dbls[i][row]);
+      }
+    }
+  }
+
+}
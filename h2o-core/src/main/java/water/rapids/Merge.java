@@ -38,6 +38,8 @@ public class Merge {
   // Radix-sort a Frame using the given columns as keys.
   // This is a fully distributed and parallel sort.
   // It is not currently an in-place sort, so the data is doubled and a sorted copy is returned.
+  // The input Vecs may be shared with other Frames, so they are never freed here; callers that
+  // only need the first rows should use the limit variant below, which copies just those rows.
   public static Frame sort(final Frame fr, int[] cols, int[] ascending) {
     if( cols.length==0 )        // Empty key list
       return fr;                // Return original frame
@@ -58,6 +60,32 @@ public class Merge {
     return Merge.merge(fr, new Frame(new Vec[0]), cols, new int[0], true/*allLeft*/, id_maps, ascending, new int[0]);
   }
 
+  // First `limit` rows of the sort of the Frame by the given columns, same as the head of sort(fr, cols, ascending).
+  // Small limits keep the best rows of each chunk in a bounded heap instead of sorting the whole frame.
+  public static Frame sort(final Frame fr, int[] cols, int[] ascending, final long limit) {
+    if( limit <= 0 )
+      throw new IllegalArgumentException("Sort limit must be positive, got "+limit);
+    if( cols.length==0 || limit >= fr.numRows() )
+      return sort(fr, cols, ascending);
+    for( int col : cols )
+      if( col < 0 || col >= fr.numCols() )
+        throw new IllegalArgumentException("Column "+col+" is out of range of "+fr.numCols());
+    if( TopKSort.isApplicable(fr, cols, limit) )
+      return TopKSort.sort(fr, cols, ascending, (int)limit);
+    Frame sorted = sort(fr, cols, ascending);
+    try {
+      return new MRTask() {
+        @Override public void map(Chunk[] cs, NewChunk[] ncs) {
+          int n = (int)Math.max(0, Math.min(cs[0]._len, limit - cs[0].start()));
+          for( int c=0; c<cs.length; c++ )
+            cs[c].extractRows(ncs[c], 0, n);
+        }
+      }.doAll(sorted.types(), sorted).outputFrame(sorted.names(), sorted.domains());
+    } finally {
+      sorted.remove();
+    }
+  }
+
 
 
   public static Frame merge(final Frame leftFrame, final Frame riteFrame, final int leftCols[], final int riteCols[],
@@ -0,0 +1,418 @@
+package water.rapids;
+
+import water.H2O;
+import water.Iced;
+import water.MRTask;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.fvec.Vec;
+import water.rapids.ast.AstExec;
+import water.rapids.ast.AstFrame;
+import water.rapids.ast.AstParameter;
+import water.rapids.ast.AstPrimitive;
+import water.rapids.ast.AstRoot;
+import water.rapids.ast.params.AstId;
+import water.rapids.ast.params.AstNum;
+import water.rapids.ast.prims.math.AstUniOp;
+import water.rapids.ast.prims.mungers.AstColPySlice;
+import water.rapids.ast.prims.mungers.AstColSlice;
+import water.rapids.ast.prims.mungers.AstRowSlice;
+import water.rapids.ast.prims.operators.*;
+import water.rapids.vals.ValFrame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Lazy evaluation of Rapids expressions.
+ * <p/>
+ * Every primitive normally materializes its result Frame before the enclosing
+ * expression gets to see it, so {@code (cols (rows fr (> (cols fr 3) 5)) [1 2])}
+ * computes and writes a comparison column, then a filtered copy of the whole
+ * frame, and only then throws away all but two of its columns.  The planner
+ * instead turns a tree of element-wise operators ({@link AstBinOp},
+ * {@link AstUniOp}), boolean row filters ({@code rows}) and column projections
+ * ({@code cols}, {@code cols_py}) into a logical plan - a list of column
+ * expressions plus an optional filter over the input Vecs - and materializes
+ * only the root of the tree in a single {@link MRTask} pass.  The plan is
+ * evaluated a chunk at a time, column by column, so no intermediate Vec is
+ * ever created.
+ * <p/>
+ * Anything the planner does not understand (other primitives, strings,
+ * categoricals inside arithmetic, mismatched row counts, ...) makes it step
+ * aside and the expression is evaluated eagerly as before, so the results and
+ * errors are always the same as without it.  Sub-expressions which are not
+ * fused are still materialized as usual.
+ * <p/>
+ * Lazy evaluation is off by default and is switched on with the
+ * {@code rapids.lazy} system property or {@link #setEnabled(boolean)}.
+ */
+public class Planner {
+
+  /** Is lazy evaluation switched on? */
+  static volatile boolean ENABLED = Boolean.parseBoolean(H2O.getSysProperty("rapids.lazy", "false"));
+
+  /** Minimal number of primitives in a plan worth fusing; a lone operator is executed eagerly. */
+  private static final int MIN_FUSED_OPS = 2;
+
+  public static boolean isEnabled() {
+    return ENABLED;
+  }
+
+  public static void setEnabled(boolean enabled) {
+    ENABLED = enabled;
+  }
+
+  /**
+   * Evaluates the application of function {@code fun} to arguments {@code asts}
+   * as a single fused pass.
+   * @return the materialized result, or null if the expression cannot be (or
+   * is not worth being) fused and has to be evaluated eagerly.
+   */
+  public static Val exec(Env env, Env.StackHelp stk, AstPrimitive fun, AstRoot[] asts) {
+    if (!isFusible(fun)) return null;
+    Planner planner = new Planner(env, stk);
+    Relation rel = planner.apply(fun, asts);
+    if (rel == null || rel.isScalar() || planner._ops < MIN_FUSED_OPS || !planner.compatibleInputs())
+      return null;
+    return new ValFrame(planner.materialize(rel));
+  }
+
+  private final Env _env;
+  private final Env.StackHelp _stk;
+  private final ArrayList<Vec> _inputs = new ArrayList<>();
+  private int _ops;               // number of fused primitives
+
+  private Planner(Env env, Env.StackHelp stk) {
+    _env = env;
+    _stk = stk;
+  }
+
+  private static boolean isFusible(AstPrimitive fun) {
+    if (fun instanceof AstBinOp)
+      return !(fun instanceof AstIfElse || fun instanceof AstLAnd || fun instanceof AstLOr);
+    return fun instanceof AstUniOp || fun instanceof AstRowSlice ||
+            fun instanceof AstColSlice || fun instanceof AstColPySlice;
+  }
+
+  // --------------------------------------------------------------------------
+  // Planning: builds a Relation out of the AST, touching no data.  Returns
+  // null whenever the eager evaluation should take over.
+
+  private Relation plan(AstRoot ast) {
+    if (ast instanceof AstNum)
+      return Relation.scalar(((AstNum) ast).getNum());
+    if (ast instanceof AstId || ast instanceof AstFrame) {
+      Val val = _stk.track(ast.exec(_env));
+      if (val.isNum()) return Relation.scalar(val.getNum());
+      if (val.isFrame()) return scan(val.getFrame());
+      return null;
+    }
+    if (ast instanceof AstExec) {
+      AstRoot[] asts = ((AstExec) ast)._asts;
+      Val fun = asts[0].exec(_env);
+      if (!fun.isFun()) return null;
+      AstPrimitive prim = fun.getFun();
+      if (!isFusible(prim) || prim.nargs() != asts.length) return null;
+      return apply(prim, asts);
+    }
+    return null;
+  }
+
+  private Relation apply(AstPrimitive fun, AstRoot[] asts) {
+    Relation res;
+    if (fun instanceof AstBinOp) res = binOp((AstBinOp) fun, plan(asts[1]), plan(asts[2]));
+    else if (fun instanceof AstUniOp) res = uniOp((AstUniOp) fun, plan(asts[1]));
+    else if (fun instanceof AstRowSlice) res = rows(plan(asts[1]), asts[2]);
+    else res = cols(fun, plan(asts[1]), asts[2]);
+    if (res != null) _ops++;
+    return res;
+  }
+
+  private Relation scan(Frame fr) {
+    Expr[] cols = new Expr[fr.numCols()];
+    for (int i = 0; i < cols.length; i++)
+      cols[i] = new Input(input(fr.vec(i)));
+    return new Relation(cols, fr.names().clone(), null);
+  }
+
+  private int input(Vec vec) {
+    for (int i = 0; i < _inputs.size(); i++)
+      if (_inputs.get(i)._key.equals(vec._key)) return i;
+    _inputs.add(vec);
+    return _inputs.size() - 1;
+  }
+
+  private Relation binOp(AstBinOp op, Relation l, Relation r) {
+    if (l == null || r == null) return null;
+    if (l.isScalar() && r.isScalar())
+      return Relation.scalar(op.op(l._scalar, r._scalar));
+    if (!l.isScalar() && !r.isScalar()) {
+      if (l._filter != null || r._filter != null || l.numCols() == 0 || r.numCols() == 0) return null;
+      if (!isNumeric(l) || !isNumeric(r)) return null;
+      int ncols = Math.max(l.numCols(), r.numCols());
+      if (l.numCols() != r.numCols() && Math.min(l.numCols(), r.numCols()) != 1) return null;
+      Expr[] cols = new Expr[ncols];
+      for (int i = 0; i < ncols; i++)
+        cols[i] = new BinOp(op, l._cols[l.numCols() == 1 ? 0 : i], r._cols[r.numCols() == 1 ? 0 : i]);
+      // a single column is widened to the other frame, which also gives the names
+      String[] names = l.numCols() == 1 && ncols > 1 ? r._names : l._names;
+      return new Relation(cols, names.clone(), l._filter);
+    }
+    Relation fr = l.isScalar() ? r : l;
+    if (!isNumeric(fr)) return null;
+    Expr[] cols = new Expr[fr.numCols()];
+    Const d = new Const(l.isScalar() ? l._scalar : r._scalar);
+    for (int i = 0; i < cols.length; i++)
+      cols[i] = l.isScalar() ? new BinOp(op, d, fr._cols[i]) : new BinOp(op, fr._cols[i], d);
+    // (== fr 1) and (!= fr 1) do not keep the column names
+    String[] names = fr._names.clone();
+    if (!l.isScalar() && (op instanceof AstEq || op instanceof AstNe))
+      for (int i = 0; i < names.length; i++) names[i] = Frame.defaultColName(i);
+    return new Relation(cols, names, fr._filter);
+  }
+
+  private Relation uniOp(AstUniOp op, Relation fr) {
+    if (fr == null) return null;
+    if (fr.isScalar()) return Relation.scalar(op.op(fr._scalar));
+    if (!isNumeric(fr)) return null;
+    Expr[] cols = new Expr[fr.numCols()];
+    String[] names = new String[fr.numCols()];
+    for (int i = 0; i < cols.length; i++) {
+      cols[i] = new UniOp(op, fr._cols[i]);
+      names[i] = op.str() + "(" + fr._names[i] + ")";
+    }
+    return new Relation(cols, names, fr._filter);
+  }
+
+  private Relation rows(Relation fr, AstRoot pred) {
+    if (fr == null || fr.isScalar() || fr._filter != null) return null;
+    if (!(pred instanceof AstExec || pred instanceof AstId)) return null; // row numbers are sliced eagerly
+    Relation p = plan(pred);
+    if (p == null || p.isScalar() || p._filter != null || p.numCols() != 1 || !isNumeric(p)) return null;
+    return new Relation(fr._cols, fr._names, p._cols[0]);
+  }
+
+  private Relation cols(AstPrimitive fun, Relation fr, AstRoot sel) {
+    if (fr == null || fr.isScalar() || !(sel instanceof AstParameter)) return null;
+    int[] idxs = fun instanceof AstColSlice
+            ? AstColSlice.col_select(fr._names, (AstParameter) sel)
+            : AstColPySlice.col_select(fr._names, (AstParameter) sel);
+    Expr[] cols = new Expr[idxs.length];
+    String[] names = new String[idxs.length];
+    for (int i = 0; i < idxs.length; i++) {
+      cols[i] = fr._cols[idxs[i]];
+      names[i] = fr._names[idxs[i]];
+    }
+    return new Relation(cols, names, fr._filter);
+  }
+
+  /** Arithmetic is only fused over plain numeric columns. */
+  private boolean isNumeric(Relation rel) {
+    for (Expr e : rel._cols)
+      if (e instanceof Input && !_inputs.get(((Input) e)._col).isNumeric()) return false;
+    return true;
+  }
+
+  private boolean compatibleInputs() {
+    for (int i = 1; i < _inputs.size(); i++)
+      if (!_inputs.get(0).isCompatibleWith(_inputs.get(i))) return false;
+    return !_inputs.isEmpty();
+  }
+
+  // --------------------------------------------------------------------------
+  // Materialization
+
+  private Frame materialize(Relation rel) {
+    int ncols = rel.numCols();
+    Vec[] inputs = _inputs.toArray(new Vec[0]);
+    boolean[] computed = new boolean[ncols];
+    int nout = 0;
+    for (int i = 0; i < ncols; i++)
+      if (computed[i] = rel._filter != null || !(rel._cols[i] instanceof Input)) nout++;
+    // Output columns in the order of the relation; unfiltered projections share the input Vecs
+    Expr[] exprs = new Expr[nout];
+    byte[] types = new byte[nout];
+    String[] names = new String[nout];
+    String[][] domains = new String[nout][];
+    for (int i = 0, j = 0; i < ncols; i++) {
+      if (!computed[i]) continue;
+      Expr e = rel._cols[i];
+      Vec src = e instanceof Input ? inputs[((Input) e)._col] : null;
+      exprs[j] = e;
+      types[j] = src == null ? Vec.T_NUM : src.get_type();
+      domains[j] = src == null ? null : src.domain();
+      names[j++] = rel._names[i];
+    }
+    Frame out = nout == 0 ? new Frame() :
+            new FusedTask(exprs, rel._filter).doAll(types, new Frame(inputs)).outputFrame(names, domains);
+    Frame res = new Frame();
+    for (int i = 0, j = 0; i < ncols; i++)
+      res.add(rel._names[i], computed[i] ? out.vec(j++) : inputs[((Input) rel._cols[i])._col]);
+    return res;
+  }
+
+  private static class FusedTask extends MRTask<FusedTask> {
+    private final Expr[] _exprs;
+    private final Expr _filter;
+
+    FusedTask(Expr[] exprs, Expr filter) {
+      _exprs = exprs;
+      _filter = filter;
+    }
+
+    @Override
+    public void map(Chunk[] cs, NewChunk[] ncs) {
+      int len = cs[0]._len;
+      int[] ids = null;
+      if (_filter != null) {
+        double[] pred = _filter.eval(cs, null, len);
+        ids = new int[len];
+        int n = 0;
+        for (int i = 0; i < len; i++)
+          if (selected(pred[i])) ids[n++] = i;
+        ids = Arrays.copyOf(ids, n);
+        len = n;
+      }
+      for (int c = 0; c < _exprs.length; c++) {
+        Expr e = _exprs[c];
+        if (e instanceof Input) {  // filtered pass-through column, any type
+          cs[((Input) e)._col].extractRows(ncs[c], ids);
+          continue;
+        }
+        double[] vals = e.eval(cs, ids, len);
+        for (int i = 0; i < len; i++)
+          ncs[c].addNum(vals[i]);
+      }
+    }
+
+    // Same as the eager Frame.DeepSelect, which reads the predicate with
+    // Chunk.getIntegers: NAs are not selected, non-integers are an error
+    private static boolean selected(double d) {
+      if (Double.isNaN(d)) return false;
+      int i = (int) d;
+      if (i != d)
+        throw new RuntimeException(d + " does not fit into int");
+      return i == 1;
+    }
+  }
+
+  /**
+   * Logical plan node: the column expressions of a frame over the input Vecs,
+   * their names and an optional row filter; or a plain number.
+   */
+  private static class Relation {
+    final Expr[] _cols;
+    final String[] _names;
+    final Expr _filter;     // rows where this evaluates to 1 are kept
+    final double _scalar;
+
+    Relation(Expr[] cols, String[] names, Expr filter) {
+      _cols = cols;
+      _names = names;
+      _filter = filter;
+      _scalar = Double.NaN;
+    }
+
+    private Relation(double d) {
+      _cols = null;
+      _names = null;
+      _filter = null;
+      _scalar = d;
+    }
+
+    static Relation scalar(double d) {
+      return new Relation(d);
+    }
+
+    boolean isScalar() {
+      return _cols == null;
+    }
+
+    int numCols() {
+      return _cols.length;
+    }
+  }
+
+  /**
+   * Column expression, evaluated over the (selected) rows of a chunk at a time.
+   */
+  private static abstract class Expr extends Iced<Expr> {
+    /**
+     * Values for rows {@code ids[0..len)} of the chunks, or rows {@code 0..len)}
+     * if {@code ids} is null.
+     */
+    abstract double[] eval(Chunk[] cs, int[] ids, int len);
+  }
+
+  private static class Input extends Expr {
+    final int _col;
+
+    Input(int col) {
+      _col = col;
+    }
+
+    @Override
+    double[] eval(Chunk[] cs, int[] ids, int len) {
+      double[] vals = new double[len];
+      return ids == null ? cs[_col].getDoubles(vals, 0, len) : cs[_col].getDoubles(vals, ids);
+    }
+  }
+
+  private static class Const extends Expr {
+    final double _d;
+
+    Const(double d) {
+      _d = d;
+    }
+
+    @Override
+    double[] eval(Chunk[] cs, int[] ids, int len) {
+      double[] vals = new double[len];
+      Arrays.fill(vals, _d);
+      return vals;
+    }
+  }
+
+  private static class BinOp extends Expr {
+    final AstBinOp _op;
+    final Expr _l, _r;
+
+    BinOp(AstBinOp op, Expr l, Expr r) {
+      _op = op;
+      _l = l;
+      _r = r;
+    }
+
+    @Override
+    double[] eval(Chunk[] cs, int[] ids, int len) {
+      double[] ls = _l.eval(cs, ids, len);
+      if (_r instanceof Const) {
+        double d = ((Const) _r)._d;
+        for (int i = 0; i < len; i++) ls[i] = _op.op(ls[i], d);
+        return ls;
+      }
+      double[] rs = _r.eval(cs, ids, len);
+      for (int i = 0; i < len; i++) rs[i] = _op.op(ls[i], rs[i]);
+      return rs;
+    }
+  }
+
+  private static class UniOp extends Expr {
+    final AstUniOp _op;
+    final Expr _e;
+
+    UniOp(AstUniOp op, Expr e) {
+      _op = op;
+      _e = e;
+    }
+
+    @Override
+    double[] eval(Chunk[] cs, int[] ids, int len) {
+      double[] vals = _e.eval(cs, ids, len);
+      for (int i = 0; i < len; i++) vals[i] = _op.op(vals[i]);
+      return vals;
+    }
+  }
+}
@@ -0,0 +1,179 @@
+package water.rapids;
+
+import water.H2O;
+import water.MRTask;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.Vec;
+
+import java.util.Arrays;
+
+/**
+ * Top-K sort: the first {@code k} rows of a sort, without sorting the whole
+ * frame ({@code ORDER BY ... LIMIT k}).
+ * <p/>
+ * Each chunk keeps its best {@code k} rows in a bounded heap, the per-chunk
+ * candidates are merged pairwise in the reduce and so only ever {@code k} rows
+ * travel between nodes.  The rows are ordered exactly like {@link Merge#sort}
+ * orders them: NAs first, ascending or descending per column, and ties in the
+ * original row order.  The winning rows are sliced out of the frame and the
+ * small slice is then sorted with the regular radix sort, so the result is the
+ * same as the head of the full sort.
+ */
+class TopKSort {
+
+  /** Largest {@code k} answered with per-chunk heaps; above it the whole frame is sorted. */
+  static final int MAX_K = Integer.parseInt(H2O.getSysProperty("rapids.sort.topk.maxRows", "1000000"));
+
+  /** Integers beyond this magnitude do not survive the trip through a double. */
+  private static final double MAX_EXACT_INT = 1L << 53;
+
+  static boolean isApplicable(Frame fr, int[] cols, long k) {
+    if (k > MAX_K) return false;
+    for (int col : cols) {
+      Vec vec = fr.vec(col);
+      if (!vec.isNumeric() && !vec.isCategorical() && !vec.isTime()) return false;
+      if (vec.isInt() && Math.max(Math.abs(vec.min()), Math.abs(vec.max())) > MAX_EXACT_INT) return false;
+    }
+    return true;
+  }
+
+  static Frame sort(Frame fr, int[] cols, int[] ascending, int k) {
+    Frame keys = new Frame();
+    for (int col : cols) keys.add(fr.name(col), fr.vec(col));
+    long[] rows = new TopKTask(ascending, k).doAll(keys).sortedRows();
+    Arrays.sort(rows);
+    Frame slice = fr.deepSlice(rows, null);
+    try {
+      return Merge.sort(slice, cols, ascending);
+    } finally {
+      slice.remove();
+    }
+  }
+
+  private static class TopKTask extends MRTask<TopKTask> {
+    private final int[] _ascending;
+    private final int _k;
+    // Candidates, best first
+    private long[] _rows;
+    private double[][] _keys;         // [key column][candidate]
+
+    TopKTask(int[] ascending, int k) {
+      _ascending = ascending;
+      _k = k;
+    }
+
+    long[] sortedRows() {
+      return _rows == null ? new long[0] : _rows.clone();
+    }
+
+    @Override
+    public void map(Chunk[] cs) {
+      int len = cs[0]._len;
+      double[][] keys = new double[cs.length][];
+      for (int c = 0; c < cs.length; c++)
+        keys[c] = cs[c].getDoubles(new double[len], 0, len);
+      // Max-heap of the best rows so far, the worst one on top
+      int[] heap = new int[Math.min(_k, len)];
+      int n = 0;
+      for (int r = 0; r < len; r++) {
+        if (n < heap.length) {
+          heap[n] = r;
+          siftUp(heap, n++, keys);
+        } else if (compare(keys, r, keys, heap[0]) < 0) {
+          heap[0] = r;
+          siftDown(heap, n, keys);
+        }
+      }
+      // Pop the worst rows to the back
+      for (int end = n - 1; end > 0; end--) {
+        int tmp = heap[0];
+        heap[0] = heap[end];
+        heap[end] = tmp;
+        siftDown(heap, end, keys);
+      }
+      long start = cs[0].start();
+      _rows = new long[n];
+      _keys = new double[cs.length][n];
+      for (int i = 0; i < n; i++) {
+        _rows[i] = start + heap[i];
+        for (int c = 0; c < cs.length; c++) _keys[c][i] = keys[c][heap[i]];
+      }
+    }
+
+    @Override
+    public void reduce(TopKTask other) {
+      if (other._rows == null) return;
+      if (_rows == null) {
+        _rows = other._rows;
+        _keys = other._keys;
+        return;
+      }
+      int n = Math.min(_k, _rows.length + other._rows.length);
+      long[] rows = new long[n];
+      double[][] keys = new double[_keys.length][n];
+      for (int i = 0, a = 0, b = 0; i < n; i++) {
+        boolean takeThis = b == other._rows.length ||
+                (a < _rows.length && compareRows(_keys, _rows, a, other._keys, other._rows, b) < 0);
+        if (takeThis) copy(_keys, _rows, a++, keys, rows, i);
+        else copy(other._keys, other._rows, b++, keys, rows, i);
+      }
+      _rows = rows;
+      _keys = keys;
+    }
+
+    private static void copy(double[][] fromKeys, long[] fromRows, int from, double[][] toKeys, long[] toRows, int to) {
+      toRows[to] = fromRows[from];
+      for (int c = 0; c < fromKeys.length; c++) toKeys[c][to] = fromKeys[c][from];
+    }
+
+    private int compareRows(double[][] ak, long[] ar, int a, double[][] bk, long[] br, int b) {
+      int cmp = compare(ak, a, bk, b);
+      return cmp != 0 ? cmp : Long.compare(ar[a], br[b]);
+    }
+
+    // Within a chunk the row numbers break the ties
+    private int compareInChunk(double[][] keys, int a, int b) {
+      int cmp = compare(keys, a, keys, b);
+      return cmp != 0 ? cmp : Integer.compare(a, b);
+    }
+
+    private int compare(double[][] ak, int a, double[][] bk, int b) {
+      for (int c = 0; c < ak.length; c++) {
+        double x = ak[c][a], y = bk[c][b];
+        boolean xna = Double.isNaN(x), yna = Double.isNaN(y);
+        if (xna || yna) {
+          if (xna != yna) return xna ? -1 : 1;  // NAs first, both ascending and descending
+          continue;
+        }
+        if (x != y) return (x < y ? -1 : 1) * _ascending[c];
+      }
+      return 0;
+    }
+
+    private void siftUp(int[] heap, int i, double[][] keys) {
+      int row = heap[i];
+      while (i > 0) {
+        int parent = (i - 1) >>> 1;
+        if (compareInChunk(keys, heap[parent], row) >= 0) break;
+        heap[i] = heap[parent];
+        i = parent;
+      }
+      heap[i] = row;
+    }
+
+    private void siftDown(int[] heap, int n, double[][] keys) {
+      int row = heap[0];
+      int i = 0;
+      while (true) {
+        int child = 2 * i + 1;
+        if (child >= n) break;
+        if (child + 1 < n && compareInChunk(keys, heap[child + 1], heap[child]) > 0) child++;
+        if (compareInChunk(keys, row, heap[child]) >= 0) break;
+        heap[i] = heap[child];
+        i = child;
+      }
+      heap[i] = row;
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package water.rapids.ast;
 
 import water.rapids.Env;
+import water.rapids.Planner;
 import water.rapids.Val;
 import water.rapids.vals.ValFun;
 import water.util.SB;
@@ -60,6 +61,10 @@ public class AstExec extends AstRoot {
       throw new IllegalArgumentException(
           "Incorrect number of arguments; '" + ast + "' expects " + (nargs - 1) + " but was passed " + (_asts.length - 1));
     try (Env.StackHelp stk = env.stk()) {
+      if (Planner.isEnabled()) {
+        Val fused = Planner.exec(env, stk, ast, _asts);
+        if (fused != null) return env.returning(fused);
+      }
       return env.returning(ast.apply(env, stk, _asts));
     }
   }
@@ -10,6 +10,8 @@ import water.rapids.vals.ValRow;
 import water.rapids.ast.AstPrimitive;
 import water.rapids.ast.params.AstNum;
 
+import java.util.Arrays;
+
 /**
  * Column slice; allows python-like syntax.
  * Numbers past last column are allowed and ignored in NumLists, but throw an
@@ -41,20 +43,28 @@ public class AstColPySlice extends AstPrimitive {
       return vv.slice(colList.columns(vv.getNames()));
     }
     Frame fr = v.getFrame();
-    int[] cols = colList.columns(fr.names());
-
     Frame fr2 = new Frame();
+    for (int col : col_select(fr.names(), colList))
+      fr2.add(fr.names()[col], fr.vecs()[col]);
+    return new ValFrame(fr2);
+  }
+
+  // Python-like column selection: negative numbers count from the end, out-of-range
+  // numbers are ignored unless a single column is asked for.
+  public static int[] col_select(String[] names, AstParameter colList) {
+    int[] cols = colList.columns(names);
     if (cols.length == 0)        // Empty inclusion list?
-      return new ValFrame(fr2);
+      return cols;
     if (cols[0] < 0)           // Negative cols have number of cols added
       for (int i = 0; i < cols.length; i++)
-        cols[i] += fr.numCols();
-    if (asts[2] instanceof AstNum && // Singletons must be in-range
-        (cols[0] < 0 || cols[0] >= fr.numCols()))
-      throw new IllegalArgumentException("Column must be an integer from 0 to " + (fr.numCols() - 1));
+        cols[i] += names.length;
+    if (colList instanceof AstNum && // Singletons must be in-range
+        (cols[0] < 0 || cols[0] >= names.length))
+      throw new IllegalArgumentException("Column must be an integer from 0 to " + (names.length - 1));
+    int j = 0;
     for (int col : cols)       // For all included columns
-      if (col >= 0 && col < fr.numCols()) // Ignoring out-of-range ones
-        fr2.add(fr.names()[col], fr.vecs()[col]);
-    return new ValFrame(fr2);
+      if (col >= 0 && col < names.length) // Ignoring out-of-range ones
+        cols[j++] = col;
+    return Arrays.copyOf(cols, j);
   }
 }
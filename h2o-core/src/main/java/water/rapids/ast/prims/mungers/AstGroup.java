@@ -39,13 +39,23 @@ import java.util.Arrays;
 public class AstGroup extends AstPrimitive {
 
   private final boolean _per_node_aggregates;
+  private final boolean _always_partitioned;
 
   public AstGroup() {
     this(true);
   }
 
   public AstGroup(boolean perNodeAggregates) {
+    this(perNodeAggregates, false);
+  }
+
+  /**
+   * @param perNodeAggregates  merge groups into per-node aggregates instead of per-map ones
+   * @param alwaysPartitioned  use {@link PartitionedGroupBy} whenever it supports the query, not only for big frames
+   */
+  public AstGroup(boolean perNodeAggregates, boolean alwaysPartitioned) {
     _per_node_aggregates = perNodeAggregates;
+    _always_partitioned = alwaysPartitioned;
   }
 
   public enum NAHandling {ALL, RM, IGNORE}
@@ -303,6 +313,11 @@ public class AstGroup extends AstPrimitive {
   public ValFrame performGroupingWithAggregations(Frame fr, int[] gbCols, AGG[] aggs) {
     final boolean hasMedian = hasMedian(aggs);
     final byte[] gbColsTypes = ArrayUtils.select(fr.types(), gbCols);
+
+    // High-cardinality keys: primitive, hash-partitioned and spill-capable tables instead of boxed groups
+    if ((_always_partitioned || fr.numRows() >= PartitionedGroupBy.MIN_ROWS)
+            && PartitionedGroupBy.isApplicable(fr, gbCols, gbColsTypes, aggs))
+      return new ValFrame(PartitionedGroupBy.groupBy(fr, gbCols, aggs, prepareFCNames(fr, aggs)));
     
     final IcedHashSet<G> gss = doGroups(fr, gbCols,  gbColsTypes, aggs, hasMedian, _per_node_aggregates);
     final G[] grps = gss.toArray(new G[gss.size()]);
@@ -510,6 +525,14 @@ public class AstGroup extends AstPrimitive {
   
   // Build output frame from the multi-column results
   public static Frame buildOutput(int[] gbCols, int noutCols, Frame fr, String[] fcnames, int ngrps, MRTask mrfill) {
+    Vec v = Vec.makeZero(ngrps); // dummy layout vec
+    Frame f = buildOutput(gbCols, noutCols, fr, fcnames, v, mrfill);
+    v.remove();
+    return f;
+  }
+
+  // Build output frame from the multi-column results, the rows are laid out according to the given vec
+  static Frame buildOutput(int[] gbCols, int noutCols, Frame fr, String[] fcnames, Vec layout, MRTask mrfill) {
     // Build the output!
     // the names of columns
     final int nCols = gbCols.length + noutCols;
@@ -530,11 +553,8 @@ public class AstGroup extends AstPrimitive {
       types[i + gbCols.length] = Vec.T_NUM;
     }
 
-    Vec v = Vec.makeZero(ngrps); // dummy layout vec
     // Convert the output arrays into a Frame, also doing the post-pass work
-    Frame f =  mrfill.doAll(types, new Frame(v)).outputFrame(names, domains);
-    v.remove();
-    return f;
+    return mrfill.doAll(types, new Frame(layout)).outputFrame(names, domains);
   }
 
   // Description of a single aggregate, including the reduction function, the
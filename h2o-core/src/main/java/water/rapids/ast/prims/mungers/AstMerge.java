@@ -6,6 +6,7 @@ import water.Key;
 import water.MRTask;
 import water.fvec.*;
 import water.parser.BufferedString;
+import water.rapids.BroadcastJoin;
 import water.rapids.Env;
 import water.rapids.Merge;
 import water.rapids.ast.AstPrimitive;
@@ -45,6 +46,12 @@ import java.util.Arrays;
  * the frames.  The Hash method will not give correct merge results if there
  * are duplicated rows in the rightFrame.  The hash method cannot work with String columns,
  * they need to be casted to enums/integer columns before calling merge.
+ * <p/>
+ * Method broadcast replicates the (small) non-all frame to every node as a
+ * primitive hash table and joins in a single pass over the other frame, see
+ * {@link BroadcastJoin}.  Its result keeps the row order of the walked frame
+ * instead of being sorted by the join key, so it is only used when asked
+ * for; method auto is radix.
  */
 public class AstMerge extends AstPrimitive {
   @Override
@@ -129,7 +136,7 @@ public class AstMerge extends AstPrimitive {
       }
     }.doAllNodes();
 
-    if (method.equals("radix") || method.equals("auto")) {  // default to radix as default merge metho
+    if (method.equals("radix") || method.equals("auto") || method.equals("broadcast")) {  // default to radix as default merge metho
       // Build categorical mappings, to rapidly convert categoricals from the left to the right
       // With the sortingMerge approach there is no variance here: always map left to right
       if (allLeft && allRite)
@@ -148,9 +155,9 @@ public class AstMerge extends AstPrimitive {
       }
 
       if (onlyLeftAllOff) {
-        return sortingMerge(l, r, allLeft, ncols, id_maps);
+        return joiningMerge(l, r, allLeft, ncols, id_maps, method);
       } else {  // implement allRite here by switching leftframe and riteframe.  However, column order is wrong, re-order before return
-        ValFrame tempFrame = sortingMerge(r, l, allRite, ncols, id_maps);
+        ValFrame tempFrame = joiningMerge(r, l, allRite, ncols, id_maps, method);
         Frame mergedFrame = tempFrame.getFrame();  // need to switch order of merged frame
         int allColNum = mergedFrame.numCols();
         int[] colMapping = new int[allColNum];  // index into combined frame but with correct order
@@ -273,6 +280,17 @@ public class AstMerge extends AstPrimitive {
     return new ValFrame(Merge.merge(left, right, cols, cols, allLeft, id_maps));
   }
 
+  /**
+   * Either a broadcast-hash join of the right frame, when method broadcast is requested,
+   * or a sorting merge (methods radix and auto).
+   * Both produce the same columns: all left columns followed by the non-key right columns.
+   */
+  private ValFrame joiningMerge(Frame left, Frame right, boolean allLeft, int ncols, int[][] id_maps, String method) {
+    if (method.equals("broadcast"))
+      return new ValFrame(BroadcastJoin.join(left, right, allLeft, ncols, id_maps));
+    return sortingMerge(left, right, allLeft, ncols, id_maps);
+  }
+
   // One Row object per row of the hashed dataset, so kept as small as
   // possible.
   private static class Row extends Iced {
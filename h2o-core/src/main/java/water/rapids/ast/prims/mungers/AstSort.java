@@ -12,14 +12,17 @@ import water.rapids.vals.ValFrame;
 
 
 /** Sort the whole frame by the given columns.  String columns are allowed in the frame.  However, we do
- * not support sorting on string columns.
+ * not support sorting on string columns.  An optional limit returns only the first rows of the sort, without
+ * sorting the whole frame.
  */
 public class AstSort extends AstPrimitive {
-  @Override public String[] args() { return new String[]{"ary","cols"}; }
+  @Override public String[] args() { return new String[]{"ary","cols","ascending","limit"}; }
   @Override public String str(){ return "sort";}
-  @Override public int nargs() { return 1+2+1; } // (sort ary [cols] [int])
+  @Override public int nargs() { return -1; } // (sort ary [cols] [int]) or (sort ary [cols] [int] limit)
 
   @Override public ValFrame apply(Env env, Env.StackHelp stk, AstRoot asts[]) {
+    if (asts.length != 4 && asts.length != 5)
+      throw new IllegalArgumentException("sort expects 3 or 4 arguments but was passed " + (asts.length - 1));
     Frame fr = stk.track(asts[1].exec(env)).getFrame();
     int[] cols = ((AstParameter)asts[2]).columns(fr.names());
     int[] sortAsc;
@@ -29,6 +32,10 @@ public class AstSort extends AstPrimitive {
       sortAsc = new int[]{(int) ((AstNum) asts[3]).getNum()};  // R client can send 1 element for some reason
     
     assert sortAsc.length==cols.length;
+    if (asts.length == 5) {
+      long limit = (long) asts[4].exec(env).getNum();
+      return new ValFrame(Merge.sort(fr, cols, sortAsc, limit));
+    }
     return new ValFrame(Merge.sort(fr,cols, sortAsc));
   }
 }
@@ -0,0 +1,234 @@
+package water.rapids.ast.prims.mungers;
+
+import water.Iced;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing group-by table used by {@link PartitionedGroupBy}.
+ * <p/>
+ * Groups are numbered in insertion order.  The group-by values are stored as
+ * the raw bits of the doubles (so that NaN groups compare equal, same as in
+ * {@link AstGroup.G}) in one primitive array per column, the aggregate states
+ * in one primitive array per state slot.  Nothing is boxed, a group costs a
+ * handful of array cells instead of a {@link AstGroup.G} object graph.
+ * <p/>
+ * The aggregates are updated through {@link AstGroup.AGG} and
+ * {@link AstGroup.FCN} to keep exactly the same semantics as the regular
+ * GroupBy; the state of the group being updated is loaded into small scratch
+ * arrays for that.
+ */
+class GBTable extends Iced<GBTable> {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  final AstGroup.AGG[] _aggs;
+  private final int[] _offsets;   // first state slot of each aggregate
+  private int _size;              // number of groups
+  private long[][] _keys;         // [group-by column][group]
+  private int[] _hashes;          // [group]
+  private double[][] _state;      // [state slot][group]
+  private long[][] _ns;           // [aggregate][group]
+
+  private transient int[] _index; // group + 1 per slot, 0 marks an empty slot
+  private transient double[][] _scratch;
+  private transient double[][] _scratch2;
+  private transient long[] _scratchNs;
+
+  GBTable(int nkeys, AstGroup.AGG[] aggs) {
+    _aggs = aggs;
+    _offsets = new int[aggs.length + 1];
+    for (int i = 0; i < aggs.length; i++)
+      _offsets[i + 1] = _offsets[i] + aggs[i].initVal().length;
+    _keys = new long[nkeys][INITIAL_CAPACITY];
+    _hashes = new int[INITIAL_CAPACITY];
+    _state = new double[_offsets[aggs.length]][INITIAL_CAPACITY];
+    _ns = new long[aggs.length][INITIAL_CAPACITY];
+    initState(0, INITIAL_CAPACITY);
+  }
+
+  int size() {
+    return _size;
+  }
+
+  double key(int col, int group) {
+    return Double.longBitsToDouble(_keys[col][group]);
+  }
+
+  /** Approximate heap footprint of the table. */
+  long byteSize() {
+    long capacity = _hashes.length;
+    long index = _index == null ? 0 : _index.length;
+    return capacity * (8L * (_keys.length + _state.length + _ns.length) + 4) + 4 * index;
+  }
+
+  int partition(int group, int nparts) {
+    return (_hashes[group] & 0x7FFFFFFF) % nparts;
+  }
+
+  /** Group numbers ordered by their partition. */
+  int[] groupsByPartition(int nparts) {
+    int[] counts = new int[nparts + 1];
+    for (int g = 0; g < _size; g++) counts[partition(g, nparts) + 1]++;
+    for (int p = 0; p < nparts; p++) counts[p + 1] += counts[p];
+    int[] order = new int[_size];
+    for (int g = 0; g < _size; g++) order[counts[partition(g, nparts)]++] = g;
+    return order;
+  }
+
+  /** Finds the group of the given key, adds a new one if there is none. */
+  int findOrAdd(long[] key) {
+    return findOrAdd(key, hash(key));
+  }
+
+  private int findOrAdd(long[] key, int hash) {
+    ensureIndex();
+    int mask = _index.length - 1;
+    for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+      int g = _index[slot] - 1;
+      if (g < 0) {
+        g = add(key, hash);
+        _index[slot] = g + 1;
+        if (_size * 2 > _index.length) rehash(_index.length * 2);
+        return g;
+      }
+      if (_hashes[g] == hash && sameKey(g, key))
+        return g;
+    }
+  }
+
+  /** Accumulates value {@code d} of aggregate {@code agg} into group {@code group}. */
+  void op(int group, int agg, double d) {
+    ensureScratch();
+    load(_scratch, _scratchNs, group, agg);
+    _aggs[agg].op(_scratch, _scratchNs, agg, d);
+    store(group, agg);
+  }
+
+  /** Merges all groups of the other table into this one. */
+  void merge(GBTable other) {
+    for (int g = 0; g < other._size; g++)
+      mergeGroup(other, g);
+  }
+
+  /** Merges groups {@code order[from..to)} of the other table into this one. */
+  void merge(GBTable other, int[] order, int from, int to) {
+    for (int i = from; i < to; i++)
+      mergeGroup(other, order[i]);
+  }
+
+  private void mergeGroup(GBTable other, int og) {
+    long[] key = new long[_keys.length];
+    for (int k = 0; k < key.length; k++) key[k] = other._keys[k][og];
+    int g = findOrAdd(key, other._hashes[og]);
+    ensureScratch();
+    for (int i = 0; i < _aggs.length; i++) {
+      load(_scratch, _scratchNs, g, i);
+      other.loadInto(_scratch2, og, i);
+      _aggs[i]._fcn.atomic_op(_scratch[i], _scratch2[i]);
+      _scratchNs[i] += other._ns[i][og];
+      store(g, i);
+    }
+  }
+
+  /** Final value of aggregate {@code agg} of group {@code group}. */
+  double postPass(int group, int agg) {
+    ensureScratch();
+    load(_scratch, _scratchNs, group, agg);
+    return _aggs[agg]._fcn.postPass(_scratch[agg], _scratchNs[agg]);
+  }
+
+  /** Trims the arrays to the number of groups and drops the index, ready to be serialized. */
+  GBTable compact() {
+    for (int k = 0; k < _keys.length; k++) _keys[k] = Arrays.copyOf(_keys[k], _size);
+    for (int s = 0; s < _state.length; s++) _state[s] = Arrays.copyOf(_state[s], _size);
+    for (int i = 0; i < _ns.length; i++) _ns[i] = Arrays.copyOf(_ns[i], _size);
+    _hashes = Arrays.copyOf(_hashes, _size);
+    _index = null;
+    return this;
+  }
+
+  private int add(long[] key, int hash) {
+    if (_size == _hashes.length) grow(Math.max(_size * 2, INITIAL_CAPACITY));
+    int g = _size++;
+    for (int k = 0; k < key.length; k++) _keys[k][g] = key[k];
+    _hashes[g] = hash;
+    return g;
+  }
+
+  private void grow(int capacity) {
+    int old = _hashes.length;
+    for (int k = 0; k < _keys.length; k++) _keys[k] = Arrays.copyOf(_keys[k], capacity);
+    for (int s = 0; s < _state.length; s++) _state[s] = Arrays.copyOf(_state[s], capacity);
+    for (int i = 0; i < _ns.length; i++) _ns[i] = Arrays.copyOf(_ns[i], capacity);
+    _hashes = Arrays.copyOf(_hashes, capacity);
+    initState(old, capacity);
+  }
+
+  private void initState(int from, int to) {
+    for (int i = 0; i < _aggs.length; i++) {
+      double[] init = _aggs[i].initVal();
+      for (int j = 0; j < init.length; j++)
+        if (init[j] != 0) Arrays.fill(_state[_offsets[i] + j], from, to, init[j]);
+    }
+  }
+
+  private void ensureIndex() {
+    if (_index == null) rehash(Math.max(Integer.highestOneBit(Math.max(_size, 1)) << 2, INITIAL_CAPACITY));
+    ensureScratch();
+  }
+
+  private void rehash(int indexSize) {
+    _index = new int[indexSize];
+    int mask = indexSize - 1;
+    for (int g = 0; g < _size; g++) {
+      int slot = _hashes[g] & mask;
+      while (_index[slot] != 0) slot = (slot + 1) & mask;
+      _index[slot] = g + 1;
+    }
+  }
+
+  private void ensureScratch() {
+    if (_scratch != null) return;
+    _scratch = new double[_aggs.length][];
+    _scratch2 = new double[_aggs.length][];
+    for (int i = 0; i < _aggs.length; i++) {
+      _scratch[i] = new double[_offsets[i + 1] - _offsets[i]];
+      _scratch2[i] = new double[_offsets[i + 1] - _offsets[i]];
+    }
+    _scratchNs = new long[_aggs.length];
+  }
+
+  private void load(double[][] dss, long[] ns, int group, int agg) {
+    double[] ds = dss[agg];
+    for (int j = 0; j < ds.length; j++) ds[j] = _state[_offsets[agg] + j][group];
+    ns[agg] = _ns[agg][group];
+  }
+
+  private void loadInto(double[][] dss, int group, int agg) {
+    double[] ds = dss[agg];
+    for (int j = 0; j < ds.length; j++) ds[j] = _state[_offsets[agg] + j][group];
+  }
+
+  private void store(int group, int agg) {
+    double[] ds = _scratch[agg];
+    for (int j = 0; j < ds.length; j++) _state[_offsets[agg] + j][group] = ds[j];
+    _ns[agg][group] = _scratchNs[agg];
+  }
+
+  private boolean sameKey(int group, long[] key) {
+    for (int k = 0; k < key.length; k++)
+      if (_keys[k][group] != key[k]) return false;
+    return true;
+  }
+
+  private static int hash(long[] key) {
+    long h = 0;
+    for (long k : key) {
+      h = (h ^ k) * 0x9E3779B97F4A7C15L;
+      h ^= h >>> 32;
+    }
+    return (int) h;
+  }
+
+}
@@ -0,0 +1,340 @@
+package water.rapids.ast.prims.mungers;
+
+import water.*;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.fvec.Vec;
+import water.nbhm.NonBlockingHashMap;
+import water.rapids.Merge;
+import water.util.Log;
+
+/**
+ * Memory-bounded GroupBy for high-cardinality keys.
+ * <p/>
+ * Instead of a hash set of boxed {@link AstGroup.G} objects per map (or per
+ * node) merged centrally, groups are kept in {@link GBTable}s - open
+ * addressing tables keyed on the packed group-by values with the aggregate
+ * states stored in columnar primitive arrays.  The work is done in phases:
+ * <ol>
+ *   <li>every chunk is aggregated locally and its groups are hash-partitioned
+ *   into node-local partition tables;</li>
+ *   <li>a partition table which grows over its memory budget is spilled into
+ *   the DKV, homed on the node owning the partition (from there the Cleaner
+ *   can swap it to disk under memory pressure), and so are all remaining
+ *   tables once the pass is over;</li>
+ *   <li>each node merges the partial tables of the partitions it owns - no
+ *   partition is ever merged centrally;</li>
+ *   <li>the output is built with one chunk per partition and sorted by the
+ *   group-by columns to keep the ordering of the regular GroupBy.</li>
+ * </ol>
+ * Only numeric (including categorical and time) group-by columns are
+ * supported and median is not, those fall back to the {@link AstGroup} path.
+ */
+class PartitionedGroupBy {
+
+  // Minimum number of rows to switch from the object based GroupBy (cardinality is bounded by the row count)
+  static final long MIN_ROWS = Long.parseLong(H2O.getSysProperty("rapids.groupby.partitioned.minRows", "1000000"));
+  // Fraction of the heap the node-local partition tables can use before they are spilled
+  static final double SPILL_MEM_FRACTION = Double.parseDouble(H2O.getSysProperty("rapids.groupby.partitioned.spillFraction", "0.25"));
+
+  // Node-local partition tables of the running group-bys
+  private static final NonBlockingHashMap<Key, Partials> PARTIALS = new NonBlockingHashMap<>();
+
+  static boolean isApplicable(Frame fr, int[] gbCols, byte[] gbColsTypes, AstGroup.AGG[] aggs) {
+    if (gbCols.length == 0)
+      return false;
+    for (byte type : gbColsTypes)
+      if (type == Vec.T_STR || type == Vec.T_UUID)
+        return false;
+    for (AstGroup.AGG agg : aggs)
+      if (agg._fcn == AstGroup.FCN.median)
+        return false;
+    return fr.numRows() > 0;
+  }
+
+  static Frame groupBy(Frame fr, int[] gbCols, AstGroup.AGG[] aggs, String[] fcnames) {
+    final int nparts = numPartitions();
+    return groupBy(fr, gbCols, aggs, fcnames, (long) (MemoryManager.MEM_MAX * SPILL_MEM_FRACTION / nparts));
+  }
+
+  static int numPartitions() {
+    return Math.max(H2O.getCloudSize() * H2O.ARGS.nthreads, 1);
+  }
+
+  /**
+   * @param spillBytes size of a node-local partition table over which it gets spilled into the DKV
+   */
+  static Frame groupBy(Frame fr, int[] gbCols, AstGroup.AGG[] aggs, String[] fcnames, long spillBytes) {
+    long start = System.currentTimeMillis();
+    final Key uniq = Key.make();
+    final int nparts = numPartitions();
+    Frame result = null;
+    int[] sizes = null;
+    try {
+      new PartialAggTask(uniq, gbCols, aggs, nparts, spillBytes).doAll(fr);
+      int[][] spills = new FlushTask(uniq, nparts).doAllNodes()._spills;
+      sizes = new MergePartitionsTask(uniq, spills).doAllNodes()._sizes;
+      Log.info("Partitioned Group By done in " + (System.currentTimeMillis() - start) / 1000. + " (s)");
+      result = buildOutput(uniq, gbCols, aggs, fr, fcnames, sizes);
+    } finally {
+      new MRTask() {
+        @Override
+        protected void setupLocal() {
+          PARTIALS.remove(uniq);
+        }
+      }.doAllNodes();
+      if (sizes != null) {
+        Futures fs = new Futures();
+        for (int p = 0; p < sizes.length; p++)
+          DKV.remove(finalKey(uniq, p), fs);
+        fs.blockForPending();
+      }
+    }
+    int[] sortCols = new int[gbCols.length];
+    for (int i = 0; i < sortCols.length; i++) sortCols[i] = i;
+    Frame sorted = Merge.sort(result, sortCols);
+    result.delete();
+    return sorted;
+  }
+
+  static H2ONode ownerOf(int partition) {
+    return H2O.CLOUD._memary[partition % H2O.CLOUD.size()];
+  }
+
+  static Key spillKey(Key uniq, int partition, int node, int seq) {
+    return Key.make("__gb_spill_" + uniq + "_p" + partition + "_n" + node + "_s" + seq,
+            Key.HIDDEN_USER_KEY, false, ownerOf(partition));
+  }
+
+  static Key finalKey(Key uniq, int partition) {
+    return Key.make("__gb_final_" + uniq + "_p" + partition, Key.HIDDEN_USER_KEY, false, ownerOf(partition));
+  }
+
+  private static Frame buildOutput(Key uniq, int[] gbCols, AstGroup.AGG[] aggs, Frame fr, String[] fcnames, int[] sizes) {
+    // one chunk per non-empty partition
+    int nonEmpty = 0;
+    for (int size : sizes) if (size > 0) nonEmpty++;
+    int[] parts = new int[nonEmpty];
+    long[] espc = new long[nonEmpty + 1];
+    for (int p = 0, c = 0; p < sizes.length; p++) {
+      if (sizes[p] == 0) continue;
+      parts[c] = p;
+      espc[c + 1] = espc[c] + sizes[p];
+      c++;
+    }
+    assert nonEmpty > 0 : "non-empty frame has to have at least one group";
+    Key<Vec> key = Vec.newKey();
+    Vec layout = new Vec(key, Vec.ESPC.rowLayout(key, espc)).makeZero();
+    try {
+      return AstGroup.buildOutput(gbCols, aggs.length, fr, fcnames, layout, new FillTask(uniq, parts, aggs));
+    } finally {
+      layout.remove();
+    }
+  }
+
+  // Node-local state of a single group-by: one table per partition, and spill counters
+  private static class Partials {
+    final GBTable[] _tables;
+    final Object[] _locks;  // tables get replaced on spill, so lock on a separate object
+    final int[] _spilled;
+
+    Partials(int nparts) {
+      _tables = new GBTable[nparts];
+      _locks = new Object[nparts];
+      for (int p = 0; p < nparts; p++) _locks[p] = new Object();
+      _spilled = new int[nparts];
+    }
+  }
+
+  private static class PartialAggTask extends MRTask<PartialAggTask> {
+    final Key _uniq;
+    final int[] _gbCols;
+    final AstGroup.AGG[] _aggs;
+    final int _nparts;
+    final long _spillBytes;
+
+    PartialAggTask(Key uniq, int[] gbCols, AstGroup.AGG[] aggs, int nparts, long spillBytes) {
+      _uniq = uniq;
+      _gbCols = gbCols;
+      _aggs = aggs;
+      _nparts = nparts;
+      _spillBytes = spillBytes;
+    }
+
+    @Override
+    protected void setupLocal() {
+      Partials partials = new Partials(_nparts);
+      for (int p = 0; p < _nparts; p++)
+        partials._tables[p] = new GBTable(_gbCols.length, _aggs);
+      PARTIALS.put(_uniq, partials);
+    }
+
+    @Override
+    public void map(Chunk[] cs) {
+      GBTable local = new GBTable(_gbCols.length, _aggs);
+      long[] key = new long[_gbCols.length];
+      for (int row = 0; row < cs[0]._len; row++) {
+        for (int k = 0; k < key.length; k++)
+          key[k] = Double.doubleToLongBits(cs[_gbCols[k]].atd(row));
+        int g = local.findOrAdd(key);
+        for (int i = 0; i < _aggs.length; i++)
+          local.op(g, i, cs[_aggs[i]._col].atd(row));
+      }
+      // Hash-partition the chunk groups into the node-local partition tables
+      Partials partials = PARTIALS.get(_uniq);
+      int[] order = local.groupsByPartition(_nparts);
+      int from = 0;
+      while (from < order.length) {
+        int p = local.partition(order[from], _nparts);
+        int to = from;
+        while (to < order.length && local.partition(order[to], _nparts) == p) to++;
+        synchronized (partials._locks[p]) {
+          GBTable t = partials._tables[p];
+          t.merge(local, order, from, to);
+          if (t.byteSize() > _spillBytes)
+            spill(partials, p);
+        }
+        from = to;
+      }
+    }
+
+    // Called under the partition lock
+    private void spill(Partials partials, int p) {
+      GBTable t = partials._tables[p];
+      int seq = partials._spilled[p]++;
+      DKV.put(spillKey(_uniq, p, H2O.SELF.index(), seq), t.compact());
+      partials._tables[p] = new GBTable(_gbCols.length, _aggs);
+    }
+  }
+
+  // Spills the remaining node-local tables and collects how many spills each node made per partition
+  private static class FlushTask extends MRTask<FlushTask> {
+    final Key _uniq;
+    // OUT
+    int[][] _spills; // [node][partition]
+
+    FlushTask(Key uniq, int nparts) {
+      _uniq = uniq;
+      _spills = new int[H2O.CLOUD.size()][nparts];
+    }
+
+    @Override
+    protected void setupLocal() {
+      Partials partials = PARTIALS.remove(_uniq);
+      if (partials == null)
+        return;
+      int node = H2O.SELF.index();
+      Futures fs = new Futures();
+      for (int p = 0; p < partials._tables.length; p++) {
+        GBTable t = partials._tables[p];
+        if (t.size() > 0)
+          DKV.put(spillKey(_uniq, p, node, partials._spilled[p]++), t.compact(), fs);
+        _spills[node][p] = partials._spilled[p];
+      }
+      fs.blockForPending();
+    }
+
+    @Override
+    public void reduce(FlushTask mrt) {
+      if (_spills == mrt._spills) return;
+      for (int n = 0; n < _spills.length; n++)
+        for (int p = 0; p < _spills[n].length; p++)
+          _spills[n][p] = Math.max(_spills[n][p], mrt._spills[n][p]);
+    }
+  }
+
+  // Every node merges the spilled tables of the partitions it owns
+  private static class MergePartitionsTask extends MRTask<MergePartitionsTask> {
+    final Key _uniq;
+    final int[][] _spills;
+    // OUT
+    int[] _sizes;
+
+    MergePartitionsTask(Key uniq, int[][] spills) {
+      _uniq = uniq;
+      _spills = spills;
+      _sizes = new int[spills[0].length];
+    }
+
+    @Override
+    protected void setupLocal() {
+      int self = H2O.SELF.index();
+      int cloudSize = H2O.CLOUD.size();
+      int nOwned = 0;
+      for (int p = self; p < _sizes.length; p += cloudSize) nOwned++;
+      final int[] owned = new int[nOwned];
+      for (int p = self, i = 0; p < _sizes.length; p += cloudSize) owned[i++] = p;
+      if (nOwned > 0)
+        H2O.submitTask(new LocalMR(new MergeFun(_uniq, _spills, owned, _sizes), owned.length)).join();
+    }
+
+    @Override
+    public void reduce(MergePartitionsTask mrt) {
+      if (_sizes == mrt._sizes) return;
+      for (int p = 0; p < _sizes.length; p++)
+        _sizes[p] += mrt._sizes[p];
+    }
+  }
+
+  private static class MergeFun extends MrFun<MergeFun> {
+    private final Key _uniq;
+    private final transient int[][] _spills;
+    private final transient int[] _owned;
+    private final transient int[] _sizes;
+
+    MergeFun(Key uniq, int[][] spills, int[] owned, int[] sizes) {
+      _uniq = uniq;
+      _spills = spills;
+      _owned = owned;
+      _sizes = sizes;
+    }
+
+    @Override
+    protected void map(int id) {
+      int p = _owned[id];
+      GBTable merged = null;
+      Futures fs = new Futures();
+      for (int n = 0; n < _spills.length; n++) {
+        for (int s = 0; s < _spills[n][p]; s++) {
+          Key k = spillKey(_uniq, p, n, s);
+          GBTable t = DKV.getGet(k);
+          DKV.remove(k, fs);
+          if (merged == null) merged = t;
+          else merged.merge(t);
+        }
+      }
+      if (merged != null) {
+        _sizes[p] = merged.size();
+        DKV.put(finalKey(_uniq, p), merged.compact(), fs);
+      }
+      fs.blockForPending();
+    }
+  }
+
+  private static class FillTask extends MRTask<FillTask> {
+    final Key _uniq;
+    final int[] _parts;
+    final AstGroup.AGG[] _aggs;
+
+    FillTask(Key uniq, int[] parts, AstGroup.AGG[] aggs) {
+      _uniq = uniq;
+      _parts = parts;
+      _aggs = aggs;
+    }
+
+    @Override
+    public void map(Chunk[] cs, NewChunk[] ncs) {
+      GBTable t = DKV.getGet(finalKey(_uniq, _parts[cs[0].cidx()]));
+      assert t.size() == cs[0]._len;
+      int nkeys = ncs.length - _aggs.length;
+      for (int g = 0; g < t.size(); g++) {
+        for (int k = 0; k < nkeys; k++)
+          ncs[k].addNum(t.key(k, g));
+        for (int i = 0; i < _aggs.length; i++)
+          ncs[nkeys + i].addNum(t.postPass(g, i));
+      }
+    }
+  }
+
+}
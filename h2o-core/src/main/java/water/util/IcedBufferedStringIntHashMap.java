@@ -0,0 +1,185 @@
+package water.util;
+
+import sun.misc.Unsafe;
+import water.AutoBuffer;
+import water.Iced;
+import water.nbhm.UtilUnsafe;
+import water.parser.BufferedString;
+
+import java.util.Arrays;
+
+/**
+ * Iced hash map from {@link BufferedString} to primitive {@code int}, meant for collecting and looking up the domains
+ * of categorical columns.  Same design as {@link IcedLongHashMapBase}: open addressing with linear probing,
+ * lock-free reads, writes serialized on the map, no removal.
+ *
+ * <p>Keys are copied when inserted ({@link #putIfAbsent(BufferedString, int, int)}), the caller can keep reusing
+ * its BufferedString for the lookups.  Serialized as the values, the lengths of the keys and all the bytes of the
+ * keys, each as a single array.</p>
+ */
+public class IcedBufferedStringIntHashMap extends Iced<IcedBufferedStringIntHashMap> {
+
+  private static final Unsafe U = UtilUnsafe.getUnsafe();
+  private static final long KBASE = U.arrayBaseOffset(BufferedString[].class);
+  private static final int KSHIFT = 31 - Integer.numberOfLeadingZeros(U.arrayIndexScale(BufferedString[].class));
+  private static final long VBASE = U.arrayBaseOffset(int[].class);
+  private static final int VSHIFT = 31 - Integer.numberOfLeadingZeros(U.arrayIndexScale(int[].class));
+
+  private static final int MIN_CAPACITY = 16;
+
+  private static final class Table {
+    final BufferedString[] _keys;
+    final int[] _vals;
+    final int _mask;
+
+    Table(int capacity) {
+      _keys = new BufferedString[capacity];
+      _vals = new int[capacity];
+      _mask = capacity - 1;
+    }
+  }
+
+  private transient volatile Table _table;
+  private transient volatile int _size;
+
+  public IcedBufferedStringIntHashMap() {
+    init(0);
+  }
+
+  private void init(int expectedSize) {
+    _table = new Table(Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, expectedSize) * 4 - 1)));
+    _size = 0;
+  }
+
+  private static int hash(BufferedString key) {
+    final int h = key.hashCode() * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  public int size() {
+    return _size;
+  }
+
+  public boolean isEmpty() {
+    return _size == 0;
+  }
+
+  public boolean containsKey(BufferedString key) {
+    final Table t = _table;
+    for (int i = hash(key) & t._mask; ; i = (i + 1) & t._mask) {
+      final BufferedString k = (BufferedString) U.getObjectVolatile(t._keys, KBASE + ((long) i << KSHIFT));
+      if (k == null) return false;
+      if (k.equals(key)) return true;
+    }
+  }
+
+  /** @return value of the key, or {@code dflt} if the key is not in the map */
+  public int get(BufferedString key, int dflt) {
+    final Table t = _table;
+    for (int i = hash(key) & t._mask; ; i = (i + 1) & t._mask) {
+      final BufferedString k = (BufferedString) U.getObjectVolatile(t._keys, KBASE + ((long) i << KSHIFT));
+      if (k == null) return dflt;
+      if (k.equals(key)) return U.getIntVolatile(t._vals, VBASE + ((long) i << VSHIFT));
+    }
+  }
+
+  /**
+   * Maps a copy of the key to the value, unless the key is in the map already.
+   * @return current value of the key, or {@code dflt} if the key was not in the map and was mapped to the value
+   */
+  public synchronized int putIfAbsent(BufferedString key, int val, int dflt) {
+    Table t = _table;
+    int i = hash(key) & t._mask;
+    for (BufferedString k; (k = t._keys[i]) != null; i = (i + 1) & t._mask)
+      if (k.equals(key))
+        return t._vals[i];
+    if ((_size + 1) * 2 > t._keys.length) {
+      t = resize(t);
+      i = hash(key) & t._mask;
+      while (t._keys[i] != null) i = (i + 1) & t._mask;
+    }
+    final byte[] bytes = Arrays.copyOfRange(key.getBuffer(), key.getOffset(), key.getOffset() + key.length());
+    U.putOrderedInt(t._vals, VBASE + ((long) i << VSHIFT), val);
+    U.putObjectVolatile(t._keys, KBASE + ((long) i << KSHIFT), new BufferedString(bytes, 0, bytes.length));
+    _size++;
+    return dflt;
+  }
+
+  // Rehashes into a table twice the size and publishes it; called under the lock
+  private Table resize(Table t) {
+    final Table n = new Table(t._keys.length * 2);
+    for (int j = 0; j < t._keys.length; j++) {
+      final BufferedString k = t._keys[j];
+      if (k == null) continue;
+      int i = hash(k) & n._mask;
+      while (n._keys[i] != null) i = (i + 1) & n._mask;
+      n._keys[i] = k;
+      n._vals[i] = t._vals[j];
+    }
+    _table = n;
+    return n;
+  }
+
+  /** @return the keys of the map, in no particular order */
+  public synchronized BufferedString[] keys() {
+    final BufferedString[] keys = new BufferedString[_size];
+    int n = 0;
+    for (BufferedString k : _table._keys)
+      if (k != null) keys[n++] = k;
+    return keys;
+  }
+
+  @Override
+  public synchronized String toString() {
+    final StringBuilder sb = new StringBuilder("{");
+    final Table t = _table;
+    for (int j = 0; j < t._keys.length; j++)
+      if (t._keys[j] != null) {
+        if (sb.length() > 1) sb.append(", ");
+        sb.append(t._keys[j]).append('=').append(t._vals[j]);
+      }
+    return sb.append('}').toString();
+  }
+
+  public final synchronized AutoBuffer write_impl(AutoBuffer ab) {
+    final Table t = _table;
+    final int[] vals = new int[_size];
+    final int[] lens = new int[_size];
+    int bytes = 0;
+    int n = 0;
+    for (int j = 0; j < t._keys.length; j++)
+      if (t._keys[j] != null) {
+        vals[n] = t._vals[j];
+        lens[n++] = t._keys[j].length();
+        bytes += t._keys[j].length();
+      }
+    final byte[] buf = new byte[bytes];
+    int off = 0;
+    for (BufferedString k : t._keys)
+      if (k != null) {
+        System.arraycopy(k.getBuffer(), k.getOffset(), buf, off, k.length());
+        off += k.length();
+      }
+    return ab.putA4(vals).putA4(lens).putA1(buf);
+  }
+
+  public final IcedBufferedStringIntHashMap read_impl(AutoBuffer ab) {
+    final int[] vals = ab.getA4();
+    final int[] lens = ab.getA4();
+    final byte[] buf = ab.getA1();
+    init(vals.length);
+    final Table t = _table;
+    int off = 0;
+    for (int j = 0; j < vals.length; j++) {
+      final BufferedString key = new BufferedString(buf, off, lens[j]); // keys share the buffer, never modified
+      off += lens[j];
+      int i = hash(key) & t._mask;
+      while (t._keys[i] != null) i = (i + 1) & t._mask;
+      t._keys[i] = key;
+      t._vals[i] = vals[j];
+    }
+    _size = vals.length;
+    return this;
+  }
+
+}
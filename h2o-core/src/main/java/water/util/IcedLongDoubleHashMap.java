@@ -0,0 +1,25 @@
+package water.util;
+
+/**
+ * Iced hash map from {@code long} to {@code double}, see {@link IcedLongHashMapBase}.
+ */
+public class IcedLongDoubleHashMap extends IcedLongHashMapBase<IcedLongDoubleHashMap> {
+
+  /** @return value of the key, or {@code dflt} if the key is not in the map */
+  public double get(long key, double dflt) {
+    return Double.longBitsToDouble(getBits(key, Double.doubleToRawLongBits(dflt)));
+  }
+
+  /** @return previous value of the key, or {@code dflt} if the key was not in the map */
+  public double put(long key, double val, double dflt) {
+    return Double.longBitsToDouble(putBits(key, Double.doubleToRawLongBits(val), false, Double.doubleToRawLongBits(dflt)));
+  }
+
+  /** Adds to the value of the key, a missing key counts as 0.  @return the new value */
+  public synchronized double add(long key, double delta) {
+    final double val = get(key, 0) + delta;
+    putBits(key, Double.doubleToRawLongBits(val), false, 0);
+    return val;
+  }
+
+}
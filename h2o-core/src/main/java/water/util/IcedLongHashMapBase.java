@@ -0,0 +1,190 @@
+package water.util;
+
+import sun.misc.Unsafe;
+import water.AutoBuffer;
+import water.Iced;
+import water.nbhm.UtilUnsafe;
+
+/**
+ * Iced hash map from primitive {@code long} keys to 64-bit values, without boxing of either.
+ * Base of {@link IcedLongLongHashMap} and {@link IcedLongDoubleHashMap}, which keep their values as raw bits here.
+ *
+ * <p>Open addressing with linear probing over two parallel arrays.  Reads are lock-free: a reader probes the table
+ * it sees, slots are published with ordered writes (value first, then key) and a resized table is published as
+ * a whole, so a reader never sees a key without its value.  Writes are serialized on the map; the maps are meant
+ * for the hot paths where most operations are reads (a domain is collected once and then looked up for every
+ * row) or where the map is local to a map call.  Removal is not supported.</p>
+ *
+ * <p>Serialized as two arrays of keys and values written in bulk, see {@link AutoBuffer#putA8(long[])}.</p>
+ */
+public abstract class IcedLongHashMapBase<T extends IcedLongHashMapBase<T>> extends Iced<T> {
+
+  private static final Unsafe U = UtilUnsafe.getUnsafe();
+  private static final long BASE = U.arrayBaseOffset(long[].class);
+  private static final int SHIFT = 31 - Integer.numberOfLeadingZeros(U.arrayIndexScale(long[].class));
+
+  private static final long FREE = 0; // key of an empty slot, the key 0 itself is kept aside
+  private static final int MIN_CAPACITY = 16;
+
+  private static final class Table {
+    final long[] _keys;
+    final long[] _vals;
+    final int _mask;
+
+    Table(int capacity) {
+      _keys = new long[capacity];
+      _vals = new long[capacity];
+      _mask = capacity - 1;
+    }
+  }
+
+  private transient volatile Table _table;
+  private transient volatile boolean _hasZero;
+  private transient volatile long _zeroVal;
+  private transient volatile int _size;
+
+  protected IcedLongHashMapBase() {
+    init(0);
+  }
+
+  private void init(int expectedSize) {
+    _table = new Table(capacityFor(expectedSize));
+    _hasZero = false;
+    _size = 0;
+  }
+
+  // Keeps the load factor under 1/2
+  private static int capacityFor(int size) {
+    return Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, size) * 4 - 1));
+  }
+
+  private static long offset(int i) {
+    return BASE + ((long) i << SHIFT);
+  }
+
+  private static int hash(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  public int size() {
+    return _size;
+  }
+
+  public boolean isEmpty() {
+    return _size == 0;
+  }
+
+  public boolean containsKey(long key) {
+    if (key == FREE) return _hasZero;
+    final Table t = _table;
+    for (int i = hash(key) & t._mask; ; i = (i + 1) & t._mask) {
+      final long k = U.getLongVolatile(t._keys, offset(i));
+      if (k == key) return true;
+      if (k == FREE) return false;
+    }
+  }
+
+  /** @return raw value of the key, or {@code dflt} if the key is not in the map */
+  protected final long getBits(long key, long dflt) {
+    if (key == FREE) return _hasZero ? _zeroVal : dflt;
+    final Table t = _table;
+    for (int i = hash(key) & t._mask; ; i = (i + 1) & t._mask) {
+      final long k = U.getLongVolatile(t._keys, offset(i));
+      if (k == key) return U.getLongVolatile(t._vals, offset(i));
+      if (k == FREE) return dflt;
+    }
+  }
+
+  /**
+   * Maps the key to a raw value.
+   * @param onlyIfAbsent keep the current value if the key is in the map already
+   * @return previous raw value, or {@code dflt} if the key was not in the map
+   */
+  protected final synchronized long putBits(long key, long val, boolean onlyIfAbsent, long dflt) {
+    if (key == FREE) {
+      if (_hasZero) {
+        final long old = _zeroVal;
+        if (!onlyIfAbsent) _zeroVal = val;
+        return old;
+      }
+      _zeroVal = val;
+      _hasZero = true;
+      _size++;
+      return dflt;
+    }
+    Table t = _table;
+    int i = hash(key) & t._mask;
+    for (long k; (k = t._keys[i]) != FREE; i = (i + 1) & t._mask) {
+      if (k == key) {
+        final long old = t._vals[i];
+        if (!onlyIfAbsent) U.putLongVolatile(t._vals, offset(i), val);
+        return old;
+      }
+    }
+    if ((_size + 1) * 2 > t._keys.length) {
+      t = resize(t);
+      i = hash(key) & t._mask;
+      while (t._keys[i] != FREE) i = (i + 1) & t._mask;
+    }
+    U.putOrderedLong(t._vals, offset(i), val);
+    U.putLongVolatile(t._keys, offset(i), key);
+    _size++;
+    return dflt;
+  }
+
+  // Rehashes into a table twice the size and publishes it; called under the lock
+  private Table resize(Table t) {
+    final Table n = new Table(t._keys.length * 2);
+    for (int j = 0; j < t._keys.length; j++) {
+      final long k = t._keys[j];
+      if (k == FREE) continue;
+      int i = hash(k) & n._mask;
+      while (n._keys[i] != FREE) i = (i + 1) & n._mask;
+      n._keys[i] = k;
+      n._vals[i] = t._vals[j];
+    }
+    _table = n;
+    return n;
+  }
+
+  /** @return consistent copy of the keys (index 0) and the raw values (index 1) of the map */
+  protected final synchronized long[][] snapshot() {
+    final long[] keys = new long[_size];
+    final long[] vals = new long[_size];
+    int n = 0;
+    if (_hasZero) {
+      keys[n] = FREE;
+      vals[n++] = _zeroVal;
+    }
+    final Table t = _table;
+    for (int j = 0; j < t._keys.length; j++)
+      if (t._keys[j] != FREE) {
+        keys[n] = t._keys[j];
+        vals[n++] = t._vals[j];
+      }
+    assert n == keys.length;
+    return new long[][]{keys, vals};
+  }
+
+  /** @return the keys of the map, in no particular order */
+  public long[] keys() {
+    return snapshot()[0];
+  }
+
+  public final AutoBuffer write_impl(AutoBuffer ab) {
+    final long[][] kv = snapshot();
+    return ab.putA8(kv[0]).putA8(kv[1]);
+  }
+
+  @SuppressWarnings("unchecked")
+  public final T read_impl(AutoBuffer ab) {
+    final long[] keys = ab.getA8();
+    final long[] vals = ab.getA8();
+    init(keys.length);
+    for (int i = 0; i < keys.length; i++)
+      putBits(keys[i], vals[i], false, 0);
+    return (T) this;
+  }
+
+}
@@ -0,0 +1,30 @@
+package water.util;
+
+/**
+ * Iced hash map from {@code long} to {@code long}, see {@link IcedLongHashMapBase}.
+ */
+public class IcedLongLongHashMap extends IcedLongHashMapBase<IcedLongLongHashMap> {
+
+  /** @return value of the key, or {@code dflt} if the key is not in the map */
+  public long get(long key, long dflt) {
+    return getBits(key, dflt);
+  }
+
+  /** @return previous value of the key, or {@code dflt} if the key was not in the map */
+  public long put(long key, long val, long dflt) {
+    return putBits(key, val, false, dflt);
+  }
+
+  /** @return current value of the key, or {@code dflt} if the key was not in the map and was mapped to the value */
+  public long putIfAbsent(long key, long val, long dflt) {
+    return putBits(key, val, true, dflt);
+  }
+
+  /** Adds to the value of the key, a missing key counts as 0.  @return the new value */
+  public synchronized long add(long key, long delta) {
+    final long val = getBits(key, 0) + delta;
+    putBits(key, val, false, 0);
+    return val;
+  }
+
+}
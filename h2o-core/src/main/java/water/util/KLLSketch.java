@@ -0,0 +1,178 @@
+package water.util;
+
+import water.Iced;
+
+import java.util.Arrays;
+
+/**
+ * KLL quantile sketch (Karnin, Lang, Liberty: "Optimal Quantile Approximation
+ * in Streams") of a stream of doubles.
+ * <p/>
+ * Values are kept in a hierarchy of compactors; a full compactor sorts its
+ * values and promotes every other one to the next level, where each value
+ * stands for twice as many input values.  The capacity of the lower levels
+ * shrinks geometrically, so the sketch stays at a few times {@code k} values
+ * while the rank error is about {@code 1.7/k} of the number of values.
+ * Sketches are mergeable, so each chunk can build its own and the reduce
+ * combines them.
+ */
+public class KLLSketch extends Iced<KLLSketch> {
+  public static final int DEFAULT_K = 200;
+  private static final double C = 2.0 / 3.0;
+
+  private final int _k;
+  private double[][] _levels = new double[1][8];
+  private int[] _sizes = new int[1];
+  private int _size;            // values kept in all levels
+  private int _maxSize;         // total capacity of all levels
+  private long _n;              // values added
+  private double _min = Double.POSITIVE_INFINITY, _max = Double.NEGATIVE_INFINITY; // kept exactly
+  private long _coin = 0x9E3779B97F4A7C15L; // xorshift state for the compaction offsets
+
+  public KLLSketch() {
+    this(DEFAULT_K);
+  }
+
+  public KLLSketch(int k) {
+    _k = k;
+    _maxSize = capacity(0);
+  }
+
+  public long count() {
+    return _n;
+  }
+
+  public void add(double d) {
+    if (Double.isNaN(d)) return;
+    if (d < _min) _min = d;
+    if (d > _max) _max = d;
+    append(0, d);
+    _n++;
+    if (++_size >= _maxSize) compress();
+  }
+
+  /** Adds {@code count} copies of a value in one step: a copy at each level whose weight is a bit of the count. */
+  public void add(double d, long count) {
+    if (Double.isNaN(d) || count <= 0) return;
+    if (d < _min) _min = d;
+    if (d > _max) _max = d;
+    for (int h = 0; count >> h != 0; h++) {
+      if (((count >> h) & 1) == 0) continue;
+      while (_levels.length <= h) grow();
+      append(h, d);
+      _size++;
+    }
+    _n += count;
+    while (_size >= _maxSize) compress();
+  }
+
+  public KLLSketch merge(KLLSketch other) {
+    while (_levels.length < other._levels.length) grow();
+    for (int h = 0; h < other._levels.length; h++)
+      for (int i = 0; i < other._sizes[h]; i++)
+        append(h, other._levels[h][i]);
+    _n += other._n;
+    _size += other._size;
+    _min = Math.min(_min, other._min);
+    _max = Math.max(_max, other._max);
+    while (_size >= _maxSize) compress();
+    return this;
+  }
+
+  /** Approximate {@code q}-quantile, NaN if the sketch is empty. */
+  public double quantile(double q) {
+    return quantiles(new double[]{q})[0];
+  }
+
+  /** Approximate quantiles for the given probabilities, NaN if the sketch is empty. */
+  public double[] quantiles(double[] qs) {
+    double[] res = new double[qs.length];
+    if (_n == 0) {
+      Arrays.fill(res, Double.NaN);
+      return res;
+    }
+    // All values with their weights, sorted by value
+    double[] vals = new double[_size];
+    long[] weights = new long[_size];
+    int n = 0;
+    for (int h = 0; h < _levels.length; h++)
+      for (int i = 0; i < _sizes[h]; i++) {
+        vals[n] = _levels[h][i];
+        weights[n++] = 1L << h;
+      }
+    Integer[] order = new Integer[n];
+    for (int i = 0; i < n; i++) order[i] = i;
+    final double[] fvals = vals;
+    Arrays.sort(order, (a, b) -> Double.compare(fvals[a], fvals[b]));
+    long total = 0;
+    for (long w : weights) total += w;
+    for (int j = 0; j < qs.length; j++) {
+      if (qs[j] <= 0 || qs[j] >= 1) {  // the extremes are known exactly
+        res[j] = qs[j] <= 0 ? _min : _max;
+        continue;
+      }
+      double target = qs[j] * total;
+      long cum = 0;
+      res[j] = vals[order[n - 1]];
+      for (int i = 0; i < n; i++) {
+        cum += weights[order[i]];
+        if (cum >= target) {
+          res[j] = vals[order[i]];
+          break;
+        }
+      }
+    }
+    return res;
+  }
+
+  private int capacity(int h) {
+    int depth = _levels.length - h - 1;
+    return (int) Math.ceil(Math.pow(C, depth) * _k) + 1;
+  }
+
+  private void grow() {
+    int h = _levels.length;
+    _levels = Arrays.copyOf(_levels, h + 1);
+    _levels[h] = new double[8];
+    _sizes = Arrays.copyOf(_sizes, h + 1);
+    _maxSize = 0;
+    for (int i = 0; i <= h; i++) _maxSize += capacity(i);
+  }
+
+  private void append(int h, double d) {
+    if (_sizes[h] == _levels[h].length)
+      _levels[h] = Arrays.copyOf(_levels[h], _levels[h].length * 2);
+    _levels[h][_sizes[h]++] = d;
+  }
+
+  private void compress() {
+    for (int h = 0; h < _levels.length; h++) {
+      if (_sizes[h] < capacity(h)) continue;
+      if (h + 1 == _levels.length) grow();
+      compact(h);
+      if (_size < _maxSize) break;
+    }
+  }
+
+  // Sorts level h and promotes every other value to level h+1, leaving one
+  // value behind when the level has an odd size.
+  private void compact(int h) {
+    double[] vals = _levels[h];
+    int len = _sizes[h];
+    Arrays.sort(vals, 0, len);
+    int start = len & 1;  // the smallest value stays on an odd size
+    int offset = nextCoin() ? 1 : 0;
+    for (int i = start + offset; i < len; i += 2)
+      append(h + 1, vals[i]);
+    int promoted = (len - start) / 2;
+    _sizes[h] = start;
+    _size -= promoted;
+  }
+
+  private boolean nextCoin() {
+    _coin ^= _coin << 13;
+    _coin ^= _coin >>> 7;
+    _coin ^= _coin << 17;
+    return (_coin & 1) == 1;
+  }
+}
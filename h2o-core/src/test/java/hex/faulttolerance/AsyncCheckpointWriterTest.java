@@ -0,0 +1,142 @@
+package hex.faulttolerance;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import water.Scope;
+import water.TestFrameCatalog;
+import water.TestUtil;
+import water.persist.PersistManager;
+import water.test.dummy.DummyModel;
+import water.test.dummy.DummyModelBuilder;
+import water.test.dummy.DummyModelParameters;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AsyncCheckpointWriterTest extends TestUtil {
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @BeforeClass
+  public static void setup() {
+    stall_till_cloudsize(1);
+  }
+
+  private static DummyModel trainModel() {
+    DummyModelParameters parms = new DummyModelParameters();
+    parms._makeModel = true;
+    parms._response_column = "col_0";
+    parms._train = Scope.track(TestFrameCatalog.oneChunkFewRows())._key;
+    return Scope.track_generic(new DummyModelBuilder(parms).trainModel().get());
+  }
+
+  @Test
+  public void testWritesTemporaryFileAndRenamesIt() throws Exception {
+    Scope.enter();
+    try {
+      DummyModel model = trainModel();
+      File target = new File(tmp.getRoot(), "checkpoint.bin");
+      final List<String> paths = Collections.synchronizedList(new ArrayList<>());
+      AsyncCheckpointWriter writer = new AsyncCheckpointWriter() {
+        @Override
+        void writeFile(PersistManager pm, String path, byte[] bytes) throws IOException {
+          paths.add(path);
+          super.writeFile(pm, path, bytes);
+        }
+      };
+      writer.submit(model, target.getAbsolutePath());
+      writer.await();
+
+      assertEquals(1, writer.written());
+      assertEquals(0, writer.failed());
+      assertEquals(1, paths.size());
+      assertTrue(paths.get(0), paths.get(0).endsWith("checkpoint.bin.tmp"));
+      assertFalse(new File(tmp.getRoot(), "checkpoint.bin.tmp").exists());
+      ByteArrayOutputStream expected = new ByteArrayOutputStream();
+      model.writeTo(expected);
+      assertArrayEquals(expected.toByteArray(), Files.readAllBytes(target.toPath()));
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testFailedWritesAreCounted() throws Exception {
+    Scope.enter();
+    try {
+      DummyModel model = trainModel();
+      File notADirectory = tmp.newFile("file");
+      AsyncCheckpointWriter writer = new AsyncCheckpointWriter();
+      writer.submit(model, new File(notADirectory, "checkpoint.bin").getAbsolutePath());
+      writer.submit(model, new File(tmp.getRoot(), "checkpoint.bin").getAbsolutePath());
+      writer.await();
+
+      assertEquals(1, writer.failed());
+      assertEquals(1, writer.written());
+      assertTrue(new File(tmp.getRoot(), "checkpoint.bin").exists());
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testSubmitBlocksWhenTooManySnapshotsArePending() throws Exception {
+    Scope.enter();
+    try {
+      final DummyModel model = trainModel();
+      final CountDownLatch writing = new CountDownLatch(1);
+      final CountDownLatch release = new CountDownLatch(1);
+      final AsyncCheckpointWriter writer = new AsyncCheckpointWriter() {
+        @Override
+        void writeFile(PersistManager pm, String path, byte[] bytes) throws IOException {
+          writing.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          super.writeFile(pm, path, bytes);
+        }
+      };
+      final int nsubmits = AsyncCheckpointWriter.MAX_PENDING + 2; // one being written, MAX_PENDING waiting, one blocked
+      final CountDownLatch submitted = new CountDownLatch(nsubmits);
+      Thread trainer = new Thread(() -> {
+        for (int i = 0; i < nsubmits; i++) {
+          writer.submit(model, new File(tmp.getRoot(), "checkpoint-" + i + ".bin").getAbsolutePath());
+          submitted.countDown();
+        }
+      });
+      try {
+        trainer.start();
+        assertTrue(writing.await(10, TimeUnit.SECONDS));
+        assertFalse("Submit should block", submitted.await(500, TimeUnit.MILLISECONDS));
+        assertEquals(1, submitted.getCount());
+        assertEquals(0, writer.written());
+      } finally {
+        release.countDown();
+      }
+      assertTrue(submitted.await(10, TimeUnit.SECONDS));
+      trainer.join();
+      writer.await();
+      assertEquals(nsubmits, writer.written());
+      assertEquals(0, writer.failed());
+      for (int i = 0; i < nsubmits; i++)
+        assertTrue(new File(tmp.getRoot(), "checkpoint-" + i + ".bin").exists());
+    } finally {
+      Scope.exit();
+    }
+  }
+
+}
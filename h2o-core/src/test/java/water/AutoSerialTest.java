@@ -7,6 +7,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Map;
+import java.util.Random;
 
 public class AutoSerialTest extends Iced {
   @BeforeClass public static void stall() { TestUtil.stall_till_cloudsize(1); }
@@ -407,6 +408,32 @@ public class AutoSerialTest extends Iced {
     }
   }
 
+  // Arrays larger than the initial buffer, starting at an unaligned position
+  @Test public void testLargeArraysUnaligned() {
+    Random r = new Random(42);
+    int n = 100_000;
+    short[] shorts = new short[n];
+    int[] ints = new int[n];
+    float[] floats = new float[n];
+    long[] longs = new long[n];
+    double[] doubles = new double[n];
+    for( int i=0; i<n; i++ ) {
+      shorts[i] = (short)r.nextInt();
+      ints[i] = r.nextInt();
+      floats[i] = r.nextFloat();
+      longs[i] = r.nextLong();
+      doubles[i] = r.nextDouble();
+    }
+    AutoBuffer ab = new AutoBuffer().put1(7).putA2(shorts).putA4(ints).putA4f(floats).putA8(longs).putA8d(doubles);
+    ab = new AutoBuffer(ab.buf());
+    Assert.assertEquals(7, ab.get1());
+    Assert.assertArrayEquals(shorts, ab.getA2());
+    Assert.assertArrayEquals(ints, ab.getA4());
+    Assert.assertArrayEquals(floats, ab.getA4f(), 0);
+    Assert.assertArrayEquals(longs, ab.getA8());
+    Assert.assertArrayEquals(doubles, ab.getA8d(), 0);
+  }
+
   private static class IcedSerTest extends Iced {
     final double x;
     public IcedSerTest(double x){this.x = x;}
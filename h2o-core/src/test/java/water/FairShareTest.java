@@ -0,0 +1,127 @@
+package water;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.fvec.Frame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class FairShareTest extends TestUtil {
+
+  @BeforeClass
+  public static void setup() {
+    stall_till_cloudsize(1);
+  }
+
+  @Test
+  public void testTasksOfJobStayWithinQuota() {
+    final int threads = H2O.ARGS.nthreads <= 0 ? H2O.NUMCPUS : H2O.ARGS.nthreads;
+    final int quota = Math.max(1, (int) (threads * (1 - FairShare.RESERVE)));
+    final int tasks = 4 * threads;
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+    final AtomicInteger done = new AtomicInteger();
+
+    final Job<Frame> j = new Job<>(Key.make(), Frame.class.getName(), "Fair Share Job");
+    FairShare.ENABLED = true;
+    try {
+      j.start(new H2O.H2OCountedCompleter() {
+        @Override
+        public void compute2() {
+          addToPendingCount(tasks);
+          for (int i = 0; i < tasks; i++)
+            H2O.submitTask(new SleepTask(this, running, maxRunning, done));
+          tryComplete();
+        }
+      }, tasks).get();
+    } finally {
+      FairShare.ENABLED = false;
+    }
+    assertEquals(tasks, done.get());
+    assertTrue("At most " + quota + " tasks should run at once, got " + maxRunning.get(),
+            maxRunning.get() <= quota);
+  }
+
+  @Test
+  public void testTaskWithoutShareDoesNotInheritShareOfThread() {
+    final AtomicReference<FairShare.Share> outer = new AtomicReference<>();
+    final AtomicReference<FairShare.Share> inner = new AtomicReference<>();
+    final AtomicReference<FairShare.Share> submitted = new AtomicReference<>();
+
+    final Job<Frame> j = new Job<>(Key.make(), Frame.class.getName(), "Fair Share Job");
+    FairShare.ENABLED = true;
+    try {
+      j.start(new H2O.H2OCountedCompleter() {
+        @Override
+        public void compute2() {
+          outer.set(FairShare.current());
+          // runs a task of no share on this thread, as a thread blocked on a join helps with other tasks
+          H2O.H2OCountedCompleter unrelated = new H2O.H2OCountedCompleter() {
+            @Override
+            public void compute2() {
+              inner.set(FairShare.current());
+              H2O.H2OCountedCompleter child = new H2O.H2OCountedCompleter() {
+                @Override
+                public void compute2() {
+                  tryComplete();
+                }
+              };
+              submitted.set(H2O.submitTask(child)._share);
+              tryComplete();
+            }
+          };
+          unrelated.compute();
+          assertSame(outer.get(), FairShare.current());
+          tryComplete();
+        }
+      }, 1).get();
+    } finally {
+      FairShare.ENABLED = false;
+    }
+    assertNotNull(outer.get());
+    assertNull(inner.get());
+    assertNull(submitted.get());
+  }
+
+  @Test
+  public void testShareWeightMustBePositive() {
+    final Job<Frame> j = new Job<>(Key.make(), Frame.class.getName(), "Fair Share Job");
+    try {
+      j.setShareWeight(0);
+      fail("Weight 0 should be rejected");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("positive"));
+    }
+  }
+
+  private static class SleepTask extends H2O.H2OCountedCompleter<SleepTask> {
+    private final transient AtomicInteger _running;
+    private final transient AtomicInteger _maxRunning;
+    private final transient AtomicInteger _done;
+
+    SleepTask(H2O.H2OCountedCompleter completer, AtomicInteger running, AtomicInteger maxRunning, AtomicInteger done) {
+      super(completer);
+      _running = running;
+      _maxRunning = maxRunning;
+      _done = done;
+    }
+
+    @Override
+    public void compute2() {
+      final int n = _running.incrementAndGet();
+      _maxRunning.accumulateAndGet(n, Math::max);
+      try {
+        Thread.sleep(20);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      _running.decrementAndGet();
+      _done.incrementAndGet();
+      tryComplete();
+    }
+  }
+
+}
@@ -0,0 +1,107 @@
+package water;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.Vec;
+
+import static org.junit.Assert.*;
+
+public class FusedMRTaskTest extends TestUtil {
+
+  @BeforeClass
+  public static void setup() {
+    stall_till_cloudsize(3);
+  }
+
+  @Test
+  public void testFusedStagesMatchSequentialRuns() {
+    try {
+      Scope.enter();
+      final long n = 100_000;
+      Vec seq = Vec.makeSeq(n, true);
+      Frame fr = new Frame(new String[]{"x", "y"}, new Vec[]{seq, seq.makeZero()});
+      Scope.track(fr);
+
+      // separately: 2 passes over the data
+      new Twice().doAll(fr);
+      Sum expected = new Sum().doAll(fr.vec("y"));
+
+      // reset the output column and run the same stages fused
+      new Reset().doAll(fr.vec("y"));
+      Twice dbl = new Twice();
+      Sum sum = new Sum();
+      Count cnt = new Count();
+      FusedMRTask fused = new FusedMRTask()
+              .add(dbl, new int[]{0, 1}, new int[]{1})
+              .add(sum, 1)
+              .add(cnt, 0);
+      fused.doAll(fr);
+
+      assertArrayEquals(new int[]{1}, fused.dependents(0));
+      assertEquals(0, fused.dependents(1).length);
+      assertEquals(expected._sum, sum._sum, 0);
+      assertEquals(n * (n + 1), sum._sum, 0); // sum of 2 * (1..n)
+      assertEquals(n, cnt._rows);
+      assertTrue(cnt._closed);
+      assertSame(sum, fused.stages()[1]);
+      for (long r = 0; r < n; r += 997)
+        assertEquals(2 * fr.vec("x").at(r), fr.vec("y").at(r), 0);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testStageMustReadTheColumnItWrites() {
+    new FusedMRTask().add(new Twice(), new int[]{0}, new int[]{1});
+  }
+
+  private static class Twice extends MRTask<Twice> {
+    @Override
+    public void map(Chunk x, Chunk y) {
+      for (int i = 0; i < x._len; i++)
+        y.set(i, 2 * x.atd(i));
+    }
+  }
+
+  private static class Reset extends MRTask<Reset> {
+    @Override
+    public void map(Chunk y) {
+      for (int i = 0; i < y._len; i++)
+        y.set(i, 0);
+    }
+  }
+
+  private static class Sum extends MRTask<Sum> {
+    double _sum;
+    @Override
+    public void map(Chunk y) {
+      for (int i = 0; i < y._len; i++)
+        _sum += y.atd(i);
+    }
+    @Override
+    public void reduce(Sum mrt) {
+      _sum += mrt._sum;
+    }
+  }
+
+  private static class Count extends MRTask<Count> {
+    long _rows;
+    boolean _closed;
+    @Override
+    public void map(Chunk x) {
+      _rows += x._len;
+    }
+    @Override
+    public void reduce(Count mrt) {
+      _rows += mrt._rows;
+    }
+    @Override
+    protected void postGlobal() {
+      _closed = true;
+    }
+  }
+
+}
@@ -4,8 +4,12 @@ import org.junit.BeforeClass;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import water.exceptions.H2OIllegalArgumentException;
 import water.fvec.Frame;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import static org.junit.Assert.*;
 
 public class JobTest extends TestUtil {
@@ -156,6 +160,68 @@ public class JobTest extends TestUtil {
     assertEquals(7, timesWaited, 1);
   }
 
+  @Test
+  public void testAdmissionRejectsOversizedJob() {
+    final Job<Frame> j = new Job<>(Key.make(), Frame.class.getName(), "Test Job");
+    j.setMemoryEstimate(Long.MAX_VALUE / 2);
+    JobAdmission.ENABLED = true;
+    try {
+      j.start(new SleepTask(0), 1);
+      fail("Job should have been rejected");
+    } catch (H2OIllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("needs an estimated"));
+      assertNull(DKV.get(j._key));
+    } finally {
+      JobAdmission.ENABLED = false;
+    }
+  }
+
+  @Test
+  public void testAdmissionQueuesJobUntilMemoryIsReleased() throws Exception {
+    final long estimate = (long) (JobAdmission.budget() * 0.9);
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicBoolean secondRan = new AtomicBoolean();
+    final Job<Frame> first = new Job<>(Key.make(), Frame.class.getName(), "First Job");
+    final Job<Frame> second = new Job<>(Key.make(), Frame.class.getName(), "Second Job");
+    first.setMemoryEstimate(estimate);
+    second.setMemoryEstimate(estimate);
+    JobAdmission.ENABLED = true;
+    try {
+      first.start(new H2O.H2OCountedCompleter() {
+        @Override
+        public void compute2() {
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          tryComplete();
+        }
+      }, 1);
+      second.start(new H2O.H2OCountedCompleter() {
+        @Override
+        public void compute2() {
+          secondRan.set(true);
+          tryComplete();
+        }
+      }, 1);
+      assertEquals(estimate, first.reservedMemory());
+      assertEquals(0, second.reservedMemory());
+      assertTrue(second.progress_msg().startsWith("Waiting for"));
+      assertFalse(secondRan.get());
+
+      release.countDown();
+      first.get();
+      second.get();
+      assertTrue(secondRan.get());
+      assertEquals(0, first.reservedMemory());
+      assertEquals(0, second.reservedMemory());
+    } finally {
+      JobAdmission.ENABLED = false;
+      release.countDown();
+    }
+  }
+
   private static class SleepTask extends H2O.H2OCountedCompleter<SleepTask> {
     private final long _sleep_ms;
 
@@ -5,8 +5,11 @@ import org.junit.*;
 
 import java.io.File;
 import water.fvec.Chunk;
+import water.fvec.Frame;
 import water.fvec.NFSFileVec;
+import water.fvec.Vec;
 import water.util.FileUtils;
+import water.util.IcedInt;
 import water.util.UnsafeUtils;
 
 public class KVTest extends TestUtil {
@@ -195,4 +198,95 @@ public class KVTest extends TestUtil {
       return new Value(_key,bits2);
     }
   }
+
+  // ---
+  // A broadcast Key has a copy on every node, updated and removed everywhere
+  // by regular puts and removes.
+  @Test public void testBroadcastKey() {
+    H2ONode home = H2O.CLOUD._memary[H2O.SELF.index() == 0 ? 1 : 0];
+    Key key = Key.make(home);
+    Key other = Key.make(home);
+    DKVStats.ENABLED = true;
+    try {
+      Futures fs = new Futures();
+      DKV.put(other, new IcedInt(0), fs, true); // not cached on this node
+      fs.blockForPending();
+      DKV.broadcast(key, new IcedInt(1));
+      assertTrue(DKV.isBroadcast(key));
+      assertEquals(H2O.CLOUD.size(), new CountCopies(key, 1).doAllNodes()._copies);
+
+      DKVStats.reset();
+      assertEquals(1, ((IcedInt) DKV.getGet(key))._val);   // local copy
+      assertEquals(0, ((IcedInt) DKV.getGet(other))._val); // fetched from home
+      long[] counts = DKVStats.snapshot().get(IcedInt.class.getName());
+      assertEquals(1, counts[0]);
+      assertEquals(1, counts[1]);
+
+      DKV.put(key, new IcedInt(2));
+      assertEquals(H2O.CLOUD.size(), new CountCopies(key, 2).doAllNodes()._copies);
+    } finally {
+      DKVStats.ENABLED = false;
+      DKV.remove(key);
+      DKV.remove(other);
+    }
+    assertFalse(DKV.isBroadcast(key));
+    assertEquals(0, new CountCopies(key, 2).doAllNodes()._copies);
+  }
+
+  @Test public void testChunkReplicas() {
+    Vec seq = Vec.makeSeq(100_000, true);
+    Frame fr = null;
+    try {
+      fr = new Frame(Key.<Frame>make(), new String[]{"x"}, new Vec[]{seq});
+      DKV.put(fr);
+      ChunkReplicas.replicate(fr, 2);
+      assertEquals(2, ChunkReplicas.factor(seq));
+      assertEquals(seq.nChunks(), new CheckReplicas(seq, 1).doAllNodes()._replicas);
+
+      // writes reach the replicas
+      new MRTask() {
+        @Override public void map(Chunk c) {
+          for (int i = 0; i < c._len; i++) c.set(i, 2 * c.atd(i));
+        }
+      }.doAll(seq);
+      assertEquals(seq.nChunks(), new CheckReplicas(seq, 2).doAllNodes()._replicas);
+    } finally {
+      if (fr != null) fr.remove();
+      else seq.remove();
+    }
+    assertEquals(1, ChunkReplicas.factor(seq));
+  }
+
+  public static class CheckReplicas extends MRTask<CheckReplicas> {
+    final Vec _vec;
+    final int _mul;
+    int _replicas;
+    CheckReplicas(Vec vec, int mul) { _vec = vec; _mul = mul; }
+    @Override protected void setupLocal() {
+      for (int cidx = 0; cidx < _vec.nChunks(); cidx++) {
+        Key k = _vec.chunkKey(cidx);
+        if (k.home() || !ChunkReplicas.holdsReplicasOf(_vec, k.home_node().index())) continue;
+        Value val = H2O.STORE.get(k); // local store only, no fetch from home
+        assertNotNull(val);
+        assertEquals(_mul * (_vec.espc()[cidx] + 1), ((Chunk) val.get()).atd(0), 0);
+        _replicas++;
+      }
+    }
+    @Override public void reduce(CheckReplicas mrt) { _replicas += mrt._replicas; }
+  }
+
+  public static class CountCopies extends MRTask<CountCopies> {
+    final Key _key;
+    final int _expected;
+    int _copies;
+    CountCopies(Key key, int expected) { _key = key; _expected = expected; }
+    @Override protected void setupLocal() {
+      Value val = H2O.STORE.get(_key); // local store only, no fetch from home
+      if (val != null && val.type() != 0) {
+        assertEquals(_expected, ((IcedInt) val.get())._val);
+        _copies++;
+      }
+    }
+    @Override public void reduce(CountCopies mrt) { _copies += mrt._copies; }
+  }
 }
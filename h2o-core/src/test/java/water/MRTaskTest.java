@@ -154,5 +154,51 @@ public class MRTaskTest extends TestUtil {
     }
   }
 
-}
+  @Test
+  public void testWorkStealing() {
+    try {
+      Scope.enter();
+      final int nChunks = 200;
+      Vec ones = Vec.makeCon(1.0, nChunks, 0, true); // 1 row per chunk
+      Scope.track(ones);
+
+      SlowSum regular = new SlowSum().doAll(ones);
+      SlowSum stealing = new SlowSum().withWorkStealing().profile().doAll(ones);
+
+      // every chunk is mapped exactly once either way
+      assertEquals(nChunks, regular._chunks);
+      assertEquals(nChunks, stealing._chunks);
+      assertEquals(regular._sum, stealing._sum, 0);
+      assertEquals(nChunks, stealing._sum, 0);
+      int stolen = 0, given = 0;
+      for (int n : stealing.profStolen()) stolen += n;
+      for (int n : stealing.profGiven()) given += n;
+      assertEquals(stolen, given);
+      assertTrue("Some chunks should have been stolen", stolen > 0);
+    } finally {
+      Scope.exit();
+    }
+  }
 
+  // Chunks homed on the first node are slow to map, the other nodes should help out
+  private static class SlowSum extends MRTask<SlowSum> {
+    int _chunks;
+    double _sum;
+    @Override public void map(Chunk c) {
+      if (c.vec().chunkKey(c.cidx()).home_node().index() == 0) {
+        try {
+          Thread.sleep(20);
+        } catch (InterruptedException ignore) {
+        }
+      }
+      _chunks++;
+      for (int i = 0; i < c._len; i++)
+        _sum += c.atd(i);
+    }
+    @Override public void reduce(SlowSum mrt) {
+      _chunks += mrt._chunks;
+      _sum += mrt._sum;
+    }
+  }
+
+}
@@ -87,4 +87,43 @@ public class RebalanceDatasetTest extends TestUtil {
     }
   }
 
+  @Test public void testStreaming() {
+    try {
+      Scope.enter();
+      long[] layout = new long[100];
+      java.util.Arrays.fill(layout, 10);
+      layout[0] = 9_010; // one giant chunk, 99 tiny ones
+      Frame fr = Scope.track(new TestFrameBuilder()
+              .withUniformVecTypes(3, Vec.T_NUM)
+              .withSequenceIntDataForCol(0, 0, 10_000)
+              .withRandomDoubleDataForCol(1, 10_000, 0, 100, 42)
+              .withRandomIntDataForCol(2, 10_000, 0, 10, 42)
+              .withChunkLayout(layout)
+              .build());
+      ChunkSkew skew = ChunkSkew.of(fr);
+      assertEquals(100, skew._nonEmpty);
+      assertEquals(9_010, skew._maxRows);
+      assertTrue(skew.isFragmented(8));
+      assertTrue(skew.isImbalanced(8));
+      assertFalse(skew.isImbalanced(1));
+
+      Key<Frame> key = Key.make();
+      H2O.submitTask(new RebalanceDataSet(fr, key, 8).streaming(2, false)).join();
+      Frame rebalanced = Scope.track(key.get());
+      assertEquals(8, rebalanced.anyVec().nChunks());
+      assertFalse(ChunkSkew.of(rebalanced).isSkewed(8));
+      TestUtil.assertIdenticalUpToRelTolerance(fr, rebalanced, 0);
+
+      // consume a copy of the source, its Vecs are gone once rebalanced
+      Frame copy = fr.deepCopy(null);
+      Key<Frame> consumedKey = Key.make();
+      H2O.submitTask(new RebalanceDataSet(copy, consumedKey, 8).streaming(1, true)).join();
+      Frame consumed = Scope.track(consumedKey.get());
+      for (Vec v : copy.vecs()) assertNull(DKV.get(v._key));
+      TestUtil.assertIdenticalUpToRelTolerance(fr, consumed, 0);
+    } finally {
+      Scope.exit();
+    }
+  }
+
 }
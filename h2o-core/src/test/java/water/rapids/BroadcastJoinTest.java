@@ -0,0 +1,103 @@
+package water.rapids;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.Scope;
+import water.TestUtil;
+import water.fvec.CategoricalWrappedVec;
+import water.fvec.Frame;
+import water.fvec.TestFrameBuilder;
+import water.fvec.Vec;
+
+import static org.junit.Assert.*;
+
+public class BroadcastJoinTest extends TestUtil {
+  @BeforeClass public static void setup() { stall_till_cloudsize(1); }
+
+  @Test public void test_join_on_categorical_column_keeps_left_order_and_replicates_duplicates() {
+    Scope.enter();
+    try {
+      Frame left = new TestFrameBuilder()
+              .withColNames("ColA", "ColB")
+              .withVecTypes(Vec.T_CAT, Vec.T_NUM)
+              .withDataForCol(0, ar("e", "c", "b", null, "a"))
+              .withDataForCol(1, ard(4, 3, 2, 5, -1))
+              .build();
+      Frame right = new TestFrameBuilder()
+              .withColNames("ColA", "ColC", "ColD")
+              .withVecTypes(Vec.T_CAT, Vec.T_NUM, Vec.T_STR)
+              .withDataForCol(0, ar("a", "c", "e", "c"))
+              .withDataForCol(1, ard(2, 3, 4.5, 5))
+              .withDataForCol(2, ar("x", "y", null, "z"))
+              .withDomain(0, ar("c", "a", "e"))
+              .build();
+      int[][] levelMaps = {CategoricalWrappedVec.computeMap(left.vec(0).domain(), right.vec(0).domain())};
+
+      Frame inner = Scope.track(BroadcastJoin.join(left, right, false, 1, levelMaps));
+      assertArrayEquals(ar("ColA", "ColB", "ColC", "ColD"), inner.names());
+      assertStringVecEquals(cvec("e", "c", "c", "a"), inner.vec("ColA"));
+      assertVecEquals(vec(4, 3, 3, -1), inner.vec("ColB"), 0);
+      assertVecEquals(dvec(4.5, 3, 5, 2), inner.vec("ColC"), 0);
+      assertStringVecEquals(svec(null, "y", "z", "x"), inner.vec("ColD"));
+
+      Frame outer = Scope.track(BroadcastJoin.join(left, right, true, 1, levelMaps));
+      assertEquals(6, outer.numRows());
+      assertVecEquals(dvec(4, 3, 3, 2, 5, -1), outer.vec("ColB"), 0);
+      assertVecEquals(dvec(4.5, 3, 5, Double.NaN, Double.NaN, 2), outer.vec("ColC"), 0);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test public void test_join_on_numeric_columns_matches_radix_merge() {
+    Scope.enter();
+    try {
+      Frame left = new TestFrameBuilder()
+              .withColNames("k1", "k2", "x")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM, Vec.T_NUM)
+              .withDataForCol(0, ard(1, 2, 2, 3, 1))
+              .withDataForCol(1, ard(0.5, 1.5, 2.5, 0.5, 0.5))
+              .withDataForCol(2, ard(10, 20, 30, 40, 50))
+              .build();
+      Frame right = new TestFrameBuilder()
+              .withColNames("k1", "k2", "y")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM, Vec.T_NUM)
+              .withDataForCol(0, ard(1, 2, 3, Double.NaN))
+              .withDataForCol(1, ard(0.5, 2.5, 1.5, 0.5))
+              .withDataForCol(2, ard(100, 200, 300, 400))
+              .build();
+
+      Frame broadcast = Scope.track(BroadcastJoin.join(left, right, false, 2, new int[2][]));
+      assertVecEquals(vec(10, 30, 50), broadcast.vec("x"), 0);
+      assertVecEquals(vec(100, 200, 100), broadcast.vec("y"), 0);
+
+      Frame radix = Scope.track(Merge.merge(left, right, new int[]{0, 1}, new int[]{0, 1}, false, new int[2][]));
+      Frame sorted = Scope.track(Merge.sort(broadcast, new int[]{0, 1}));
+      assertFrameEquals(radix, sorted, 0);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test public void test_applicability() {
+    Scope.enter();
+    try {
+      Frame left = Scope.track(new TestFrameBuilder()
+              .withColNames("k", "x")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM)
+              .withDataForCol(0, ard(1, 2))
+              .withDataForCol(1, ard(3, 4))
+              .build());
+      Frame right = Scope.track(new TestFrameBuilder()
+              .withColNames("k", "u")
+              .withVecTypes(Vec.T_NUM, Vec.T_UUID)
+              .withDataForCol(0, ard(1))
+              .withDataForCol(1, ar("6870f256-e145-4d75-adb0-99ccb77d5d3a"))
+              .build());
+      assertTrue(BroadcastJoin.isApplicable(left, left, 1));
+      assertFalse(BroadcastJoin.isApplicable(left, right, 1));
+    } finally {
+      Scope.exit();
+    }
+  }
+}
@@ -0,0 +1,112 @@
+package water.rapids;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.Scope;
+import water.TestUtil;
+import water.fvec.Frame;
+import water.fvec.TestFrameBuilder;
+import water.fvec.Vec;
+
+import static org.junit.Assert.*;
+
+public class PlannerTest extends TestUtil {
+  @BeforeClass public static void setup() { stall_till_cloudsize(1); }
+
+  private static Frame buildFrame() {
+    return new TestFrameBuilder()
+            .withName("plannerFr")
+            .withColNames("a", "b", "c", "d")
+            .withVecTypes(Vec.T_NUM, Vec.T_NUM, Vec.T_CAT, Vec.T_NUM)
+            .withDataForCol(0, ard(1, 2, 3, 4, 5, 6, Double.NaN, 8))
+            .withDataForCol(1, ard(-1, 0.5, 7, Double.NaN, 2, 3, 4, 1))
+            .withDataForCol(2, ar("x", "y", null, "x", "z", "y", "x", "z"))
+            .withDataForCol(3, ard(6, 5, 4, 3, 2, 1, 0, -1))
+            .withChunkLayout(3, 3, 2)
+            .build();
+  }
+
+  private static Frame exec(String rapids, boolean lazy) {
+    boolean enabled = Planner.isEnabled();
+    Planner.setEnabled(lazy);
+    try {
+      return Scope.track(Rapids.exec(rapids).getFrame());
+    } finally {
+      Planner.setEnabled(enabled);
+    }
+  }
+
+  private static void assertSameAsEager(String rapids) {
+    Frame eager = exec(rapids, false);
+    Frame lazy = exec(rapids, true);
+    assertArrayEquals(eager.names(), lazy.names());
+    assertFrameEquals(eager, lazy, 0);
+  }
+
+  @Test public void test_filter_and_projection_are_fused() {
+    Scope.enter();
+    try {
+      Scope.track(buildFrame());
+      Frame res = exec("(cols (rows plannerFr (> (cols plannerFr 3) 2)) [1 2])", true);
+      assertArrayEquals(ar("b", "c"), res.names());
+      assertVecEquals(dvec(-1, 0.5, 7, Double.NaN), res.vec("b"), 0);
+      assertStringVecEquals(cvec("x", "y", null, "x"), res.vec("c"));
+      assertSameAsEager("(cols (rows plannerFr (> (cols plannerFr 3) 2)) [1 2])");
+      assertSameAsEager("(cols_py (rows plannerFr (& (>= (cols_py plannerFr 'a') 2) (< (cols_py plannerFr 'b') 5))) [-1 -2])");
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test public void test_element_wise_chains_match_eager_evaluation() {
+    Scope.enter();
+    try {
+      Scope.track(buildFrame());
+      assertSameAsEager("(+ (* (cols plannerFr [0 1]) 2) (cols plannerFr 3))");
+      assertSameAsEager("(log (- 10 (cols plannerFr [0 3])))");
+      assertSameAsEager("(== (sqrt (cols plannerFr 0)) 2)");
+      assertSameAsEager("(/ (rows (cols plannerFr [1 3]) (!= (cols plannerFr 0) 2)) 4)");
+      assertSameAsEager("(- (rows (cols plannerFr [0 3]) (> (cols plannerFr 1) 0)) (+ 1 2))");
+      assertSameAsEager("(cols (rows plannerFr (< (abs (cols plannerFr 1)) 3)) [0 2 3])");
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test public void test_filter_selects_the_same_rows_as_eager_evaluation() {
+    Scope.enter();
+    try {
+      Scope.track(buildFrame());
+      // the predicate is 2 or NA for some rows, neither is selected
+      assertSameAsEager("(cols (rows plannerFr (+ (> (cols plannerFr 1) 2) (> (cols plannerFr 0) 4))) [0 3])");
+      for (boolean lazy : new boolean[]{false, true}) {
+        try {
+          exec("(cols (rows plannerFr (* (cols plannerFr 0) 0.5)) [0 3])", lazy);
+          fail("Non-integer predicate should be rejected, lazy = " + lazy);
+        } catch (RuntimeException e) {
+          assertTrue(e.getMessage(), e.getMessage().contains("does not fit into int"));
+        }
+      }
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test public void test_unsupported_expressions_fall_back_to_eager_evaluation() {
+    Scope.enter();
+    try {
+      Scope.track(buildFrame());
+      // categoricals in arithmetic turn to NAs in the eager evaluation
+      assertSameAsEager("(+ (cols plannerFr [0 2]) (* (cols plannerFr 3) 2))");
+      assertSameAsEager("(rows (cols plannerFr [0 1 2]) [1:3])");
+      try {
+        exec("(+ (rows plannerFr (> (cols plannerFr 0) 2)) (cols plannerFr 1))", true);
+        fail("Frames with different number of rows were combined");
+      } catch (IllegalArgumentException e) {
+        assertTrue(e.getMessage().contains("Frames must have same rows"));
+      }
+    } finally {
+      Scope.exit();
+    }
+  }
+}
@@ -12,7 +12,7 @@ import water.util.ArrayUtils;
 import java.io.IOException;
 import java.util.Random;
 
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
 
 public class SortTest extends TestUtil {
   @BeforeClass public static void setup() { stall_till_cloudsize(1); }
@@ -381,6 +381,51 @@ public class SortTest extends TestUtil {
     }
   }
   
+  @Test public void testSortTopKMatchesHeadOfFullSort() {
+    Scope.enter();
+    try {
+      Frame fr = Scope.track(new TestFrameBuilder()
+              .withColNames("cat", "num", "row")
+              .withVecTypes(Vec.T_CAT, Vec.T_NUM, Vec.T_NUM)
+              .withDataForCol(0, ar("b", "a", null, "b", "a", "c", "a", "b", null, "c"))
+              .withDataForCol(1, ard(1, 5, 2, Double.NaN, 5, 0.5, -3, 1, 7, 2))
+              .withDataForCol(2, ard(0, 1, 2, 3, 4, 5, 6, 7, 8, 9))
+              .withChunkLayout(4, 3, 3)
+              .build());
+      int[][] orders = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+      for (int[] ascending : orders) {
+        Frame full = Scope.track(Merge.sort(fr, new int[]{0, 1}, ascending));
+        for (long k : new long[]{1, 3, 6, 9}) {
+          Frame top = Scope.track(Merge.sort(fr, new int[]{0, 1}, ascending, k));
+          assertEquals(k, top.numRows());
+          for (int c = 0; c < fr.numCols(); c++)
+            for (long r = 0; r < k; r++)
+              assertEquals(full.vec(c).at(r), top.vec(c).at(r), 0);
+        }
+      }
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test public void testSortTopKRapids() {
+    Scope.enter();
+    try {
+      Frame fr = Scope.track(new TestFrameBuilder()
+              .withName("topKHex")
+              .withColNames("score", "id")
+              .withVecTypes(Vec.T_NUM, Vec.T_STR)
+              .withDataForCol(0, ard(0.3, 0.9, 0.1, 0.9, 0.5))
+              .withDataForCol(1, ar("a", "b", "c", "d", "e"))
+              .build());
+      Frame top = Scope.track(Rapids.exec("(sort topKHex [0] [-1] 3)").getFrame());
+      assertVecEquals(dvec(0.9, 0.9, 0.5), top.vec("score"), 0);
+      assertStringVecEquals(svec("b", "d", "e"), top.vec("id"));
+    } finally {
+      Scope.exit();
+    }
+  }
+
   private static void testSort(Frame frSorted, Frame originalF, int colIndex) throws IOException {
     Scope.enter();
     Vec vec = frSorted.vec(colIndex);
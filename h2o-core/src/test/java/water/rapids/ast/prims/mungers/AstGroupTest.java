@@ -18,7 +18,8 @@ public class AstGroupTest extends TestUtil {
   public static Object[] data() {
     return new Object[]{
             "GB",
-            "GBSafe" // available in tests only - testing workaround for TE
+            "GBSafe", // available in tests only - testing workaround for TE
+            "GBPartitioned" // available in tests only - forces the primitive partitioned tables
     };
   }
 
@@ -66,4 +67,15 @@ public class AstGroupTest extends TestUtil {
     }
   }
 
+  public static class AstGroupPartitioned extends AstGroup {
+    public AstGroupPartitioned() {
+      super(true, true);
+    }
+
+    @Override
+    public String str() {
+      return "GBPartitioned";
+    }
+  }
+
 }
@@ -0,0 +1,77 @@
+package water.rapids.ast.prims.mungers;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.Scope;
+import water.TestUtil;
+import water.fvec.Frame;
+import water.fvec.TestFrameBuilder;
+import water.fvec.Vec;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class PartitionedGroupByTest extends TestUtil {
+
+  @BeforeClass
+  static public void setup() { stall_till_cloudsize(1); }
+
+  @Test
+  public void testSpillingGroupByMatchesRegularGroupBy() {
+    Scope.enter();
+    try {
+      final int nrows = 10000;
+      Frame fr = Scope.track(new TestFrameBuilder()
+              .withColNames("k1", "k2", "x")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM, Vec.T_NUM)
+              .withRandomIntDataForCol(0, nrows, 0, 100, 42)
+              .withRandomIntDataForCol(1, nrows, 0, 20, 43)
+              .withRandomDoubleDataForCol(2, nrows, -10, 10, 44)
+              .withChunkLayout(2500, 2500, 2500, 2500)
+              .build());
+      int[] gbCols = {0, 1};
+      AstGroup.AGG[] aggs = {
+              new AstGroup.AGG(AstGroup.FCN.nrow, 2, AstGroup.NAHandling.ALL, 0),
+              new AstGroup.AGG(AstGroup.FCN.sum, 2, AstGroup.NAHandling.ALL, 0),
+              new AstGroup.AGG(AstGroup.FCN.mean, 2, AstGroup.NAHandling.RM, 0),
+              new AstGroup.AGG(AstGroup.FCN.min, 2, AstGroup.NAHandling.IGNORE, 0),
+              new AstGroup.AGG(AstGroup.FCN.max, 2, AstGroup.NAHandling.ALL, 0),
+              new AstGroup.AGG(AstGroup.FCN.var, 2, AstGroup.NAHandling.ALL, 0)
+      };
+      Frame expected = Scope.track(new AstGroup().performGroupingWithAggregations(fr, gbCols, aggs).getFrame());
+      String[] fcnames = Arrays.copyOfRange(expected.names(), gbCols.length, expected.numCols());
+
+      // spill on every update of a partition table
+      Frame spilled = Scope.track(PartitionedGroupBy.groupBy(fr, gbCols, aggs, fcnames, 1));
+      assertArrayEquals(expected.names(), spilled.names());
+      assertFrameEquals(expected, spilled, 1e-8);
+
+      Frame inMemory = Scope.track(PartitionedGroupBy.groupBy(fr, gbCols, aggs, fcnames, Long.MAX_VALUE));
+      assertFrameEquals(expected, inMemory, 1e-8);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testGBTableMergeKeepsNaNGroupsTogether() {
+    AstGroup.AGG[] aggs = {new AstGroup.AGG(AstGroup.FCN.sum, 0, AstGroup.NAHandling.ALL, 0)};
+    GBTable t1 = new GBTable(1, aggs);
+    GBTable t2 = new GBTable(1, aggs);
+    for (int i = 0; i < 1000; i++) {
+      long[] key = {Double.doubleToLongBits(i % 2 == 0 ? Double.NaN : i % 10)};
+      (i < 500 ? t1 : t2).op((i < 500 ? t1 : t2).findOrAdd(key), 0, 1);
+    }
+    t1.compact().merge(t2.compact());
+    assertEquals(6, t1.size());
+    double total = 0;
+    for (int g = 0; g < t1.size(); g++) {
+      double sum = t1.postPass(g, 0);
+      if (Double.isNaN(t1.key(0, g))) assertEquals(500, sum, 0);
+      total += sum;
+    }
+    assertEquals(1000, total, 0);
+  }
+
+}
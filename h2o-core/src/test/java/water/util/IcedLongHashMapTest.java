@@ -0,0 +1,107 @@
+package water.util;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.AutoBuffer;
+import water.TestUtil;
+import water.parser.BufferedString;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class IcedLongHashMapTest extends TestUtil {
+
+    @BeforeClass
+    public static void setUp() {
+        stall_till_cloudsize(1);
+    }
+
+    @Test
+    public void testLongLongMap() {
+        IcedLongLongHashMap map = new IcedLongLongHashMap();
+        assertTrue(map.isEmpty());
+        for (long k = -500; k < 500; k++) // includes the key 0 and forces several resizes
+            assertEquals(-1, map.put(k, k * 3, -1));
+        assertEquals(1000, map.size());
+        assertEquals(0, map.get(0, -1));
+        assertEquals(-1500, map.get(-500, -1));
+        assertEquals(-1, map.get(500, -1));
+        assertFalse(map.containsKey(500));
+        assertEquals(30, map.putIfAbsent(10, 7, -1));
+        assertEquals(30, map.get(10, -1));
+        assertEquals(32, map.add(10, 2));
+        assertEquals(5, map.add(1000, 5));
+
+        IcedLongLongHashMap read = new AutoBuffer().put(map).flipForReading().get();
+        assertEquals(map.size(), read.size());
+        long[] keys = read.keys();
+        Arrays.sort(keys);
+        long[] expected = map.keys();
+        Arrays.sort(expected);
+        assertArrayEquals(expected, keys);
+        for (long k : keys)
+            assertEquals(map.get(k, -1), read.get(k, -2));
+    }
+
+    @Test
+    public void testLongDoubleMap() {
+        IcedLongDoubleHashMap map = new IcedLongDoubleHashMap();
+        assertEquals(Double.NaN, map.put(42, 0.5, Double.NaN), 0);
+        assertEquals(2.0, map.add(42, 1.5), 0);
+        assertEquals(-1.0, map.add(0, -1), 0);
+        IcedLongDoubleHashMap read = new AutoBuffer().put(map).flipForReading().get();
+        assertEquals(2, read.size());
+        assertEquals(2.0, read.get(42, Double.NaN), 0);
+        assertEquals(-1.0, read.get(0, Double.NaN), 0);
+    }
+
+    @Test
+    public void testBufferedStringIntMap() {
+        IcedBufferedStringIntHashMap map = new IcedBufferedStringIntHashMap();
+        BufferedString str = new BufferedString();
+        byte[] buf = "a,bb,ccc".getBytes();
+        str.set(buf, 2, 2);
+        assertEquals(-1, map.putIfAbsent(str, 1, -1));
+        str.set(buf, 5, 3);
+        assertEquals(-1, map.putIfAbsent(str, 2, -1));
+        assertEquals(2, map.putIfAbsent(str, 3, -1));
+        buf[5] = 'x'; // keys are copied
+        assertEquals(-1, map.get(str, -1));
+        assertEquals(2, map.get(new BufferedString("ccc"), -1));
+        assertTrue(map.containsKey(new BufferedString("bb")));
+
+        IcedBufferedStringIntHashMap read = new AutoBuffer().put(map).flipForReading().get();
+        assertEquals(2, read.size());
+        assertEquals(1, read.get(new BufferedString("bb"), -1));
+        assertEquals(2, read.get(new BufferedString("ccc"), -1));
+    }
+
+    @Test
+    public void testConcurrentInserts() throws Exception {
+        final IcedBufferedStringIntHashMap map = new IcedBufferedStringIntHashMap();
+        final int n = 10_000;
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < 4; t++)
+            results.add(pool.submit(() -> {
+                for (int i = 0; i < n; i++) {
+                    BufferedString key = new BufferedString("level" + i);
+                    map.putIfAbsent(key, i, -1);
+                    assertEquals(i, map.get(key, -1));
+                }
+            }));
+        for (Future<?> r : results)
+            r.get(); // rethrows failed assertions
+        pool.shutdown();
+        assertEquals(n, map.size());
+        for (int i = 0; i < n; i += 101)
+            assertEquals(i, map.get(new BufferedString("level" + i), -1));
+    }
+
+}
@@ -0,0 +1,114 @@
+package water.util;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.Scope;
+import water.TestUtil;
+import water.fvec.TestFrameBuilder;
+import water.fvec.Vec;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SketchesTest extends TestUtil {
+  @BeforeClass public static void setup() { stall_till_cloudsize(1); }
+
+  @Test public void testHyperLogLogEstimatesDistinctCount() {
+    HyperLogLog small = new HyperLogLog();
+    for (int i = 0; i < 100; i++) small.add(i % 40);
+    small.add(-0.0);
+    small.add(Double.NaN);
+    assertEquals(40, small.estimate(), 1);
+
+    HyperLogLog left = new HyperLogLog(), right = new HyperLogLog();
+    for (int i = 0; i < 200000; i++) {
+      left.add(i);
+      right.add(i + 100000);
+    }
+    long est = left.merge(right).estimate();
+    assertEquals(300000, est, 300000 * 0.05);
+  }
+
+  @Test public void testKLLSketchQuantilesWithinRankError() {
+    Random rnd = new Random(0xCAFE);
+    int n = 200000;
+    double[] xs = new double[n];
+    KLLSketch[] parts = new KLLSketch[8];
+    for (int i = 0; i < parts.length; i++) parts[i] = new KLLSketch();
+    for (int i = 0; i < n; i++) {
+      xs[i] = rnd.nextGaussian();
+      parts[i % parts.length].add(xs[i]);
+    }
+    KLLSketch kll = parts[0];
+    for (int i = 1; i < parts.length; i++) kll.merge(parts[i]);
+    assertEquals(n, kll.count());
+    Arrays.sort(xs);
+    double[] probs = {0, 0.01, 0.25, 0.5, 0.75, 0.99, 1};
+    double[] qs = kll.quantiles(probs);
+    assertEquals(xs[0], qs[0], 0);
+    assertEquals(xs[n - 1], qs[probs.length - 1], 0);
+    for (int i = 1; i < probs.length - 1; i++) {
+      int rank = Math.abs(Arrays.binarySearch(xs, qs[i]));
+      assertEquals(probs[i] * n, rank, 0.02 * n);
+    }
+    assertTrue(Double.isNaN(new KLLSketch().quantile(0.5)));
+  }
+
+  @Test public void testKLLSketchWeightedAdd() {
+    KLLSketch kll = new KLLSketch();
+    for (int i = 1; i <= 1000; i++) kll.add(i);
+    kll.add(0, 3000);
+    assertEquals(4000, kll.count());
+    double[] qs = kll.quantiles(new double[]{0, 0.5, 0.875, 1});
+    assertEquals(0, qs[0], 0);
+    assertEquals(0, qs[1], 0);
+    assertEquals(500, qs[2], 0.02 * 4000);
+    assertEquals(1000, qs[3], 0);
+  }
+
+  @Test public void testVecSketches() {
+    Scope.enter();
+    try {
+      double[] data = new double[10000];
+      for (int i = 0; i < data.length; i++) data[i] = (i % 2500) * 0.5;
+      data[7] = Double.NaN;
+      Vec vec = Scope.track(new TestFrameBuilder()
+              .withColNames("x")
+              .withVecTypes(Vec.T_NUM)
+              .withDataForCol(0, data)
+              .withChunkLayout(3000, 3000, 4000)
+              .build()).vec(0);
+      assertEquals(2500, vec.approxDistinct(), 2500 * 0.05);
+      double[] qs = vec.approxQuantiles(new double[]{0, 0.5, 1});
+      assertEquals(0, qs[0], 0);
+      assertEquals(625, qs[1], 1249.5 * 0.02);
+      assertEquals(1249.5, qs[2], 0);
+
+      Vec ints = Scope.track(vec(1, 2, 2, 3, 3, 3, 7));
+      assertEquals(4, ints.approxDistinct());
+
+      Vec strs = Scope.track(svec("a", "b"));
+      assertEquals(-1, strs.approxDistinct());
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test public void testVecSketchesAreDroppedWithRollups() {
+    Scope.enter();
+    try {
+      Vec vec = Scope.track(dvec(0.5, 1.5, 2.5, 3.5));
+      double[] probs = new double[]{0, 1};
+      assertArrayEquals(new double[]{0.5, 3.5}, vec.approxQuantiles(probs), 0);
+      assertArrayEquals(new double[]{0.5, 3.5}, vec.approxQuantiles(probs), 0); // cached
+      Vec.Writer w = vec.open();
+      w.set(3, 10.5);
+      w.close();
+      assertArrayEquals(new double[]{0.5, 10.5}, vec.approxQuantiles(probs), 0);
+    } finally {
+      Scope.exit();
+    }
+  }
+}
@@ -366,6 +366,41 @@ public abstract class GenModel implements IGenModel, IGeneratedModel, Serializab
     throw new UnsupportedOperationException("`offset` column is not supported");
   }
 
+  /** Scores a block of rows given column by column.  The input columns are in
+   *  the order the model expects (the same as the row of {@link #score0(double[], double[])}),
+   *  {@code cols[c][r]} being the value of column {@code c} in row {@code r}.
+   *  The predictions of row {@code r} are written into the caller-owned array
+   *  {@code preds[r]}, of size {@link #getPredsSize()}; nothing is allocated per row.
+   *  The results are the same as of scoring the rows one by one.  This default
+   *  implementation does just that, models override it with implementations that
+   *  process the whole block at once.
+   *
+   * @param cols input data, column-major
+   * @param offsets per-row offsets, or null if the model doesn't use an offset column
+   * @param nrows number of rows to score (the first {@code nrows} values of each column)
+   * @param preds output, one array of predictions per row
+   */
+  public void scoreBatch(double[][] cols, double[] offsets, int nrows, double[][] preds) {
+    double[] row = new double[cols.length];
+    for (int r = 0; r < nrows; r++) {
+      for (int c = 0; c < row.length; c++)
+        row[c] = cols[c][r];
+      if (offsets == null)
+        score0(row, preds[r]);
+      else
+        score0(row, offsets[r], preds[r]);
+    }
+  }
+
+  /** Copies rows {@code [from, from + n)} of column-major data into row-major {@code rows}. */
+  protected static void transpose(double[][] cols, int from, int n, double[][] rows) {
+    for (int c = 0; c < cols.length; c++) {
+      double[] col = cols[c];
+      for (int r = 0; r < n; r++)
+        rows[r][c] = col[from + r];
+    }
+  }
+
   /** Subclasses implement calibration of class probabilities. The input is array of
    *  predictions returned by the scoring function (score0). Supports classification
    *  models that were trained with calibration enabled. Original probabilities
@@ -443,8 +478,6 @@ public abstract class GenModel implements IGenModel, IGeneratedModel, Serializab
   }
 
   public static int getPredictionMultinomial(double[] preds, double[] priorClassDist, double[] data) {
-    List<Integer> ties = new ArrayList<>();
-    ties.add(0);
     int best=1, tieCnt=0;   // Best class; count of ties
     for( int c=2; c<preds.length; c++) {
       if( preds[best] < preds[c] ) {
@@ -452,11 +485,12 @@ public abstract class GenModel implements IGenModel, IGeneratedModel, Serializab
         tieCnt=0;               // No ties
       } else if (preds[best] == preds[c]) {
         tieCnt++;               // Ties
-        ties.add(c-1);
       }
     }
     if( tieCnt==0 ) return best-1; // Return zero-based best class
 
+    List<Integer> ties = collectTies(preds); // only materialized when there is a tie to break
+
     long hash = 0;              // hash for tie-breaking
     if( data != null )
       for( double d : data ) hash ^= Double.doubleToRawLongBits(d) >> 6; // drop 6 least significants bits of mantissa (layout of long is: 1b sign, 11b exp, 52b mantisa)
@@ -489,6 +523,21 @@ public abstract class GenModel implements IGenModel, IGeneratedModel, Serializab
         return best-1;          // Return best
     throw new RuntimeException("Should Not Reach Here");
   }
+
+  // Replays the scan of getPredictionMultinomial and collects the ties it encounters on the way
+  private static List<Integer> collectTies(double[] preds) {
+    List<Integer> ties = new ArrayList<>();
+    ties.add(0);
+    int best=1;
+    for( int c=2; c<preds.length; c++) {
+      if( preds[best] < preds[c] ) {
+        best = c;
+      } else if (preds[best] == preds[c]) {
+        ties.add(c-1);
+      }
+    }
+    return ties;
+  }
   
   // Utility to do bitset lookup from a POJO
   public static boolean bitSetContains(byte[] bits, int nbits, int bitoff, double dnum) {
@@ -0,0 +1,313 @@
+package hex.genmodel;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads a MOJO zip file through a memory mapping of the file.
+ *
+ * Entries that are stored uncompressed are not read at all when the MOJO is loaded, the readers get slices of the
+ * mapping (see {@link #getMappedFile(String)}) and the data is paged in by the OS when it is first used. The pages
+ * live in the page cache of the OS, all JVMs mapping the same file share them. Compressed entries are inflated
+ * on request, same as with a regular zip file.
+ *
+ * A MOJO written by H2O compresses its entries, {@link hex.genmodel.tools.AlignMojo} repacks it into a container
+ * with uncompressed entries aligned to {@link #ALIGNMENT} bytes. Large ensembles have more than 65535 entries,
+ * their containers are Zip64 archives; the Zip64 end of central directory and the Zip64 extra fields of the central
+ * directory are read as well.
+ */
+public class MappedMojoReaderBackend implements MojoReaderBackend, Closeable {
+
+  /** Comment of zip files written by {@link hex.genmodel.tools.AlignMojo}. */
+  public static final String CONTAINER_COMMENT = "h2o-mojo-mapped";
+  /** Data of the uncompressed entries of the container starts at a multiple of this. */
+  public static final int ALIGNMENT = 8;
+
+  private static final int EOCD_SIG = 0x06054b50;
+  private static final int CEN_SIG = 0x02014b50;
+  private static final int LOC_SIG = 0x04034b50;
+  private static final int EOCD_LEN = 22;
+  private static final int ZIP64_EOCD_SIG = 0x06064b50;
+  private static final int ZIP64_LOCATOR_SIG = 0x07064b50;
+  private static final int ZIP64_LOCATOR_LEN = 20;
+  private static final int ZIP64_EOCD_LEN = 56;
+  private static final int ZIP64_EXTRA_ID = 0x0001;
+  private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+  private static final int MAX_COMMENT_LEN = 0xFFFF;
+  private static final int STORED = 0;
+  private static final int DEFLATED = 8;
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private final String _file;
+  private final Map<String, Entry> _entries;
+  private ByteBuffer _mapping;   // the whole file, if it fits a single mapping
+  private FileChannel _channel;  // otherwise entries are mapped one by one
+
+  public MappedMojoReaderBackend(String archivename) throws IOException {
+    _file = archivename;
+    RandomAccessFile raf = new RandomAccessFile(archivename, "r");
+    FileChannel channel = raf.getChannel();
+    boolean keepOpen = false;
+    try {
+      final long size = channel.size();
+      if (size <= Integer.MAX_VALUE) {
+        _mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+      } else {
+        _channel = channel;
+        keepOpen = true;
+      }
+      final ByteBuffer eocd = findEndOfCentralDirectory(channel, size);
+      long count = eocd.getShort(10) & 0xFFFF;
+      long cenSize = eocd.getInt(12) & 0xFFFFFFFFL;
+      long cenOffset = eocd.getInt(16) & 0xFFFFFFFFL;
+      final ByteBuffer zip64 = findZip64EndOfCentralDirectory(channel, size - eocd.remaining());
+      if (zip64 != null) {
+        count = zip64.getLong(32);
+        cenSize = zip64.getLong(40);
+        cenOffset = zip64.getLong(48);
+      } else if (count == 0xFFFF || cenSize == ZIP64_MAGIC || cenOffset == ZIP64_MAGIC) {
+        throw new IOException("Zip64 end of central directory of " + archivename + " not found");
+      }
+      if (cenSize > Integer.MAX_VALUE || count > Integer.MAX_VALUE)
+        throw new IOException("Central directory of " + archivename + " is too large");
+      _entries = readCentralDirectory(channel, cenOffset, (int) cenSize, (int) count);
+    } catch (IOException e) {
+      keepOpen = false;
+      throw e;
+    } finally {
+      if (!keepOpen)
+        raf.close(); // the mapping stays valid
+    }
+  }
+
+  /**
+   * Maps a MOJO container, a container that cannot be mapped is read as a regular zip file.
+   * @param archivename MOJO container written by {@link hex.genmodel.tools.AlignMojo}
+   * @return reader backend of the container
+   */
+  public static MojoReaderBackend openOrFallback(String archivename) throws IOException {
+    try {
+      return new MappedMojoReaderBackend(archivename);
+    } catch (IOException e) {
+      return new ZipfileMojoReaderBackend(archivename);
+    }
+  }
+
+  /**
+   * @return true if the file is a MOJO container written by {@link hex.genmodel.tools.AlignMojo}
+   */
+  public static boolean isMappedContainer(File file) {
+    if (!file.isFile())
+      return false;
+    try {
+      RandomAccessFile raf = new RandomAccessFile(file, "r");
+      try {
+        ByteBuffer eocd = findEndOfCentralDirectory(raf.getChannel(), raf.length());
+        return (eocd.getShort(20) & 0xFFFF) == CONTAINER_COMMENT.length() &&
+                CONTAINER_COMMENT.equals(readString(eocd, EOCD_LEN, CONTAINER_COMMENT.length()));
+      } finally {
+        raf.close();
+      }
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public BufferedReader getTextFile(String filename) throws IOException {
+    return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(getBinaryFile(filename))));
+  }
+
+  @Override
+  public byte[] getBinaryFile(String filename) throws IOException {
+    final Entry e = entry(filename);
+    final ByteBuffer data = data(e);
+    final byte[] out = new byte[e._size];
+    if (e._method == STORED) {
+      data.get(out);
+      return out;
+    }
+    byte[] compressed = new byte[e._compressedSize];
+    data.get(compressed);
+    Inflater inflater = new Inflater(true);
+    try {
+      inflater.setInput(compressed);
+      int n = 0;
+      while (n < out.length && !inflater.finished()) {
+        int read = inflater.inflate(out, n, out.length - n);
+        if (read == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+          break;
+        n += read;
+      }
+      if (n != out.length)
+        throw new IOException("Truncated entry " + filename + " in " + _file);
+    } catch (DataFormatException ex) {
+      throw new IOException("Corrupted entry " + filename + " in " + _file, ex);
+    } finally {
+      inflater.end();
+    }
+    return out;
+  }
+
+  /**
+   * Gives direct access to the data of an uncompressed entry, nothing is copied.
+   * @param filename name of the entry
+   * @return read-only buffer positioned at the start of the data, or null if the entry is compressed
+   * @throws IOException if the entry doesn't exist
+   */
+  public ByteBuffer getMappedFile(String filename) throws IOException {
+    final Entry e = entry(filename);
+    return e._method == STORED ? data(e).asReadOnlyBuffer() : null;
+  }
+
+  @Override
+  public boolean exists(String filename) {
+    return _entries.containsKey(filename);
+  }
+
+  @Override
+  public void close() throws IOException {
+    // mapped buffers are released by the GC, the slices handed out remain valid
+    if (_channel != null) {
+      FileChannel c = _channel;
+      _channel = null;
+      c.close();
+    }
+  }
+
+  private Entry entry(String filename) throws IOException {
+    final Entry e = _entries.get(filename);
+    if (e == null)
+      throw new IOException("File " + filename + " not found in " + _file);
+    return e;
+  }
+
+  private ByteBuffer data(Entry e) throws IOException {
+    final ByteBuffer local = map(e._localOffset, 30);
+    if (local.getInt(0) != LOC_SIG)
+      throw new IOException("Invalid local header of " + e._name + " in " + _file);
+    final long dataOffset = e._localOffset + 30 + (local.getShort(26) & 0xFFFF) + (local.getShort(28) & 0xFFFF);
+    return map(dataOffset, e._method == STORED ? e._size : e._compressedSize);
+  }
+
+  private ByteBuffer map(long offset, int length) throws IOException {
+    if (_mapping != null) {
+      ByteBuffer bb = _mapping.duplicate();
+      bb.position((int) offset).limit((int) offset + length);
+      return bb.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+    if (_channel == null)
+      throw new IllegalStateException("Reader backend of " + _file + " was already closed");
+    return _channel.map(FileChannel.MapMode.READ_ONLY, offset, length).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  private static ByteBuffer findEndOfCentralDirectory(FileChannel channel, long size) throws IOException {
+    final int tailLen = (int) Math.min(size, EOCD_LEN + MAX_COMMENT_LEN);
+    final ByteBuffer tail = ByteBuffer.allocate(tailLen).order(ByteOrder.LITTLE_ENDIAN);
+    readFully(channel, tail, size - tailLen);
+    for (int pos = tailLen - EOCD_LEN; pos >= 0; pos--) {
+      if (tail.getInt(pos) == EOCD_SIG && pos + EOCD_LEN + (tail.getShort(pos + 20) & 0xFFFF) == tailLen) {
+        tail.position(pos);
+        return tail.slice().order(ByteOrder.LITTLE_ENDIAN);
+      }
+    }
+    throw new IOException("Not a zip file (end of central directory not found)");
+  }
+
+  /**
+   * @param eocdOffset position of the end of central directory record in the file
+   * @return the Zip64 end of central directory record, or null if the archive doesn't have one
+   */
+  private static ByteBuffer findZip64EndOfCentralDirectory(FileChannel channel, long eocdOffset) throws IOException {
+    if (eocdOffset < ZIP64_LOCATOR_LEN)
+      return null;
+    final ByteBuffer locator = ByteBuffer.allocate(ZIP64_LOCATOR_LEN).order(ByteOrder.LITTLE_ENDIAN);
+    readFully(channel, locator, eocdOffset - ZIP64_LOCATOR_LEN);
+    if (locator.getInt(0) != ZIP64_LOCATOR_SIG)
+      return null;
+    final ByteBuffer record = ByteBuffer.allocate(ZIP64_EOCD_LEN).order(ByteOrder.LITTLE_ENDIAN);
+    readFully(channel, record, locator.getLong(8));
+    if (record.getInt(0) != ZIP64_EOCD_SIG)
+      throw new IOException("Invalid Zip64 end of central directory");
+    return record;
+  }
+
+  private Map<String, Entry> readCentralDirectory(FileChannel channel, long offset, int length, int count) throws IOException {
+    final ByteBuffer cen = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    readFully(channel, cen, offset);
+    final Map<String, Entry> entries = new HashMap<>(count * 2);
+    int pos = 0;
+    for (int i = 0; i < count; i++) {
+      if (cen.getInt(pos) != CEN_SIG)
+        throw new IOException("Invalid central directory of " + _file);
+      final int method = cen.getShort(pos + 10) & 0xFFFF;
+      long compressedSize = cen.getInt(pos + 20) & 0xFFFFFFFFL;
+      long size = cen.getInt(pos + 24) & 0xFFFFFFFFL;
+      final int nameLen = cen.getShort(pos + 28) & 0xFFFF;
+      final int extraLen = cen.getShort(pos + 30) & 0xFFFF;
+      final int commentLen = cen.getShort(pos + 32) & 0xFFFF;
+      long localOffset = cen.getInt(pos + 42) & 0xFFFFFFFFL;
+      final String name = readString(cen, pos + 46, nameLen);
+      if (size == ZIP64_MAGIC || compressedSize == ZIP64_MAGIC || localOffset == ZIP64_MAGIC) {
+        // the actual values are in the Zip64 extra field, in this order, only those that don't fit the header
+        int extra = pos + 46 + nameLen;
+        final int extraEnd = extra + extraLen;
+        while (extra + 4 <= extraEnd && (cen.getShort(extra) & 0xFFFF) != ZIP64_EXTRA_ID)
+          extra += 4 + (cen.getShort(extra + 2) & 0xFFFF);
+        if (extra + 4 > extraEnd)
+          throw new IOException("Zip64 extra field of " + name + " not found in " + _file);
+        int field = extra + 4;
+        if (size == ZIP64_MAGIC) { size = cen.getLong(field); field += 8; }
+        if (compressedSize == ZIP64_MAGIC) { compressedSize = cen.getLong(field); field += 8; }
+        if (localOffset == ZIP64_MAGIC) localOffset = cen.getLong(field);
+      }
+      if (method != STORED && method != DEFLATED)
+        throw new IOException("Unsupported compression method " + method + " of " + name + " in " + _file);
+      if (size > Integer.MAX_VALUE || compressedSize > Integer.MAX_VALUE)
+        throw new IOException("File too large: " + name);
+      entries.put(name, new Entry(name, method, (int) size, (int) compressedSize, localOffset));
+      pos += 46 + nameLen + extraLen + commentLen;
+    }
+    return entries;
+  }
+
+  private static String readString(ByteBuffer bb, int pos, int len) {
+    byte[] bytes = new byte[len];
+    ByteBuffer dup = bb.duplicate();
+    dup.position(pos);
+    dup.get(bytes);
+    return new String(bytes, UTF8);
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer bb, long position) throws IOException {
+    while (bb.hasRemaining()) {
+      int n = channel.read(bb, position + bb.position());
+      if (n < 0)
+        throw new EOFException();
+    }
+  }
+
+  private static class Entry {
+    final String _name;
+    final int _method;
+    final int _size;
+    final int _compressedSize;
+    final long _localOffset;
+
+    Entry(String name, int method, int size, int compressedSize, long localOffset) {
+      _name = name;
+      _method = method;
+      _size = size;
+      _compressedSize = compressedSize;
+      _localOffset = localOffset;
+    }
+  }
+
+}
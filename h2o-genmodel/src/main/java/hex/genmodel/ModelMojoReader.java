@@ -130,6 +130,16 @@ public abstract class ModelMojoReader<M extends MojoModel> {
     return getMojoReaderBackend().getBinaryFile(name);
   }
 
+  /**
+   * Gives direct access to binary data of a memory-mapped MOJO (see {@link MappedMojoReaderBackend}), the data is
+   * not copied to the heap.
+   * @return read-only buffer with the data, or null if the data cannot be mapped and needs to be read by {@link #readblob(String)}
+   */
+  protected ByteBuffer readblobMapped(String name) throws IOException {
+    MojoReaderBackend reader = getMojoReaderBackend();
+    return reader instanceof MappedMojoReaderBackend ? ((MappedMojoReaderBackend) reader).getMappedFile(name) : null;
+  }
+
   protected boolean exists(String name) {
     return getMojoReaderBackend().exists(name);
   }
@@ -53,6 +53,7 @@ public abstract class MojoModel extends GenModel {
     if (!f.exists())
       throw new FileNotFoundException("File " + file + " cannot be found.");
     MojoReaderBackend cr = f.isDirectory()? new FolderMojoReaderBackend(file)
+            : MappedMojoReaderBackend.isMappedContainer(f) ? MappedMojoReaderBackend.openOrFallback(file)
             : new ZipfileMojoReaderBackend(file);
     return ModelMojoReader.readFrom(cr, readMetadata);
   }
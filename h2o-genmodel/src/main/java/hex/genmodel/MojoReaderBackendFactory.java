@@ -22,6 +22,9 @@ import java.util.zip.ZipInputStream;
  *  <li>DISK: MOJO is cached in a temporary file on disk, recommended for very large models</li>
  * </ul>
  *
+ * <p>MOJO files repacked by {@link hex.genmodel.tools.AlignMojo} are memory-mapped instead of being read
+ * (see {@link MappedMojoReaderBackend}), this is the fastest way to load very large tree ensembles.</p>
+ *
  * <p>Example of using MojoReaderBackendFactory to read a MOJO from a classpath resource:</p>
  *
  * <pre>
@@ -51,7 +54,9 @@ public class MojoReaderBackendFactory {
   }
 
   public static MojoReaderBackend createReaderBackend(File file) throws IOException {
-    if (file.isFile())
+    if (MappedMojoReaderBackend.isMappedContainer(file))
+      return MappedMojoReaderBackend.openOrFallback(file.getPath());
+    else if (file.isFile())
       return new ZipfileMojoReaderBackend(file.getPath());
     else if (file.isDirectory())
       return new FolderMojoReaderBackend(file.getPath());
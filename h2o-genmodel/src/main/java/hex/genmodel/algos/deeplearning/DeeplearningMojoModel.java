@@ -8,6 +8,7 @@ import hex.genmodel.utils.DistributionFamily;
 import java.io.Serializable;
 
 public class DeeplearningMojoModel extends MojoModel {
+  private static final int BATCH_BLOCK_SIZE = 64; // rows propagated through the network together
   public int _mini_batch_size;
   public int _nums; // number of numerical columns
   public int _cats; // number of categorical columns
@@ -82,6 +83,40 @@ public class DeeplearningMojoModel extends MojoModel {
     return modifyOutputs(neuronsInput, preds, dataRow);
   }
 
+  /**
+   * Propagates a block of rows through the network layer by layer, so that the weights of a layer are
+   * read once per block instead of once per row. Maxout networks are scored row by row.
+   */
+  @Override
+  public void scoreBatch(double[][] cols, double[] offsets, int nrows, double[][] preds) {
+    if ("Maxout".equals(_activation) || "MaxoutWithDropout".equals(_activation)) {
+      super.scoreBatch(cols, offsets, nrows, preds);
+      return;
+    }
+    final int blockSize = Math.min(nrows, BATCH_BLOCK_SIZE);
+    double[][] rows = new double[blockSize][cols.length];
+    double[][] neurons = new double[blockSize][];
+    double[] numsA = new double[_nums];
+    int[] catsA = new int[_cats];
+    for (int from = 0; from < nrows; from += BATCH_BLOCK_SIZE) {
+      final int n = Math.min(BATCH_BLOCK_SIZE, nrows - from);
+      transpose(cols, from, n, rows);
+      for (int r = 0; r < n; r++) {
+        neurons[r] = new double[_units[0]];
+        setInput(rows[r], neurons[r], numsA, catsA, _nums, _cats, _catoffsets, _normmul, _normsub, _use_all_factor_levels, true);
+      }
+      for (int layer = 0; layer < _numLayers; layer++) {
+        double[][] input2ActFun = new double[n][_units[layer + 1]];
+        NeuralNetwork.formNNInputs(_weightsAndBias[layer], neurons, n, input2ActFun);
+        ActivationUtils.ActivationFunctions actFun = NeuralNetwork.activationFunction(_allActivations[layer]);
+        for (int r = 0; r < n; r++)
+          neurons[r] = actFun.eval(input2ActFun[r], _all_drop_out_ratios[layer], 1);
+      }
+      for (int r = 0; r < n; r++)
+        modifyOutputs(neurons[r], preds[from + r], rows[r]);
+    }
+  }
+
   public double[] modifyOutputs(double[] out, double[] preds, double[] dataRow) {
     if (this.isAutoEncoder()) { // only perform unscale numerical value if need
       if (_normmul != null && _normmul.length > 0) { // undo the standardization on output
@@ -184,11 +219,23 @@ public class DeeplearningMojoModel extends MojoModel {
   public static class StoreWeightsBias implements Serializable {
     float[] _wValues; // store weight or bias arrays
     double[] _bValues;
+    byte[] _qValues;  // int8 weights, instead of _wValues (see QuantizedWeights)
+    float[] _qScales; // scale of each row of the int8 weights
 
     StoreWeightsBias(float[] wvalues, double[] bvalues) {
       _wValues = wvalues;
       _bValues = bvalues;
     }
+
+    StoreWeightsBias(byte[] qvalues, float[] qscales, double[] bvalues) {
+      _qValues = qvalues;
+      _qScales = qscales;
+      _bValues = bvalues;
+    }
+
+    int weightsLength() {
+      return _qValues != null ? _qValues.length : _wValues.length;
+    }
   }
   
   @Override
@@ -44,8 +44,15 @@ public class DeeplearningMojoReader extends ModelMojoReader<DeeplearningMojoMode
     // read in biases and weights for each layer
     int numLayers = _model._units.length-1; // exclude the output nodes.
     _model._weightsAndBias = new DeeplearningMojoModel.StoreWeightsBias[numLayers];
+    String weightsPrecision = _model._mojo_version >= 1.20 ? (String) readkv("weights_precision") : null;
     for (int layerIndex = 0; layerIndex < numLayers; layerIndex++) {
       double[] tempB = readkv("bias_layer" + layerIndex, new double[0]);
+      if (weightsPrecision != null) {
+        boolean maxout = _model._activation.startsWith("Maxout");
+        _model._weightsAndBias[layerIndex] = QuantizedWeights.read(readblob("weights/layer" + layerIndex + ".bin"),
+                tempB, QuantizedWeights.Precision.fromString(weightsPrecision), !maxout);
+        continue;
+      }
       double[] tempWD = readkv("weight_layer" + layerIndex, new double[0]);
       float[] tempW;
 
@@ -86,7 +93,7 @@ public class DeeplearningMojoReader extends ModelMojoReader<DeeplearningMojoMode
 
   @Override
   public String mojoVersion() {
-    return "1.10";
+    return "1.20";
   }
 
   @Override
@@ -19,7 +19,7 @@ public class NeuralNetwork {  // represent one layer of neural network
 
   public NeuralNetwork(String activation, double drop_out_ratio, DeeplearningMojoModel.StoreWeightsBias weightsAndBias,
                        double[] inputs, int outSize) {
-    validateInputs(activation, drop_out_ratio, weightsAndBias._wValues.length, weightsAndBias._bValues.length,
+    validateInputs(activation, drop_out_ratio, weightsAndBias.weightsLength(), weightsAndBias._bValues.length,
             inputs.length, outSize);
     _activation=activation;
     _drop_out_ratio=drop_out_ratio;
@@ -45,36 +45,94 @@ public class NeuralNetwork {  // represent one layer of neural network
   public double[] formNNInputs() {
     double[] input2ActFun = new double[_outSize];
     int cols = _inputs.length;
-    int rows = input2ActFun.length;
-    int extra=cols-cols%8;
-    int multiple = (cols/8)*8-1;
     int idx = 0;
-    for (int row = 0; row < rows; row++) {
-      double psum0 = 0, psum1 = 0, psum2 = 0, psum3 = 0, psum4 = 0, psum5 = 0, psum6 = 0, psum7 = 0;
-
-      for (int col=0; col < multiple; col+=8) {
-        int off=idx+col;
-        psum0 += _weightsAndBias._wValues[off    ] * _inputs[col    ];
-        psum1 += _weightsAndBias._wValues[off + 1] * _inputs[col + 1];
-        psum2 += _weightsAndBias._wValues[off + 2] * _inputs[col + 2];
-        psum3 += _weightsAndBias._wValues[off + 3] * _inputs[col + 3];
-        psum4 += _weightsAndBias._wValues[off + 4] * _inputs[col + 4];
-        psum5 += _weightsAndBias._wValues[off + 5] * _inputs[col + 5];
-        psum6 += _weightsAndBias._wValues[off + 6] * _inputs[col + 6];
-        psum7 += _weightsAndBias._wValues[off + 7] * _inputs[col + 7];
-      }
-      input2ActFun[row] += psum0+psum1+psum2+psum3;
-      input2ActFun[row] += psum4+psum5+psum6+psum7;
-
-      for (int col = extra; col<cols;col++) {
-        input2ActFun[row] += _weightsAndBias._wValues[idx+col]*_inputs[col];
-      }
-      input2ActFun[row] += _weightsAndBias._bValues[row];
+    for (int row = 0; row < input2ActFun.length; row++) {
+      input2ActFun[row] = gemvRow(_weightsAndBias, row, idx, _inputs, cols, _weightsAndBias._bValues[row]);
       idx += cols;
     }
     return input2ActFun;
   }
 
+  /*
+  Same as formNNInputs for a block of inputs: each row of weights is applied to all the inputs
+  before moving on to the next row
+   */
+  static void formNNInputs(DeeplearningMojoModel.StoreWeightsBias weightsAndBias, double[][] inputs, int n,
+                           double[][] outputs) {
+    int cols = inputs[0].length;
+    int rows = outputs[0].length;
+    int idx = 0;
+    for (int row = 0; row < rows; row++) {
+      double bias = weightsAndBias._bValues[row];
+      for (int i = 0; i < n; i++)
+        outputs[i][row] = gemvRow(weightsAndBias, row, idx, inputs[i], cols, bias);
+      idx += cols;
+    }
+  }
+
+  private static double gemvRow(DeeplearningMojoModel.StoreWeightsBias weightsAndBias, int row, int idx,
+                                double[] inputs, int cols, double bias) {
+    return weightsAndBias._qValues != null ?
+            gemvRow(weightsAndBias._qValues, weightsAndBias._qScales[row], idx, inputs, cols, bias) :
+            gemvRow(weightsAndBias._wValues, idx, inputs, cols, bias);
+  }
+
+  private static double gemvRow(float[] weights, int idx, double[] inputs, int cols, double bias) {
+    int extra=cols-cols%8;
+    int multiple = (cols/8)*8-1;
+    double psum0 = 0, psum1 = 0, psum2 = 0, psum3 = 0, psum4 = 0, psum5 = 0, psum6 = 0, psum7 = 0;
+
+    for (int col=0; col < multiple; col+=8) {
+      int off=idx+col;
+      psum0 += weights[off    ] * inputs[col    ];
+      psum1 += weights[off + 1] * inputs[col + 1];
+      psum2 += weights[off + 2] * inputs[col + 2];
+      psum3 += weights[off + 3] * inputs[col + 3];
+      psum4 += weights[off + 4] * inputs[col + 4];
+      psum5 += weights[off + 5] * inputs[col + 5];
+      psum6 += weights[off + 6] * inputs[col + 6];
+      psum7 += weights[off + 7] * inputs[col + 7];
+    }
+    double sum = 0;
+    sum += psum0+psum1+psum2+psum3;
+    sum += psum4+psum5+psum6+psum7;
+
+    for (int col = extra; col<cols;col++) {
+      sum += weights[idx+col]*inputs[col];
+    }
+    sum += bias;
+    return sum;
+  }
+
+  /*
+  Same as above for int8 weights, the scale of the row is applied to the dot product
+   */
+  private static double gemvRow(byte[] weights, float scale, int idx, double[] inputs, int cols, double bias) {
+    int extra=cols-cols%8;
+    int multiple = (cols/8)*8-1;
+    double psum0 = 0, psum1 = 0, psum2 = 0, psum3 = 0, psum4 = 0, psum5 = 0, psum6 = 0, psum7 = 0;
+
+    for (int col=0; col < multiple; col+=8) {
+      int off=idx+col;
+      psum0 += weights[off    ] * inputs[col    ];
+      psum1 += weights[off + 1] * inputs[col + 1];
+      psum2 += weights[off + 2] * inputs[col + 2];
+      psum3 += weights[off + 3] * inputs[col + 3];
+      psum4 += weights[off + 4] * inputs[col + 4];
+      psum5 += weights[off + 5] * inputs[col + 5];
+      psum6 += weights[off + 6] * inputs[col + 6];
+      psum7 += weights[off + 7] * inputs[col + 7];
+    }
+    double sum = 0;
+    sum += psum0+psum1+psum2+psum3;
+    sum += psum4+psum5+psum6+psum7;
+
+    for (int col = extra; col<cols;col++) {
+      sum += weights[idx+col]*inputs[col];
+    }
+    return sum * scale + bias;
+  }
+
   public double[] formNNInputsMaxOut() {
     double[] input2ActFun = new double[_outSize*_maxK];
 
@@ -106,6 +164,10 @@ public class NeuralNetwork {  // represent one layer of neural network
   }
 
   public ActivationFunctions createActFuns(String activation) {
+    return activationFunction(activation);
+  }
+
+  static ActivationFunctions activationFunction(String activation) {
     switch (activation) {
       case "Linear":
         return new LinearOut();
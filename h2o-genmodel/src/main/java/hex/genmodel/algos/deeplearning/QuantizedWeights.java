@@ -0,0 +1,161 @@
+package hex.genmodel.algos.deeplearning;
+
+import hex.genmodel.utils.ByteBufferWrapper;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Weights of a layer of a Deep Learning MOJO stored in lower precision.
+ *
+ * <ul>
+ *   <li>{@link Precision#FP16} - IEEE 754 half-precision floats, converted back to floats when the MOJO is loaded.</li>
+ *   <li>{@link Precision#INT8} - symmetric 8-bit quantization with one scale per row of the weight matrix (one row
+ *       per neuron of the layer). The weights stay quantized in memory and the scale is applied to the dot product,
+ *       so that scoring reads a quarter of the memory.</li>
+ * </ul>
+ *
+ * Layout of the blob: number of rows (int), then for INT8 a scale (float) per row followed by the weights (byte
+ * each), for FP16 the weights (2 bytes each). Native byte order, same as the trees.
+ */
+public final class QuantizedWeights {
+
+  public enum Precision {
+    FP16, INT8;
+
+    public static Precision fromString(String s) {
+      return valueOf(s.toUpperCase());
+    }
+
+    @Override
+    public String toString() {
+      return name().toLowerCase();
+    }
+  }
+
+  private QuantizedWeights() {}
+
+  /**
+   * @param weights weights of the layer, row by row
+   * @param rows number of rows
+   * @param precision target precision
+   * @return blob of the quantized weights
+   */
+  public static byte[] encode(float[] weights, int rows, Precision precision) {
+    final int rowLen = rows == 0 ? 0 : weights.length / rows;
+    final ByteBuffer bb;
+    if (precision == Precision.INT8) {
+      bb = ByteBuffer.allocate(4 + 4 * rows + weights.length).order(ByteOrder.nativeOrder());
+      bb.putInt(rows);
+      final float[] scales = new float[rows];
+      for (int r = 0; r < rows; r++) {
+        float max = 0;
+        for (int i = r * rowLen; i < (r + 1) * rowLen; i++)
+          max = Math.max(max, Math.abs(weights[i]));
+        scales[r] = max / 127;
+        bb.putFloat(scales[r]);
+      }
+      for (int r = 0; r < rows; r++)
+        for (int i = r * rowLen; i < (r + 1) * rowLen; i++)
+          bb.put(scales[r] == 0 ? 0 : (byte) Math.round(weights[i] / scales[r]));
+    } else {
+      bb = ByteBuffer.allocate(4 + 2 * weights.length).order(ByteOrder.nativeOrder());
+      bb.putInt(rows);
+      for (float w : weights)
+        bb.putShort(toHalf(w));
+    }
+    return bb.array();
+  }
+
+  /**
+   * Weights of the layer as they will be used for scoring, for measuring the error of the quantization.
+   */
+  public static float[] decode(byte[] blob, Precision precision) {
+    ByteBufferWrapper ab = new ByteBufferWrapper(blob);
+    final int rows = ab.get4();
+    if (precision == Precision.INT8) {
+      final float[] scales = new float[rows];
+      for (int r = 0; r < rows; r++)
+        scales[r] = ab.get4f();
+      final float[] weights = new float[blob.length - 4 - 4 * rows];
+      final int rowLen = rows == 0 ? 0 : weights.length / rows;
+      for (int i = 0; i < weights.length; i++)
+        weights[i] = (byte) ab.get1U() * scales[i / rowLen];
+      return weights;
+    }
+    final float[] weights = new float[(blob.length - 4) / 2];
+    for (int i = 0; i < weights.length; i++)
+      weights[i] = fromHalf((short) ab.get2());
+    return weights;
+  }
+
+  /**
+   * @param blob quantized weights
+   * @param bias biases of the layer
+   * @param precision precision of the blob
+   * @param keepQuantized keep INT8 weights quantized in memory (not supported by Maxout layers)
+   */
+  static DeeplearningMojoModel.StoreWeightsBias read(byte[] blob, double[] bias, Precision precision,
+                                                     boolean keepQuantized) {
+    if (precision != Precision.INT8 || !keepQuantized)
+      return new DeeplearningMojoModel.StoreWeightsBias(decode(blob, precision), bias);
+    ByteBufferWrapper ab = new ByteBufferWrapper(blob);
+    final int rows = ab.get4();
+    final float[] scales = new float[rows];
+    for (int r = 0; r < rows; r++)
+      scales[r] = ab.get4f();
+    final byte[] weights = new byte[blob.length - 4 - 4 * rows];
+    ab.get(weights);
+    return new DeeplearningMojoModel.StoreWeightsBias(weights, scales, bias);
+  }
+
+  /** Rounds to the nearest half-precision float (ties to even), overflows to infinity. */
+  static short toHalf(float f) {
+    final int bits = Float.floatToIntBits(f);
+    final int sign = (bits >>> 16) & 0x8000;
+    final int exp = (bits >>> 23) & 0xFF;
+    int mant = bits & 0x7FFFFF;
+    if (exp == 0xFF) // NaN or infinity
+      return (short) (sign | 0x7C00 | (mant != 0 ? 0x200 : 0));
+    final int e = exp - 127 + 15;
+    if (e >= 0x1F)
+      return (short) (sign | 0x7C00);
+    if (e <= 0) { // subnormal half, or zero
+      if (e < -10)
+        return (short) sign;
+      mant |= 0x800000;
+      final int shift = 14 - e;
+      int half = mant >> shift;
+      final int rest = mant & ((1 << shift) - 1);
+      final int mid = 1 << (shift - 1);
+      if (rest > mid || (rest == mid && (half & 1) != 0))
+        half++;
+      return (short) (sign | half);
+    }
+    int half = (e << 10) | (mant >> 13);
+    final int rest = mant & 0x1FFF;
+    if (rest > 0x1000 || (rest == 0x1000 && (half & 1) != 0))
+      half++; // may carry into the exponent, up to infinity
+    return (short) (sign | half);
+  }
+
+  static float fromHalf(short h) {
+    final int sign = (h & 0x8000) << 16;
+    final int exp = (h >>> 10) & 0x1F;
+    int mant = h & 0x3FF;
+    if (exp == 0x1F)
+      return Float.intBitsToFloat(sign | 0x7F800000 | (mant << 13));
+    if (exp == 0) {
+      if (mant == 0)
+        return Float.intBitsToFloat(sign);
+      int e = -14;
+      while ((mant & 0x400) == 0) {
+        mant <<= 1;
+        e--;
+      }
+      return Float.intBitsToFloat(sign | ((e + 127) << 23) | ((mant & 0x3FF) << 13));
+    }
+    return Float.intBitsToFloat(sign | ((exp - 15 + 127) << 23) | (mant << 13));
+  }
+
+}
@@ -28,6 +28,6 @@ public class GbmMojoReader extends SharedTreeMojoReader<GbmMojoModel> {
   }
 
   @Override public String mojoVersion() {
-    return "1.40";
+    return "1.50";
   }
 }
@@ -65,6 +65,55 @@ public class GlmMojoModel extends GlmMojoModelBase {
     eta += _beta[_beta.length - 1]; // reduce intercept
     eta += offset;
 
+    return etaToPreds(eta, preds);
+  }
+
+  /**
+   * Computes the linear predictor column by column for all the rows and only then turns it
+   * into predictions row by row. The terms are added in the same order as in {@link #score0},
+   * the predictions are identical.
+   */
+  @Override
+  public void scoreBatch(double[][] cols, double[] offsets, int nrows, double[][] preds) {
+    double[] eta = new double[nrows];
+    for (int i = 0; i < _catOffsets.length - 1; ++i) {
+      final double[] col = cols[i];
+      final int levelOffset = _useAllFactorLevels ? 0 : 1; // skip level 0 of all factors
+      for (int r = 0; r < nrows; r++) {
+        double d = col[r];
+        if (_meanImputation && Double.isNaN(d)) d = _catModes[i];
+        if (levelOffset == 1 && d == 0)
+          continue;
+        int ival = (int) d - levelOffset;
+        if (ival != d - levelOffset) {
+          throw new IllegalArgumentException("categorical value out of range");
+        }
+        ival += _catOffsets[i];
+        if (ival < _catOffsets[i + 1]) {
+          eta[r] += _beta[ival];
+        }
+      }
+    }
+    int noff = _catOffsets[_cats] - _cats;
+    for (int i = _cats; i < _beta.length - 1 - noff; ++i) {
+      final double[] col = cols[i];
+      final double beta = _beta[noff + i];
+      final double mean = _meanImputation ? _numMeans[i - _cats] : Double.NaN;
+      for (int r = 0; r < nrows; r++) {
+        double d = col[r];
+        if (Double.isNaN(d)) d = mean; // stays NaN without mean imputation
+        eta[r] += beta * d;
+      }
+    }
+    final double intercept = _beta[_beta.length - 1];
+    for (int r = 0; r < nrows; r++) {
+      eta[r] += intercept;
+      eta[r] += offsets == null ? 0 : offsets[r];
+      etaToPreds(eta[r], preds[r]);
+    }
+  }
+
+  private double[] etaToPreds(double eta, double[] preds) {
     double mu = _linkFn.eval(eta);
 
     if (_binomial) {
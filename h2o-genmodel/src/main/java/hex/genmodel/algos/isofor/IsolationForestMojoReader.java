@@ -25,7 +25,7 @@ public class IsolationForestMojoReader extends SharedTreeMojoReader<IsolationFor
   }
 
   @Override public String mojoVersion() {
-    return "1.40";
+    return "1.50";
   }
 
 }
@@ -0,0 +1,287 @@
+package hex.genmodel.algos.tree;
+
+import hex.genmodel.utils.ByteBufferWrapper;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.*;
+
+/**
+ * Compact encoding of the split thresholds of the trees of a MOJO.
+ *
+ * A tree stores the threshold of a numeric split as a 4-byte float. The thresholds of a column are few compared to
+ * the number of splits (trees are built on histograms), so the distinct thresholds of each column are collected
+ * into a small sorted table and the splits refer to them by a 1-byte (up to 256 thresholds) or 2-byte (up to 65536
+ * thresholds) index. Columns with more thresholds keep the floats. The tables hold the exact values, decoding gives
+ * back the original trees byte for byte.
+ *
+ * The trees are decoded when the MOJO is loaded, scoring works on the regular format.
+ */
+public final class BinnedSplitThresholds {
+
+  /** Name of the MOJO entry holding the tables. */
+  public static final String BLOB_NAME = "trees/thresholds.bin";
+
+  private static final int NsdNaVsRest = NaSplitDir.NAvsREST.value();
+  private static final int MAX_BINS = 1 << 16;
+
+  private final float[][] _bins; // sorted distinct thresholds of each column, empty if the column is not binned
+
+  private BinnedSplitThresholds(float[][] bins) {
+    _bins = bins;
+  }
+
+  /**
+   * Collects the thresholds of the given trees.
+   * @param trees compressed trees (MOJO 1.20 format and newer), empty trees can be null
+   */
+  public static BinnedSplitThresholds collect(byte[][] trees) {
+    final Map<Integer, Set<Float>> thresholds = new HashMap<>();
+    int ncols = 0;
+    for (byte[] tree : trees) {
+      if (tree == null)
+        continue;
+      ByteBufferWrapper ab = new ByteBufferWrapper(tree);
+      ab.skip(1);
+      if (ab.get2() == 65535)
+        continue; // a single leaf
+      ab = new ByteBufferWrapper(tree);
+      ncols = Math.max(ncols, collect(ab, thresholds) + 1);
+    }
+    final float[][] bins = new float[ncols][];
+    for (int c = 0; c < ncols; c++) {
+      Set<Float> values = thresholds.get(c);
+      if (values == null || values.size() > MAX_BINS) {
+        bins[c] = new float[0];
+        continue;
+      }
+      bins[c] = new float[values.size()];
+      int i = 0;
+      for (Float v : values)
+        bins[c][i++] = v;
+      Arrays.sort(bins[c]);
+    }
+    return new BinnedSplitThresholds(bins);
+  }
+
+  /** Number of columns whose thresholds are stored as indices. */
+  public int binnedColumns() {
+    int n = 0;
+    for (float[] b : _bins)
+      if (b.length > 0) n++;
+    return n;
+  }
+
+  /**
+   * @param tree tree in the regular format
+   * @return the tree with the thresholds replaced by indices
+   */
+  public byte[] encode(byte[] tree) {
+    return recode(tree, true);
+  }
+
+  /**
+   * @param tree tree encoded by {@link #encode(byte[])}
+   * @return the tree in the regular format
+   */
+  public byte[] decode(byte[] tree) {
+    return recode(tree, false);
+  }
+
+  public byte[] toByteArray() {
+    int size = 4;
+    for (float[] b : _bins)
+      size += 4 + 4 * b.length;
+    ByteBuffer bb = ByteBuffer.allocate(size).order(ByteOrder.nativeOrder());
+    bb.putInt(_bins.length);
+    for (float[] b : _bins) {
+      bb.putInt(b.length);
+      for (float v : b)
+        bb.putFloat(v);
+    }
+    return bb.array();
+  }
+
+  public static BinnedSplitThresholds fromByteArray(byte[] bytes) {
+    ByteBufferWrapper ab = new ByteBufferWrapper(bytes);
+    float[][] bins = new float[ab.get4()][];
+    for (int c = 0; c < bins.length; c++) {
+      bins[c] = new float[ab.get4()];
+      for (int i = 0; i < bins[c].length; i++)
+        bins[c][i] = ab.get4f();
+    }
+    return new BinnedSplitThresholds(bins);
+  }
+
+  // Size of an encoded threshold of the column
+  private int width(int col) {
+    final int n = col < _bins.length ? _bins[col].length : 0;
+    return n == 0 ? 4 : (n <= 256 ? 1 : 2);
+  }
+
+  private static int collect(ByteBufferWrapper ab, Map<Integer, Set<Float>> thresholds) {
+    final int nodeType = ab.get1U();
+    final int col = ab.get2();
+    final int naSplitDir = ab.get1U();
+    final int equal = nodeType & 12;
+    int maxCol = col;
+    if (naSplitDir != NsdNaVsRest) {
+      if (equal == 0 || equal == 4) {
+        Set<Float> values = thresholds.get(col);
+        if (values == null)
+          thresholds.put(col, values = new HashSet<>());
+        values.add(ab.get4f());
+      } else {
+        skipBitset(ab, equal);
+      }
+    }
+    final int lmask = nodeType & 51;
+    if (lmask <= 3) {
+      ab.skip(lmask + 1);
+      maxCol = Math.max(maxCol, collect(ab, thresholds));
+    } else {
+      ab.skip(4);
+    }
+    if ((nodeType & 0xC0) >> 2 != 48)
+      maxCol = Math.max(maxCol, collect(ab, thresholds));
+    else
+      ab.skip(4);
+    return maxCol;
+  }
+
+  // Two passes: the first one computes the sizes of the recoded left subtrees (the width of the size field of
+  // a node depends on them), the second one writes the tree.
+  private byte[] recode(byte[] tree, boolean encode) {
+    ByteBufferWrapper ab = new ByteBufferWrapper(tree);
+    ab.skip(1);
+    if (ab.get2() == 65535)
+      return tree.clone(); // a single leaf
+    final int[] leftSizes = new int[tree.length / 4 + 1]; // at least 4 bytes per split
+    final int[] cursor = new int[1];
+    final int size = measure(new ByteBufferWrapper(tree), encode, leftSizes, cursor);
+    final ByteBuffer out = ByteBuffer.allocate(size).order(ByteOrder.nativeOrder());
+    cursor[0] = 0;
+    write(tree, new ByteBufferWrapper(tree), encode, out, leftSizes, cursor);
+    assert !out.hasRemaining();
+    return out.array();
+  }
+
+  private int measure(ByteBufferWrapper ab, boolean encode, int[] leftSizes, int[] cursor) {
+    final int nodeType = ab.get1U();
+    final int col = ab.get2();
+    final int naSplitDir = ab.get1U();
+    final int equal = nodeType & 12;
+    int size = 4;
+    if (naSplitDir != NsdNaVsRest) {
+      if (equal == 0 || equal == 4) {
+        ab.skip(encode ? 4 : width(col));
+        size += encode ? width(col) : 4;
+      } else {
+        size += skipBitset(ab, equal);
+      }
+    }
+    final int slot = cursor[0]++;
+    final int lmask = nodeType & 51;
+    if (lmask <= 3) {
+      ab.skip(lmask + 1);
+      final int left = measure(ab, encode, leftSizes, cursor);
+      leftSizes[slot] = left;
+      size += sizeWidth(left) + left;
+    } else {
+      ab.skip(4);
+      size += 4;
+    }
+    if ((nodeType & 0xC0) >> 2 != 48) {
+      size += measure(ab, encode, leftSizes, cursor);
+    } else {
+      ab.skip(4);
+      size += 4;
+    }
+    return size;
+  }
+
+  private void write(byte[] tree, ByteBufferWrapper ab, boolean encode, ByteBuffer out, int[] leftSizes, int[] cursor) {
+    final int nodeType = ab.get1U();
+    final int col = ab.get2();
+    final int naSplitDir = ab.get1U();
+    final int equal = nodeType & 12;
+    final int lmask = nodeType & 51;
+    final int leftSize = leftSizes[cursor[0]++];
+    out.put((byte) (lmask <= 3 ? (nodeType & ~3) | (sizeWidth(leftSize) - 1) : nodeType));
+    out.putChar((char) col);
+    out.put((byte) naSplitDir);
+    if (naSplitDir != NsdNaVsRest) {
+      if (equal == 0 || equal == 4) {
+        if (encode)
+          putThreshold(out, col, ab.get4f());
+        else
+          out.putFloat(getThreshold(ab, col));
+      } else {
+        final int start = ab.position();
+        skipBitset(ab, equal);
+        out.put(tree, start, ab.position() - start);
+      }
+    }
+    if (lmask <= 3) {
+      ab.skip(lmask + 1);
+      putSize(out, leftSize);
+      write(tree, ab, encode, out, leftSizes, cursor);
+    } else {
+      out.putFloat(ab.get4f());
+    }
+    if ((nodeType & 0xC0) >> 2 != 48)
+      write(tree, ab, encode, out, leftSizes, cursor);
+    else
+      out.putFloat(ab.get4f());
+  }
+
+  private void putThreshold(ByteBuffer out, int col, float value) {
+    final int w = width(col);
+    if (w == 4) {
+      out.putFloat(value);
+      return;
+    }
+    final int idx = Arrays.binarySearch(_bins[col], value);
+    if (idx < 0)
+      throw new IllegalStateException("Threshold " + value + " of column " + col + " was not collected");
+    if (w == 1)
+      out.put((byte) idx);
+    else
+      out.putChar((char) idx);
+  }
+
+  private float getThreshold(ByteBufferWrapper ab, int col) {
+    switch (width(col)) {
+      case 1:  return _bins[col][ab.get1U()];
+      case 2:  return _bins[col][ab.get2()];
+      default: return ab.get4f();
+    }
+  }
+
+  private static int skipBitset(ByteBufferWrapper ab, int equal) {
+    if (equal == 8) {
+      ab.skip(4);
+      return 4;
+    }
+    ab.skip(2);
+    final int nbits = ab.get4();
+    final int nbytes = ((nbits - 1) >> 3) + 1;
+    ab.skip(nbytes);
+    return 6 + nbytes;
+  }
+
+  // Same widths as DTree uses when compressing a tree
+  private static int sizeWidth(int size) {
+    return size < 256 ? 1 : (size < 65535 ? 2 : (size < (1 << 24) ? 3 : 4));
+  }
+
+  private static void putSize(ByteBuffer out, int size) {
+    switch (sizeWidth(size)) {
+      case 1:  out.put((byte) size);  break;
+      case 2:  out.putChar((char) size);  break;
+      case 3:  out.put((byte) size).put((byte) (size >> 8)).put((byte) (size >> 16));  break;
+      default: out.putInt(size);
+    }
+  }
+
+}
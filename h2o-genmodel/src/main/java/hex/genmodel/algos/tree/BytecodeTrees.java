@@ -0,0 +1,304 @@
+package hex.genmodel.algos.tree;
+
+import hex.genmodel.bytecode.ClassBuilder;
+import hex.genmodel.bytecode.GeneratedClassLoader;
+import hex.genmodel.bytecode.Label;
+import hex.genmodel.bytecode.MethodBuilder;
+import water.logging.Logger;
+import water.logging.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import static hex.genmodel.bytecode.Opcodes.*;
+
+/**
+ * Tree ensemble translated to JVM bytecode when the model is loaded.
+ *
+ * Every tree becomes straight-line code, the same as in a POJO: each split is a comparison of the input value
+ * with a constant followed by a conditional jump, there are no node arrays to load from. Unlike a POJO there is no
+ * javac step; the bytecode is generated from {@link CompiledTrees} directly and loaded by a class loader of its own.
+ *
+ * The code is split into small methods - a subtree that doesn't fit into the node budget of a method is moved to
+ * a method of its own - so that the methods stay under the inlining limits of the JIT and far away from the 64KB
+ * limit of the JVM. The trees are spread over several classes to keep the constant pools small. Trees (or whole
+ * classes) that cannot be generated are scored by the interpreter of {@link CompiledTrees}, predictions are
+ * always exactly the same.
+ */
+public final class BytecodeTrees implements TreeScorer {
+
+  private static final Logger logger = LoggerFactory.getLogger(BytecodeTrees.class);
+
+  /** Split nodes inlined into one method, about 20 bytes of code each - well under -XX:FreqInlineSize. */
+  static final int MAX_SPLITS_PER_METHOD = 16;
+  /** Nodes per generated class, each node takes up to 2 entries of the constant pool. */
+  static final int MAX_NODES_PER_CLASS = 8192;
+  static final int MAX_TREES_PER_CLASS = 256;
+
+  private static final String PART = "hex/genmodel/algos/tree/BytecodeTrees$Part";
+  private static final String TREE_METHOD_DESC = "([D)D";
+
+  private final CompiledTrees _trees;
+  private final Part[] _parts;  // part scoring each tree
+  private final int[] _local;   // index of the tree within its part
+  private final int _generatedTrees;
+
+  private BytecodeTrees(CompiledTrees trees, Part[] parts, int[] local, int generatedTrees) {
+    _trees = trees;
+    _parts = parts;
+    _local = local;
+    _generatedTrees = generatedTrees;
+  }
+
+  /**
+   * Scores a subset of the trees of the ensemble, implemented by the generated classes.
+   */
+  public interface Part {
+    /**
+     * @param tree index of the tree within the part
+     * @param row input row
+     */
+    double score(int tree, double[] row);
+  }
+
+  @Override
+  public boolean isEmpty(int tree) {
+    return _trees.isEmpty(tree);
+  }
+
+  @Override
+  public double score(int tree, double[] row) {
+    return _parts[tree].score(_local[tree], row);
+  }
+
+  /** Number of trees scored by generated code, the rest is interpreted. */
+  public int generatedTrees() {
+    return _generatedTrees;
+  }
+
+  /**
+   * Generates the scoring code of the trees.
+   * @param trees compiled trees
+   * @return scorer of the trees, trees that couldn't be generated are delegated to the given compiled trees
+   */
+  public static BytecodeTrees generate(CompiledTrees trees) {
+    final GeneratedClassLoader loader = new GeneratedClassLoader(BytecodeTrees.class.getClassLoader());
+    final int ntrees = trees.size();
+    final Part[] parts = new Part[ntrees];
+    final int[] local = new int[ntrees];
+    final int[] subtreeSizes = new int[trees.nodes()];
+    final Interpreted interpreted = new Interpreted(trees);
+    int generated = 0;
+    int tree = 0;
+    int classId = 0;
+    List<Integer> batch = new ArrayList<>();
+    while (tree < ntrees) {
+      // collect the trees of the next class
+      batch.clear();
+      int nodes = 0;
+      for (; tree < ntrees && batch.size() < MAX_TREES_PER_CLASS; tree++) {
+        if (trees.isEmpty(tree))
+          continue;
+        final int size = subtreeSize(trees, trees.root(tree), subtreeSizes);
+        if (size > MAX_NODES_PER_CLASS) {
+          parts[tree] = interpreted; // too big to be generated
+          local[tree] = tree;
+          continue;
+        }
+        if (nodes + size > MAX_NODES_PER_CLASS)
+          break;
+        nodes += size;
+        batch.add(tree);
+      }
+      if (batch.isEmpty())
+        continue;
+      Part part;
+      try {
+        part = generatePart(loader, classId++, trees, batch, subtreeSizes);
+        generated += batch.size();
+      } catch (Throwable t) { // eg. a VerifyError, or generated classes not allowed by a security manager
+        logger.warn("Failed to generate bytecode for trees " + batch + ", the trees will be interpreted: " + t);
+        part = interpreted;
+      }
+      for (int i = 0; i < batch.size(); i++) {
+        final int t = batch.get(i);
+        parts[t] = part;
+        local[t] = part == interpreted ? t : i;
+      }
+    }
+    return new BytecodeTrees(trees, parts, local, generated);
+  }
+
+  private static Part generatePart(GeneratedClassLoader loader, int classId, CompiledTrees trees,
+                                   List<Integer> batch, int[] subtreeSizes) throws ReflectiveOperationException {
+    final String name = "hex/genmodel/algos/tree/GeneratedTrees" + classId;
+    final ClassBuilder cls = new ClassBuilder(name, "java/lang/Object", PART);
+    cls.addDefaultConstructor("java/lang/Object");
+    final TreeWriter writer = new TreeWriter(cls, trees, subtreeSizes);
+
+    // public double score(int tree, double[] row) { switch (tree) { case i: return n<root_i>(row); ... } }
+    MethodBuilder score = cls.addMethod(ACC_PUBLIC, "score", "(I[D)D", 4, 3);
+    Label[] cases = new Label[batch.size()];
+    for (int i = 0; i < cases.length; i++)
+      cases[i] = new Label();
+    Label outOfRange = new Label();
+    score.iload(1);
+    score.tableswitch(0, cases, outOfRange);
+    for (int i = 0; i < cases.length; i++) {
+      score.mark(cases[i]);
+      score.aload(2);
+      score.invoke(INVOKESTATIC, name, writer.methodName(trees.root(batch.get(i))), TREE_METHOD_DESC);
+      score.op(DRETURN);
+    }
+    score.mark(outOfRange);
+    score.newObject("java/lang/IndexOutOfBoundsException");
+    score.op(DUP);
+    score.invoke(INVOKESPECIAL, "java/lang/IndexOutOfBoundsException", "<init>", "()V");
+    score.op(ATHROW);
+    assert score.size() <= MethodBuilder.HUGE_METHOD_LIMIT : "score of " + name + " takes " + score.size() + " bytes";
+
+    for (int t : batch)
+      writer.writeTree(trees.root(t));
+    return (Part) loader.define(cls).newInstance();
+  }
+
+  /** Sizes of the subtrees (number of nodes), filled in lazily. */
+  private static int subtreeSize(CompiledTrees trees, int node, int[] sizes) {
+    if (sizes[node] == 0) {
+      sizes[node] = trees.isLeaf(node) ? 1 :
+              1 + subtreeSize(trees, trees.left(node), sizes) + subtreeSize(trees, trees.left(node) + 1, sizes);
+    }
+    return sizes[node];
+  }
+
+  /**
+   * Generates a private static method {@code double n<node>(double[] row)} for the root of each tree and for each
+   * subtree that didn't fit in its parent's method. The code of a split follows {@link CompiledTrees#score}.
+   *
+   * Locals: 0 - input row, 1 - value of the split column, 3 - index to a bitset.
+   */
+  private static class TreeWriter {
+    private final ClassBuilder _cls;
+    private final CompiledTrees _trees;
+    private final int[] _subtreeSizes;
+    private final Deque<Integer> _pending = new ArrayDeque<>();
+    private int _budget;
+
+    TreeWriter(ClassBuilder cls, CompiledTrees trees, int[] subtreeSizes) {
+      _cls = cls;
+      _trees = trees;
+      _subtreeSizes = subtreeSizes;
+    }
+
+    String methodName(int node) {
+      return "n" + node;
+    }
+
+    void writeTree(int root) {
+      _pending.add(root);
+      while (!_pending.isEmpty()) {
+        final int node = _pending.poll();
+        MethodBuilder m = _cls.addMethod(ACC_PRIVATE | ACC_STATIC, methodName(node), TREE_METHOD_DESC, 6, 4);
+        _budget = MAX_SPLITS_PER_METHOD;
+        writeNode(m, node);
+        assert m.size() <= MethodBuilder.HUGE_METHOD_LIMIT : methodName(node) + " takes " + m.size() + " bytes";
+      }
+    }
+
+    private void writeNode(MethodBuilder m, int node) {
+      if (_trees.isLeaf(node)) {
+        m.dconst(_trees.value(node));
+        m.op(DRETURN);
+        return;
+      }
+      _budget--;
+      final byte flags = _trees.flags(node);
+      final int domainLength = _trees.domainLength(node);
+      final Label left = new Label();
+      final Label right = new Label();
+      final Label na = (flags & CompiledTrees.FLAG_LEFTWARD) != 0 ? left : right;
+
+      m.aload(0).iconst(_trees.column(node)).op(DALOAD).dstore(1);
+      if ((flags & CompiledTrees.FLAG_BITSET) != 0) {
+        writeIsNaN(m, na);
+        // idx = (int) d - bitOff
+        m.dload(1).op(D2I).iconst(_trees.bitsetOffset(node)).op(ISUB).istore(3);
+        m.iload(3).jump(IFLT, na);
+        final int nbits = _trees.bitsetLength(node);
+        m.iload(3).iconst(nbits).jump(IF_ICMPGE, na);
+        writeOutOfDomain(m, domainLength, na);
+        // (word >>> idx) & 1, same as word & (1L << idx)
+        final int nwords = (nbits + 63) >>> 6;
+        if (nwords == 1) {
+          m.lconst(_trees.bitsetWord(node, 0));
+        } else {
+          final Label[] words = new Label[nwords];
+          for (int w = 0; w < nwords; w++)
+            words[w] = new Label();
+          final Label test = new Label();
+          m.iload(3).iconst(6).op(IUSHR);
+          m.tableswitch(0, words, words[nwords - 1]); // idx < nbits, the default is never taken
+          for (int w = 0; w < nwords; w++) {
+            m.mark(words[w]);
+            m.lconst(_trees.bitsetWord(node, w));
+            if (w < nwords - 1)
+              m.jump(GOTO, test);
+          }
+          m.mark(test);
+        }
+        m.iload(3).op(LUSHR).lconst(1).op(LAND).lconst(0).op(LCMP).jump(IFNE, right);
+      } else if ((flags & CompiledTrees.FLAG_NA_VS_REST) != 0) {
+        writeIsNaN(m, na);
+        writeOutOfDomain(m, domainLength, na);
+      } else if (domainLength >= 0) {
+        writeIsNaN(m, na);
+        writeOutOfDomain(m, domainLength, na);
+        m.dload(1).dconst(_trees.value(node)).op(DCMPL).jump(IFGE, right);
+      } else {
+        // NaN compares as "greater" with dcmpg and as "less" with dcmpl, no need for an explicit check
+        m.dload(1).dconst(_trees.value(node)).op(na == right ? DCMPG : DCMPL).jump(IFGE, right);
+      }
+      m.mark(left);
+      writeChild(m, _trees.left(node));
+      m.mark(right);
+      writeChild(m, _trees.left(node) + 1);
+    }
+
+    private void writeChild(MethodBuilder m, int child) {
+      if (_trees.isLeaf(child) || (_subtreeSizes[child] - 1) / 2 <= _budget) { // splits of a subtree
+        writeNode(m, child);
+      } else {
+        _pending.add(child);
+        m.aload(0).invoke(INVOKESTATIC, _cls.getName(), methodName(child), TREE_METHOD_DESC).op(DRETURN);
+      }
+    }
+
+    private void writeIsNaN(MethodBuilder m, Label na) {
+      m.dload(1).dload(1).op(DCMPL).jump(IFNE, na);
+    }
+
+    private void writeOutOfDomain(MethodBuilder m, int domainLength, Label na) {
+      if (domainLength >= 0)
+        m.dload(1).op(D2I).iconst(domainLength).jump(IF_ICMPGE, na);
+    }
+  }
+
+  /**
+   * Part scoring trees by the interpreter, the index of the tree is the index in the whole ensemble.
+   */
+  private static class Interpreted implements Part {
+    private final CompiledTrees _trees;
+
+    Interpreted(CompiledTrees trees) {
+      _trees = trees;
+    }
+
+    @Override
+    public double score(int tree, double[] row) {
+      return _trees.score(tree, row);
+    }
+  }
+
+}
@@ -0,0 +1,260 @@
+package hex.genmodel.algos.tree;
+
+import hex.genmodel.utils.ByteBufferWrapper;
+import hex.genmodel.utils.GenmodelBitSet;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Tree ensemble decoded once into flat arrays, for fast scoring.
+ *
+ * The compressed trees of a MOJO are byte streams; walking one means decoding node headers, variable-length
+ * offsets and bitsets again for every row. Here each tree is decoded up-front into a struct-of-arrays layout
+ * shared by all trees of the ensemble: every node is a slot in a handful of primitive arrays and the nodes of
+ * a tree are laid out breadth-first, so the two children of a node are always neighbours and the top levels,
+ * where every row passes, are packed together. Categorical bitsets are unpacked into a pool of {@code long}
+ * words.
+ *
+ * Scoring gives exactly the same results as {@link SharedTreeMojoModel#scoreTree(byte[], double[], boolean, String[][])}
+ * (the format of MOJO version 1.20 and newer), including the handling of NAs and unseen categorical levels.
+ */
+public final class CompiledTrees implements TreeScorer, Serializable {
+
+  private static final int NsdNaVsRest = NaSplitDir.NAvsREST.value();
+  private static final int NsdNaLeft = NaSplitDir.NALeft.value();
+  private static final int NsdLeft = NaSplitDir.Left.value();
+
+  static final byte FLAG_LEFTWARD = 1;    // NAs and out-of-range levels go left
+  static final byte FLAG_NA_VS_REST = 2;  // only NAs are split off
+  static final byte FLAG_BITSET = 4;      // categorical split on a bitset
+
+  private final int[] _roots;    // root node of each tree, -1 for an empty tree
+
+  // Nodes
+  private int[] _col;            // column to split on, -1 for a leaf
+  private float[] _value;        // split value, or the prediction of a leaf
+  private int[] _left;           // left child, the right child is next to it
+  private byte[] _flags;
+  private int[] _domainLen;      // domain length of the split column, -1 for a numeric column
+  private int[] _bitset;         // bitset of a categorical split, index to _bs* arrays
+  private int _nodes;
+
+  // Bitsets
+  private int[] _bsWordOff;      // first word of the bitset in _bsWords
+  private int[] _bsBitOff;       // smallest level in the bitset
+  private int[] _bsNBits;
+  private long[] _bsWords = new long[16];
+  private int _bitsets;
+  private int _words;
+
+  /**
+   * Compiles the given trees.
+   * @param trees compressed trees, empty trees can be null
+   * @param domains domains of the input columns
+   */
+  public CompiledTrees(byte[][] trees, String[][] domains) {
+    _roots = new int[trees.length];
+    int capacity = 16;
+    for (byte[] tree : trees) if (tree != null) capacity += tree.length / 4;
+    _col = new int[capacity];
+    _value = new float[capacity];
+    _left = new int[capacity];
+    _flags = new byte[capacity];
+    _domainLen = new int[capacity];
+    _bitset = new int[capacity];
+    _bsWordOff = new int[4];
+    _bsBitOff = new int[4];
+    _bsNBits = new int[4];
+    for (int i = 0; i < trees.length; i++)
+      _roots[i] = trees[i] == null ? -1 : compile(trees[i], domains);
+  }
+
+  public int size() {
+    return _roots.length;
+  }
+
+  /** Total number of nodes (both splits and leaves) of all the trees. */
+  public int nodes() {
+    return _nodes;
+  }
+
+  @Override
+  public boolean isEmpty(int tree) {
+    return _roots[tree] < 0;
+  }
+
+  /**
+   * Scores a single row with a single tree.
+   * @param tree index of the tree (same as the index to the array of compressed trees)
+   * @param row input row
+   * @return prediction of the tree
+   */
+  @Override
+  public double score(int tree, double[] row) {
+    final int[] col = _col;
+    int node = _roots[tree];
+    int c;
+    while ((c = col[node]) >= 0) {
+      double d = row[c];
+      byte flags = _flags[node];
+      boolean right;
+      if ((flags & FLAG_BITSET) != 0) {
+        int b = _bitset[node];
+        int idx = (int) d - _bsBitOff[b];
+        if (Double.isNaN(d) || idx < 0 || idx >= _bsNBits[b] || outOfDomain(node, d))
+          right = (flags & FLAG_LEFTWARD) == 0;
+        else
+          right = (_bsWords[_bsWordOff[b] + (idx >>> 6)] & (1L << idx)) != 0;
+      } else if (Double.isNaN(d) || outOfDomain(node, d)) {
+        right = (flags & FLAG_LEFTWARD) == 0;
+      } else {
+        right = (flags & FLAG_NA_VS_REST) == 0 && d >= _value[node];
+      }
+      node = right ? _left[node] + 1 : _left[node];
+    }
+    return _value[node];
+  }
+
+  // Access to the nodes for code generation (see BytecodeTrees)
+
+  int root(int tree) { return _roots[tree]; }
+  boolean isLeaf(int node) { return _col[node] < 0; }
+  int column(int node) { return _col[node]; }
+  float value(int node) { return _value[node]; }
+  int left(int node) { return _left[node]; }
+  byte flags(int node) { return _flags[node]; }
+  int domainLength(int node) { return _domainLen[node]; }
+  int bitsetOffset(int node) { return _bsBitOff[_bitset[node]]; }
+  int bitsetLength(int node) { return _bsNBits[_bitset[node]]; }
+  long bitsetWord(int node, int word) { return _bsWords[_bsWordOff[_bitset[node]] + word]; }
+
+  private boolean outOfDomain(int node, double d) {
+    int len = _domainLen[node];
+    return len >= 0 && len <= (int) d;
+  }
+
+  // Lays out the nodes breadth-first: the queue of pending nodes is the node arrays themselves, each pending
+  // node remembers where its encoding starts in the tree bytes (or where the prediction starts for a leaf).
+  private int compile(byte[] tree, String[][] domains) {
+    final int root = _nodes;
+    int[] pos = new int[16];
+    boolean[] leaf = new boolean[16];
+    pos[0] = 0;
+    allocNode();
+    GenmodelBitSet bs = new GenmodelBitSet(0);
+    for (int node = root; node < _nodes; node++) {
+      ByteBufferWrapper ab = new ByteBufferWrapper(tree);
+      ab.skip(pos[node - root]);
+      if (leaf[node - root]) {
+        setLeaf(node, ab.get4f());
+        continue;
+      }
+      int nodeType = ab.get1U();
+      int colId = ab.get2();
+      if (colId == 65535) { // the whole tree is a single leaf
+        setLeaf(node, ab.get4f());
+        continue;
+      }
+      int naSplitDir = ab.get1U();
+      boolean naVsRest = naSplitDir == NsdNaVsRest;
+      boolean leftward = naSplitDir == NsdNaLeft || naSplitDir == NsdLeft;
+      int lmask = nodeType & 51;
+      int rmask = (nodeType & 0xC0) >> 2;
+      int equal = nodeType & 12;
+      assert equal != 4;  // no longer supported
+
+      byte flags = 0;
+      if (leftward) flags |= FLAG_LEFTWARD;
+      if (naVsRest) flags |= FLAG_NA_VS_REST;
+      float splitVal = -1;
+      int bitset = -1;
+      if (!naVsRest) {
+        if (equal == 0) {
+          splitVal = ab.get4f();
+        } else {
+          if (equal == 8)
+            bs.fill2(tree, ab);
+          else
+            bs.fill3(tree, ab);
+          bitset = addBitset(bs);
+          flags |= FLAG_BITSET;
+        }
+      }
+
+      int leftSize;
+      switch (lmask) {
+        case 0:  leftSize = ab.get1U();  break;
+        case 1:  leftSize = ab.get2();  break;
+        case 2:  leftSize = ab.get3();  break;
+        case 3:  leftSize = ab.get4();  break;
+        case 48: leftSize = 4;  break;  // just the prediction
+        default:
+          throw new IllegalStateException("illegal lmask value " + lmask + " in tree " + Arrays.toString(tree));
+      }
+      int leftPos = ab.position();
+
+      _col[node] = colId;
+      _value[node] = splitVal;
+      _flags[node] = flags;
+      _bitset[node] = bitset;
+      _domainLen[node] = domains != null && domains[colId] != null ? domains[colId].length : -1;
+      _left[node] = _nodes;
+
+      int left = allocNode() - root, right = allocNode() - root;
+      if (right >= pos.length) {
+        pos = Arrays.copyOf(pos, pos.length * 2);
+        leaf = Arrays.copyOf(leaf, leaf.length * 2);
+      }
+      pos[left] = leftPos;
+      leaf[left] = (lmask & 16) != 0;
+      pos[right] = leftPos + leftSize;
+      leaf[right] = (rmask & 16) != 0;
+    }
+    return root;
+  }
+
+  private void setLeaf(int node, float pred) {
+    _col[node] = -1;
+    _value[node] = pred;
+    _left[node] = -1;
+    _bitset[node] = -1;
+    _domainLen[node] = -1;
+  }
+
+  private int allocNode() {
+    if (_nodes == _col.length) {
+      int len = _col.length * 2;
+      _col = Arrays.copyOf(_col, len);
+      _value = Arrays.copyOf(_value, len);
+      _left = Arrays.copyOf(_left, len);
+      _flags = Arrays.copyOf(_flags, len);
+      _domainLen = Arrays.copyOf(_domainLen, len);
+      _bitset = Arrays.copyOf(_bitset, len);
+    }
+    return _nodes++;
+  }
+
+  private int addBitset(GenmodelBitSet bs) {
+    if (_bitsets == _bsWordOff.length) {
+      int len = _bitsets * 2;
+      _bsWordOff = Arrays.copyOf(_bsWordOff, len);
+      _bsBitOff = Arrays.copyOf(_bsBitOff, len);
+      _bsNBits = Arrays.copyOf(_bsNBits, len);
+    }
+    int nbits = bs.getNBits();
+    int bitoff = bs.getBitOff();
+    int off = _words;
+    _words += (nbits + 63) >>> 6;
+    if (_words > _bsWords.length)
+      _bsWords = Arrays.copyOf(_bsWords, Math.max(_words, _bsWords.length * 2));
+    for (int i = 0; i < nbits; i++)
+      if (bs.contains(bitoff + i))
+        _bsWords[off + (i >>> 6)] |= 1L << i;
+    _bsWordOff[_bitsets] = off;
+    _bsBitOff[_bitsets] = bitoff;
+    _bsNBits[_bitsets] = nbits;
+    return _bitsets++;
+  }
+
+}
@@ -10,6 +10,10 @@ import hex.genmodel.utils.GenmodelBitSet;
 import water.logging.Logger;
 import water.logging.LoggerFactory;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.InvalidObjectException;
+import java.io.ObjectStreamException;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -19,13 +23,30 @@ import java.util.Map;
  * Common ancestor for {@link DrfMojoModel} and {@link GbmMojoModel}.
  * See also: `hex.tree.SharedTreeModel` and `hex.tree.TreeVisitor` classes.
  */
-public abstract class SharedTreeMojoModel extends MojoModel implements TreeBackedMojoModel, CalibrationMojoHelper.MojoModelWithCalibration {
+public abstract class SharedTreeMojoModel extends MojoModel implements TreeBackedMojoModel, CalibrationMojoHelper.MojoModelWithCalibration, Cloneable {
     
     private static final int NsdNaVsRest = NaSplitDir.NAvsREST.value();
     private static final int NsdNaLeft = NaSplitDir.NALeft.value();
     private static final int NsdLeft = NaSplitDir.Left.value();
 
+    /**
+     * Compile the trees of all tree-based MOJOs to flat arrays at load time, see {@link #setCompiledScoring(boolean)}.
+     */
+    public static final String COMPILE_TREES_PROPERTY = "sys.ai.h2o.genmodel.compileTrees";
+
+    /**
+     * Generate bytecode for the trees of all tree-based MOJOs at load time, see {@link #setBytecodeScoring(boolean)}.
+     */
+    public static final String BYTECODE_TREES_PROPERTY = "sys.ai.h2o.genmodel.bytecodeTrees";
+
     private ScoreTree _scoreTree;
+
+    private CompiledTrees _compiledTrees;
+
+    private transient BytecodeTrees _bytecodeTrees; // generated classes are not serializable
+
+    // scorer of the compiled trees, generated code if available, null when scoring the compressed trees
+    private transient TreeScorer _treeScorer;
     
     private static Logger logger = LoggerFactory.getLogger(SharedTreeMojoModel.class);
 
@@ -55,6 +76,18 @@ public abstract class SharedTreeMojoModel extends MojoModel implements TreeBacke
      */
     protected byte[][] _compressed_trees_aux;
 
+    /**
+     * Trees of a memory-mapped MOJO (see {@link hex.genmodel.MappedMojoReaderBackend}), slices of the mapping used
+     * instead of {@link #_compressed_trees} - which is null in that case. The trees are scored directly from the
+     * mapping, they are only copied to the heap when needed as arrays (eg. to compile them). Empty trees are null.
+     */
+    protected transient ByteBuffer[] _mapped_trees;
+
+    /**
+     * Auxiliary tree data of a memory-mapped MOJO, copied to {@link #_compressed_trees_aux} on first use.
+     */
+    protected transient ByteBuffer[] _mapped_trees_aux;
+
     /**
      * GLM's beta used for calibrating output probabilities using Platt Scaling.
      */
@@ -81,6 +114,126 @@ public abstract class SharedTreeMojoModel extends MojoModel implements TreeBacke
         _scoreTree = new ScoreTree1(); // Second version
       } else
         _scoreTree = new ScoreTree2(); // Current version
+      if (Boolean.getBoolean(COMPILE_TREES_PROPERTY) && _mojo_version >= 1.2)
+        setCompiledScoring(true);
+      if (Boolean.getBoolean(BYTECODE_TREES_PROPERTY) && _mojo_version >= 1.2)
+        setBytecodeScoring(true);
+    }
+
+    /**
+     * Switches between scoring the compressed trees directly (the default) and scoring trees compiled to flat
+     * arrays (see {@link CompiledTrees}). Compiled trees give the same predictions, they are faster to score
+     * but take a few times more memory than the compressed trees, which are kept as well.
+     * @param enable true to compile the trees (if not already compiled), false to drop the compiled trees
+     */
+    public void setCompiledScoring(boolean enable) {
+      if (!enable) {
+        _compiledTrees = null;
+        _bytecodeTrees = null;
+      } else if (_compiledTrees == null) {
+        if (_mojo_version < 1.2) {
+          throw new IllegalArgumentException("Compiled scoring is only supported for mojo versions 1.2 or higher");
+        }
+        _compiledTrees = new CompiledTrees(treeArrays(), _domains);
+      }
+      _treeScorer = _bytecodeTrees != null ? _bytecodeTrees : _compiledTrees;
+    }
+
+    public boolean isCompiledScoring() {
+      return _compiledTrees != null;
+    }
+
+    /**
+     * Switches scoring of the trees to bytecode generated for this model (see {@link BytecodeTrees}). The trees
+     * are compiled first (see {@link #setCompiledScoring(boolean)}), trees that cannot be generated are scored by
+     * the compiled trees. Predictions are the same as with the compressed trees.
+     * @param enable true to generate the code (if not already generated), false to go back to the compiled trees
+     */
+    public void setBytecodeScoring(boolean enable) {
+      if (!enable) {
+        _bytecodeTrees = null;
+      } else if (_bytecodeTrees == null) {
+        setCompiledScoring(true);
+        _bytecodeTrees = BytecodeTrees.generate(_compiledTrees);
+      }
+      _treeScorer = _bytecodeTrees != null ? _bytecodeTrees : _compiledTrees;
+    }
+
+    public boolean isBytecodeScoring() {
+      return _bytecodeTrees != null;
+    }
+
+    /** Number of trees scored by generated code, 0 unless bytecode scoring is on; the rest are interpreted. */
+    public int getBytecodeTreeCount() {
+      return _bytecodeTrees != null ? _bytecodeTrees.generatedTrees() : 0;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+      in.defaultReadObject();
+      _treeScorer = _compiledTrees; // the code needs to be generated again
+    }
+
+    /**
+     * Mapped buffers cannot be serialized: a memory-mapped MOJO is written as a shallow copy with the trees copied
+     * to the heap. The model itself is left as it is, it can be scoring at the same time.
+     */
+    protected Object writeReplace() throws ObjectStreamException {
+      if (_mapped_trees == null)
+        return this;
+      final SharedTreeMojoModel copy;
+      try {
+        copy = (SharedTreeMojoModel) clone();
+      } catch (CloneNotSupportedException e) {
+        throw new InvalidObjectException("Cannot copy the mapped trees: " + e);
+      }
+      copy._compressed_trees = treeArrays();
+      copy._compressed_trees_aux = auxTreeArrays();
+      copy._mapped_trees = null;
+      copy._mapped_trees_aux = null;
+      return copy;
+    }
+
+    private int treeCount() {
+      return _ntree_groups * _ntrees_per_group;
+    }
+
+    private boolean hasTree(int itree) {
+      return _mapped_trees != null ? _mapped_trees[itree] != null : _compressed_trees[itree] != null;
+    }
+
+    /** The tree as an array, copied from the mapping for a memory-mapped MOJO. */
+    private byte[] tree(int itree) {
+      return _mapped_trees != null ? toArray(_mapped_trees[itree]) : _compressed_trees[itree];
+    }
+
+    /** All the trees as arrays, copied from the mapping for a memory-mapped MOJO (the copy is not kept). */
+    private byte[][] treeArrays() {
+      if (_mapped_trees == null)
+        return _compressed_trees;
+      byte[][] trees = new byte[_mapped_trees.length][];
+      for (int i = 0; i < trees.length; i++)
+        trees[i] = toArray(_mapped_trees[i]);
+      return trees;
+    }
+
+    /** Auxiliary tree data, null if the MOJO doesn't have it. */
+    private synchronized byte[][] auxTreeArrays() {
+      if (_compressed_trees_aux == null && _mapped_trees_aux != null) {
+        byte[][] aux = new byte[_mapped_trees_aux.length][];
+        for (int i = 0; i < aux.length; i++)
+          aux[i] = toArray(_mapped_trees_aux[i]);
+        _compressed_trees_aux = aux;
+        _mapped_trees_aux = null;
+      }
+      return _compressed_trees_aux;
+    }
+
+    private static byte[] toArray(ByteBuffer bb) {
+      if (bb == null)
+        return null;
+      byte[] bytes = new byte[bb.remaining()];
+      bb.duplicate().get(bytes);
+      return bytes;
     }
 
     @Override
@@ -132,7 +285,19 @@ public abstract class SharedTreeMojoModel extends MojoModel implements TreeBacke
    */
   @SuppressWarnings("ConstantConditions")  // Complains that the code is too complex. Well duh!
     public static double scoreTree(byte[] tree, double[] row, boolean computeLeafAssignment, String[][] domains) {
-        ByteBufferWrapper ab = new ByteBufferWrapper(tree);
+        return scoreTree(new ByteBufferWrapper(tree), tree, row, computeLeafAssignment, domains);
+    }
+
+    /**
+     * Same as {@link #scoreTree(byte[], double[], boolean, String[][])} for a tree that is not an array, eg. a slice
+     * of a memory-mapped MOJO.
+     */
+    public static double scoreTree(ByteBuffer tree, double[] row, boolean computeLeafAssignment, String[][] domains) {
+        return scoreTree(new ByteBufferWrapper(tree), null, row, computeLeafAssignment, domains);
+    }
+
+    @SuppressWarnings("ConstantConditions")
+    private static double scoreTree(ByteBufferWrapper ab, byte[] tree, double[] row, boolean computeLeafAssignment, String[][] domains) {
         GenmodelBitSet bs = null;
         long bitsRight = 0;
         int level = 0;
@@ -165,7 +330,12 @@ public abstract class SharedTreeMojoModel extends MojoModel implements TreeBacke
                 } else {
                     // Bitset test
                     if (bs == null) bs = new GenmodelBitSet(0);
-                    if (equal == 8)
+                    if (tree == null) { // not backed by an array, the bitset is copied
+                        if (equal == 8)
+                            bs.fill2(ab);
+                        else
+                            bs.fill3(ab);
+                    } else if (equal == 8)
                         bs.fill2(tree, ab);
                     else
                         bs.fill3(tree, ab);
@@ -539,7 +709,7 @@ public abstract class SharedTreeMojoModel extends MojoModel implements TreeBacke
                 String[] domainValues = isSupervised() ? getDomainValues(getResponseIdx()) : null;
                 String treeName = treeName(j, i, domainValues);
                 SharedTreeSubgraph sg = g.makeSubgraph(treeName);
-                computeTreeGraph(sg, _compressed_trees[itree], _compressed_trees_aux[itree],
+                computeTreeGraph(sg, tree(itree), auxTreeArrays()[itree],
                         getNames(), getDomainValues(), options);
             }
 
@@ -840,6 +1010,51 @@ public abstract class SharedTreeMojoModel extends MojoModel implements TreeBacke
         scoreTreeRange(row, 0, _ntree_groups, preds);
     }
 
+    /**
+     * Number of rows scored together by {@link #scoreBatch}: the rows of a block stay in cache while
+     * all the trees are applied to them.
+     */
+    private static final int BATCH_BLOCK_SIZE = 256;
+
+    /**
+     * Scores the rows tree by tree: each tree is applied to a whole block of rows before moving on
+     * to the next tree. The trees of a class are still summed in the same order, the predictions are
+     * the same as of {@link #scoreAllTrees} followed by {@link #unifyPreds}.
+     */
+    @Override
+    public void scoreBatch(double[][] cols, double[] offsets, int nrows, double[][] preds) {
+        final int clOffset = _nclasses == 1 ? 0 : 1;
+        final TreeScorer compiled = _treeScorer;
+        double[][] rows = new double[Math.min(nrows, BATCH_BLOCK_SIZE)][cols.length];
+        for (int from = 0; from < nrows; from += BATCH_BLOCK_SIZE) {
+            final int n = Math.min(BATCH_BLOCK_SIZE, nrows - from);
+            transpose(cols, from, n, rows);
+            for (int r = 0; r < n; r++)
+                java.util.Arrays.fill(preds[from + r], 0);
+            for (int classIndex = 0; classIndex < _ntrees_per_group; classIndex++) {
+                final int k = clOffset + classIndex;
+                for (int groupIndex = 0; groupIndex < _ntree_groups; groupIndex++) {
+                    final int itree = treeIndex(groupIndex, classIndex);
+                    if (!hasTree(itree)) continue; // Skip all empty trees
+                    if (compiled != null) {
+                        for (int r = 0; r < n; r++)
+                            preds[from + r][k] += compiled.score(itree, rows[r]);
+                    } else if (_mapped_trees != null) {
+                        final ByteBuffer tree = _mapped_trees[itree];
+                        for (int r = 0; r < n; r++)
+                            preds[from + r][k] += scoreTree(tree, rows[r], false, _domains);
+                    } else {
+                        final byte[] tree = _compressed_trees[itree];
+                        for (int r = 0; r < n; r++)
+                            preds[from + r][k] += _scoreTree.scoreTree(tree, rows[r], false, _domains);
+                    }
+                }
+            }
+            for (int r = 0; r < n; r++)
+                unifyPreds(rows[r], offsets == null ? 0 : offsets[from + r], preds[from + r]);
+        }
+    }
+
     /**
      * Transforms tree predictions into the final model predictions.
      * For classification: converts tree preds into probability distribution and picks predicted class.
@@ -871,6 +1086,30 @@ public abstract class SharedTreeMojoModel extends MojoModel implements TreeBacke
      */
     public final void scoreTreeRange(double[] row, int fromIndex, int toIndex, double[] preds) {
         final int clOffset = _nclasses == 1 ? 0 : 1;
+        final TreeScorer compiled = _treeScorer;
+        if (compiled != null) {
+            for (int classIndex = 0; classIndex < _ntrees_per_group; classIndex++) {
+                int k = clOffset + classIndex;
+                int itree = treeIndex(fromIndex, classIndex);
+                for (int groupIndex = fromIndex; groupIndex < toIndex; groupIndex++, itree++) {
+                    if (!compiled.isEmpty(itree))
+                        preds[k] += compiled.score(itree, row);
+                }
+            }
+            return;
+        }
+        final ByteBuffer[] mapped = _mapped_trees;
+        if (mapped != null) {
+            for (int classIndex = 0; classIndex < _ntrees_per_group; classIndex++) {
+                int k = clOffset + classIndex;
+                int itree = treeIndex(fromIndex, classIndex);
+                for (int groupIndex = fromIndex; groupIndex < toIndex; groupIndex++, itree++) {
+                    if (mapped[itree] != null)
+                        preds[k] += scoreTree(mapped[itree], row, false, _domains);
+                }
+            }
+            return;
+        }
         for (int classIndex = 0; classIndex < _ntrees_per_group; classIndex++) {
             int k = clOffset + classIndex;
             int itree = treeIndex(fromIndex, classIndex);
@@ -889,14 +1128,14 @@ public abstract class SharedTreeMojoModel extends MojoModel implements TreeBacke
       int classTrees = 0;
       for (int i = 0; i < _ntrees_per_group; ++i) {
         int itree = treeIndex(0, i);
-        if (_compressed_trees[itree] != null) classTrees++;
+        if (hasTree(itree)) classTrees++;
       }
       final int outputcols = _ntree_groups * classTrees;
       final String[] names = new String[outputcols];
       for (int c = 0; c < _ntrees_per_group; c++) {
         for (int tidx = 0; tidx < _ntree_groups; tidx++) {
           int itree = treeIndex(tidx, c);
-          if (_compressed_trees[itree] != null) {
+          if (hasTree(itree)) {
             names[itree] = "T" + (tidx + 1) + ".C" + (c + 1);
           }
         }
@@ -911,16 +1150,16 @@ public abstract class SharedTreeMojoModel extends MojoModel implements TreeBacke
 
     public LeafNodeAssignments getLeafNodeAssignments(final double[] row) {
       LeafNodeAssignments assignments = new LeafNodeAssignments();
-      assignments._paths = new String[_compressed_trees.length];
-      if (_mojo_version >= 1.3 && _compressed_trees_aux != null) { // enable only for compatible MOJOs
-        assignments._nodeIds = new int[_compressed_trees_aux.length];
+      assignments._paths = new String[treeCount()];
+      if (_mojo_version >= 1.3 && auxTreeArrays() != null) { // enable only for compatible MOJOs
+        assignments._nodeIds = new int[treeCount()];
       }
       traceDecisions(row, assignments._paths, assignments._nodeIds);
       return assignments;
     }
 
     public String[] getDecisionPath(final double[] row) {
-      String[] paths = new String[_compressed_trees.length];
+      String[] paths = new String[treeCount()];
       traceDecisions(row, paths, null);
       return paths;
     }
@@ -929,15 +1168,17 @@ public abstract class SharedTreeMojoModel extends MojoModel implements TreeBacke
       if (_mojo_version < 1.2) {
         throw new IllegalArgumentException("You can only obtain decision tree path with mojo versions 1.2 or higher");
       }
+      final byte[][] aux = nodeIds != null ? auxTreeArrays() : null;
       for (int j = 0; j < _ntree_groups; j++) {
         for (int i = 0; i < _ntrees_per_group; i++) {
           int itree = treeIndex(j, i);
-          double d = scoreTree(_compressed_trees[itree], row, true, _domains);
+          double d = _mapped_trees != null ? scoreTree(_mapped_trees[itree], row, true, _domains) :
+                  scoreTree(_compressed_trees[itree], row, true, _domains);
           if (paths != null)
             paths[itree] = SharedTreeMojoModel.getDecisionPath(d);
           if (nodeIds != null) {
             assert _mojo_version >= 1.3;
-            nodeIds[itree] = SharedTreeMojoModel.getLeafNodeId(d, _compressed_trees_aux[itree]);
+            nodeIds[itree] = SharedTreeMojoModel.getLeafNodeId(d, aux[itree]);
           }
         }
       }
@@ -954,7 +1195,7 @@ public abstract class SharedTreeMojoModel extends MojoModel implements TreeBacke
     }
 
     public final byte[] treeBytes(int groupIndex, int classIndex) {
-        return _compressed_trees[treeIndex(groupIndex, classIndex)];
+        return tree(treeIndex(groupIndex, classIndex));
     }
 
   // DO NOT CHANGE THE CODE BELOW THIS LINE
@@ -5,6 +5,7 @@ import hex.genmodel.ModelMojoReader;
 import hex.genmodel.attributes.*;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 public abstract class SharedTreeMojoReader<M extends SharedTreeMojoModel> extends ModelMojoReader<M> {
 
@@ -47,15 +48,21 @@ public abstract class SharedTreeMojoReader<M extends SharedTreeMojoModel> extend
       _model._compressed_trees_aux = new byte[_model._ntree_groups * tpc][];
     }
 
-    for (int j = 0; j < _model._ntree_groups; j++)
-      for (int i = 0; i < tpc; i++) {
-        String blobName = String.format("trees/t%02d_%03d.bin", i, j);
-        if (!exists(blobName)) continue;
-        _model._compressed_trees[_model.treeIndex(j, i)] = readblob(blobName);
-        if (_model._compressed_trees_aux!=null) {
-          _model._compressed_trees_aux[_model.treeIndex(j, i)] = readblob(String.format("trees/t%02d_%03d_aux.bin", i, j));
+    // Since 1.50 the split thresholds can be binned, such trees are decoded when read
+    final BinnedSplitThresholds thresholds = _model._mojo_version >= 1.5 && exists(BinnedSplitThresholds.BLOB_NAME) ?
+            BinnedSplitThresholds.fromByteArray(readblob(BinnedSplitThresholds.BLOB_NAME)) : null;
+    if (_model._mojo_version < 1.2 || thresholds != null || !readMappedTrees(tpc)) {
+      for (int j = 0; j < _model._ntree_groups; j++)
+        for (int i = 0; i < tpc; i++) {
+          String blobName = String.format("trees/t%02d_%03d.bin", i, j);
+          if (!exists(blobName)) continue;
+          byte[] tree = readblob(blobName);
+          _model._compressed_trees[_model.treeIndex(j, i)] = thresholds != null ? thresholds.decode(tree) : tree;
+          if (_model._compressed_trees_aux!=null) {
+            _model._compressed_trees_aux[_model.treeIndex(j, i)] = readblob(String.format("trees/t%02d_%03d_aux.bin", i, j));
+          }
         }
-      }
+    }
 
     // Calibration
     String calibMethod = readkv("calib_method");
@@ -75,6 +82,31 @@ public abstract class SharedTreeMojoReader<M extends SharedTreeMojoModel> extend
     _model.postInit();
   }
 
+  /**
+   * Takes the trees of a memory-mapped MOJO as slices of the mapping, without reading them.
+   * @return false if the trees cannot be mapped and need to be read
+   */
+  private boolean readMappedTrees(int tpc) throws IOException {
+    final int ntrees = _model._ntree_groups * tpc;
+    final ByteBuffer[] trees = new ByteBuffer[ntrees];
+    final ByteBuffer[] aux = _model._compressed_trees_aux != null ? new ByteBuffer[ntrees] : null;
+    for (int j = 0; j < _model._ntree_groups; j++)
+      for (int i = 0; i < tpc; i++) {
+        String blobName = String.format("trees/t%02d_%03d.bin", i, j);
+        if (!exists(blobName)) continue;
+        final int itree = _model.treeIndex(j, i);
+        if ((trees[itree] = readblobMapped(blobName)) == null)
+          return false;
+        if (aux != null && (aux[itree] = readblobMapped(String.format("trees/t%02d_%03d_aux.bin", i, j))) == null)
+          return false;
+      }
+    _model._compressed_trees = null;
+    _model._compressed_trees_aux = null;
+    _model._mapped_trees = trees;
+    _model._mapped_trees_aux = aux;
+    return true;
+  }
+
   @Override
   protected SharedTreeModelAttributes readModelSpecificAttributes() {
     final JsonObject modelJson = ModelJsonReader.parseModelJson(_reader);
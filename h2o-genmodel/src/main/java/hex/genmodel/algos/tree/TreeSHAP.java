@@ -9,105 +9,130 @@ package hex.genmodel.algos.tree;
 import ai.h2o.algos.tree.INode;
 import ai.h2o.algos.tree.INodeStat;
 
-import java.io.Serializable;
-
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Calculates SHAP values (feature contributions) of a single decision tree.
+ *
+ * Unconditional contributions are calculated from tables precomputed for each leaf of the tree ("Fast TreeSHAP"):
+ * the contribution of a leaf only depends on which of the unique features on the path to the leaf the row
+ * agrees with, the part of the computation that doesn't depend on the row is done once when the object is created.
+ * Scoring a row then costs O(N + L * D) instead of O(L * D^2) of the recursive algorithm (N - number of nodes,
+ * L - number of leaves, D - depth of the tree). The size of the tables is exponential in the number of unique
+ * features on a path, trees that would need tables larger than {@link #MAX_TABLE_SIZE_PROPERTY} entries
+ * (and conditional contributions) use the recursive algorithm.
+ */
 public class TreeSHAP<R, N extends INode<R>, S extends INodeStat> implements TreeSHAPPredictor<R> {
 
+  public static final String MAX_TABLE_SIZE_PROPERTY = "sys.ai.h2o.genmodel.treeSHAP.maxTableSize";
+  private static final int DEFAULT_MAX_TABLE_SIZE = 1 << 18;
+
   private final int rootNodeId;
   private final N[] nodes;
   private final S[] stats;
   private final float expectedTreeValue;
 
+  private final LeafTables leafTables; // null if the tree is too deep for precomputed tables
+
   @SuppressWarnings("unchecked")
   public TreeSHAP(N[] nodes) {
     this(nodes, (S[]) nodes, 0);
   }
 
   public TreeSHAP(N[] nodes, S[] stats, int rootNodeId) {
+    this(nodes, stats, rootNodeId, defaultMaxTableSize());
+  }
+
+  TreeSHAP(N[] nodes, S[] stats, int rootNodeId, int maxTableSize) {
     this.rootNodeId = rootNodeId;
     this.nodes = nodes;
     this.stats = stats;
     this.expectedTreeValue = treeMeanValue();
+    this.leafTables = maxTableSize > 0 ? LeafTables.build(nodes, stats, rootNodeId, maxTableSize) : null;
   }
 
-  private static class PathElement implements Serializable {
-    int feature_index;
-    float zero_fraction;
-    float one_fraction;
-    float pweight;
-    void reset() {
-      feature_index = 0;
-      zero_fraction = 0;
-      one_fraction = 0;
-      pweight = 0;
-    }
+  private static int defaultMaxTableSize() {
+    String maxTableSize = System.getProperty(MAX_TABLE_SIZE_PROPERTY);
+    return maxTableSize != null ? Integer.parseInt(maxTableSize) : DEFAULT_MAX_TABLE_SIZE;
+  }
+
+  /**
+   * @return true if the contributions are calculated using the precomputed per-leaf tables
+   */
+  public boolean usesPrecomputedTables() {
+    return leafTables != null;
   }
 
   // extend our decision path with a fraction of one and zero extensions
-  private void extendPath(PathPointer unique_path, int unique_depth,
+  private void extendPath(PathPointer unique_path, int p, int unique_depth,
                           float zero_fraction, float one_fraction,
                           int feature_index) {
-    unique_path.get(unique_depth).feature_index = feature_index;
-    unique_path.get(unique_depth).zero_fraction = zero_fraction;
-    unique_path.get(unique_depth).one_fraction = one_fraction;
-    unique_path.get(unique_depth).pweight = (unique_depth == 0 ? 1.0f : 0.0f);
+    final float[] pweight = unique_path.pweight;
+    unique_path.feature_index[p + unique_depth] = feature_index;
+    unique_path.zero_fraction[p + unique_depth] = zero_fraction;
+    unique_path.one_fraction[p + unique_depth] = one_fraction;
+    pweight[p + unique_depth] = (unique_depth == 0 ? 1.0f : 0.0f);
     for (int i = unique_depth - 1; i >= 0; i--) {
-      unique_path.get(i+1).pweight += one_fraction * unique_path.get(i).pweight * (i + 1)
+      pweight[p + i + 1] += one_fraction * pweight[p + i] * (i + 1)
               / (float) (unique_depth + 1);
-      unique_path.get(i).pweight = zero_fraction * unique_path.get(i).pweight * (unique_depth - i)
+      pweight[p + i] = zero_fraction * pweight[p + i] * (unique_depth - i)
               / (float) (unique_depth + 1);
     }
   }
 
   // undo a previous extension of the decision path
-  private void unwindPath(PathPointer unique_path, int unique_depth,
+  private void unwindPath(PathPointer unique_path, int p, int unique_depth,
                           int path_index) {
-    final float one_fraction = unique_path.get(path_index).one_fraction;
-    final float zero_fraction = unique_path.get(path_index).zero_fraction;
-    float next_one_portion = unique_path.get(unique_depth).pweight;
+    final float[] pweight = unique_path.pweight;
+    final float one_fraction = unique_path.one_fraction[p + path_index];
+    final float zero_fraction = unique_path.zero_fraction[p + path_index];
+    float next_one_portion = pweight[p + unique_depth];
 
     for (int i = unique_depth - 1; i >= 0; --i) {
       if (one_fraction != 0) {
-        final float tmp = unique_path.get(i).pweight;
-        unique_path.get(i).pweight = next_one_portion * (unique_depth + 1)
+        final float tmp = pweight[p + i];
+        pweight[p + i] = next_one_portion * (unique_depth + 1)
                 / ((i + 1) * one_fraction);
-        next_one_portion = tmp - unique_path.get(i).pweight * zero_fraction * (unique_depth - i)
+        next_one_portion = tmp - pweight[p + i] * zero_fraction * (unique_depth - i)
                 / (float) (unique_depth + 1);
       } else if (zero_fraction != 0) {
-        unique_path.get(i).pweight = (unique_path.get(i).pweight * (unique_depth + 1))
+        pweight[p + i] = (pweight[p + i] * (unique_depth + 1))
                 / (zero_fraction * (unique_depth - i));
       } else {
-        unique_path.get(i).pweight = 0;
+        pweight[p + i] = 0;
       }
     }
 
     for (int i = path_index; i < unique_depth; ++i) {
-      unique_path.get(i).feature_index = unique_path.get(i+1).feature_index;
-      unique_path.get(i).zero_fraction = unique_path.get(i+1).zero_fraction;
-      unique_path.get(i).one_fraction = unique_path.get(i+1).one_fraction;
+      unique_path.feature_index[p + i] = unique_path.feature_index[p + i + 1];
+      unique_path.zero_fraction[p + i] = unique_path.zero_fraction[p + i + 1];
+      unique_path.one_fraction[p + i] = unique_path.one_fraction[p + i + 1];
     }
   }
 
   // determine what the total permutation getWeight would be if
   // we unwound a previous extension in the decision path
-  private float unwoundPathSum(final PathPointer unique_path, int unique_depth,
+  private float unwoundPathSum(final PathPointer unique_path, int p, int unique_depth,
                                int path_index) {
-    final float one_fraction = unique_path.get(path_index).one_fraction;
-    final float zero_fraction = unique_path.get(path_index).zero_fraction;
-    float next_one_portion = unique_path.get(unique_depth).pweight;
+    final float[] pweight = unique_path.pweight;
+    final float one_fraction = unique_path.one_fraction[p + path_index];
+    final float zero_fraction = unique_path.zero_fraction[p + path_index];
+    float next_one_portion = pweight[p + unique_depth];
     float total = 0;
     for (int i = unique_depth - 1; i >= 0; --i) {
       if (one_fraction != 0) {
         final float tmp = next_one_portion * (unique_depth + 1)
                 / ((i + 1) * one_fraction);
         total += tmp;
-        next_one_portion = unique_path.get(i).pweight - tmp * zero_fraction * ((unique_depth - i)
+        next_one_portion = pweight[p + i] - tmp * zero_fraction * ((unique_depth - i)
                 / (float)(unique_depth + 1));
       } else if (zero_fraction != 0) {
-        total += (unique_path.get(i).pweight / zero_fraction) / ((unique_depth - i)
+        total += (pweight[p + i] / zero_fraction) / ((unique_depth - i)
                 / (float)(unique_depth + 1));
       } else {
-        if (unique_path.get(i).pweight != 0)
+        if (pweight[p + i] != 0)
           throw new IllegalStateException("Unique path " + i + " must have zero getWeight");
       }
     }
@@ -117,7 +142,7 @@ public class TreeSHAP<R, N extends INode<R>, S extends INodeStat> implements Tre
   // recursive computation of SHAP values for a decision tree
   private void treeShap(R feat, float[] phi,
                         N node, S nodeStat, int unique_depth,
-                        PathPointer parent_unique_path,
+                        PathPointer unique_path, int parent_position,
                         float parent_zero_fraction,
                         float parent_one_fraction, int parent_feature_index,
                         int condition, int condition_feature,
@@ -127,10 +152,10 @@ public class TreeSHAP<R, N extends INode<R>, S extends INodeStat> implements Tre
     if (condition_fraction == 0) return;
 
     // extend the unique path
-    PathPointer unique_path = parent_unique_path.move(unique_depth);
+    final int p = unique_path.move(parent_position, unique_depth);
 
     if (condition == 0 || condition_feature != parent_feature_index) {
-      extendPath(unique_path, unique_depth, parent_zero_fraction,
+      extendPath(unique_path, p, unique_depth, parent_zero_fraction,
               parent_one_fraction, parent_feature_index);
     }
     final int split_index = node.getSplitIndex();
@@ -138,9 +163,8 @@ public class TreeSHAP<R, N extends INode<R>, S extends INodeStat> implements Tre
     // leaf node
     if (node.isLeaf()) {
       for (int i = 1; i <= unique_depth; ++i) {
-        final float w = unwoundPathSum(unique_path, unique_depth, i);
-        final PathElement el = unique_path.get(i);
-        phi[el.feature_index] += w * (el.one_fraction - el.zero_fraction)
+        final float w = unwoundPathSum(unique_path, p, unique_depth, i);
+        phi[unique_path.feature_index[p + i]] += w * (unique_path.one_fraction[p + i] - unique_path.zero_fraction[p + i])
                 * node.getLeafValue() * condition_fraction;
       }
 
@@ -161,13 +185,13 @@ public class TreeSHAP<R, N extends INode<R>, S extends INodeStat> implements Tre
       // if so we undo that split so we can redo it for this node
       int path_index = 0;
       for (; path_index <= unique_depth; ++path_index) {
-        if (unique_path.get(path_index).feature_index == split_index)
+        if (unique_path.feature_index[p + path_index] == split_index)
           break;
       }
       if (path_index != unique_depth + 1) {
-        incoming_zero_fraction = unique_path.get(path_index).zero_fraction;
-        incoming_one_fraction = unique_path.get(path_index).one_fraction;
-        unwindPath(unique_path, unique_depth, path_index);
+        incoming_zero_fraction = unique_path.zero_fraction[p + path_index];
+        incoming_one_fraction = unique_path.one_fraction[p + path_index];
+        unwindPath(unique_path, p, unique_depth, path_index);
         unique_depth -= 1;
       }
 
@@ -183,50 +207,62 @@ public class TreeSHAP<R, N extends INode<R>, S extends INodeStat> implements Tre
         unique_depth -= 1;
       }
 
-      treeShap(feat, phi, nodes[hot_index], stats[hot_index], unique_depth + 1, unique_path,
+      treeShap(feat, phi, nodes[hot_index], stats[hot_index], unique_depth + 1, unique_path, p,
               hot_zero_fraction * incoming_zero_fraction, incoming_one_fraction,
               split_index, condition, condition_feature, hot_condition_fraction);
 
-      treeShap(feat, phi, nodes[cold_index], stats[cold_index], unique_depth + 1, unique_path,
+      treeShap(feat, phi, nodes[cold_index], stats[cold_index], unique_depth + 1, unique_path, p,
               cold_zero_fraction * incoming_zero_fraction, 0,
               split_index, condition, condition_feature, cold_condition_fraction);
     }
   }
-  
-  public static class PathPointer implements TreeSHAPPredictor.Workspace {
-    PathElement[] path;
-    int position;
 
-    PathPointer(PathElement[] path) {
-      this.path = path;
-    }
-
-    PathPointer(PathElement[] path, int position) {
-      this.path = path;
-      this.position = position;
+  /**
+   * Workspace of the SHAP calculation. Holds the unique paths of all the levels of the recursion (stored as
+   * parallel arrays, each level starts at its own position) and a buffer for the decisions of the nodes used
+   * with the precomputed tables. A single workspace can be re-used for all the rows and all the trees of an ensemble,
+   * it is not thread-safe.
+   */
+  public static class PathPointer implements TreeSHAPPredictor.Workspace {
+    final int[] feature_index;
+    final float[] zero_fraction;
+    final float[] one_fraction;
+    final float[] pweight;
+    private int[] hot = new int[0];
+
+    PathPointer(int size) {
+      feature_index = new int[size];
+      zero_fraction = new float[size];
+      one_fraction = new float[size];
+      pweight = new float[size];
     }
 
-    PathElement get(int i) {
-      return path[position + i];
+    // copies the path starting at `position` behind itself and returns the position of the copy
+    int move(int position, int len) {
+      final int target = position + len;
+      System.arraycopy(feature_index, position, feature_index, target, len);
+      System.arraycopy(zero_fraction, position, zero_fraction, target, len);
+      System.arraycopy(one_fraction, position, one_fraction, target, len);
+      System.arraycopy(pweight, position, pweight, target, len);
+      return target;
     }
 
-    PathPointer move(int len) {
-      for (int i = 0; i < len; i++) {
-        path[position + len + i].feature_index = path[position + i].feature_index;
-        path[position + len + i].zero_fraction = path[position + i].zero_fraction;
-        path[position + len + i].one_fraction = path[position + i].one_fraction;
-        path[position + len + i].pweight = path[position + i].pweight;
-      }
-      return new PathPointer(path, position + len);
+    void reset() {
+      feature_index[0] = 0;
+      zero_fraction[0] = 0;
+      one_fraction[0] = 0;
+      pweight[0] = 0;
     }
 
-    void reset() {
-      path[0].reset();
+    int[] hotBuffer(int size) {
+      if (hot.length < size)
+        hot = new int[size];
+      return hot;
     }
 
     @Override
     public int getSize() {
-      return path.length;
+      return pweight.length;
     }
   }
 
@@ -245,22 +281,38 @@ public class TreeSHAP<R, N extends INode<R>, S extends INodeStat> implements Tre
       out_contribs[out_contribs.length - 1] += expectedTreeValue;
     }
 
-    PathPointer uniquePathWorkspace = (PathPointer) workspace; 
+    PathPointer uniquePathWorkspace = (PathPointer) workspace;
+    if (condition == 0 && leafTables != null) {
+      leafTables.addContributions(nodes, feat, out_contribs, uniquePathWorkspace);
+      return out_contribs;
+    }
+
     uniquePathWorkspace.reset();
 
-    treeShap(feat, out_contribs, nodes[rootNodeId], stats[rootNodeId], 0, uniquePathWorkspace,
+    treeShap(feat, out_contribs, nodes[rootNodeId], stats[rootNodeId], 0, uniquePathWorkspace, 0,
             1, 1, -1, condition, condition_feature, 1);
     return out_contribs;
   }
 
+  /**
+   * Calculates unconditional contributions of a batch of rows, the results are added to the given output arrays.
+   * The result is the same as if each row was processed individually, processing a batch avoids switching between
+   * the trees of an ensemble for every row (see {@link TreeSHAPEnsemble}).
+   *
+   * @param feats input rows
+   * @param nrows number of rows to process
+   * @param out_contribs output contributions, one array per row
+   * @param workspace workspace created by {@link #makeWorkspace()}
+   */
+  public void calculateContributions(final R[] feats, int nrows, float[][] out_contribs, TreeSHAP.Workspace workspace) {
+    for (int row = 0; row < nrows; row++) {
+      calculateContributions(feats[row], out_contribs[row], 0, -1, workspace);
+    }
+  }
+
   @Override
   public PathPointer makeWorkspace() {
-    int wsSize = getWorkspaceSize();
-    PathElement[] unique_path_data = new PathElement[wsSize];
-    for (int i = 0; i < unique_path_data.length; i++) {
-      unique_path_data[i] = new PathElement();
-    }
-    return new PathPointer(unique_path_data);
+    return new PathPointer(getWorkspaceSize());
   }
 
   @Override
@@ -298,4 +350,257 @@ public class TreeSHAP<R, N extends INode<R>, S extends INodeStat> implements Tre
     }
   }
 
+  /**
+   * Per-leaf tables of the unconditional SHAP values.
+   *
+   * For a leaf with value v, unique path features U (|U| = d) and zero fractions z_k (share of the training weight
+   * that follows the path at the splits on feature k), the contribution of feature j of U is
+   *
+   *   v * (o_j - z_j) * sum_{S subset of U\{j}} |S|!(d-|S|-1)!/d! * prod_{k in S} o_k * prod_{k in U\{j}\S} z_k
+   *
+   * where o_k is 1 if the row follows the path at all the splits on feature k and 0 otherwise. Only subsets of
+   * A = {k : o_k = 1} contribute, the sum reduces to H(T) * prod_{k in U\A, k != j} z_k where T = A\{j} and
+   *
+   *   H(T) = sum_{S subset of T} |S|!(d-|S|-1)!/d! * prod_{k in T\S} z_k
+   *
+   * depends only on the tree. H is tabulated for all subsets T of U (indexed by bit masks), the row only determines A.
+   */
+  private static class LeafTables implements java.io.Serializable {
+    private final int[] _internalNodes;  // internal nodes reachable from the root
+    private final int[] _leaves;
+    private final int[] _featureOffsets; // unique features of leaf l are at _featureOffsets[l] .. _featureOffsets[l + 1]
+    private final int[] _features;
+    private final double[] _zeroFractions;
+    private final int[] _splitOffsets;   // splits on the path to leaf l are at _splitOffsets[l] .. _splitOffsets[l + 1]
+    private final int[] _splitNodes;
+    private final int[] _splitChildren;  // child of the split node on the path to the leaf
+    private final int[] _splitSlots;     // position of the split feature among the unique features of the leaf
+    private final int[] _tableOffsets;
+    private final float[] _tables;
+    private final int _nodeCount;
+
+    private LeafTables(int[] internalNodes, int[] leaves, int[] featureOffsets, int[] features, double[] zeroFractions,
+                       int[] splitOffsets, int[] splitNodes, int[] splitChildren, int[] splitSlots,
+                       int[] tableOffsets, float[] tables, int nodeCount) {
+      _internalNodes = internalNodes;
+      _leaves = leaves;
+      _featureOffsets = featureOffsets;
+      _features = features;
+      _zeroFractions = zeroFractions;
+      _splitOffsets = splitOffsets;
+      _splitNodes = splitNodes;
+      _splitChildren = splitChildren;
+      _splitSlots = splitSlots;
+      _tableOffsets = tableOffsets;
+      _tables = tables;
+      _nodeCount = nodeCount;
+    }
+
+    static <R, N extends INode<R>, S extends INodeStat> LeafTables build(N[] nodes, S[] stats, int rootNodeId,
+                                                                        int maxTableSize) {
+      PathCollector<N, S> collector = new PathCollector<>(nodes, stats, maxTableSize);
+      if (!collector.collect(rootNodeId, 0))
+        return null;
+      final int nleaves = collector._leaves.size();
+      int[] featureOffsets = new int[nleaves + 1];
+      int[] splitOffsets = new int[nleaves + 1];
+      int[] tableOffsets = new int[nleaves];
+      for (int l = 0; l < nleaves; l++) {
+        final int d = collector._leafFeatures.get(l).length;
+        featureOffsets[l + 1] = featureOffsets[l] + d;
+        splitOffsets[l + 1] = splitOffsets[l] + collector._leafSplitNodes.get(l).length;
+        if (l + 1 < nleaves)
+          tableOffsets[l + 1] = tableOffsets[l] + (1 << d);
+      }
+      int[] features = new int[featureOffsets[nleaves]];
+      double[] zeroFractions = new double[featureOffsets[nleaves]];
+      int[] splitNodes = new int[splitOffsets[nleaves]];
+      int[] splitChildren = new int[splitOffsets[nleaves]];
+      int[] splitSlots = new int[splitOffsets[nleaves]];
+      float[] tables = new float[collector._tableSize];
+      for (int l = 0; l < nleaves; l++) {
+        final int[] leafFeatures = collector._leafFeatures.get(l);
+        final double[] leafZeroFractions = collector._leafZeroFractions.get(l);
+        System.arraycopy(leafFeatures, 0, features, featureOffsets[l], leafFeatures.length);
+        System.arraycopy(leafZeroFractions, 0, zeroFractions, featureOffsets[l], leafZeroFractions.length);
+        System.arraycopy(collector._leafSplitNodes.get(l), 0, splitNodes, splitOffsets[l], splitOffsets[l + 1] - splitOffsets[l]);
+        System.arraycopy(collector._leafSplitChildren.get(l), 0, splitChildren, splitOffsets[l], splitOffsets[l + 1] - splitOffsets[l]);
+        System.arraycopy(collector._leafSplitSlots.get(l), 0, splitSlots, splitOffsets[l], splitOffsets[l + 1] - splitOffsets[l]);
+        fillTable(leafZeroFractions, tables, tableOffsets[l]);
+      }
+      return new LeafTables(toArray(collector._internalNodes), toArray(collector._leaves), featureOffsets, features,
+              zeroFractions, splitOffsets, splitNodes, splitChildren, splitSlots, tableOffsets, tables, nodes.length);
+    }
+
+    // tabulates H(T) for all subsets T of the unique features of a leaf
+    private static void fillTable(double[] z, float[] table, int offset) {
+      final int d = z.length;
+      if (d == 0)
+        return;
+      // Shapley weights |S|!(d-|S|-1)!/d! = 1 / (d * C(d-1, |S|))
+      double[] weights = new double[d];
+      double binom = 1;
+      for (int s = 0; s < d; s++) {
+        weights[s] = 1 / (d * binom);
+        binom = binom * (d - 1 - s) / (s + 1);
+      }
+      // esp[k] holds the elementary symmetric polynomials of the zero fractions of the k-element subset being visited
+      double[][] esp = new double[d + 1][d + 1];
+      esp[0][0] = 1;
+      fillSubsets(z, weights, esp, 0, 0, 0, table, offset);
+    }
+
+    private static void fillSubsets(double[] z, double[] weights, double[][] esp, int k, int firstBit, int mask,
+                                    float[] table, int offset) {
+      if (k < weights.length) {
+        double h = 0;
+        for (int s = 0; s <= k; s++)
+          h += weights[s] * esp[k][k - s];
+        table[offset + mask] = (float) h;
+      } // the full set of unique features is never looked up
+      for (int b = firstBit; b < z.length; b++) {
+        final double[] prev = esp[k];
+        final double[] next = esp[k + 1];
+        next[0] = 1;
+        for (int m = 1; m <= k + 1; m++)
+          next[m] = (m <= k ? prev[m] : 0) + z[b] * prev[m - 1];
+        fillSubsets(z, weights, esp, k + 1, b + 1, mask | (1 << b), table, offset);
+      }
+    }
+
+    <R, N extends INode<R>> void addContributions(N[] nodes, R feat, float[] phi, PathPointer workspace) {
+      final int[] hot = workspace.hotBuffer(_nodeCount);
+      for (int node : _internalNodes) {
+        hot[node] = nodes[node].next(feat);
+      }
+      for (int l = 0; l < _leaves.length; l++) {
+        final int featureOffset = _featureOffsets[l];
+        final int d = _featureOffsets[l + 1] - featureOffset;
+        if (d == 0)
+          continue;
+        int mask = (1 << d) - 1; // features whose splits the row follows
+        for (int s = _splitOffsets[l]; s < _splitOffsets[l + 1]; s++) {
+          if (hot[_splitNodes[s]] != _splitChildren[s])
+            mask &= ~(1 << _splitSlots[s]);
+        }
+        // product of zero fractions of the features the row doesn't follow (zeros are counted separately)
+        double coldProduct = 1;
+        int coldZeros = 0;
+        for (int j = 0; j < d; j++) {
+          if ((mask & (1 << j)) == 0) {
+            final double z = _zeroFractions[featureOffset + j];
+            if (z == 0)
+              coldZeros++;
+            else
+              coldProduct *= z;
+          }
+        }
+        final double value = nodes[_leaves[l]].getLeafValue();
+        final int tableOffset = _tableOffsets[l];
+        for (int j = 0; j < d; j++) {
+          final double z = _zeroFractions[featureOffset + j];
+          final double contribution;
+          if ((mask & (1 << j)) != 0) {
+            if (coldZeros > 0)
+              continue;
+            contribution = (1 - z) * _tables[tableOffset + (mask & ~(1 << j))] * coldProduct;
+          } else {
+            final double others;
+            if (z == 0)
+              others = coldZeros == 1 ? coldProduct : 0;
+            else
+              others = coldZeros == 0 ? coldProduct / z : 0;
+            contribution = -z * _tables[tableOffset + mask] * others;
+          }
+          phi[_features[featureOffset + j]] += (float) (value * contribution);
+        }
+      }
+    }
+
+    private static int[] toArray(List<Integer> list) {
+      int[] result = new int[list.size()];
+      for (int i = 0; i < result.length; i++)
+        result[i] = list.get(i);
+      return result;
+    }
+  }
+
+  // walks the tree and collects the unique features and the splits on the path to each leaf
+  private static class PathCollector<N extends INode, S extends INodeStat> {
+    private final N[] _nodes;
+    private final S[] _stats;
+    private final int _maxTableSize;
+
+    private final List<Integer> _internalNodes = new ArrayList<>();
+    private final List<Integer> _leaves = new ArrayList<>();
+    private final List<int[]> _leafFeatures = new ArrayList<>();
+    private final List<double[]> _leafZeroFractions = new ArrayList<>();
+    private final List<int[]> _leafSplitNodes = new ArrayList<>();
+    private final List<int[]> _leafSplitChildren = new ArrayList<>();
+    private final List<int[]> _leafSplitSlots = new ArrayList<>();
+    private int _tableSize;
+
+    // current path
+    private int[] _pathNodes = new int[16];
+    private int[] _pathChildren = new int[16];
+
+    PathCollector(N[] nodes, S[] stats, int maxTableSize) {
+      _nodes = nodes;
+      _stats = stats;
+      _maxTableSize = maxTableSize;
+    }
+
+    boolean collect(int node, int depth) {
+      final N n = _nodes[node];
+      if (n.isLeaf()) {
+        return addLeaf(node, depth);
+      }
+      _internalNodes.add(node);
+      if (depth == _pathNodes.length) {
+        _pathNodes = Arrays.copyOf(_pathNodes, depth * 2);
+        _pathChildren = Arrays.copyOf(_pathChildren, depth * 2);
+      }
+      _pathNodes[depth] = node;
+      _pathChildren[depth] = n.getLeftChildIndex();
+      if (!collect(n.getLeftChildIndex(), depth + 1))
+        return false;
+      _pathChildren[depth] = n.getRightChildIndex();
+      return collect(n.getRightChildIndex(), depth + 1);
+    }
+
+    private boolean addLeaf(int leaf, int depth) {
+      int[] features = new int[depth];
+      double[] zeroFractions = new double[depth];
+      int[] slots = new int[depth];
+      int d = 0;
+      for (int i = 0; i < depth; i++) {
+        final int node = _pathNodes[i];
+        final int feature = _nodes[node].getSplitIndex();
+        int slot = 0;
+        while (slot < d && features[slot] != feature)
+          slot++;
+        if (slot == d) {
+          features[d] = feature;
+          zeroFractions[d] = 1;
+          d++;
+        }
+        // same fraction (in float precision) as used by the recursive algorithm
+        final float w = _stats[node].getWeight();
+        final float zeroFraction = w != 0 ? _stats[_pathChildren[i]].getWeight() / w : 0.5f;
+        zeroFractions[slot] = (float) (zeroFractions[slot] * zeroFraction);
+        slots[i] = slot;
+      }
+      if (d >= 31 || _tableSize + (1 << d) > _maxTableSize)
+        return false;
+      _tableSize += 1 << d;
+      _leaves.add(leaf);
+      _leafFeatures.add(Arrays.copyOf(features, d));
+      _leafZeroFractions.add(Arrays.copyOf(zeroFractions, d));
+      _leafSplitNodes.add(Arrays.copyOf(_pathNodes, depth));
+      _leafSplitChildren.add(Arrays.copyOf(_pathChildren, depth));
+      _leafSplitSlots.add(slots);
+      return true;
+    }
+  }
+
 }
@@ -31,6 +31,32 @@ public class TreeSHAPEnsemble<R> implements TreeSHAPPredictor<R> {
     return out_contribs; 
   }
 
+  /**
+   * Calculates unconditional contributions of a batch of rows. The trees are processed one after another for all
+   * the rows of the batch, the results are the same as if {@link #calculateContributions(Object, float[], int, int, TreeSHAPPredictor.Workspace)}
+   * was called for each row.
+   *
+   * @param feats input rows
+   * @param nrows number of rows to process
+   * @param out_contribs output contributions, one array per row; the contributions are added to the existing values
+   * @param workspace workspace created by {@link #makeWorkspace()}
+   */
+  @SuppressWarnings("unchecked")
+  public void calculateContributions(R[] feats, int nrows, float[][] out_contribs, TreeSHAPPredictor.Workspace workspace) {
+    for (int row = 0; row < nrows; row++) {
+      out_contribs[row][out_contribs[row].length - 1] += _initPred;
+    }
+    for (TreeSHAPPredictor<R> predictor : _predictors) {
+      if (predictor instanceof TreeSHAP) {
+        ((TreeSHAP<R, ?, ?>) predictor).calculateContributions(feats, nrows, out_contribs, workspace);
+      } else {
+        for (int row = 0; row < nrows; row++) {
+          predictor.calculateContributions(feats[row], out_contribs[row], 0, -1, workspace);
+        }
+      }
+    }
+  }
+
   @Override
   public TreeSHAPPredictor.Workspace makeWorkspace() {
     return _wsMakerIndex >= 0 ? _predictors[_wsMakerIndex].makeWorkspace() : null;
@@ -0,0 +1,22 @@
+package hex.genmodel.algos.tree;
+
+/**
+ * Scores the individual trees of a tree ensemble.
+ */
+public interface TreeScorer {
+
+  /**
+   * @param tree index of the tree (same as the index to the array of compressed trees)
+   * @return true if the tree is empty and doesn't contribute to the predictions
+   */
+  boolean isEmpty(int tree);
+
+  /**
+   * Scores a single row with a single (non-empty) tree.
+   * @param tree index of the tree
+   * @param row input row
+   * @return prediction of the tree
+   */
+  double score(int tree, double[] row);
+
+}
@@ -0,0 +1,244 @@
+package hex.genmodel.bytecode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal writer of JVM class files, just enough to generate the scoring code of a model at load time.
+ *
+ * The classes are written in the class file format of Java 5 (version 49): such classes are verified by type
+ * inference and don't need stack map frames, which keeps the generator simple. Only methods (no fields) are
+ * supported, the constant pool is limited to what the generated code needs.
+ */
+public final class ClassBuilder {
+
+  private static final int CLASS_FILE_VERSION = 49;
+  /** Constant pool is indexed by an unsigned short. */
+  static final int MAX_CONSTANT_POOL_SIZE = 65535;
+
+  private static final int CONSTANT_Utf8 = 1;
+  private static final int CONSTANT_Integer = 3;
+  private static final int CONSTANT_Long = 5;
+  private static final int CONSTANT_Double = 6;
+  private static final int CONSTANT_Class = 7;
+  private static final int CONSTANT_Methodref = 10;
+  private static final int CONSTANT_NameAndType = 12;
+
+  private final ByteArrayOutputStream _poolBytes = new ByteArrayOutputStream();
+  private final DataOutputStream _pool = new DataOutputStream(_poolBytes);
+  private final Map<Object, Integer> _poolIndex = new HashMap<>();
+  private int _poolSize = 1; // entry 0 is not used
+
+  private final String _name;
+  private final int _thisClass;
+  private final int _superClass;
+  private final int[] _interfaces;
+  private final int _codeAttribute;
+  private final List<MethodBuilder> _methods = new ArrayList<>();
+
+  /**
+   * @param name internal name of the class (eg. {@code hex/genmodel/Generated})
+   * @param superName internal name of the super class
+   * @param interfaces internal names of the implemented interfaces
+   */
+  public ClassBuilder(String name, String superName, String... interfaces) {
+    _name = name;
+    _thisClass = classRef(name);
+    _superClass = classRef(superName);
+    _interfaces = new int[interfaces.length];
+    for (int i = 0; i < interfaces.length; i++)
+      _interfaces[i] = classRef(interfaces[i]);
+    _codeAttribute = utf8("Code");
+  }
+
+  public String getName() {
+    return _name;
+  }
+
+  /**
+   * Adds a public no-arg constructor calling the no-arg constructor of the super class.
+   */
+  public void addDefaultConstructor(String superName) {
+    MethodBuilder init = addMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", 1, 1);
+    init.aload(0);
+    init.invoke(Opcodes.INVOKESPECIAL, superName, "<init>", "()V");
+    init.op(Opcodes.RETURN);
+  }
+
+  /**
+   * Starts a new method, the code of the method is emitted using the returned builder.
+   */
+  public MethodBuilder addMethod(int access, String name, String descriptor, int maxStack, int maxLocals) {
+    MethodBuilder method = new MethodBuilder(this, access, utf8(name), utf8(descriptor), maxStack, maxLocals);
+    _methods.add(method);
+    return method;
+  }
+
+  /** Number of entries of the constant pool used so far. */
+  public int constantPoolSize() {
+    return _poolSize;
+  }
+
+  public byte[] toByteArray() {
+    if (_poolSize > MAX_CONSTANT_POOL_SIZE)
+      throw new IllegalStateException("Constant pool of class " + _name + " is too large: " + _poolSize);
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeInt(0xCAFEBABE);
+      out.writeShort(0);
+      out.writeShort(CLASS_FILE_VERSION);
+      out.writeShort(_poolSize);
+      _pool.flush();
+      _poolBytes.writeTo(out);
+      out.writeShort(Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER);
+      out.writeShort(_thisClass);
+      out.writeShort(_superClass);
+      out.writeShort(_interfaces.length);
+      for (int i : _interfaces)
+        out.writeShort(i);
+      out.writeShort(0); // fields
+      out.writeShort(_methods.size());
+      for (MethodBuilder method : _methods)
+        method.write(out, _codeAttribute);
+      out.writeShort(0); // attributes
+      out.flush();
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      throw new IllegalStateException(e); // not possible, written to memory
+    }
+  }
+
+  // Constant pool
+
+  int utf8(String s) {
+    final String key = "U" + s;
+    Integer idx = _poolIndex.get(key);
+    if (idx == null) {
+      idx = newEntry(key, 1);
+      write1(CONSTANT_Utf8);
+      writeUTF(s);
+    }
+    return idx;
+  }
+
+  int classRef(String internalName) {
+    final String key = "C" + internalName;
+    Integer idx = _poolIndex.get(key);
+    if (idx == null) {
+      int name = utf8(internalName);
+      idx = newEntry(key, 1);
+      write1(CONSTANT_Class);
+      write2(name);
+    }
+    return idx;
+  }
+
+  int methodRef(String owner, String name, String descriptor) {
+    final String key = "M" + owner + '.' + name + descriptor;
+    Integer idx = _poolIndex.get(key);
+    if (idx == null) {
+      int ownerIdx = classRef(owner);
+      int nameAndType = nameAndType(name, descriptor);
+      idx = newEntry(key, 1);
+      write1(CONSTANT_Methodref);
+      write2(ownerIdx);
+      write2(nameAndType);
+    }
+    return idx;
+  }
+
+  private int nameAndType(String name, String descriptor) {
+    final String key = "N" + name + ':' + descriptor;
+    Integer idx = _poolIndex.get(key);
+    if (idx == null) {
+      int nameIdx = utf8(name);
+      int descIdx = utf8(descriptor);
+      idx = newEntry(key, 1);
+      write1(CONSTANT_NameAndType);
+      write2(nameIdx);
+      write2(descIdx);
+    }
+    return idx;
+  }
+
+  int intConst(int value) {
+    Integer idx = _poolIndex.get(value);
+    if (idx == null) {
+      idx = newEntry(value, 1);
+      write1(CONSTANT_Integer);
+      write4(value);
+    }
+    return idx;
+  }
+
+  int longConst(long value) {
+    Integer idx = _poolIndex.get(value);
+    if (idx == null) {
+      idx = newEntry(value, 2); // long constants take two entries
+      write1(CONSTANT_Long);
+      write4((int) (value >>> 32));
+      write4((int) value);
+    }
+    return idx;
+  }
+
+  int doubleConst(double value) {
+    // keyed by the bits: -0.0 and 0.0 are different constants, all NaNs are the same
+    final long bits = Double.doubleToLongBits(value);
+    final String key = "D" + bits;
+    Integer idx = _poolIndex.get(key);
+    if (idx == null) {
+      idx = newEntry(key, 2); // double constants take two entries
+      write1(CONSTANT_Double);
+      write4((int) (bits >>> 32));
+      write4((int) bits);
+    }
+    return idx;
+  }
+
+  private int newEntry(Object key, int size) {
+    int idx = _poolSize;
+    _poolSize += size;
+    _poolIndex.put(key, idx);
+    return idx;
+  }
+
+  private void write1(int b) {
+    try {
+      _pool.writeByte(b);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void write2(int s) {
+    try {
+      _pool.writeShort(s);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void write4(int i) {
+    try {
+      _pool.writeInt(i);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void writeUTF(String s) {
+    try {
+      _pool.writeUTF(s);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+}
@@ -0,0 +1,18 @@
+package hex.genmodel.bytecode;
+
+/**
+ * Loads classes generated by {@link ClassBuilder}. Each model gets its own loader, the generated classes are
+ * unloaded together with the model.
+ */
+public final class GeneratedClassLoader extends ClassLoader {
+
+  public GeneratedClassLoader(ClassLoader parent) {
+    super(parent);
+  }
+
+  public Class<?> define(ClassBuilder builder) {
+    final byte[] bytes = builder.toByteArray();
+    return defineClass(builder.getName().replace('/', '.'), bytes, 0, bytes.length);
+  }
+
+}
@@ -0,0 +1,44 @@
+package hex.genmodel.bytecode;
+
+import java.util.Arrays;
+
+/**
+ * Position in the code of a method, jumps to a label can be emitted before the label is marked.
+ */
+public final class Label {
+
+  int _position = -1;
+
+  // jumps waiting for the label to be marked: offset of the jump instruction and of its operand
+  private int[] _jumps = new int[2];
+  private int[] _operands = new int[2];
+  private boolean[] _wide = new boolean[2];
+  private int _pending;
+
+  void addFixup(int opcodeOffset, int operandOffset, boolean wide) {
+    if (_pending == _jumps.length) {
+      _jumps = Arrays.copyOf(_jumps, _pending * 2);
+      _operands = Arrays.copyOf(_operands, _pending * 2);
+      _wide = Arrays.copyOf(_wide, _pending * 2);
+    }
+    _jumps[_pending] = opcodeOffset;
+    _operands[_pending] = operandOffset;
+    _wide[_pending] = wide;
+    _pending++;
+  }
+
+  void resolve(MethodBuilder method) {
+    for (int i = 0; i < _pending; i++) {
+      if (_wide[i])
+        method.patchInt(_operands[i], _position - _jumps[i]);
+      else
+        method.patchShort(_operands[i], _position - _jumps[i]);
+    }
+    _pending = 0;
+  }
+
+  public boolean isMarked() {
+    return _position >= 0;
+  }
+
+}
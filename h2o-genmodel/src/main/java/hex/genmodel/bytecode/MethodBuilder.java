@@ -0,0 +1,227 @@
+package hex.genmodel.bytecode;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static hex.genmodel.bytecode.Opcodes.*;
+
+/**
+ * Emits the code of a single method. Jumps use 16-bit offsets, the generators are expected to keep the methods
+ * well under the limit (large methods are not compiled by the JIT anyway).
+ */
+public final class MethodBuilder {
+
+  /** Largest method the HotSpot JIT is willing to compile (-XX:HugeMethodLimit). */
+  public static final int HUGE_METHOD_LIMIT = 8000;
+  private static final int MAX_CODE_SIZE = 32767; // max jump offset
+
+  private final ClassBuilder _owner;
+  private final int _access;
+  private final int _name;
+  private final int _descriptor;
+  private final int _maxStack;
+  private final int _maxLocals;
+  private byte[] _code = new byte[256];
+  private int _size;
+
+  MethodBuilder(ClassBuilder owner, int access, int name, int descriptor, int maxStack, int maxLocals) {
+    _owner = owner;
+    _access = access;
+    _name = name;
+    _descriptor = descriptor;
+    _maxStack = maxStack;
+    _maxLocals = maxLocals;
+  }
+
+  /** Current size of the code in bytes. */
+  public int size() {
+    return _size;
+  }
+
+  public MethodBuilder op(int opcode) {
+    put1(opcode);
+    return this;
+  }
+
+  public MethodBuilder aload(int var) {
+    return varInsn(ALOAD, var);
+  }
+
+  public MethodBuilder iload(int var) {
+    return varInsn(ILOAD, var);
+  }
+
+  public MethodBuilder istore(int var) {
+    return varInsn(ISTORE, var);
+  }
+
+  public MethodBuilder dload(int var) {
+    return varInsn(DLOAD, var);
+  }
+
+  public MethodBuilder dstore(int var) {
+    return varInsn(DSTORE, var);
+  }
+
+  private MethodBuilder varInsn(int opcode, int var) {
+    if (var > 255)
+      throw new IllegalArgumentException("Local variable index too large: " + var);
+    put1(opcode);
+    put1(var);
+    return this;
+  }
+
+  /** Pushes an int constant using the shortest instruction. */
+  public MethodBuilder iconst(int value) {
+    if (value >= -1 && value <= 5) {
+      put1(ICONST_0 + value);
+    } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+      put1(BIPUSH);
+      put1(value);
+    } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+      put1(SIPUSH);
+      put2(value);
+    } else {
+      ldc(_owner.intConst(value));
+    }
+    return this;
+  }
+
+  public MethodBuilder lconst(long value) {
+    if (value == 0 || value == 1) {
+      put1(LCONST_0 + (int) value);
+    } else {
+      put1(LDC2_W);
+      put2(_owner.longConst(value));
+    }
+    return this;
+  }
+
+  public MethodBuilder dconst(double value) {
+    if (Double.doubleToRawLongBits(value) == 0) { // positive zero only
+      put1(DCONST_0);
+    } else {
+      put1(LDC2_W);
+      put2(_owner.doubleConst(value));
+    }
+    return this;
+  }
+
+  private void ldc(int idx) {
+    if (idx <= 255) {
+      put1(LDC);
+      put1(idx);
+    } else {
+      put1(LDC_W);
+      put2(idx);
+    }
+  }
+
+  public MethodBuilder invoke(int opcode, String owner, String name, String descriptor) {
+    put1(opcode);
+    put2(_owner.methodRef(owner, name, descriptor));
+    return this;
+  }
+
+  public MethodBuilder newObject(String type) {
+    put1(NEW);
+    put2(_owner.classRef(type));
+    return this;
+  }
+
+  public MethodBuilder jump(int opcode, Label target) {
+    final int at = _size;
+    put1(opcode);
+    put2(0);
+    if (target.isMarked())
+      patchShort(at + 1, target._position - at);
+    else
+      target.addFixup(at, at + 1, false);
+    return this;
+  }
+
+  public MethodBuilder mark(Label label) {
+    if (label.isMarked())
+      throw new IllegalStateException("Label already marked");
+    label._position = _size;
+    label.resolve(this);
+    return this;
+  }
+
+  /**
+   * Emits a {@code tableswitch} on the int on top of the stack.
+   * @param low value of the first case
+   * @param cases targets of the cases {@code low, low + 1, ...}
+   * @param dflt target for values out of the range of the cases
+   */
+  public MethodBuilder tableswitch(int low, Label[] cases, Label dflt) {
+    final int at = _size;
+    put1(TABLESWITCH);
+    while (_size % 4 != 0)
+      put1(0);
+    switchTarget(at, dflt);
+    put4(low);
+    put4(low + cases.length - 1);
+    for (Label l : cases)
+      switchTarget(at, l);
+    return this;
+  }
+
+  private void switchTarget(int opcodeOffset, Label target) {
+    final int operand = _size;
+    put4(0);
+    if (target.isMarked())
+      patchInt(operand, target._position - opcodeOffset);
+    else
+      target.addFixup(opcodeOffset, operand, true);
+  }
+
+  void patchShort(int offset, int value) {
+    if (value < Short.MIN_VALUE || value > Short.MAX_VALUE)
+      throw new IllegalStateException("Jump offset out of range: " + value);
+    _code[offset] = (byte) (value >>> 8);
+    _code[offset + 1] = (byte) value;
+  }
+
+  void patchInt(int offset, int value) {
+    _code[offset] = (byte) (value >>> 24);
+    _code[offset + 1] = (byte) (value >>> 16);
+    _code[offset + 2] = (byte) (value >>> 8);
+    _code[offset + 3] = (byte) value;
+  }
+
+  private void put1(int b) {
+    if (_size == _code.length)
+      _code = Arrays.copyOf(_code, _code.length * 2);
+    _code[_size++] = (byte) b;
+  }
+
+  private void put2(int s) {
+    put1(s >>> 8);
+    put1(s);
+  }
+
+  private void put4(int i) {
+    put2(i >>> 16);
+    put2(i);
+  }
+
+  void write(DataOutputStream out, int codeAttribute) throws IOException {
+    if (_size > MAX_CODE_SIZE)
+      throw new IllegalStateException("Method is too large: " + _size + " bytes");
+    out.writeShort(_access);
+    out.writeShort(_name);
+    out.writeShort(_descriptor);
+    out.writeShort(1); // attributes
+    out.writeShort(codeAttribute);
+    out.writeInt(2 + 2 + 4 + _size + 2 + 2);
+    out.writeShort(_maxStack);
+    out.writeShort(_maxLocals);
+    out.writeInt(_size);
+    out.write(_code, 0, _size);
+    out.writeShort(0); // exception table
+    out.writeShort(0); // attributes
+  }
+
+}
@@ -0,0 +1,65 @@
+package hex.genmodel.bytecode;
+
+/**
+ * JVM opcodes used by the bytecode generators.
+ */
+public final class Opcodes {
+
+  private Opcodes() {}
+
+  public static final int ACC_PUBLIC = 0x0001;
+  public static final int ACC_PRIVATE = 0x0002;
+  public static final int ACC_STATIC = 0x0008;
+  public static final int ACC_FINAL = 0x0010;
+  public static final int ACC_SUPER = 0x0020;
+
+  public static final int ICONST_0 = 3;
+  public static final int LCONST_0 = 9;
+  public static final int LCONST_1 = 10;
+  public static final int DCONST_0 = 14;
+  public static final int BIPUSH = 16;
+  public static final int SIPUSH = 17;
+  public static final int LDC = 18;
+  public static final int LDC_W = 19;
+  public static final int LDC2_W = 20;
+  public static final int ILOAD = 21;
+  public static final int DLOAD = 24;
+  public static final int ALOAD = 25;
+  public static final int DALOAD = 49;
+  public static final int ISTORE = 54;
+  public static final int DSTORE = 57;
+  public static final int NEW = 187;
+  public static final int DUP = 89;
+  public static final int IADD = 96;
+  public static final int DADD = 99;
+  public static final int ISUB = 100;
+  public static final int DSUB = 103;
+  public static final int DMUL = 107;
+  public static final int IUSHR = 124;
+  public static final int LUSHR = 125;
+  public static final int LAND = 127;
+  public static final int I2D = 135;
+  public static final int D2I = 142;
+  public static final int LCMP = 148;
+  public static final int DCMPL = 151;
+  public static final int DCMPG = 152;
+  public static final int IFEQ = 153;
+  public static final int IFNE = 154;
+  public static final int IFLT = 155;
+  public static final int IFGE = 156;
+  public static final int IFGT = 157;
+  public static final int IFLE = 158;
+  public static final int IF_ICMPLT = 161;
+  public static final int IF_ICMPGE = 162;
+  public static final int GOTO = 167;
+  public static final int TABLESWITCH = 170;
+  public static final int IRETURN = 172;
+  public static final int DRETURN = 175;
+  public static final int ARETURN = 176;
+  public static final int RETURN = 177;
+  public static final int INVOKEVIRTUAL = 182;
+  public static final int INVOKESPECIAL = 183;
+  public static final int INVOKESTATIC = 184;
+  public static final int ATHROW = 191;
+
+}
@@ -76,6 +76,12 @@ public class EasyPredictModelWrapper implements Serializable {
 
   private final PredictContributions predictContributions;
 
+  // Needed to set up scoring contexts
+  private final Map<String, Integer> columnMapping;
+  private final Map<Integer, CategoricalEncoder> domainMap;
+  private final ErrorConsumer errorConsumer;
+  private final boolean convertUnknownCategoricalLevelsToNa;
+
   public boolean getEnableLeafAssignment() { return enableLeafAssignment; }
   public boolean getEnableGLRMReconstruct() { return enableGLRMReconstruct; }
   public boolean getEnableStagedProbabilities() { return enableStagedProbabilities; }
@@ -300,7 +306,8 @@ public class EasyPredictModelWrapper implements Serializable {
   public EasyPredictModelWrapper(Config config) {
     m = config.getModel();
     // Ensure an error consumer is always instantiated to avoid missing null-check errors.
-    ErrorConsumer errorConsumer = config.getErrorConsumer() == null ? new VoidErrorConsumer() : config.getErrorConsumer();
+    errorConsumer = config.getErrorConsumer() == null ? new VoidErrorConsumer() : config.getErrorConsumer();
+    convertUnknownCategoricalLevelsToNa = config.getConvertUnknownCategoricalLevelsToNa();
 
     // How to handle unknown categorical levels.
     useExtendedOutput = config.getUseExtendedOutput();
@@ -323,8 +330,8 @@ public class EasyPredictModelWrapper implements Serializable {
 
     CategoricalEncoding categoricalEncoding = config.getUseExternalEncoding() ?
             CategoricalEncoding.AUTO : m.getCategoricalEncoding();
-    Map<String, Integer> columnMapping = categoricalEncoding.createColumnMapping(m);
-    Map<Integer, CategoricalEncoder> domainMap = categoricalEncoding.createCategoricalEncoders(m, columnMapping);
+    columnMapping = categoricalEncoding.createColumnMapping(m);
+    domainMap = categoricalEncoding.createCategoricalEncoders(m, columnMapping);
 
     if (m instanceof ConverterFactoryProvidingModel) {
       rowDataConverter = ((ConverterFactoryProvidingModel) m).makeConverterFactory(columnMapping, domainMap, errorConsumer, config);
@@ -345,6 +352,34 @@ public class EasyPredictModelWrapper implements Serializable {
   }
 
 
+  /**
+   * Creates a reusable context for scoring rows with the given columns, without allocating anything per row.
+   *
+   * The column names are resolved against the model here, once; columns unknown to the model (and the response
+   * column) are accepted and ignored when scoring, the same way {@link RowData} entries are. A context must not be
+   * shared between threads, each thread should create its own.
+   *
+   * @param columns names of the input columns, the values are then set by the index of the column in this list
+   * @return new scoring context
+   */
+  public ScoringContext newScoringContext(String... columns) {
+    if (rowDataConverter.getClass() != RowToRawDataConverter.class) {
+      throw new UnsupportedOperationException("Model " + m.getClass().getName() + " uses a custom input conversion and cannot be scored with a ScoringContext.");
+    }
+    int[] targetIndex = new int[columns.length];
+    CategoricalEncoder[] encoders = new CategoricalEncoder[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      Integer index = columnMapping.get(columns[i]);
+      if (index == null || index >= m.nfeatures()) {
+        targetIndex[i] = -1;
+      } else {
+        targetIndex[i] = index;
+        encoders[i] = domainMap.get(index);
+      }
+    }
+    return new ScoringContext(m, columns.clone(), targetIndex, encoders, errorConsumer, convertUnknownCategoricalLevelsToNa);
+  }
+
   /**
    * Make a prediction on a new data point.
    *
@@ -0,0 +1,187 @@
+package hex.genmodel.easy;
+
+import hex.genmodel.GenModel;
+import hex.genmodel.easy.exception.PredictUnknownCategoricalLevelException;
+
+import java.util.Arrays;
+
+/**
+ * Reusable, allocation-free alternative to scoring {@link RowData} with {@link EasyPredictModelWrapper}.
+ *
+ * The input columns are resolved against the model once, when the context is created (see
+ * {@link EasyPredictModelWrapper#newScoringContext(String...)}), and the values are then set by the index of the
+ * column in that list. The input row and the predictions are kept in the context and re-used for every row, the
+ * results are read directly as primitives. Typical use:
+ *
+ * <pre>
+ *     ScoringContext ctx = wrapper.newScoringContext("AGE", "RACE", "PSA");
+ *     ...
+ *     ctx.reset();
+ *     ctx.setValue(0, 65);
+ *     ctx.setCategorical(1, "white");
+ *     ctx.setValue(2, 1.4);
+ *     ctx.score();
+ *     double p = ctx.getClassProbability(1);
+ * </pre>
+ *
+ * A context is not thread-safe, each thread should create its own (the wrapper and the model can be shared).
+ * The predictions are the same as the ones of the {@code predict*} methods of the wrapper; the extended outputs
+ * (leaf assignments, contributions, staged probabilities, calibrated probabilities) are not provided. Scoring itself
+ * allocates nothing for GLMs; tree models allocate nothing when their trees are compiled
+ * (see {@link hex.genmodel.algos.tree.SharedTreeMojoModel#setCompiledScoring(boolean)}).
+ */
+public class ScoringContext {
+
+  private final GenModel _model;
+  private final String[] _columns;
+  private final int[] _targetIndex;               // position in the raw data, -1 if the model doesn't use the column
+  private final CategoricalEncoder[] _encoders;   // null for numeric columns
+  private final EasyPredictModelWrapper.ErrorConsumer _errorConsumer;
+  private final boolean _convertUnknownCategoricalLevelsToNa;
+  private final String[] _responseDomain;
+
+  private final double[] _rawData;
+  private final double[] _preds;
+
+  ScoringContext(GenModel model, String[] columns, int[] targetIndex, CategoricalEncoder[] encoders,
+                 EasyPredictModelWrapper.ErrorConsumer errorConsumer, boolean convertUnknownCategoricalLevelsToNa) {
+    _model = model;
+    _columns = columns;
+    _targetIndex = targetIndex;
+    _encoders = encoders;
+    _errorConsumer = errorConsumer;
+    _convertUnknownCategoricalLevelsToNa = convertUnknownCategoricalLevelsToNa;
+    String[] responseDomain = model.isSupervised() ? model.getDomainValues(model.getResponseIdx()) : null;
+    if (responseDomain == null && model.getNumResponseClasses() == 2)
+      responseDomain = new String[]{"0", "1"}; // quasibinomial
+    _responseDomain = responseDomain;
+    _rawData = new double[model.nfeatures()];
+    _preds = new double[model.getPredsSize()];
+    reset();
+  }
+
+  /**
+   * @return number of input columns of this context
+   */
+  public int getNumColumns() {
+    return _columns.length;
+  }
+
+  /**
+   * @param column name of an input column
+   * @return index of the column in this context, -1 if not found
+   */
+  public int indexOf(String column) {
+    for (int i = 0; i < _columns.length; i++)
+      if (_columns[i].equals(column))
+        return i;
+    return -1;
+  }
+
+  /**
+   * Sets all the inputs to missing values. Needs to be called before the values of each new row are set.
+   */
+  public void reset() {
+    Arrays.fill(_rawData, Double.NaN);
+  }
+
+  /**
+   * Sets the value of a numeric column. Columns not used by the model are ignored.
+   * @param index index of the column in this context
+   * @param value value, NaN for a missing value
+   */
+  public void setValue(int index, double value) {
+    int target = _targetIndex[index];
+    if (target < 0)
+      return;
+    if (_encoders[index] != null) {
+      if (!Double.isNaN(value))
+        throw new IllegalArgumentException("Column " + _columns[index] + " is categorical, use setCategorical to set its value.");
+      _encoders[index].encodeNA(_rawData);
+      return;
+    }
+    _rawData[target] = value;
+  }
+
+  /**
+   * Sets the level of a categorical column. Columns not used by the model are ignored.
+   * @param index index of the column in this context
+   * @param level categorical level, null for a missing value
+   * @throws PredictUnknownCategoricalLevelException if the level is not known to the model (and the wrapper
+   * wasn't configured to convert unknown levels to NAs)
+   */
+  public void setCategorical(int index, String level) throws PredictUnknownCategoricalLevelException {
+    if (_targetIndex[index] < 0)
+      return;
+    CategoricalEncoder encoder = _encoders[index];
+    if (encoder == null)
+      throw new IllegalArgumentException("Column " + _columns[index] + " is not categorical, use setValue to set its value.");
+    if (level == null) {
+      encoder.encodeNA(_rawData);
+    } else if (!encoder.encodeCatValue(level, _rawData)) {
+      if (_convertUnknownCategoricalLevelsToNa) {
+        encoder.encodeNA(_rawData);
+        _errorConsumer.unseenCategorical(_columns[index], level, "Previously unseen categorical level detected, marking as NaN.");
+      } else {
+        _errorConsumer.dataTransformError(_columns[index], level, "Unknown categorical level detected.");
+        throw new PredictUnknownCategoricalLevelException("Unknown categorical level (" + _columns[index] + "," + level + ")", _columns[index], level);
+      }
+    }
+  }
+
+  /**
+   * Scores the current input row.
+   */
+  public void score() {
+    score(0.0);
+  }
+
+  /**
+   * Scores the current input row with an offset.
+   * @param offset prediction offset
+   */
+  public void score(double offset) {
+    if (_model.requiresOffset() || offset != 0)
+      _model.score0(_rawData, offset, _preds);
+    else
+      _model.score0(_rawData, _preds);
+  }
+
+  /**
+   * @param i index of the prediction, the layout is the same as of {@link GenModel#score0(double[], double[])}
+   * @return raw prediction
+   */
+  public double getPrediction(int i) {
+    return _preds[i];
+  }
+
+  /**
+   * @return predicted value of a regression model
+   */
+  public double getValue() {
+    return _preds[0];
+  }
+
+  /**
+   * @return index of the predicted class of a classification model
+   */
+  public int getLabelIndex() {
+    return (int) _preds[0];
+  }
+
+  /**
+   * @return predicted class of a classification model
+   */
+  public String getLabel() {
+    return _responseDomain[getLabelIndex()];
+  }
+
+  /**
+   * @param labelIndex index of the class
+   * @return predicted probability of the class
+   */
+  public double getClassProbability(int labelIndex) {
+    return _preds[labelIndex + 1];
+  }
+
+}
@@ -0,0 +1,183 @@
+package hex.genmodel.tools;
+
+import hex.genmodel.MappedMojoReaderBackend;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Repacks a MOJO into a container that can be memory-mapped (see {@link MappedMojoReaderBackend}): all entries are
+ * stored uncompressed and the data of each entry starts at an aligned offset of the file. Such a MOJO is loaded
+ * without reading the trees and the JVMs scoring it on the same host share a single copy in the page cache.
+ *
+ * The container is still a regular zip file, any MOJO reader can load it.
+ */
+public class AlignMojo {
+
+  private static final int PADDING_EXTRA_ID = 0xD935; // same as used by zipalign
+
+  private File _input;
+  private File _output;
+
+  public static void main(String[] args) {
+    AlignMojo main = new AlignMojo();
+    main.parseArgs(args);
+    try {
+      main.run();
+    } catch (Exception e) {
+      System.err.println("ERROR: " + e.getMessage());
+      e.printStackTrace();
+      System.exit(2);
+    }
+  }
+
+  private void run() throws IOException {
+    align(_input, _output);
+  }
+
+  /**
+   * Writes a copy of the MOJO with uncompressed, aligned entries.
+   * @param mojo MOJO zip file or exploded MOJO directory
+   * @param target output file
+   */
+  public static void align(File mojo, File target) throws IOException {
+    final CountingOutputStream counter = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(target)));
+    final ZipOutputStream zos = new ZipOutputStream(counter);
+    try {
+      if (mojo.isDirectory()) {
+        for (String name : listFiles(mojo, ""))
+          writeEntry(zos, counter, name, readFile(new File(mojo, name)));
+      } else {
+        ZipFile zf = new ZipFile(mojo);
+        try {
+          Enumeration<? extends ZipEntry> entries = zf.entries();
+          while (entries.hasMoreElements()) {
+            ZipEntry ze = entries.nextElement();
+            if (ze.isDirectory())
+              continue;
+            InputStream is = zf.getInputStream(ze);
+            try {
+              writeEntry(zos, counter, ze.getName(), readStream(is));
+            } finally {
+              is.close();
+            }
+          }
+        } finally {
+          zf.close();
+        }
+      }
+      zos.setComment(MappedMojoReaderBackend.CONTAINER_COMMENT);
+    } finally {
+      zos.close();
+    }
+  }
+
+  private static void writeEntry(ZipOutputStream zos, CountingOutputStream counter, String name, byte[] data) throws IOException {
+    CRC32 crc = new CRC32();
+    crc.update(data);
+    ZipEntry e = new ZipEntry(name);
+    e.setMethod(ZipEntry.STORED);
+    e.setSize(data.length);
+    e.setCompressedSize(data.length);
+    e.setCrc(crc.getValue());
+    // local header is 30 bytes + name + extra field, the extra field pads the data to the alignment
+    final long dataStart = counter._count + 30 + name.getBytes("UTF-8").length + 4;
+    final int align = MappedMojoReaderBackend.ALIGNMENT;
+    final int padding = (int) ((align - dataStart % align) % align);
+    byte[] extra = new byte[4 + padding];
+    extra[0] = (byte) PADDING_EXTRA_ID;
+    extra[1] = (byte) (PADDING_EXTRA_ID >>> 8);
+    extra[2] = (byte) padding;
+    extra[3] = 0;
+    e.setExtra(extra);
+    zos.putNextEntry(e);
+    zos.write(data);
+    zos.closeEntry();
+  }
+
+  private static List<String> listFiles(File dir, String prefix) {
+    List<String> names = new ArrayList<>();
+    File[] files = dir.listFiles();
+    if (files == null)
+      return names;
+    for (File f : files) {
+      if (f.isDirectory())
+        names.addAll(listFiles(f, prefix + f.getName() + "/"));
+      else
+        names.add(prefix + f.getName());
+    }
+    return names;
+  }
+
+  private static byte[] readFile(File f) throws IOException {
+    InputStream is = new FileInputStream(f);
+    try {
+      return readStream(is);
+    } finally {
+      is.close();
+    }
+  }
+
+  private static byte[] readStream(InputStream is) throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    byte[] buf = new byte[1 << 16];
+    int n;
+    while ((n = is.read(buf)) > 0)
+      os.write(buf, 0, n);
+    return os.toByteArray();
+  }
+
+  private static class CountingOutputStream extends FilterOutputStream {
+    long _count;
+
+    CountingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      _count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      _count += len;
+    }
+  }
+
+  private static void usage() {
+    System.out.println("");
+    System.out.println("Usage:  java [...java args...] hex.genmodel.tools.AlignMojo --input <mojo> --output <file>");
+    System.out.println("");
+    System.out.println("     --input   MOJO zip file or exploded MOJO directory.");
+    System.out.println("     --output  Name of the MOJO container to write, entries are stored uncompressed and aligned");
+    System.out.println("               so that the trees can be read directly from a memory-mapping of the file.");
+    System.out.println("");
+    System.exit(1);
+  }
+
+  private void parseArgs(String[] args) {
+    for (int i = 0; i < args.length; i++) {
+      String s = args[i];
+      if (s.equals("--input") && i + 1 < args.length) {
+        _input = new File(args[++i]);
+      } else if (s.equals("--output") && i + 1 < args.length) {
+        _output = new File(args[++i]);
+      } else {
+        System.out.println("ERROR: Unknown command line argument: " + s);
+        usage();
+      }
+    }
+    if (_input == null || _output == null)
+      usage();
+  }
+
+}
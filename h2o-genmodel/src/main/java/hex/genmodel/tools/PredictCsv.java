@@ -11,26 +11,29 @@ import hex.genmodel.easy.RowData;
 import hex.genmodel.easy.prediction.*;
 import hex.genmodel.utils.ArrayUtils;
 
-import java.io.BufferedWriter;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.IOException;
+import java.io.*;
 import java.util.*;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Simple driver program for reading a CSV file and making predictions.  Added support for separators that are
  * not commas. User needs to add the --separator separator_string to the input call.  Do not escape
  * the special Java characters, I will do it for you.
  *
+ * Rows are scored by several threads ({@code --threads}), the output is written in the order of the input.
+ * Input and output files with the {@code .gz} extension are (de)compressed on the fly.
+ *
  * This driver program is used as a test harness by several tests in the testdir_javapredict directory.
  * <p></p>
  * See the top-of-tree master version of this file <a href="https://github.com/h2oai/h2o-3/blob/master/h2o-genmodel/src/main/java/hex/genmodel/tools/PredictCsv.java" target="_blank">here on github</a>.
  */
 public class PredictCsv {
+  private static final int BATCH_SIZE = 1024;
+  private static final int BATCHES_IN_FLIGHT_PER_THREAD = 4;
+  private static final int IO_BUFFER_SIZE = 1 << 16;
+
   private final String inputCSVFileName;
   private final String outputCSVFileName;
   private final boolean useDecimalOutput;
@@ -42,6 +45,11 @@ public class PredictCsv {
   private final boolean returnGLRMReconstruct;
   private final int glrmIterNumber;
   private final boolean outputHeader;
+  private final int threads;
+
+  // Throughput of the last run
+  private long scoredRows;
+  private long scoringMillis;
 
   // Model instance
   private EasyPredictModelWrapper modelWrapper;
@@ -51,7 +59,7 @@ public class PredictCsv {
           boolean useDecimalOutput, char separator, boolean setInvNumNA, 
           boolean getTreePath, boolean predictContributions, boolean predictCalibrated,
           boolean returnGLRMReconstruct, int glrmIterNumber,
-          boolean outputHeader) {
+          boolean outputHeader, int threads) {
     this.inputCSVFileName = inputCSVFileName;
     this.outputCSVFileName = outputCSVFileName;
     this.useDecimalOutput = useDecimalOutput;
@@ -63,6 +71,7 @@ public class PredictCsv {
     this.returnGLRMReconstruct = returnGLRMReconstruct;
     this.glrmIterNumber = glrmIterNumber;
     this.outputHeader = outputHeader;
+    this.threads = threads;
   }
 
   public static void main(String[] args) {
@@ -72,6 +81,7 @@ public class PredictCsv {
     // Run the main program
     try {
       main.run();
+      main.reportThroughput();
     } catch (Exception e) {
       System.out.println("Predict error: " + e.getMessage());
       System.out.println();
@@ -126,6 +136,12 @@ public class PredictCsv {
     return predictor;
   }
 
+  private void reportThroughput() {
+    double seconds = scoringMillis / 1000.0;
+    System.err.println(String.format("Scored %d rows in %.3f s (%.0f rows/s)",
+            scoredRows, seconds, seconds > 0 ? scoredRows / seconds : 0));
+  }
+
   private static RowData formatDataRow(String[] splitLine, String[] inputColumnNames) {
     // Assemble the input values for the row.
     RowData row = new RowData();
@@ -155,12 +171,12 @@ public class PredictCsv {
     return useDecimalOutput? Double.toString(d) : Double.toHexString(d);
   }
 
-  private void writeTreePathNames(BufferedWriter output) throws Exception {
+  private void writeTreePathNames(Writer output) throws Exception {
     String[] columnNames = ((SharedTreeMojoModel) modelWrapper.m).getDecisionPathNames();
     writeColumnNames(output, columnNames);
   }
 
-  private void writeCalibratedOutputNames(BufferedWriter output) throws Exception {
+  private void writeCalibratedOutputNames(Writer output) throws Exception {
     String[] outputNames = modelWrapper.m.getOutputNames();
     String[] calibOutputNames = new String[outputNames.length - 1];
     for (int i = 0; i < calibOutputNames.length; i++) {
@@ -169,11 +185,11 @@ public class PredictCsv {
     writeColumnNames(output, ArrayUtils.append(outputNames, calibOutputNames));
   }
 
-  private void writeContributionNames(BufferedWriter output) throws Exception {
+  private void writeContributionNames(Writer output) throws Exception {
     writeColumnNames(output, modelWrapper.getContributionNames());
   }
 
-  private void writeColumnNames(BufferedWriter output, String[] columnNames) throws Exception {
+  private void writeColumnNames(Writer output, String[] columnNames) throws Exception {
     int lastIndex = columnNames.length-1;
     for (int index = 0; index < lastIndex; index++)  {
       output.write(columnNames[index]);
@@ -184,8 +200,9 @@ public class PredictCsv {
 
   public void run() throws Exception {
     ModelCategory category = modelWrapper.getModelCategory();
-    CSVReader reader = new CSVReader(new FileReader(inputCSVFileName), separator);
-    BufferedWriter output = new BufferedWriter(new FileWriter(outputCSVFileName));
+    CSVReader reader = new CSVReader(openInput(inputCSVFileName), separator);
+    Writer output = openOutput(outputCSVFileName);
+    final long startMillis = System.currentTimeMillis();
 
     // Emit outputCSV column names.
     if (outputHeader) {
@@ -239,151 +256,318 @@ public class PredictCsv {
       else  // file empty, throw an error
         throw new Exception("Input dataset file is empty!");
 
-      while ((splitLine = reader.readNext()) != null) {
-        // Parse the CSV line.  Don't handle quoted commas.  This isn't a parser test.
-        RowData row = formatDataRow(splitLine, inputColumnNames);
-        // Do the prediction.
-        // Emit the result to the output file.
-        String offsetColumn = modelWrapper.m.getOffsetName();
-        double offset = offsetColumn==null ? 0 : Double.parseDouble((String) row.get(offsetColumn));
-        switch (category) {
-          case AutoEncoder: { // write the expanded predictions out
-            AutoEncoderModelPrediction p = modelWrapper.predictAutoEncoder(row);
-            for (int i=0; i < p.reconstructed.length; i++) {
-              output.write(myDoubleToString(p.reconstructed[i]));
-              if (i < p.reconstructed.length)
-                output.write(',');
+      if (effectiveThreads(category) > 1) {
+        lineNum += runPipelined(reader, inputColumnNames, category, output);
+      } else {
+        while ((splitLine = reader.readNext()) != null) {
+          // Parse the CSV line.  Don't handle quoted commas.  This isn't a parser test.
+          RowData row = formatDataRow(splitLine, inputColumnNames);
+          // Do the prediction.
+          // Emit the result to the output file.
+          predictRow(row, category, output);
+          output.write("\n");
+          lineNum++;
+        }
+      }
+    }
+    catch (RowFailure e) {
+      lineNum = e.lineNum;
+      throw new Exception("Prediction failed on line " + lineNum, e.getCause());
+    }
+    catch (Exception e) {
+      throw new Exception("Prediction failed on line " + lineNum, e);
+    } finally {
+      // Clean up.
+      output.close();
+      reader.close();
+    }
+    scoredRows = lineNum - 1;
+    scoringMillis = System.currentTimeMillis() - startMillis;
+  }
+
+  /**
+   * Scores the rows with several threads. One thread reads and parses the input and cuts it into batches,
+   * the batches are scored by a pool of {@code threads} scorers, and the calling thread writes the scored batches
+   * in the order of the input. The number of batches in flight is bounded so that a slow writer (or a fast reader)
+   * doesn't make the whole input pile up in memory.
+   *
+   * @return number of rows scored
+   */
+  private int runPipelined(final CSVReader reader, final String[] inputColumnNames,
+                           final ModelCategory category, Writer output) throws Exception {
+    final int nthreads = effectiveThreads(category);
+    final BlockingQueue<ScoringTask> pending = new ArrayBlockingQueue<>(BATCHES_IN_FLIGHT_PER_THREAD * nthreads);
+    final ExecutorService scorers = Executors.newFixedThreadPool(nthreads, new ThreadFactory() {
+      private int cnt = 0;
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "PredictCsv-scorer-" + cnt++);
+        t.setDaemon(true);
+        return t;
+      }
+    });
+    final ScoringTask endOfInput = new ScoringTask(Collections.<String[]>emptyList(), 0, inputColumnNames, category);
+    final RowFailure[] readFailure = new RowFailure[1];
+    final Thread readerThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        int lineNum = 1;
+        List<String[]> batch = new ArrayList<>(BATCH_SIZE);
+        boolean gaveUp = false; // the writer gave up, nobody is waiting for the rest of the input
+        try {
+          String[] splitLine;
+          while ((splitLine = reader.readNext()) != null) {
+            batch.add(splitLine);
+            if (batch.size() == BATCH_SIZE) {
+              submit(batch, lineNum);
+              lineNum += batch.size();
+              batch = new ArrayList<>(BATCH_SIZE);
             }
-            break;
           }
-          case Binomial: {
-            BinomialModelPrediction p = modelWrapper.predictBinomial(row, offset);
-            if (getTreePath) {
-              writeTreePaths(p.leafNodeAssignments, output);
-            } else if (predictContributions) {
-              writeContributions(p.contributions, output);
-            } else {
-              output.write(p.label);
-              output.write(",");
-              for (int i = 0; i < p.classProbabilities.length; i++) {
-                if (i > 0) {
-                  output.write(",");
-                }
-                output.write(myDoubleToString(p.classProbabilities[i]));
-              }
-              if (predictCalibrated) {
-                for (int i = 0; i < p.classProbabilities.length; i++) {
-                  output.write(",");
-                  double calibProb = p.calibratedClassProbabilities != null ? 
-                          p.calibratedClassProbabilities[i] : Double.NaN;
-                  output.write(myDoubleToString(calibProb));
-                }
-              }
+          if (!batch.isEmpty())
+            submit(batch, lineNum);
+        } catch (InterruptedException | RejectedExecutionException e) {
+          gaveUp = true; // interrupted, or the scorers were shut down
+        } catch (IOException | RuntimeException | Error e) { // eg. a malformed line, or out of memory
+          readFailure[0] = new RowFailure(lineNum + batch.size(), e);
+        } finally {
+          // the writer waits for the end of the input even when the reading failed
+          if (!gaveUp) {
+            try {
+              pending.put(endOfInput);
+            } catch (InterruptedException e) {
+              // the writer gave up in the meantime
             }
-            break;
           }
-          case Multinomial: {
-            MultinomialModelPrediction p = modelWrapper.predictMultinomial(row);
-            if (getTreePath) {
-              writeTreePaths(p.leafNodeAssignments, output);
-            } else {
-              output.write(p.label);
+        }
+      }
+      private void submit(List<String[]> batch, int firstLine) throws InterruptedException {
+        ScoringTask task = new ScoringTask(batch, firstLine, inputColumnNames, category);
+        pending.put(task); // blocks while too many batches are in flight
+        scorers.execute(task);
+      }
+    }, "PredictCsv-reader");
+    readerThread.setDaemon(true);
+    readerThread.start();
+    int rows = 0;
+    try {
+      ScoringTask task;
+      while ((task = pending.take()) != endOfInput) {
+        try {
+          output.write(task.get());
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof RowFailure)
+            throw (RowFailure) e.getCause();
+          throw new RowFailure(task.firstLine, e.getCause());
+        }
+        rows += task.rows;
+      }
+      readerThread.join();
+      if (readFailure[0] != null)
+        throw readFailure[0];
+    } finally {
+      scorers.shutdownNow();
+      if (readerThread.isAlive()) {
+        readerThread.interrupt();
+        readerThread.join();
+      }
+    }
+    return rows;
+  }
+
+  private int effectiveThreads(ModelCategory category) {
+    // GLRM derives the random initialization of X from the number of rows scored so far, the rows need to be
+    // scored one by one in the order of the input to keep the predictions reproducible
+    if (category == ModelCategory.DimReduction)
+      return 1;
+    return threads;
+  }
+
+  private void predictRow(RowData row, ModelCategory category, Writer output) throws Exception {
+    String offsetColumn = modelWrapper.m.getOffsetName();
+    double offset = offsetColumn==null ? 0 : Double.parseDouble((String) row.get(offsetColumn));
+    switch (category) {
+      case AutoEncoder: { // write the expanded predictions out
+        AutoEncoderModelPrediction p = modelWrapper.predictAutoEncoder(row);
+        for (int i=0; i < p.reconstructed.length; i++) {
+          output.write(myDoubleToString(p.reconstructed[i]));
+          if (i < p.reconstructed.length)
+            output.write(',');
+        }
+        break;
+      }
+      case Binomial: {
+        BinomialModelPrediction p = modelWrapper.predictBinomial(row, offset);
+        if (getTreePath) {
+          writeTreePaths(p.leafNodeAssignments, output);
+        } else if (predictContributions) {
+          writeContributions(p.contributions, output);
+        } else {
+          output.write(p.label);
+          output.write(",");
+          for (int i = 0; i < p.classProbabilities.length; i++) {
+            if (i > 0) {
               output.write(",");
-              for (int i = 0; i < p.classProbabilities.length; i++) {
-                if (i > 0) {
-                  output.write(",");
-                }
-                output.write(myDoubleToString(p.classProbabilities[i]));
-              }
             }
-            break;
+            output.write(myDoubleToString(p.classProbabilities[i]));
           }
-          case Ordinal: {
-            OrdinalModelPrediction p = modelWrapper.predictOrdinal(row, offset);
-            output.write(p.label);
-            output.write(",");
+          if (predictCalibrated) {
             for (int i = 0; i < p.classProbabilities.length; i++) {
-              if (i > 0) {
-                output.write(",");
-              }
-              output.write(myDoubleToString(p.classProbabilities[i]));
+              output.write(",");
+              double calibProb = p.calibratedClassProbabilities != null ? 
+                      p.calibratedClassProbabilities[i] : Double.NaN;
+              output.write(myDoubleToString(calibProb));
             }
-            break;
           }
-          case Clustering: {
-            ClusteringModelPrediction p = modelWrapper.predictClustering(row);
-            output.write(myDoubleToString(p.cluster));
-            break;
+        }
+        break;
+      }
+      case Multinomial: {
+        MultinomialModelPrediction p = modelWrapper.predictMultinomial(row);
+        if (getTreePath) {
+          writeTreePaths(p.leafNodeAssignments, output);
+        } else {
+          output.write(p.label);
+          output.write(",");
+          for (int i = 0; i < p.classProbabilities.length; i++) {
+            if (i > 0) {
+              output.write(",");
+            }
+            output.write(myDoubleToString(p.classProbabilities[i]));
           }
+        }
+        break;
+      }
+      case Ordinal: {
+        OrdinalModelPrediction p = modelWrapper.predictOrdinal(row, offset);
+        output.write(p.label);
+        output.write(",");
+        for (int i = 0; i < p.classProbabilities.length; i++) {
+          if (i > 0) {
+            output.write(",");
+          }
+          output.write(myDoubleToString(p.classProbabilities[i]));
+        }
+        break;
+      }
+      case Clustering: {
+        ClusteringModelPrediction p = modelWrapper.predictClustering(row);
+        output.write(myDoubleToString(p.cluster));
+        break;
+      }
 
-          case Regression: {
-              RegressionModelPrediction p = modelWrapper.predictRegression(row, offset);
-              if (getTreePath) {
-                writeTreePaths(p.leafNodeAssignments, output);
-              } else if (predictContributions) {
-                writeContributions(p.contributions, output);
-              } else
-               output.write(myDoubleToString(p.value));
+      case Regression: {
+          RegressionModelPrediction p = modelWrapper.predictRegression(row, offset);
+          if (getTreePath) {
+            writeTreePaths(p.leafNodeAssignments, output);
+          } else if (predictContributions) {
+            writeContributions(p.contributions, output);
+          } else
+           output.write(myDoubleToString(p.value));
 
-            break;
-          }
-          
-          case CoxPH: {
-              CoxPHModelPrediction p = modelWrapper.predictCoxPH(row, offset);
-              output.write(myDoubleToString(p.value));
+        break;
+      }
+      
+      case CoxPH: {
+          CoxPHModelPrediction p = modelWrapper.predictCoxPH(row, offset);
+          output.write(myDoubleToString(p.value));
 
-            break;
-          }
+        break;
+      }
 
-          case DimReduction: {
-            DimReductionModelPrediction p = modelWrapper.predictDimReduction(row);
-            double[] out;
+      case DimReduction: {
+        DimReductionModelPrediction p = modelWrapper.predictDimReduction(row);
+        double[] out;
 
-            if (returnGLRMReconstruct) {
-              out = p.reconstructed;  // reconstructed A
-            } else {
-              out = p.dimensions; // x factors
-            }
+        if (returnGLRMReconstruct) {
+          out = p.reconstructed;  // reconstructed A
+        } else {
+          out = p.dimensions; // x factors
+        }
 
-            int lastOne = out.length-1;
-            for (int i=0; i < out.length; i++) {
-              output.write(myDoubleToString(out[i]));
+        int lastOne = out.length-1;
+        for (int i=0; i < out.length; i++) {
+          output.write(myDoubleToString(out[i]));
 
-              if (i < lastOne)
-                output.write(',');
-            }
-            break;
-          }
+          if (i < lastOne)
+            output.write(',');
+        }
+        break;
+      }
 
-          case AnomalyDetection: {
-            AnomalyDetectionPrediction p = modelWrapper.predictAnomalyDetection(row);
-            double[] rawPreds = p.toPreds();
-            for (int i = 0; i < rawPreds.length - 1; i++) {
-              output.write(myDoubleToString(rawPreds[i]));
-              output.write(',');
+      case AnomalyDetection: {
+        AnomalyDetectionPrediction p = modelWrapper.predictAnomalyDetection(row);
+        double[] rawPreds = p.toPreds();
+        for (int i = 0; i < rawPreds.length - 1; i++) {
+          output.write(myDoubleToString(rawPreds[i]));
+          output.write(',');
+        }
+        output.write(myDoubleToString(rawPreds[rawPreds.length - 1]));
+        break;
+      }
+
+      default:
+        throw new Exception("Unknown model category " + category);
+    }
+  }
+
+  /**
+   * Batch of input lines scored by one of the scorer threads, the result is the text of the output lines.
+   */
+  private class ScoringTask extends FutureTask<String> {
+    private final int firstLine;
+    private final int rows;
+
+    private ScoringTask(final List<String[]> lines, final int firstLine,
+                        final String[] inputColumnNames, final ModelCategory category) {
+      super(new Callable<String>() {
+        @Override
+        public String call() throws Exception {
+          StringWriter output = new StringWriter(lines.size() * 32);
+          int lineNum = firstLine;
+          for (String[] splitLine : lines) {
+            try {
+              predictRow(formatDataRow(splitLine, inputColumnNames), category, output);
+            } catch (Exception e) {
+              throw new RowFailure(lineNum, e);
             }
-            output.write(myDoubleToString(rawPreds[rawPreds.length - 1]));
-            break;
+            output.write('\n');
+            lineNum++;
           }
-
-          default:
-            throw new Exception("Unknown model category " + category);
+          return output.toString();
         }
+      });
+      this.firstLine = firstLine;
+      this.rows = lines.size();
+    }
+  }
 
-        output.write("\n");
-        lineNum++;
-      }
+  private static class RowFailure extends Exception {
+    private final int lineNum;
+
+    private RowFailure(int lineNum, Throwable cause) {
+      super(cause);
+      this.lineNum = lineNum;
     }
-    catch (Exception e) {
-      throw new Exception("Prediction failed on line " + lineNum, e);
-    } finally {
-      // Clean up.
-      output.close();
-      reader.close();
+  }
+
+  private static Reader openInput(String fileName) throws IOException {
+    InputStream is = new FileInputStream(fileName);
+    if (fileName.endsWith(".gz")) {
+      is = new GZIPInputStream(is, IO_BUFFER_SIZE);
     }
+    return new BufferedReader(new InputStreamReader(is), IO_BUFFER_SIZE);
   }
 
-  private void writeHeader(String[] colNames, BufferedWriter output) throws Exception {
+  private static Writer openOutput(String fileName) throws IOException {
+    OutputStream os = new FileOutputStream(fileName);
+    if (fileName.endsWith(".gz")) {
+      os = new GZIPOutputStream(os, IO_BUFFER_SIZE);
+    }
+    return new BufferedWriter(new OutputStreamWriter(os), IO_BUFFER_SIZE);
+  }
+
+  private void writeHeader(String[] colNames, Writer output) throws Exception {
     output.write(colNames[0]);
     for (int i = 1; i < colNames.length; i++) {
       output.write(",");
@@ -391,7 +575,7 @@ public class PredictCsv {
     }
   }
 
-  private void writeTreePaths(String[] treePaths, BufferedWriter output) throws Exception {
+  private void writeTreePaths(String[] treePaths, Writer output) throws Exception {
     int len = treePaths.length-1;
 
     for (int index=0; index<len; index++) {
@@ -401,7 +585,7 @@ public class PredictCsv {
     output.write(treePaths[len]);
   }
 
-  private void writeContributions(float[] contributions, BufferedWriter output) throws Exception {
+  private void writeContributions(float[] contributions, Writer output) throws Exception {
     for (int i = 0; i < contributions.length; i++) {
       if (i > 0) {
         output.write(",");
@@ -438,13 +622,13 @@ public class PredictCsv {
   private static void usage() {
     System.out.println();
     System.out.println("Usage:  java [...java args...] hex.genmodel.tools.PredictCsv --mojo mojoName");
-    System.out.println("             --pojo pojoName --input inputFile --output outputFile --separator sepStr --decimal --setConvertInvalidNum");
+    System.out.println("             --pojo pojoName --input inputFile --output outputFile --separator sepStr --decimal --setConvertInvalidNum --threads n");
     System.out.println();
     System.out.println("     --mojo    Name of the zip file containing model's MOJO.");
     System.out.println("     --pojo    Name of the java class containing the model's POJO. Either this ");
     System.out.println("               parameter or --model must be specified.");
-    System.out.println("     --input   text file containing the test data set to score.");
-    System.out.println("     --output  Name of the output CSV file with computed predictions.");
+    System.out.println("     --input   text file containing the test data set to score (gzip-ed if the name ends with .gz).");
+    System.out.println("     --output  Name of the output CSV file with computed predictions (gzip-ed if the name ends with .gz).");
     System.out.println("     --separator Separator to be used in input file containing test data set.");
     System.out.println("     --decimal Use decimal numbers in the output (default is to use hexademical).");
     System.out.println("     --setConvertInvalidNum Will call .setConvertInvalidNumbersToNa(true) when loading models.");
@@ -454,6 +638,7 @@ public class PredictCsv {
             " models instead of regular model predictions");
     System.out.println("     --glrmReconstruct will return the reconstructed dataset for GLRM mojo instead of X factor derived from the dataset.");
     System.out.println("     --glrmIterNumber integer indicating number of iterations to go through when constructing X factor derived from the dataset.");
+    System.out.println("     --threads number of threads scoring the rows (default is the number of available processors).");
     System.out.println("     --testConcurrent integer (for testing) number of concurrent threads that will be making predictions.");
     System.out.println();
     System.exit(1);
@@ -579,6 +764,7 @@ public class PredictCsv {
     private boolean returnGLRMReconstruct;  // for GLRM, return x factor by default unless set this to true
     private int glrmIterNumber = -1;        // for GLRM, default to 100.
     private boolean outputHeader = true;    // should we write-out header to output files?
+    private int threads = Runtime.getRuntime().availableProcessors(); // number of threads scoring the rows
 
     // For Model Loading
     private int loadType = 0; // 0: load pojo, 1: load mojo, 2: load model, -1: special value when PredictCsv is used embedded and instance of Model is passed directly
@@ -588,12 +774,12 @@ public class PredictCsv {
 
     private PredictCsv newPredictCsv() {
       return new PredictCsv(inputCSVFileName, outputCSVFileName, useDecimalOutput, separator, setInvNumNA,
-              getTreePath, predictContributions, predictCalibrated, returnGLRMReconstruct, glrmIterNumber, outputHeader);
+              getTreePath, predictContributions, predictCalibrated, returnGLRMReconstruct, glrmIterNumber, outputHeader, threads);
     }
 
     private PredictCsv newConcurrentPredictCsv(int id) {
       return new PredictCsv(inputCSVFileName, outputCSVFileName + "." + id, useDecimalOutput, separator, setInvNumNA,
-              getTreePath, predictContributions, predictCalibrated, returnGLRMReconstruct, glrmIterNumber, outputHeader);
+              getTreePath, predictContributions, predictCalibrated, returnGLRMReconstruct, glrmIterNumber, outputHeader, threads);
     }
 
     private void parseArgs(String[] args) {
@@ -647,6 +833,10 @@ public class PredictCsv {
             case "--testConcurrent":
               testConcurrent = Integer.parseInt(sarg);
               break;
+            case "--threads":
+              threads = Integer.parseInt(sarg);
+              if (threads < 1) usage();
+              break;
             case "--outputHeader":
               outputHeader = Boolean.parseBoolean(sarg);
               break;
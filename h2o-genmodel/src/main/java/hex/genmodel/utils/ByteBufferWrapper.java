@@ -18,6 +18,12 @@ public final class ByteBufferWrapper {
         _bb = ByteBuffer.wrap(buf, 0, buf.length).order(ByteOrder.nativeOrder());
     }
 
+    /** Read from a buffer that doesn't need to be backed by an array (eg. a memory-mapped file); the position
+     *  of the given buffer is not changed. */
+    public ByteBufferWrapper(ByteBuffer bb) {
+        _bb = bb.duplicate().order(ByteOrder.nativeOrder());
+    }
+
     public int position() {
         return _bb.position();
     }
@@ -54,4 +60,7 @@ public final class ByteBufferWrapper {
     public double get8d() {
       return _bb.getDouble();
     }
+    public void get(byte[] dst) {
+      _bb.get(dst);
+    }
 }
@@ -1,5 +1,7 @@
 package hex.genmodel.utils;
 
+import java.nio.ByteBuffer;
+
 /**
  * GenmodelBitSet - bitset that "lives" on top of an external byte array. It does not necessarily span the entire
  * byte array, and thus essentially provides a "bitset-view" on the underlying data stream.
@@ -8,6 +10,7 @@ package hex.genmodel.utils;
  */
 public class GenmodelBitSet {
     private byte[] _val;  // Holder of the bits, perhaps also holding other unrelated data
+    private ByteBuffer _buf; // Holder of the bits when not backed by an array (memory-mapped MOJO), _val is null
     private int _byteoff; // Number of bytes skipped before starting to count bits
     private int _nbits;   // Number of bits in this bitset
     private int _bitoff;  // Number of bits discarded from beginning (inclusive min)
@@ -29,6 +32,10 @@ public class GenmodelBitSet {
         return _nbits;
     }
 
+    public int getBitOff() {
+        return _bitoff;
+    }
+
     // Fill in fields, with the bytes coming from some other large backing byte
     // array, which also contains other unrelated bits.
     public void fill(byte[] v, int byteoff, int nbits, int bitoff) {
@@ -37,6 +44,7 @@ public class GenmodelBitSet {
         if (bitoff < 0) throw new IndexOutOfBoundsException("bitoff < 0: " + bitoff);
         assert v == null || byteoff + bytes(nbits) <= v.length;
         _val = v;
+        _buf = null;
         _nbits = nbits;
         _bitoff = bitoff;
         _byteoff = byteoff;
@@ -50,7 +58,8 @@ public class GenmodelBitSet {
     public boolean contains(int idx) {
         idx -= _bitoff;
         assert (idx >= 0 && idx < _nbits): "Must have "+_bitoff+" <= idx <= " + (_bitoff+_nbits-1) + ": " + idx;
-        return (_val[_byteoff + (idx >> 3)] & ((byte)1 << (idx & 7))) != 0;
+        final int i = _byteoff + (idx >> 3);
+        return ((_val != null ? _val[i] : _buf.get(i)) & ((byte)1 << (idx & 7))) != 0;
     }
 
     public void fill2(byte[] bits, ByteBufferWrapper ab) {
@@ -66,6 +75,25 @@ public class GenmodelBitSet {
         ab.skip(bytes(nbits));  // Skip inline bitset
     }
 
+    // Reload from a buffer not backed by an array (memory-mapped MOJO), the bits are read in place
+    public void fill2(ByteBufferWrapper ab) {
+        fill(ab._bb, ab.position(), 32, 0);
+        ab.skip(4);  // Skip inline bitset
+    }
+
+    public void fill3(ByteBufferWrapper ab) {
+        int bitoff = ab.get2();
+        int nbits = ab.get4();
+        fill(ab._bb, ab.position(), nbits, bitoff);
+        ab.skip(bytes(nbits));  // Skip inline bitset
+    }
+
+    private void fill(ByteBuffer buf, int byteoff, int nbits, int bitoff) {
+        fill((byte[]) null, byteoff, nbits, bitoff);
+        assert byteoff + bytes(nbits) <= buf.limit();
+        _buf = buf;
+    }
+
     private static int bytes(int nbits) {
         return ((nbits-1) >> 3) + 1;
     }
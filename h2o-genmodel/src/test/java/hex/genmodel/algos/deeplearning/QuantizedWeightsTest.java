@@ -0,0 +1,71 @@
+package hex.genmodel.algos.deeplearning;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class QuantizedWeightsTest {
+
+  @Test
+  public void testHalfRoundTrip() {
+    for (int h = 0; h < 1 << 16; h++) {
+      float f = QuantizedWeights.fromHalf((short) h);
+      if (Float.isNaN(f))
+        assertTrue(Float.isNaN(QuantizedWeights.fromHalf(QuantizedWeights.toHalf(f))));
+      else
+        assertEquals((short) h, QuantizedWeights.toHalf(f));
+    }
+    assertEquals(1.0f, QuantizedWeights.fromHalf(QuantizedWeights.toHalf(1.0f)), 0);
+    assertEquals(65504f, QuantizedWeights.fromHalf(QuantizedWeights.toHalf(65504f)), 0);
+    assertEquals(Float.POSITIVE_INFINITY, QuantizedWeights.fromHalf(QuantizedWeights.toHalf(1e6f)), 0);
+    assertEquals(0.33325195f, QuantizedWeights.fromHalf(QuantizedWeights.toHalf(1f / 3)), 0);
+  }
+
+  @Test
+  public void testEncodeDecode() {
+    Random r = new Random(42);
+    int rows = 7, cols = 13;
+    float[] weights = new float[rows * cols];
+    for (int i = 0; i < weights.length; i++)
+      weights[i] = (float) r.nextGaussian() * (1 + i / cols);
+    for (int i = 0; i < cols; i++)
+      weights[3 * cols + i] = 0; // a row of zeros
+
+    float[] fp16 = QuantizedWeights.decode(QuantizedWeights.encode(weights, rows, QuantizedWeights.Precision.FP16),
+            QuantizedWeights.Precision.FP16);
+    float[] int8 = QuantizedWeights.decode(QuantizedWeights.encode(weights, rows, QuantizedWeights.Precision.INT8),
+            QuantizedWeights.Precision.INT8);
+    for (int i = 0; i < weights.length; i++) {
+      assertEquals(weights[i], fp16[i], Math.abs(weights[i]) / 1024);
+      float rowMax = 0;
+      for (int j = i / cols * cols; j < (i / cols + 1) * cols; j++)
+        rowMax = Math.max(rowMax, Math.abs(weights[j]));
+      assertEquals(weights[i], int8[i], rowMax / 254 * 1.0001);
+    }
+  }
+
+  @Test
+  public void testInt8Scoring() {
+    Random r = new Random(7);
+    int rows = 5, cols = 19;
+    float[] weights = new float[rows * cols];
+    double[] bias = new double[rows];
+    double[] input = new double[cols];
+    for (int i = 0; i < weights.length; i++) weights[i] = (float) r.nextGaussian();
+    for (int i = 0; i < rows; i++) bias[i] = r.nextGaussian();
+    for (int i = 0; i < cols; i++) input[i] = r.nextGaussian();
+    byte[] blob = QuantizedWeights.encode(weights, rows, QuantizedWeights.Precision.INT8);
+
+    DeeplearningMojoModel.StoreWeightsBias quantized = QuantizedWeights.read(blob, bias, QuantizedWeights.Precision.INT8, true);
+    assertNotNull(quantized._qValues);
+    DeeplearningMojoModel.StoreWeightsBias dequantized = QuantizedWeights.read(blob, bias, QuantizedWeights.Precision.INT8, false);
+    assertNotNull(dequantized._wValues);
+
+    double[] expected = new NeuralNetwork("Linear", 0, dequantized, input, rows).fprop1Layer();
+    double[] actual = new NeuralNetwork("Linear", 0, quantized, input, rows).fprop1Layer();
+    assertArrayEquals(expected, actual, 1e-5);
+  }
+
+}
@@ -14,6 +14,7 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -67,6 +68,54 @@ public class GbmMojoModelTest {
     assertArrayEquals(expectedPreds, preds, 1e-8);
   }
 
+  @Test
+  public void testScoreBatch() throws Exception {
+    Random rnd = new Random(0xBA7C);
+    int nrows = 1000, ncols = 11;
+    double[][] cols = new double[ncols][nrows];
+    for (int c = 0; c < ncols; c++)
+      for (int r = 0; r < nrows; r++)
+        cols[c][r] = rnd.nextInt(20) == 0 ? Double.NaN : rnd.nextDouble() * 20;
+
+    for (boolean compiled : new boolean[]{false, true}) {
+      mojo12.setCompiledScoring(compiled);
+      double[][] preds = new double[nrows][3];
+      mojo12.scoreBatch(cols, null, nrows - 1, preds);
+      for (int r = 0; r < nrows - 1; r++) {
+        double[] row = new double[ncols];
+        for (int c = 0; c < ncols; c++)
+          row[c] = cols[c][r];
+        assertArrayEquals("Predictions for row #" + r, mojo12.score0(row, new double[3]), preds[r], 0);
+      }
+      assertArrayEquals(new double[3], preds[nrows - 1], 0); // only the requested rows are scored
+    }
+  }
+
+  @Test
+  public void testBytecodeScoring() throws Exception {
+    Random rnd = new Random(0xB17E);
+    double[][] rows = new double[1000][11];
+    for (double[] row : rows)
+      for (int c = 0; c < row.length; c++)
+        row[c] = rnd.nextInt(20) == 0 ? Double.NaN : rnd.nextDouble() * 20;
+
+    double[][] expected = new double[rows.length][];
+    for (int r = 0; r < rows.length; r++)
+      expected[r] = mojo12.score0(rows[r], new double[3]);
+
+    mojo12.setBytecodeScoring(true);
+    assertTrue(mojo12.isBytecodeScoring());
+    assertTrue(mojo12.isCompiledScoring());
+    assertTrue("Trees should be scored by generated code", mojo12.getBytecodeTreeCount() > 0);
+    for (int r = 0; r < rows.length; r++)
+      assertArrayEquals("Predictions for row #" + r, expected[r], mojo12.score0(rows[r], new double[3]), 0);
+
+    mojo12.setBytecodeScoring(false);
+    assertFalse(mojo12.isBytecodeScoring());
+    assertEquals(0, mojo12.getBytecodeTreeCount());
+    assertTrue(mojo12.isCompiledScoring());
+  }
+
   @Test
   public void testPredict() throws Exception {
     EasyPredictModelWrapper wrapper = new EasyPredictModelWrapper(mojo12);
@@ -53,6 +53,29 @@ public class GlmMojoModelTest {
     }
   }
 
+  @Test
+  public void testScoreBatch() throws Exception {
+    GlmMojoModel mojo = (GlmMojoModel) ModelMojoReader.readFrom(new ClasspathReaderBackend());
+    double[][] data = new double[][]{
+            new double[]{2,73,2,1,7.9,18,6},
+            new double[]{Double.NaN,51,3,1,8.9,0,6},
+            new double[]{2,57,3,Double.NaN,3.4,30.8,6},
+            new double[]{1,Double.NaN,1,1,5.4,34,5}
+    };
+    double[][] cols = new double[data[0].length][data.length];
+    for (int r = 0; r < data.length; r++)
+      for (int c = 0; c < cols.length; c++)
+        cols[c][r] = data[r][c];
+
+    double[][] preds = new double[data.length][3];
+    mojo.scoreBatch(cols, null, data.length, preds);
+    for (int i = 0; i < data.length; i++) {
+      double[] expected = mojo.score0(data[i].clone(), new double[3]);
+      assertArrayEquals("Predictions for row #" + i, expected, preds[i], 0);
+    }
+    assertTrue(Double.isNaN(cols[0][1])); // input is not modified by the imputation
+  }
+
   private static class ClasspathReaderBackend implements MojoReaderBackend {
     @Override
     public BufferedReader getTextFile(String filename) throws IOException {
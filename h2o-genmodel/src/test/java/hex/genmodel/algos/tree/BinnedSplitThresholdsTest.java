@@ -0,0 +1,42 @@
+package hex.genmodel.algos.tree;
+
+import hex.genmodel.MojoModel;
+import hex.genmodel.MojoReaderBackendFactoryTest;
+import org.junit.Test;
+
+import java.net.URL;
+
+import static org.junit.Assert.*;
+
+public class BinnedSplitThresholdsTest {
+
+  @Test
+  public void testEncodeDecode() throws Exception {
+    URL mojoSource = MojoReaderBackendFactoryTest.class.getResource("algos/gbm/gbm_variable_importance.zip");
+    assertNotNull(mojoSource);
+    SharedTreeMojoModel model = (SharedTreeMojoModel) MojoModel.load(mojoSource.getFile());
+    byte[][] trees = model._compressed_trees;
+
+    BinnedSplitThresholds thresholds = BinnedSplitThresholds.collect(trees);
+    assertTrue(thresholds.binnedColumns() > 0);
+    thresholds = BinnedSplitThresholds.fromByteArray(thresholds.toByteArray());
+    long size = 0, binnedSize = 0;
+    for (byte[] tree : trees) {
+      if (tree == null) continue;
+      byte[] binned = thresholds.encode(tree);
+      assertArrayEquals(tree, thresholds.decode(binned));
+      size += tree.length;
+      binnedSize += binned.length;
+    }
+    assertTrue(binnedSize < size);
+  }
+
+  @Test
+  public void testSingleLeaf() {
+    byte[] tree = {0, (byte) 0xFF, (byte) 0xFF, 1, 2, 3, 4};
+    BinnedSplitThresholds thresholds = BinnedSplitThresholds.collect(new byte[][]{tree, null});
+    assertEquals(0, thresholds.binnedColumns());
+    assertArrayEquals(tree, thresholds.decode(thresholds.encode(tree)));
+  }
+
+}
@@ -0,0 +1,114 @@
+package hex.genmodel.algos.tree;
+
+import hex.genmodel.MappedMojoReaderBackend;
+import hex.genmodel.MojoModel;
+import hex.genmodel.MojoReaderBackendFactoryTest;
+import hex.genmodel.tools.AlignMojo;
+import org.junit.Test;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+public class MappedTreeMojoTest {
+
+  @Test
+  public void testScoreAlignedMojo() throws Exception {
+    URL mojoSource = MojoReaderBackendFactoryTest.class.getResource("algos/gbm/gbm_variable_importance.zip");
+    assertNotNull(mojoSource);
+    File original = new File(mojoSource.getFile());
+    File aligned = File.createTempFile("mojo", ".zip");
+    aligned.deleteOnExit();
+    AlignMojo.align(original, aligned);
+
+    assertFalse(MappedMojoReaderBackend.isMappedContainer(original));
+    assertTrue(MappedMojoReaderBackend.isMappedContainer(aligned));
+
+    SharedTreeMojoModel expected = (SharedTreeMojoModel) MojoModel.load(original.getAbsolutePath());
+    SharedTreeMojoModel mapped = (SharedTreeMojoModel) MojoModel.load(aligned.getAbsolutePath());
+    assertNull(expected._mapped_trees);
+    assertNotNull(mapped._mapped_trees);
+    assertNull(mapped._compressed_trees);
+
+    Random r = new Random(42);
+    for (int i = 0; i < 100; i++) {
+      double[] row = randomRow(r, expected);
+      assertArrayEquals(expected.score0(row, new double[expected.getPredsSize()]),
+              mapped.score0(row, new double[mapped.getPredsSize()]), 0);
+      assertArrayEquals(expected.getLeafNodeAssignments(row)._paths, mapped.getLeafNodeAssignments(row)._paths);
+      assertArrayEquals(expected.getLeafNodeAssignments(row)._nodeIds, mapped.getLeafNodeAssignments(row)._nodeIds);
+    }
+
+    // serialized models carry the trees on the heap
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+      oos.writeObject(mapped);
+    }
+    SharedTreeMojoModel copy;
+    try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+      copy = (SharedTreeMojoModel) ois.readObject();
+    }
+    assertNull(copy._mapped_trees);
+    assertNotNull(copy._compressed_trees);
+    // the serialized model itself still scores from the mapping
+    assertNotNull(mapped._mapped_trees);
+    assertNull(mapped._compressed_trees);
+    double[] row = randomRow(r, expected);
+    assertArrayEquals(expected.score0(row, new double[expected.getPredsSize()]),
+            copy.score0(row, new double[copy.getPredsSize()]), 0);
+  }
+
+  @Test
+  public void testMapZip64Container() throws Exception {
+    final int nentries = 70000; // more than fit the entry count of a plain zip
+    File zip = File.createTempFile("mojo", ".zip");
+    zip.deleteOnExit();
+    try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(zip))) {
+      for (int i = 0; i < nentries; i++) {
+        zos.putNextEntry(new ZipEntry("trees/t00_" + i + ".bin"));
+        zos.write(("tree" + i).getBytes("UTF-8"));
+        zos.closeEntry();
+      }
+    }
+    File aligned = File.createTempFile("mojo", ".zip");
+    aligned.deleteOnExit();
+    AlignMojo.align(zip, aligned);
+    assertTrue(MappedMojoReaderBackend.isMappedContainer(aligned));
+
+    MappedMojoReaderBackend mapped = new MappedMojoReaderBackend(aligned.getAbsolutePath());
+    try {
+      for (int i : new int[]{0, 65534, 65535, 65536, nentries - 1}) {
+        String name = "trees/t00_" + i + ".bin";
+        assertTrue(name, mapped.exists(name));
+        assertEquals("tree" + i, new String(mapped.getBinaryFile(name), "UTF-8"));
+        ByteBuffer bb = mapped.getMappedFile(name);
+        byte[] bytes = new byte[bb.remaining()];
+        bb.get(bytes);
+        assertEquals("tree" + i, new String(bytes, "UTF-8"));
+      }
+      assertFalse(mapped.exists("trees/t00_" + nentries + ".bin"));
+    } finally {
+      mapped.close();
+    }
+    assertTrue(MappedMojoReaderBackend.openOrFallback(aligned.getAbsolutePath()) instanceof MappedMojoReaderBackend);
+  }
+
+  private static double[] randomRow(Random r, MojoModel model) {
+    double[] row = new double[model.nfeatures()];
+    for (int c = 0; c < row.length; c++) {
+      String[] domain = model.getDomainValues(c);
+      if (r.nextInt(20) == 0)
+        row[c] = Double.NaN;
+      else
+        row[c] = domain != null ? r.nextInt(domain.length) : r.nextGaussian() * 10;
+    }
+    return row;
+  }
+
+}
@@ -24,6 +24,12 @@ public class SharedTreeMojoModelTest {
     // Leaf Node Assignment
     final double path = SharedTreeMojoModel.scoreTree(tree, null, true, null);
     assertEquals("", SharedTreeMojoModel.getDecisionPath(path));
+
+    // Compiled Tree
+    final CompiledTrees compiled = new CompiledTrees(new byte[][]{null, tree}, null);
+    assertTrue(compiled.isEmpty(0));
+    assertEquals(1, compiled.nodes());
+    assertEquals(4.2f, compiled.score(1, null), 0.0);
   }
 
 }
\ No newline at end of file
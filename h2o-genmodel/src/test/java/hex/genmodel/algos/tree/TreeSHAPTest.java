@@ -4,6 +4,10 @@ import ai.h2o.algos.tree.INode;
 import ai.h2o.algos.tree.INodeStat;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
 import static org.junit.Assert.*;
 
 public class TreeSHAPTest {
@@ -33,6 +37,51 @@ public class TreeSHAPTest {
         }
     }
 
+    @Test
+    public void calculateContributionsWithPrecomputedTables() {
+        final int nFeatures = 4;
+        final Random rnd = new Random(0xCAFE);
+        final List<Node> nodeList = new ArrayList<>();
+        buildRandomTree(nodeList, rnd, 0, 7, nFeatures, 100);
+        final Node[] nodes = nodeList.toArray(new Node[0]);
+
+        TreeSHAP<String, Node, Node> fastTreeSHAP = new TreeSHAP<>(nodes, nodes, 0, 1 << 18);
+        TreeSHAP<String, Node, Node> recursiveTreeSHAP = new TreeSHAP<>(nodes, nodes, 0, 0);
+        assertTrue(fastTreeSHAP.usesPrecomputedTables());
+        assertFalse(recursiveTreeSHAP.usesPrecomputedTables());
+
+        final String[] rows = new String[1 << nFeatures];
+        for (int i = 0; i < rows.length; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int f = 0; f < nFeatures; f++) {
+                sb.append((i & (1 << f)) != 0 ? 'R' : 'L');
+            }
+            rows[i] = sb.toString();
+        }
+        final float[][] batchContribs = new float[rows.length][nFeatures + 1];
+        fastTreeSHAP.calculateContributions(rows, rows.length, batchContribs, fastTreeSHAP.makeWorkspace());
+        for (int i = 0; i < rows.length; i++) {
+            float[] expectedContribs = recursiveTreeSHAP.calculateContributions(rows[i], new float[nFeatures + 1]);
+            float[] actualContribs = fastTreeSHAP.calculateContributions(rows[i], new float[nFeatures + 1]);
+            assertArrayEquals("Contributions for row '" + rows[i] + "' should match", expectedContribs, actualContribs, 1e-5f);
+            assertArrayEquals(actualContribs, batchContribs[i], 0);
+        }
+    }
+
+    private static int buildRandomTree(List<Node> nodes, Random rnd, int depth, int maxDepth, int nFeatures, float weight) {
+        final int id = nodes.size();
+        nodes.add(null);
+        if (depth == maxDepth || (depth > 1 && rnd.nextInt(4) == 0)) {
+            nodes.set(id, new Node(weight, (float) rnd.nextGaussian()));
+        } else {
+            final float leftWeight = rnd.nextInt(8) == 0 ? 0 : weight * rnd.nextFloat();
+            final int left = buildRandomTree(nodes, rnd, depth + 1, maxDepth, nFeatures, leftWeight);
+            final int right = buildRandomTree(nodes, rnd, depth + 1, maxDepth, nFeatures, weight - leftWeight);
+            nodes.set(id, new Node(left, right, weight, rnd.nextInt(nFeatures), 0));
+        }
+        return id;
+    }
+
     private static class Model_App_TreeBuilder implements TreeBuilder { // Model A'' from support ticket #99203 (private)
         @Override
         public Node[] buildTree(float almostZeroWeight) {
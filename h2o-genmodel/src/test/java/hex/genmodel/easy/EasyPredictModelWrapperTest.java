@@ -188,6 +188,94 @@ public class EasyPredictModelWrapperTest {
 
   }
 
+  private static class ScoringModel extends GenModel {
+
+    ScoringModel() {
+      super(new String[]{"C1", "X", "RESPONSE"}, new String[][]{{"a", "b", "c"}, null, {"NO", "YES"}}, "RESPONSE");
+    }
+
+    @Override
+    public int nclasses() {
+      return 2;
+    }
+
+    @Override
+    public boolean isSupervised() {
+      return true;
+    }
+
+    @Override
+    public double[] score0(double[] data, double[] preds) {
+      double c1 = Double.isNaN(data[0]) ? -1 : data[0];
+      double x = Double.isNaN(data[1]) ? 0 : data[1];
+      preds[2] = 1 / (1 + Math.exp(-(c1 + 0.5 * x)));
+      preds[1] = 1 - preds[2];
+      preds[0] = preds[2] >= 0.5 ? 1 : 0;
+      return preds;
+    }
+
+    @Override
+    public ModelCategory getModelCategory() {
+      return ModelCategory.Binomial;
+    }
+
+    @Override
+    public String getUUID() {
+      return null;
+    }
+  }
+
+  @Test
+  public void testScoringContext() throws Exception {
+    EasyPredictModelWrapper wrapper = new EasyPredictModelWrapper(new ScoringModel());
+    ScoringContext ctx = wrapper.newScoringContext("X", "UNKNOWN", "C1");
+    Assert.assertEquals(3, ctx.getNumColumns());
+    Assert.assertEquals(2, ctx.indexOf("C1"));
+    Assert.assertEquals(-1, ctx.indexOf("C2"));
+
+    String[] levels = {"a", "b", "c", null};
+    double[] xs = {-3, 0, 1.5, Double.NaN};
+    for (String level : levels) {
+      for (double x : xs) {
+        RowData row = new RowData();
+        if (level != null) row.put("C1", level);
+        row.put("X", x);
+        BinomialModelPrediction expected = wrapper.predictBinomial(row);
+
+        ctx.reset();
+        ctx.setValue(0, x);
+        ctx.setValue(1, 42); // ignored
+        ctx.setCategorical(2, level);
+        ctx.score();
+        Assert.assertEquals(expected.labelIndex, ctx.getLabelIndex());
+        Assert.assertEquals(expected.label, ctx.getLabel());
+        Assert.assertEquals(expected.classProbabilities[0], ctx.getClassProbability(0), 0);
+        Assert.assertEquals(expected.classProbabilities[1], ctx.getClassProbability(1), 0);
+      }
+    }
+
+    try {
+      ctx.setCategorical(2, "d");
+      Assert.fail("Unknown level was accepted");
+    } catch (PredictUnknownCategoricalLevelException e) {
+      Assert.assertEquals("d", e.getUnknownLevel());
+    }
+    try {
+      ctx.setCategorical(0, "a");
+      Assert.fail("Numeric column was given a level");
+    } catch (IllegalArgumentException e) {
+      Assert.assertTrue(e.getMessage().contains("not categorical"));
+    }
+
+    ScoringContext naCtx = new EasyPredictModelWrapper(new EasyPredictModelWrapper.Config()
+            .setModel(new ScoringModel())
+            .setConvertUnknownCategoricalLevelsToNa(true))
+            .newScoringContext("C1");
+    naCtx.setCategorical(0, "d");
+    naCtx.score();
+    Assert.assertEquals(1 / (1 + Math.exp(1)), naCtx.getClassProbability(1), 1e-15);
+  }
+
   @Test
   public void testSerializeWrapper() throws Exception {
     SupervisedModel rawModel = makeSupervisedModel();
@@ -2792,6 +2792,9 @@ class H2OFrame(Keyed, H2ODisplay):
         in your frames.  If there are duplicated rows in your rite frame, they will not be included if you use
         the hash method.  The hash method cannot perform merge if you have string columns in your left frame.
         Hence, we consider the radix method superior to the hash method and is the default method to use.
+        The broadcast method copies the (small) right frame to every node and joins in a single pass over the
+        left frame; its result keeps the order of the left frame rows instead of being sorted by the merge key.
+        The broadcast method is only used when requested, the auto method always uses radix.
 
         :param H2OFrame other: The frame to merge to the current one. By default, must have at least one column in common with
             this frame, and all columns in common are used as the merge key.  If you want to use only a subset of the
@@ -2801,7 +2804,7 @@ class H2OFrame(Keyed, H2ODisplay):
         :param by_x: list of columns in the current frame to use as a merge key.
         :param by_y: list of columns in the ``other`` frame to use as a merge key. Should have the same number of
             columns as in the ``by_x`` list.
-        :param method: string representing the merge method, one of auto(default), radix or hash.
+        :param method: string representing the merge method, one of auto(default), radix, broadcast or hash.
 
         :returns: New H2OFrame with the result of merging the current frame with the ``other`` frame.
 
@@ -1164,18 +1164,21 @@ class ModelBase(h2o_meta(Keyed, H2ODisplay)):
                 h2o.api("GET /3/h2o-genmodel.jar", save_to=os.path.join(path, genmodel_name))
         return h2o.api("GET /3/Models/%s/mojo" % self.model_id, save_to=path)
 
-    def save_mojo(self, path="", force=False, filename=None):
+    def save_mojo(self, path="", force=False, filename=None, quantization=None):
         """
         Save an H2O Model as MOJO (Model Object, Optimized) to disk.
 
         :param path: a path to save the model at (e.g. hdfs, s3, local).
         :param force: if ``True``, overwrite destination directory in case it exists, or throw exception if set to ``False``.
         :param filename: a filename for the saved model (file type is always .zip).
+        :param quantization: ``"fp16"`` or ``"int8"`` to store the split thresholds of tree models as indices to
+            per-column tables and the weights of Deep Learning models in lower precision (needs a newer MOJO runtime).
 
         :returns str: the path of the saved model
         """
         assert_is_type(path, str)
         assert_is_type(force, bool)
+        assert_is_type(quantization, None, Enum("fp16", "int8"))
         if not self.have_mojo:
             raise H2OValueError("Export to MOJO not supported")
         if filename is None:
@@ -1183,7 +1186,10 @@ class ModelBase(h2o_meta(Keyed, H2ODisplay)):
         else:
             assert_is_type(filename, str)
         path = os.path.join(os.getcwd() if path == "" else path, filename)
-        return h2o.api("GET /99/Models.mojo/%s" % self.model_id, data={"dir": path, "force": force})["dir"]
+        data = {"dir": path, "force": force}
+        if quantization is not None:
+            data["mojo_quantization"] = quantization
+        return h2o.api("GET /99/Models.mojo/%s" % self.model_id, data=data)["dir"]
 
     def save_model_details(self, path="", force=False, filename=None):
         """
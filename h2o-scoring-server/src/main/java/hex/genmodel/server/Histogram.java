@@ -0,0 +1,87 @@
+package hex.genmodel.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of non-negative long values (latencies in microseconds, batch sizes).
+ *
+ * Values are counted in log-linear buckets: every power of two is split into {@link #SUB_BUCKETS} equally sized
+ * buckets, the percentiles are therefore reported with a relative error of at most 1/{@value #SUB_BUCKETS}.
+ * Recording a value is a couple of atomic increments and can be done from any number of threads.
+ */
+public class Histogram {
+
+  private static final int SUB_BUCKET_BITS = 3;
+  static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray _counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong _count = new AtomicLong();
+  private final AtomicLong _sum = new AtomicLong();
+  private final AtomicLong _max = new AtomicLong();
+
+  public void record(long value) {
+    if (value < 0)
+      value = 0;
+    _counts.incrementAndGet(bucketIndex(value));
+    _count.incrementAndGet();
+    _sum.addAndGet(value);
+    long max;
+    while (value > (max = _max.get()) && !_max.compareAndSet(max, value)) {
+      // retry
+    }
+  }
+
+  public long getCount() {
+    return _count.get();
+  }
+
+  public long getMax() {
+    return _max.get();
+  }
+
+  public double getMean() {
+    final long count = _count.get();
+    return count == 0 ? 0 : (double) _sum.get() / count;
+  }
+
+  /**
+   * @param percentile percentile in range (0, 100]
+   * @return upper bound of the bucket that contains the given percentile (never more than the maximum recorded value),
+   * 0 if nothing was recorded
+   */
+  public long getPercentile(double percentile) {
+    if (percentile <= 0 || percentile > 100)
+      throw new IllegalArgumentException("Percentile needs to be in range (0, 100], got: " + percentile);
+    final long count = _count.get();
+    if (count == 0)
+      return 0;
+    final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += _counts.get(i);
+      if (seen >= rank)
+        return Math.min(bucketUpperBound(i), _max.get());
+    }
+    return _max.get(); // the counters were updated concurrently
+  }
+
+  static int bucketIndex(long value) {
+    if (value < SUB_BUCKETS)
+      return (int) value;
+    final int exponent = 63 - Long.numberOfLeadingZeros(value);
+    final int shift = exponent - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+  }
+
+  static long bucketUpperBound(int index) {
+    if (index < SUB_BUCKETS)
+      return index;
+    final int shift = index / SUB_BUCKETS - 1;
+    final long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+    final long upper = ((subBucket + 1) << shift) - 1;
+    return upper < 0 ? Long.MAX_VALUE : upper;
+  }
+
+}
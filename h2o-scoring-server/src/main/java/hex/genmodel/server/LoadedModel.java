@@ -0,0 +1,115 @@
+package hex.genmodel.server;
+
+import hex.ModelCategory;
+import hex.genmodel.GenModel;
+import hex.genmodel.MojoModel;
+import hex.genmodel.MojoReaderBackend;
+import hex.genmodel.MojoReaderBackendFactory;
+import hex.genmodel.easy.EasyPredictModelWrapper;
+import hex.genmodel.easy.RowData;
+import hex.genmodel.easy.exception.PredictException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static hex.genmodel.utils.ArrayUtils.nanArray;
+
+/**
+ * One version of the served model: the MOJO, the conversion of the input rows and the micro-batcher scoring it.
+ */
+public class LoadedModel implements AutoCloseable {
+
+  private final GenModel _model;
+  private final String _source;
+  private final long _loadedAt;
+  private final RowConverter _converter;
+  private final MicroBatcher _batcher;
+
+  LoadedModel(GenModel model, String source, ScoringServer.Config config, ServerMetrics metrics) {
+    _model = model;
+    _source = source;
+    _loadedAt = System.currentTimeMillis();
+    _converter = new RowConverter(new EasyPredictModelWrapper.Config()
+            .setModel(model)
+            .setConvertUnknownCategoricalLevelsToNa(config._convertUnknownCategoricalLevelsToNa)
+            .setConvertInvalidNumbersToNa(config._convertInvalidNumbersToNa));
+    _batcher = new MicroBatcher(model, config._maxBatchRows, config._maxBatchDelayNanos, config._workers, metrics);
+  }
+
+  /**
+   * Loads a MOJO from a zip file or from an exploded MOJO directory. The zip file is read into memory first, the file
+   * can be replaced as soon as the model is loaded.
+   */
+  static LoadedModel load(File mojo, ScoringServer.Config config, ServerMetrics metrics) throws IOException {
+    final MojoReaderBackend reader;
+    if (mojo.isFile()) {
+      try (InputStream is = new FileInputStream(mojo)) {
+        reader = MojoReaderBackendFactory.createReaderBackend(is, MojoReaderBackendFactory.CachingStrategy.MEMORY);
+      }
+    } else {
+      reader = MojoReaderBackendFactory.createReaderBackend(mojo);
+    }
+    MojoModel model = MojoModel.load(reader);
+    return new LoadedModel(model, mojo.getPath(), config, metrics);
+  }
+
+  /**
+   * Converts the rows and submits them to the micro-batcher.
+   *
+   * @throws PredictException if a row cannot be converted (eg. unknown categorical level)
+   * @throws java.util.concurrent.RejectedExecutionException if this version of the model was already swapped out
+   */
+  CompletableFuture<double[][]> score(List<RowData> rows, double[] offsets) throws PredictException {
+    double[][] rawRows = new double[rows.size()][];
+    for (int i = 0; i < rawRows.length; i++)
+      rawRows[i] = _converter.toRawData(rows.get(i));
+    return _batcher.submit(rawRows, offsets);
+  }
+
+  public GenModel getModel() {
+    return _model;
+  }
+
+  public String getSource() {
+    return _source;
+  }
+
+  public long getLoadedAt() {
+    return _loadedAt;
+  }
+
+  public ModelCategory getModelCategory() {
+    return _model.getModelCategory();
+  }
+
+  /**
+   * @return levels of the response column, null for regression and unsupervised models
+   */
+  public String[] getResponseDomain() {
+    return _model.isSupervised() ? _converter.getResponseDomainValues() : null;
+  }
+
+  /**
+   * Stops accepting new rows, waits for the rows that were already submitted to be scored.
+   */
+  @Override
+  public void close() {
+    _batcher.close();
+  }
+
+  // exposes the conversion of the rows of the easy API
+  private static class RowConverter extends EasyPredictModelWrapper {
+    RowConverter(Config config) {
+      super(config);
+    }
+
+    double[] toRawData(RowData row) throws PredictException {
+      return fillRawData(row, nanArray(m.nfeatures()));
+    }
+  }
+
+}
@@ -0,0 +1,184 @@
+package hex.genmodel.server;
+
+import hex.genmodel.GenModel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Collects rows of concurrent requests into micro-batches and scores them with {@link GenModel#scoreBatch}.
+ *
+ * A batch is closed when it has at least {@code maxBatchRows} rows or when its first request has been waiting for
+ * {@code maxDelayNanos}, whichever comes first. Several worker threads can score batches at the same time, while
+ * one worker is scoring, the others are collecting the next batch.
+ */
+public class MicroBatcher implements AutoCloseable {
+
+  private static final long IDLE_POLL_MILLIS = 100;
+
+  private final GenModel _model;
+  private final int _maxBatchRows;
+  private final long _maxDelayNanos;
+  private final ServerMetrics _metrics;
+
+  private final BlockingQueue<PendingRequest> _queue = new LinkedBlockingQueue<>();
+  private final ReadWriteLock _closeLock = new ReentrantReadWriteLock();
+  private final Thread[] _workers;
+  private volatile boolean _closed;
+
+  public MicroBatcher(GenModel model, int maxBatchRows, long maxDelayNanos, int workers, ServerMetrics metrics) {
+    if (maxBatchRows < 1)
+      throw new IllegalArgumentException("Maximum batch size needs to be positive, got: " + maxBatchRows);
+    if (workers < 1)
+      throw new IllegalArgumentException("Number of workers needs to be positive, got: " + workers);
+    _model = model;
+    _maxBatchRows = maxBatchRows;
+    _maxDelayNanos = maxDelayNanos;
+    _metrics = metrics;
+    _workers = new Thread[workers];
+    for (int i = 0; i < workers; i++) {
+      _workers[i] = new Thread(new Worker(), "MicroBatcher-" + model.getUUID() + "-" + i);
+      _workers[i].setDaemon(true);
+      _workers[i].start();
+    }
+  }
+
+  /**
+   * Queues rows for scoring.
+   *
+   * @param rows raw input rows (as expected by {@link GenModel#score0(double[], double[])})
+   * @param offsets offsets of the rows, can be null
+   * @return future predictions of the rows
+   * @throws RejectedExecutionException if the batcher was closed
+   */
+  public CompletableFuture<double[][]> submit(double[][] rows, double[] offsets) {
+    PendingRequest request = new PendingRequest(rows, offsets);
+    _closeLock.readLock().lock();
+    try {
+      if (_closed)
+        throw new RejectedExecutionException("Micro-batcher of model " + _model.getUUID() + " was closed.");
+      _queue.add(request);
+    } finally {
+      _closeLock.readLock().unlock();
+    }
+    return request._result;
+  }
+
+  /**
+   * Stops accepting new requests, the requests that were already submitted are still scored.
+   * Waits for the workers to finish.
+   */
+  @Override
+  public void close() {
+    _closeLock.writeLock().lock();
+    try {
+      _closed = true;
+    } finally {
+      _closeLock.writeLock().unlock();
+    }
+    for (Thread worker : _workers) {
+      try {
+        worker.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  public boolean isClosed() {
+    return _closed;
+  }
+
+  private void scoreBatch(List<PendingRequest> batch, int nrows) {
+    final long now = System.nanoTime();
+    boolean hasOffsets = false;
+    for (PendingRequest request : batch) {
+      _metrics.recordQueueWait(now - request._enqueuedNanos);
+      hasOffsets |= request._offsets != null;
+    }
+    try {
+      final int nfeatures = _model.nfeatures();
+      double[][] cols = new double[nfeatures][nrows];
+      double[] offsets = hasOffsets ? new double[nrows] : null;
+      int row = 0;
+      for (PendingRequest request : batch) {
+        for (int i = 0; i < request._rows.length; i++, row++) {
+          final double[] r = request._rows[i];
+          for (int c = 0; c < nfeatures; c++)
+            cols[c][row] = r[c];
+          if (request._offsets != null)
+            offsets[row] = request._offsets[i];
+        }
+      }
+      double[][] preds = new double[nrows][_model.getPredsSize()];
+      _model.scoreBatch(cols, offsets, nrows, preds);
+      _metrics.recordBatch(nrows, System.nanoTime() - now);
+      row = 0;
+      for (PendingRequest request : batch) {
+        request._result.complete(Arrays.copyOfRange(preds, row, row + request._rows.length));
+        row += request._rows.length;
+      }
+    } catch (Throwable t) {
+      for (PendingRequest request : batch)
+        request._result.completeExceptionally(t);
+    }
+  }
+
+  private class Worker implements Runnable {
+    @Override
+    public void run() {
+      List<PendingRequest> batch = new ArrayList<>();
+      while (true) {
+        PendingRequest first;
+        try {
+          first = _queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+          if (first == null) {
+            if (_closed && _queue.isEmpty())
+              return;
+            continue;
+          }
+          batch.add(first);
+          int nrows = first._rows.length;
+          final long deadline = first._enqueuedNanos + _maxDelayNanos;
+          while (nrows < _maxBatchRows) {
+            final long wait = deadline - System.nanoTime();
+            PendingRequest next = wait > 0 ? _queue.poll(wait, TimeUnit.NANOSECONDS) : _queue.poll();
+            if (next == null)
+              break;
+            batch.add(next);
+            nrows += next._rows.length;
+          }
+          scoreBatch(batch, nrows);
+        } catch (InterruptedException e) {
+          for (PendingRequest request : batch)
+            request._result.completeExceptionally(e);
+          return;
+        } finally {
+          batch.clear();
+        }
+      }
+    }
+  }
+
+  private static class PendingRequest {
+    final double[][] _rows;
+    final double[] _offsets;
+    final long _enqueuedNanos = System.nanoTime();
+    final CompletableFuture<double[][]> _result = new CompletableFuture<>();
+
+    PendingRequest(double[][] rows, double[] offsets) {
+      _rows = rows;
+      _offsets = offsets;
+    }
+  }
+
+}
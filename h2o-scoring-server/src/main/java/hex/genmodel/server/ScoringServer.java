@@ -0,0 +1,158 @@
+package hex.genmodel.server;
+
+import fi.iki.elonen.NanoHTTPD;
+import fi.iki.elonen.router.RouterNanoHTTPD;
+import hex.genmodel.server.api.MetricsEndpoint;
+import hex.genmodel.server.api.ModelEndpoint;
+import hex.genmodel.server.api.ScoreEndpoint;
+import water.logging.Logger;
+import water.logging.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stand-alone HTTP server scoring a MOJO, no H2O cluster is needed.
+ *
+ * <pre>
+ *   java -jar h2o-scoring-server.jar --mojo model.zip [--port 8080] [--max-batch-rows 256] [--max-batch-delay-ms 2]
+ *        [--workers 2] [--watch-interval-ms 0] [--convert-unknown-levels-to-na] [--convert-invalid-numbers-to-na]
+ * </pre>
+ *
+ * Endpoints:
+ * <ul>
+ *   <li>{@code POST /score} - scores rows given as JSON: {@code {"rows": [{"col": value, ...}, ...], "offsets": [...]}},
+ *   concurrent requests are scored together in micro-batches</li>
+ *   <li>{@code GET /model} - information about the model being served</li>
+ *   <li>{@code POST /model} - re-loads the MOJO (or loads the MOJO given by the {@code path} parameter) and swaps it
+ *   for the current model without interrupting the scoring</li>
+ *   <li>{@code GET /metrics} - latency and batch size histograms</li>
+ * </ul>
+ */
+public class ScoringServer extends RouterNanoHTTPD implements AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ScoringServer.class);
+
+  private final ScoringService _service;
+
+  public ScoringServer(Config config, ScoringService service) {
+    super(config._port);
+    _service = service;
+    addMappings();
+  }
+
+  @Override
+  public void addMappings() {
+    super.addMappings();
+    addRoute("/score", ScoreEndpoint.class, _service);
+    addRoute("/model", ModelEndpoint.class, _service);
+    addRoute("/metrics", MetricsEndpoint.class, _service);
+  }
+
+  @Override
+  public void start() throws IOException {
+    start(NanoHTTPD.SOCKET_READ_TIMEOUT, false);
+  }
+
+  @Override
+  public void close() {
+    stop();
+    _service.close();
+  }
+
+  /**
+   * Configuration of the server.
+   */
+  public static class Config {
+    public File _mojo;
+    public int _port = 8080;
+    /** Batch is closed once it has at least this many rows... */
+    public int _maxBatchRows = 256;
+    /** ...or once its first request waited this long. */
+    public long _maxBatchDelayNanos = TimeUnit.MILLISECONDS.toNanos(2);
+    /** Number of threads scoring the batches. */
+    public int _workers = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    /** How often to check the MOJO for changes, 0 disables watching. */
+    public long _watchIntervalMillis = 0;
+    public boolean _convertUnknownCategoricalLevelsToNa;
+    public boolean _convertInvalidNumbersToNa;
+
+    public static Config parseArgs(String[] args) {
+      Config config = new Config();
+      for (int i = 0; i < args.length; i++) {
+        String s = args[i];
+        switch (s) {
+          case "--mojo":
+            config._mojo = new File(value(args, ++i, s));
+            break;
+          case "--port":
+            config._port = Integer.parseInt(value(args, ++i, s));
+            break;
+          case "--max-batch-rows":
+            config._maxBatchRows = Integer.parseInt(value(args, ++i, s));
+            break;
+          case "--max-batch-delay-ms":
+            config._maxBatchDelayNanos = TimeUnit.MICROSECONDS.toNanos((long) (Double.parseDouble(value(args, ++i, s)) * 1000));
+            break;
+          case "--workers":
+            config._workers = Integer.parseInt(value(args, ++i, s));
+            break;
+          case "--watch-interval-ms":
+            config._watchIntervalMillis = Long.parseLong(value(args, ++i, s));
+            break;
+          case "--convert-unknown-levels-to-na":
+            config._convertUnknownCategoricalLevelsToNa = true;
+            break;
+          case "--convert-invalid-numbers-to-na":
+            config._convertInvalidNumbersToNa = true;
+            break;
+          default:
+            throw new IllegalArgumentException("Unknown argument: " + s);
+        }
+      }
+      if (config._mojo == null)
+        throw new IllegalArgumentException("Missing argument: --mojo");
+      return config;
+    }
+
+    private static String value(String[] args, int i, String name) {
+      if (i >= args.length)
+        throw new IllegalArgumentException("Missing value of argument " + name);
+      return args[i];
+    }
+  }
+
+  private static void usage() {
+    System.err.println("");
+    System.err.println("usage:  java -jar h2o-scoring-server.jar --mojo model.zip [--port 8080]");
+    System.err.println("            [--max-batch-rows 256] [--max-batch-delay-ms 2] [--workers n]");
+    System.err.println("            [--watch-interval-ms 0] [--convert-unknown-levels-to-na] [--convert-invalid-numbers-to-na]");
+    System.err.println("");
+    System.err.println("     --mojo                MOJO zip file or exploded MOJO directory to serve.");
+    System.err.println("     --port                Port to listen on.");
+    System.err.println("     --max-batch-rows      A micro-batch is scored once it has at least this many rows...");
+    System.err.println("     --max-batch-delay-ms  ...or once its first request waited this long.");
+    System.err.println("     --workers             Number of threads scoring micro-batches.");
+    System.err.println("     --watch-interval-ms   Re-load the MOJO when it changes, checked with this interval (0 = off).");
+    System.err.println("");
+    System.exit(1);
+  }
+
+  public static void main(String[] args) throws IOException {
+    Config config;
+    try {
+      config = Config.parseArgs(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      usage();
+      return;
+    }
+    final ScoringService service = new ScoringService(config);
+    final ScoringServer server = new ScoringServer(config, service);
+    Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+    server.start();
+    LOG.info("Scoring server listening on port " + config._port + ", serving " + config._mojo + ".");
+  }
+
+}
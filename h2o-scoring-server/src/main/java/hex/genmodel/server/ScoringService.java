@@ -0,0 +1,191 @@
+package hex.genmodel.server;
+
+import hex.genmodel.GenModel;
+import hex.genmodel.easy.RowData;
+import hex.genmodel.easy.exception.PredictException;
+import water.logging.Logger;
+import water.logging.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Serves the current version of the model and swaps it for a new one without interrupting the scoring.
+ *
+ * A request is scored by the version that was current when it arrived. When the model is swapped, the new version
+ * starts receiving requests immediately while the old version finishes the rows already queued and is then closed.
+ * Optionally the MOJO file is watched and re-loaded when it changes.
+ */
+public class ScoringService implements AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ScoringService.class);
+  private static final int MAX_SCORING_ATTEMPTS = 3;
+
+  private final ScoringServer.Config _config;
+  private final ServerMetrics _metrics = new ServerMetrics();
+  private final AtomicReference<LoadedModel> _model = new AtomicReference<>();
+  private final ScheduledExecutorService _watcher;
+  private volatile long _watchedLastModified;
+
+  /**
+   * Creates a service serving the MOJO of the configuration.
+   */
+  public ScoringService(ScoringServer.Config config) throws IOException {
+    this(config, null);
+  }
+
+  /**
+   * Creates a service serving an already loaded model (the configured MOJO is only used for re-loading).
+   */
+  public ScoringService(ScoringServer.Config config, GenModel model) throws IOException {
+    _config = config;
+    if (model != null) {
+      _model.set(new LoadedModel(model, "<embedded>", config, _metrics));
+    } else if (config._mojo != null) {
+      _watchedLastModified = lastModified(config._mojo);
+      _model.set(LoadedModel.load(config._mojo, config, _metrics));
+    } else {
+      throw new IllegalArgumentException("Path to a MOJO needs to be specified.");
+    }
+    if (config._watchIntervalMillis > 0 && config._mojo != null) {
+      _watcher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "MojoWatcher");
+        t.setDaemon(true);
+        return t;
+      });
+      _watcher.scheduleWithFixedDelay(this::checkForChange,
+              config._watchIntervalMillis, config._watchIntervalMillis, TimeUnit.MILLISECONDS);
+    } else {
+      _watcher = null;
+    }
+  }
+
+  /**
+   * Scores the rows with the current version of the model.
+   *
+   * @param rows input rows
+   * @param offsets offsets of the rows, can be null
+   * @return predictions together with the version of the model that produced them
+   * @throws PredictException if a row cannot be converted
+   * @throws ExecutionException if the model failed to score the rows
+   */
+  public Predictions score(List<RowData> rows, double[] offsets) throws PredictException, ExecutionException, InterruptedException {
+    if (offsets != null && offsets.length != rows.size())
+      throw new IllegalArgumentException("Expected " + rows.size() + " offsets, got " + offsets.length + ".");
+    for (int attempt = 1; ; attempt++) {
+      LoadedModel model = _model.get();
+      if (model == null)
+        throw new IllegalStateException("Scoring service was closed.");
+      try {
+        return new Predictions(model, model.score(rows, offsets).get());
+      } catch (RejectedExecutionException e) {
+        // the model was swapped after we picked it, retry with the new one
+        if (attempt == MAX_SCORING_ATTEMPTS)
+          throw e;
+      }
+    }
+  }
+
+  /**
+   * Re-loads the model from the configured location.
+   */
+  public LoadedModel reload() throws IOException {
+    if (_config._mojo == null)
+      throw new IllegalStateException("No MOJO location configured, the model cannot be re-loaded.");
+    return swap(_config._mojo);
+  }
+
+  /**
+   * Loads a model and makes it the current one. The previous version is closed once its queued rows are scored.
+   * If the new model cannot be loaded, the current one keeps being served.
+   *
+   * @param mojo MOJO zip file or directory
+   * @return the new current version of the model
+   */
+  public synchronized LoadedModel swap(File mojo) throws IOException {
+    final long lastModified = lastModified(mojo);
+    LoadedModel newModel = LoadedModel.load(mojo, _config, _metrics);
+    if (mojo.equals(_config._mojo))
+      _watchedLastModified = lastModified;
+    return swap(newModel);
+  }
+
+  /**
+   * Makes an already loaded model the current one. The previous version is closed once its queued rows are scored.
+   *
+   * @param model new model
+   * @param source description of where the model comes from
+   * @return the new current version of the model
+   */
+  public synchronized LoadedModel swap(GenModel model, String source) {
+    return swap(new LoadedModel(model, source, _config, _metrics));
+  }
+
+  private LoadedModel swap(LoadedModel newModel) {
+    LoadedModel oldModel = _model.getAndSet(newModel);
+    _metrics.recordModelSwap();
+    LOG.info("Serving model " + newModel.getModel().getUUID() + " loaded from " + newModel.getSource() + ".");
+    if (oldModel != null)
+      oldModel.close();
+    return newModel;
+  }
+
+  public LoadedModel getModel() {
+    return _model.get();
+  }
+
+  public ServerMetrics getMetrics() {
+    return _metrics;
+  }
+
+  private void checkForChange() {
+    try {
+      if (lastModified(_config._mojo) != _watchedLastModified) {
+        LOG.info("MOJO " + _config._mojo + " was modified, re-loading.");
+        reload();
+      }
+    } catch (Exception e) {
+      // keep serving the current model, the file might still be being written
+      LOG.warn("Failed to re-load MOJO " + _config._mojo + ": " + e.getMessage());
+    }
+  }
+
+  private static long lastModified(File mojo) {
+    if (!mojo.isDirectory())
+      return mojo.lastModified();
+    long lastModified = mojo.lastModified();
+    File[] files = mojo.listFiles();
+    if (files != null) {
+      for (File f : files)
+        lastModified = Math.max(lastModified, lastModified(f));
+    }
+    return lastModified;
+  }
+
+  @Override
+  public void close() {
+    if (_watcher != null)
+      _watcher.shutdownNow();
+    LoadedModel model = _model.getAndSet(null);
+    if (model != null)
+      model.close();
+  }
+
+  public static class Predictions {
+    public final LoadedModel _model;
+    public final double[][] _preds;
+
+    Predictions(LoadedModel model, double[][] preds) {
+      _model = model;
+      _preds = preds;
+    }
+  }
+
+}
@@ -0,0 +1,98 @@
+package hex.genmodel.server;
+
+import com.google.gson.JsonObject;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics of the scoring server. Latencies are recorded in microseconds and reported in milliseconds.
+ */
+public class ServerMetrics {
+
+  private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+  /** Time from receiving a scoring request to sending the response. */
+  final Histogram _requestLatency = new Histogram();
+  /** Time a request waited in the queue of the micro-batcher. */
+  final Histogram _queueWait = new Histogram();
+  /** Time the model took to score a micro-batch. */
+  final Histogram _batchScoring = new Histogram();
+  /** Number of rows in a micro-batch. */
+  final Histogram _batchSize = new Histogram();
+
+  final AtomicLong _failedRequests = new AtomicLong();
+  final AtomicLong _modelSwaps = new AtomicLong();
+
+  public void recordRequest(long startNanos) {
+    _requestLatency.record(micros(System.nanoTime() - startNanos));
+  }
+
+  public void recordFailedRequest() {
+    _failedRequests.incrementAndGet();
+  }
+
+  void recordQueueWait(long waitNanos) {
+    _queueWait.record(micros(waitNanos));
+  }
+
+  void recordBatch(int rows, long scoringNanos) {
+    _batchSize.record(rows);
+    _batchScoring.record(micros(scoringNanos));
+  }
+
+  void recordModelSwap() {
+    _modelSwaps.incrementAndGet();
+  }
+
+  public Histogram getRequestLatency() {
+    return _requestLatency;
+  }
+
+  public Histogram getQueueWait() {
+    return _queueWait;
+  }
+
+  public Histogram getBatchScoring() {
+    return _batchScoring;
+  }
+
+  public Histogram getBatchSize() {
+    return _batchSize;
+  }
+
+  public JsonObject toJson() {
+    JsonObject json = new JsonObject();
+    json.add("request_latency_ms", latencyJson(_requestLatency));
+    json.add("queue_wait_ms", latencyJson(_queueWait));
+    json.add("batch_scoring_ms", latencyJson(_batchScoring));
+    JsonObject batchSize = new JsonObject();
+    batchSize.addProperty("count", _batchSize.getCount());
+    batchSize.addProperty("mean", _batchSize.getMean());
+    for (double p : PERCENTILES)
+      batchSize.addProperty(percentileName(p), _batchSize.getPercentile(p));
+    batchSize.addProperty("max", _batchSize.getMax());
+    json.add("batch_size_rows", batchSize);
+    json.addProperty("failed_requests", _failedRequests.get());
+    json.addProperty("model_swaps", _modelSwaps.get());
+    return json;
+  }
+
+  private static JsonObject latencyJson(Histogram histogram) {
+    JsonObject json = new JsonObject();
+    json.addProperty("count", histogram.getCount());
+    json.addProperty("mean", histogram.getMean() / 1000);
+    for (double p : PERCENTILES)
+      json.addProperty(percentileName(p), histogram.getPercentile(p) / 1000.0);
+    json.addProperty("max", histogram.getMax() / 1000.0);
+    return json;
+  }
+
+  private static String percentileName(double p) {
+    return "p" + (p == Math.rint(p) ? String.valueOf((int) p) : String.valueOf(p).replace(".", ""));
+  }
+
+  private static long micros(long nanos) {
+    return nanos / 1000;
+  }
+
+}
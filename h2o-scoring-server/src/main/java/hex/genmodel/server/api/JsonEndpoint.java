@@ -0,0 +1,65 @@
+package hex.genmodel.server.api;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import fi.iki.elonen.NanoHTTPD;
+import fi.iki.elonen.router.RouterNanoHTTPD;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Base class of the endpoints of the scoring server, all of them respond with JSON.
+ */
+abstract class JsonEndpoint extends RouterNanoHTTPD.DefaultHandler {
+
+  static final String MIME_TYPE = "application/json";
+
+  // predictions can legitimately be NaN
+  static final Gson GSON = new GsonBuilder().serializeSpecialFloatingPointValues().create();
+
+  @Override
+  public String getText() {
+    throw new IllegalStateException(String.format("Method getText should not be called on '%s'",
+            getClass().getName()));
+  }
+
+  @Override
+  public String getMimeType() {
+    return MIME_TYPE;
+  }
+
+  @Override
+  public NanoHTTPD.Response.IStatus getStatus() {
+    throw new IllegalStateException(String.format("Method getStatus should not be called on '%s'",
+            getClass().getName()));
+  }
+
+  static NanoHTTPD.Response json(NanoHTTPD.Response.IStatus status, JsonElement json) {
+    return NanoHTTPD.newFixedLengthResponse(status, MIME_TYPE, GSON.toJson(json));
+  }
+
+  static NanoHTTPD.Response error(NanoHTTPD.Response.IStatus status, String message) {
+    JsonObject json = new JsonObject();
+    json.addProperty("error", message);
+    return json(status, json);
+  }
+
+  /**
+   * @return body of a POST request, null if it cannot be read
+   */
+  static String body(NanoHTTPD.IHTTPSession session) {
+    final Map<String, String> files = new HashMap<>();
+    try {
+      session.parseBody(files);
+    } catch (IOException | NanoHTTPD.ResponseException e) {
+      return null;
+    }
+    // the body of requests that are not form submissions is stored as `postData`
+    return files.get("postData");
+  }
+
+}
@@ -0,0 +1,20 @@
+package hex.genmodel.server.api;
+
+import fi.iki.elonen.NanoHTTPD;
+import fi.iki.elonen.router.RouterNanoHTTPD;
+import hex.genmodel.server.ScoringService;
+
+import java.util.Map;
+
+/**
+ * Latency histograms and counters of the scoring server.
+ */
+public class MetricsEndpoint extends JsonEndpoint {
+
+  @Override
+  public NanoHTTPD.Response get(RouterNanoHTTPD.UriResource uriResource, Map<String, String> urlParams, NanoHTTPD.IHTTPSession session) {
+    final ScoringService service = uriResource.initParameter(ScoringService.class);
+    return json(NanoHTTPD.Response.Status.OK, service.getMetrics().toJson());
+  }
+
+}
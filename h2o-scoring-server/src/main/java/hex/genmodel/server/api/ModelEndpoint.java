@@ -0,0 +1,61 @@
+package hex.genmodel.server.api;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import fi.iki.elonen.NanoHTTPD;
+import fi.iki.elonen.router.RouterNanoHTTPD;
+import hex.genmodel.GenModel;
+import hex.genmodel.server.LoadedModel;
+import hex.genmodel.server.ScoringService;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Information about the served model (GET) and swapping of the model (POST).
+ *
+ * A POST without parameters re-loads the MOJO from its configured location, parameter {@code path} loads
+ * a different MOJO. The current model keeps being served if the new one fails to load.
+ */
+public class ModelEndpoint extends JsonEndpoint {
+
+  @Override
+  public NanoHTTPD.Response get(RouterNanoHTTPD.UriResource uriResource, Map<String, String> urlParams, NanoHTTPD.IHTTPSession session) {
+    final ScoringService service = uriResource.initParameter(ScoringService.class);
+    return json(NanoHTTPD.Response.Status.OK, describe(service.getModel()));
+  }
+
+  @Override
+  public NanoHTTPD.Response post(RouterNanoHTTPD.UriResource uriResource, Map<String, String> urlParams, NanoHTTPD.IHTTPSession session) {
+    final ScoringService service = uriResource.initParameter(ScoringService.class);
+    final List<String> path = session.getParameters().get("path");
+    try {
+      LoadedModel model = path == null || path.isEmpty() ? service.reload() : service.swap(new File(path.get(0)));
+      return json(NanoHTTPD.Response.Status.OK, describe(model));
+    } catch (Exception e) {
+      return error(NanoHTTPD.Response.Status.BAD_REQUEST, "Failed to load the model: " + e.getMessage());
+    }
+  }
+
+  private static JsonObject describe(LoadedModel model) {
+    final GenModel genModel = model.getModel();
+    JsonObject json = new JsonObject();
+    json.addProperty("model_id", genModel.getUUID());
+    json.addProperty("category", String.valueOf(model.getModelCategory()));
+    json.addProperty("source", model.getSource());
+    json.addProperty("loaded_at", model.getLoadedAt());
+    JsonArray columns = new JsonArray();
+    for (int i = 0; i < genModel.nfeatures(); i++)
+      columns.add(genModel.getNames()[i]);
+    json.add("columns", columns);
+    if (model.getResponseDomain() != null) {
+      JsonArray domain = new JsonArray();
+      for (String level : model.getResponseDomain())
+        domain.add(level);
+      json.add("response_domain", domain);
+    }
+    return json;
+  }
+
+}
@@ -0,0 +1,122 @@
+package hex.genmodel.server.api;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import fi.iki.elonen.NanoHTTPD;
+import fi.iki.elonen.router.RouterNanoHTTPD;
+import hex.genmodel.easy.RowData;
+import hex.genmodel.easy.exception.PredictException;
+import hex.genmodel.server.LoadedModel;
+import hex.genmodel.server.ScoringService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Scores rows posted as JSON: {@code {"rows": [{"column": value, ...}, ...], "offsets": [...]}}. Offsets are optional,
+ * missing columns are treated as missing values.
+ *
+ * Responds with one prediction per row: {@code {"label": ..., "class_probabilities": [...]}} for classification models,
+ * {@code {"value": ...}} for regression, {@code {"cluster": ...}} for clustering and {@code {"values": [...]}} (the raw
+ * output of the model) otherwise.
+ */
+public class ScoreEndpoint extends JsonEndpoint {
+
+  static class ScoreRequest {
+    List<Map<String, Object>> rows;
+    double[] offsets;
+  }
+
+  @Override
+  public NanoHTTPD.Response post(RouterNanoHTTPD.UriResource uriResource, Map<String, String> urlParams, NanoHTTPD.IHTTPSession session) {
+    final long start = System.nanoTime();
+    final ScoringService service = uriResource.initParameter(ScoringService.class);
+    NanoHTTPD.Response response;
+    try {
+      response = score(service, body(session));
+    } catch (Exception e) {
+      response = error(NanoHTTPD.Response.Status.INTERNAL_ERROR, String.valueOf(e.getMessage()));
+    }
+    if (response.getStatus() != NanoHTTPD.Response.Status.OK)
+      service.getMetrics().recordFailedRequest();
+    service.getMetrics().recordRequest(start);
+    return response;
+  }
+
+  private static NanoHTTPD.Response score(ScoringService service, String body) throws InterruptedException {
+    if (body == null)
+      return error(NanoHTTPD.Response.Status.BAD_REQUEST, "Missing request body.");
+    final ScoreRequest request;
+    try {
+      request = GSON.fromJson(body, ScoreRequest.class);
+    } catch (JsonParseException e) {
+      return error(NanoHTTPD.Response.Status.BAD_REQUEST, "Malformed request: " + e.getMessage());
+    }
+    if (request == null || request.rows == null)
+      return error(NanoHTTPD.Response.Status.BAD_REQUEST, "Request needs to contain \"rows\".");
+    List<RowData> rows = new ArrayList<>(request.rows.size());
+    for (Map<String, Object> row : request.rows) {
+      RowData rowData = new RowData();
+      if (row != null) {
+        for (Map.Entry<String, Object> e : row.entrySet()) {
+          if (e.getValue() != null) // missing value
+            rowData.put(e.getKey(), e.getValue());
+        }
+      }
+      rows.add(rowData);
+    }
+    final ScoringService.Predictions predictions;
+    try {
+      predictions = service.score(rows, request.offsets);
+    } catch (PredictException | IllegalArgumentException e) {
+      return error(NanoHTTPD.Response.Status.BAD_REQUEST, e.getMessage());
+    } catch (RejectedExecutionException | IllegalStateException e) {
+      return error(NanoHTTPD.Response.Status.SERVICE_UNAVAILABLE, e.getMessage());
+    } catch (ExecutionException e) {
+      return error(NanoHTTPD.Response.Status.INTERNAL_ERROR, "Scoring failed: " + e.getCause());
+    }
+    return json(NanoHTTPD.Response.Status.OK, toJson(predictions));
+  }
+
+  static JsonObject toJson(ScoringService.Predictions predictions) {
+    final LoadedModel model = predictions._model;
+    final String[] domain = model.getResponseDomain();
+    JsonArray rows = new JsonArray();
+    for (double[] preds : predictions._preds) {
+      JsonObject row = new JsonObject();
+      switch (model.getModelCategory()) {
+        case Binomial:
+        case Multinomial:
+        case Ordinal:
+          final int label = (int) preds[0];
+          row.addProperty("label", domain != null ? domain[label] : String.valueOf(label));
+          JsonArray probabilities = new JsonArray();
+          for (int i = 1; i < preds.length; i++)
+            probabilities.add(preds[i]);
+          row.add("class_probabilities", probabilities);
+          break;
+        case Regression:
+          row.addProperty("value", preds[0]);
+          break;
+        case Clustering:
+          row.addProperty("cluster", (int) preds[0]);
+          break;
+        default:
+          JsonArray values = new JsonArray();
+          for (double p : preds)
+            values.add(p);
+          row.add("values", values);
+      }
+      rows.add(row);
+    }
+    JsonObject json = new JsonObject();
+    json.addProperty("model_id", model.getModel().getUUID());
+    json.add("predictions", rows);
+    return json;
+  }
+
+}
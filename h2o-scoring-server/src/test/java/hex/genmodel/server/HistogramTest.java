@@ -0,0 +1,38 @@
+package hex.genmodel.server;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HistogramTest {
+
+  @Test
+  public void testBucketsAreContiguous() {
+    long previousUpper = -1;
+    for (int i = 0; i < 300; i++) {
+      long upper = Histogram.bucketUpperBound(i);
+      assertEquals(i, Histogram.bucketIndex(previousUpper + 1));
+      assertEquals(i, Histogram.bucketIndex(upper));
+      previousUpper = upper;
+    }
+    assertEquals(Long.MAX_VALUE, Histogram.bucketUpperBound(Histogram.bucketIndex(Long.MAX_VALUE)));
+  }
+
+  @Test
+  public void testPercentiles() {
+    Histogram histogram = new Histogram();
+    assertEquals(0, histogram.getPercentile(50));
+    for (int i = 1; i <= 1000; i++)
+      histogram.record(i);
+    assertEquals(1000, histogram.getCount());
+    assertEquals(1000, histogram.getMax());
+    assertEquals(500.5, histogram.getMean(), 0);
+    assertEquals(1000, histogram.getPercentile(100));
+    for (double p : new double[]{1, 50, 90, 99, 99.9}) {
+      final double exact = p * 10;
+      final long reported = histogram.getPercentile(p);
+      assertTrue(p + ": " + reported, reported >= exact && reported <= exact * (1 + 1.0 / Histogram.SUB_BUCKETS));
+    }
+  }
+
+}
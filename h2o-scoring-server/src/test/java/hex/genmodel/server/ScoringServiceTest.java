@@ -0,0 +1,138 @@
+package hex.genmodel.server;
+
+import hex.ModelCategory;
+import hex.genmodel.GenModel;
+import hex.genmodel.easy.RowData;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ScoringServiceTest {
+
+  @Test
+  public void testConcurrentRequestsAreScoredInBatches() throws Exception {
+    ScoringServer.Config config = new ScoringServer.Config();
+    config._maxBatchRows = 64;
+    config._maxBatchDelayNanos = TimeUnit.MILLISECONDS.toNanos(200);
+    config._workers = 1;
+    final LinearModel model = new LinearModel(2);
+    final int nRequests = 16;
+    ExecutorService executor = Executors.newFixedThreadPool(nRequests);
+    try (final ScoringService service = new ScoringService(config, model)) {
+      List<Future<ScoringService.Predictions>> results = new ArrayList<>();
+      for (int i = 0; i < nRequests; i++) {
+        final double x = i;
+        results.add(executor.submit(new Callable<ScoringService.Predictions>() {
+          @Override
+          public ScoringService.Predictions call() throws Exception {
+            return service.score(Collections.singletonList(row(x)), new double[]{0.5});
+          }
+        }));
+      }
+      for (int i = 0; i < nRequests; i++) {
+        double[][] preds = results.get(i).get()._preds;
+        assertEquals(1, preds.length);
+        assertEquals(2 * i + 0.5, preds[0][0], 0);
+      }
+      assertEquals(nRequests, model._scoredRows.get());
+      assertTrue("Requests should be batched", model._batches.get() < nRequests);
+      assertEquals(model._batches.get(), service.getMetrics().getBatchSize().getCount());
+      assertEquals(nRequests, service.getMetrics().getQueueWait().getCount());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testModelSwapDoesNotInterruptScoring() throws Exception {
+    ScoringServer.Config config = new ScoringServer.Config();
+    config._maxBatchRows = 8;
+    config._maxBatchDelayNanos = TimeUnit.MILLISECONDS.toNanos(1);
+    config._workers = 2;
+    final int nThreads = 4;
+    ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+    try (final ScoringService service = new ScoringService(config, new LinearModel(1))) {
+      List<Future<Integer>> results = new ArrayList<>();
+      for (int t = 0; t < nThreads; t++) {
+        results.add(executor.submit(new Callable<Integer>() {
+          @Override
+          public Integer call() throws Exception {
+            int scored = 0;
+            for (int i = 0; i < 200; i++) {
+              ScoringService.Predictions p = service.score(Collections.singletonList(row(i)), null);
+              LinearModel model = (LinearModel) p._model.getModel();
+              assertEquals(model._coef * i, p._preds[0][0], 0);
+              scored++;
+            }
+            return scored;
+          }
+        }));
+      }
+      for (int coef = 2; coef <= 10; coef++) {
+        service.swap(new LinearModel(coef), "test-" + coef);
+        Thread.sleep(5);
+      }
+      for (Future<Integer> result : results)
+        assertEquals(200, (int) result.get());
+      assertEquals(10, ((LinearModel) service.getModel().getModel())._coef);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static RowData row(double x) {
+    RowData row = new RowData();
+    row.put("X", x);
+    return row;
+  }
+
+  private static class LinearModel extends GenModel {
+    final int _coef;
+    final AtomicInteger _batches = new AtomicInteger();
+    final AtomicInteger _scoredRows = new AtomicInteger();
+
+    LinearModel(int coef) {
+      super(new String[]{"X"}, new String[][]{null}, null);
+      _coef = coef;
+    }
+
+    @Override
+    public void scoreBatch(double[][] cols, double[] offsets, int nrows, double[][] preds) {
+      _batches.incrementAndGet();
+      _scoredRows.addAndGet(nrows);
+      super.scoreBatch(cols, offsets, nrows, preds);
+    }
+
+    @Override
+    public double[] score0(double[] row, double[] preds) {
+      return score0(row, 0, preds);
+    }
+
+    @Override
+    public double[] score0(double[] row, double offset, double[] preds) {
+      preds[0] = _coef * row[0] + offset;
+      return preds;
+    }
+
+    @Override
+    public ModelCategory getModelCategory() {
+      return ModelCategory.Regression;
+    }
+
+    @Override
+    public String getUUID() {
+      return "linear-" + _coef;
+    }
+  }
+
+}